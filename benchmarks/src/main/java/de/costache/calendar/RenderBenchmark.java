@@ -0,0 +1,141 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar;
+
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.ui.strategy.DisplayStrategy.Type;
+import de.costache.calendar.util.CalendarUtil;
+import de.costache.calendar.util.SyntheticEvents;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Paints a {@link JCalendar} into a {@link BufferedImage} in every display
+ * strategy and reports frames per second, the median and 99th percentile
+ * paint time and the bytes allocated per frame. Runs without a display.
+ * <p>
+ * Arguments: the number of seeded events (default 10000), the number of
+ * measured frames (default 500), the width and the height of the frame
+ * (default 1280x900).
+ *
+ * @author theodorcostache
+ */
+public class RenderBenchmark {
+
+    private static final Date DAY = CalendarUtil.createDate(2013, 3, 12, 0, 0, 0, 0);
+
+    private final int eventCount;
+    private final int frames;
+    private final int width;
+    private final int height;
+
+    public RenderBenchmark(final int eventCount, final int frames, final int width, final int height) {
+        this.eventCount = eventCount;
+        this.frames = frames;
+        this.width = width;
+        this.height = height;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null)
+            System.setProperty("java.awt.headless", "true");
+
+        final RenderBenchmark benchmark = new RenderBenchmark(args.length > 0 ? Integer.parseInt(args[0]) : 10000,
+                args.length > 1 ? Integer.parseInt(args[1]) : 500, args.length > 2 ? Integer.parseInt(args[2]) : 1280,
+                args.length > 3 ? Integer.parseInt(args[3]) : 900);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                benchmark.run();
+            }
+        });
+    }
+
+    private void run() {
+        final JCalendar calendar = new JCalendar();
+        final List<CalendarEvent> events = SyntheticEvents.demoEvents(SyntheticEvents.SEED, eventCount);
+        events.addAll(SyntheticEvents.dayEvents(SyntheticEvents.SEED, 40, 120));
+        calendar.addCalendarEvents(events);
+        calendar.setSize(width, height);
+
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        System.out.printf("%d events, %d frames of %dx%d%n", events.size(), frames, width, height);
+        System.out.printf("%-8s %10s %10s %10s %14s%n", "strategy", "fps", "p50 ms", "p99 ms", "alloc/frame");
+        for (final Type type : Type.values()) {
+            calendar.setDisplayStrategy(type, DAY);
+            layout(calendar);
+
+            for (int i = 0; i < frames / 2 + 50; i++) {
+                paint(calendar, image);
+            }
+
+            final long[] durations = new long[frames];
+            final long allocatedBefore = allocatedBytes();
+            final long start = System.nanoTime();
+            for (int i = 0; i < frames; i++) {
+                final long frameStart = System.nanoTime();
+                paint(calendar, image);
+                durations[i] = System.nanoTime() - frameStart;
+            }
+            final long elapsed = System.nanoTime() - start;
+            final long allocated = allocatedBytes() - allocatedBefore;
+
+            Arrays.sort(durations);
+            System.out.printf("%-8s %10.1f %10.3f %10.3f %11d kB%n", type, frames * 1e9 / elapsed,
+                    durations[frames / 2] / 1e6, durations[(int) Math.ceil(frames * 0.99) - 1] / 1e6,
+                    allocatedBefore < 0 ? -1 : allocated / frames / 1024);
+        }
+    }
+
+    private static void paint(final JCalendar calendar, final BufferedImage image) {
+        final Graphics2D g = image.createGraphics();
+        try {
+            calendar.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Lays out the whole component tree, which is never made displayable
+     */
+    private static void layout(final Component component) {
+        component.doLayout();
+        if (component instanceof Container) {
+            for (final Component child : ((Container) component).getComponents()) {
+                layout(child);
+            }
+        }
+    }
+
+    /**
+     * @return the bytes allocated by the current thread so far, -1 if the
+     *         JVM does not support measuring them
+     */
+    private static long allocatedBytes() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean))
+            return -1;
+        return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
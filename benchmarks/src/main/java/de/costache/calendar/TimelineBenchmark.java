@@ -0,0 +1,144 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar;
+
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.ui.strategy.DisplayStrategy.Type;
+import de.costache.calendar.util.CalendarUtil;
+import de.costache.calendar.util.SyntheticEvents;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Shows events spread over many resources in the timeline strategy and
+ * scrolls through all lanes one block at a time, down and back up, twice,
+ * reporting the median and 99th percentile time of a scroll step including
+ * the paint of the newly visible lanes. The first round fetches and lays out
+ * every lane, the second one finds them laid out already. Runs without a
+ * display.
+ * <p>
+ * Arguments: the number of resources (default 500), the number of seeded
+ * events (default 10000), the number of shown days (default 1).
+ *
+ * @author theodorcostache
+ */
+public class TimelineBenchmark {
+
+    private static final Date DAY = CalendarUtil.createDate(2013, 3, 12, 0, 0, 0, 0);
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 900;
+
+    private final int resources;
+    private final int eventCount;
+    private final int days;
+
+    public TimelineBenchmark(final int resources, final int eventCount, final int days) {
+        this.resources = resources;
+        this.eventCount = eventCount;
+        this.days = days;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null)
+            System.setProperty("java.awt.headless", "true");
+
+        final TimelineBenchmark benchmark = new TimelineBenchmark(args.length > 0 ? Integer.parseInt(args[0]) : 500,
+                args.length > 1 ? Integer.parseInt(args[1]) : 10000, args.length > 2 ? Integer.parseInt(args[2]) : 1);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                benchmark.run();
+            }
+        });
+    }
+
+    private void run() {
+        final JCalendar calendar = new JCalendar();
+        final List<CalendarEvent> events = SyntheticEvents.resourceEvents(SyntheticEvents.SEED, resources, days,
+                eventCount);
+        calendar.addCalendarEvents(events);
+        calendar.getConfig().setTimelineDays(days);
+        calendar.setSize(WIDTH, HEIGHT);
+
+        long start = System.nanoTime();
+        calendar.setDisplayStrategy(Type.TIMELINE, DAY);
+        layout(calendar);
+        final JViewport viewport = findViewport(calendar);
+        final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        paint(calendar, image);
+        System.out.printf("%d resources, %d events, %d day(s): first frame %.3f ms%n", resources, events.size(), days,
+                (System.nanoTime() - start) / 1e6);
+
+        final int viewHeight = viewport.getView().getPreferredSize().height;
+        final int steps = Math.max(1, viewHeight / viewport.getHeight());
+        calendar.setDisplayStrategy(Type.TIMELINE, DAY);
+        layout(calendar);
+        for (int round = 0; round < 2; round++) {
+            final long[] durations = new long[steps * 2];
+            for (int i = 0; i < durations.length; i++) {
+                final int step = i < steps ? i : durations.length - 1 - i;
+                start = System.nanoTime();
+                viewport.setViewPosition(new Point(0, step * viewport.getHeight()));
+                layout(calendar);
+                paint(calendar, image);
+                durations[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(durations);
+            System.out.printf("%s: %d scroll steps, p50 %.3f ms, p99 %.3f ms%n", round == 0 ? "cold" : "warm",
+                    durations.length, durations[durations.length / 2] / 1e6,
+                    durations[(int) Math.ceil(durations.length * 0.99) - 1] / 1e6);
+        }
+    }
+
+    private static JViewport findViewport(final Component component) {
+        if (component instanceof JViewport)
+            return (JViewport) component;
+        if (component instanceof Container) {
+            for (final Component child : ((Container) component).getComponents()) {
+                final JViewport viewport = findViewport(child);
+                if (viewport != null && viewport.getView() instanceof Scrollable)
+                    return viewport;
+            }
+        }
+        return null;
+    }
+
+    private static void paint(final JCalendar calendar, final BufferedImage image) {
+        final Graphics2D g = image.createGraphics();
+        try {
+            calendar.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Lays out the whole component tree, which is never made displayable
+     */
+    private static void layout(final Component component) {
+        component.doLayout();
+        if (component instanceof Container) {
+            for (final Component child : ((Container) component).getComponents()) {
+                layout(child);
+            }
+        }
+    }
+}
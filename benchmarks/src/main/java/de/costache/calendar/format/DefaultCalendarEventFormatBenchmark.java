@@ -0,0 +1,63 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.format;
+
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.util.SyntheticEvents;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tooltip formatting, run on every hover of an event
+ *
+ * @author theodorcostache
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DefaultCalendarEventFormatBenchmark {
+
+    DefaultCalendarEventFormat format;
+    List<CalendarEvent> events;
+    int next;
+
+    @Setup
+    public void setUp() {
+        format = new DefaultCalendarEventFormat();
+        events = SyntheticEvents.demoEvents(SyntheticEvents.SEED, 1024);
+        for (int i = 0; i < events.size(); i += 2) {
+            events.get(i).setDescription("Description of event " + i);
+            events.get(i).setLocation("Room " + i % 16);
+        }
+    }
+
+    @Benchmark
+    public String format() {
+        next = (next + 1) & (events.size() - 1);
+        return format.format(events.get(next));
+    }
+
+    @Benchmark
+    public String formatHolidays() {
+        next = (next + 1) & (events.size() - 1);
+        return format.format(events.subList(next & ~7, (next & ~7) + 8));
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ical;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.util.EventCollection;
+import de.costache.calendar.util.EventCollectionRepository;
+import de.costache.calendar.util.SyntheticEvents;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import and export of an iCalendar feed of 10000 events
+ *
+ * @author theodorcostache
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ICalendarBenchmark {
+
+    @Param({"INDEXED", "INTERVAL_TREE"})
+    EventCollection.Type type;
+
+    EventCollection collection;
+    byte[] feed;
+    Date from;
+    Date to;
+
+    @Setup
+    public void setUp() throws IOException {
+        collection = EventCollectionRepository.get(new JCalendar(type));
+        collection.addAll(SyntheticEvents.demoEvents(SyntheticEvents.SEED, 10000));
+        from = new Date(Long.MIN_VALUE);
+        to = new Date(Long.MAX_VALUE);
+        feed = write();
+    }
+
+    @Benchmark
+    public int read() throws IOException {
+        final ICalendarReader reader = new ICalendarReader(new ByteArrayInputStream(feed));
+        int count = 0;
+        CalendarEvent event;
+        while ((event = reader.next()) != null) {
+            count += event.getPriority();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int readInto() throws IOException {
+        final ICalendarReader reader = new ICalendarReader(new ByteArrayInputStream(feed));
+        return reader.readInto(EventCollectionRepository.get(new JCalendar(type)));
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(4 << 20);
+        final ICalendarWriter writer = new ICalendarWriter(out);
+        writer.write(collection, from, to);
+        writer.close();
+        return out.toByteArray();
+    }
+}
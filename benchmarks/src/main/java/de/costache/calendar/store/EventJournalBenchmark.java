@@ -0,0 +1,97 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.store;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.util.EventCollection;
+import de.costache.calendar.util.EventCollectionRepository;
+import de.costache.calendar.util.SyntheticEvents;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persisting a single edit of one of 300000 events through the journal
+ * compared to writing a new snapshot
+ *
+ * @author theodorcostache
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventJournalBenchmark {
+
+    EventCollection collection;
+    List<CalendarEvent> events;
+    EventJournal journal;
+    File directory;
+    File snapshot;
+    int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        collection = EventCollectionRepository.get(new JCalendar(EventCollection.Type.INDEXED));
+        collection.addAll(SyntheticEvents.demoEvents(SyntheticEvents.SEED, 300000));
+        events = new ArrayList<CalendarEvent>(collection.getAllEvents());
+        directory = File.createTempFile("events", ".journal");
+        directory.delete();
+        journal = new EventJournal(directory, collection);
+        journal.commit();
+        snapshot = new File(directory, "bench.snapshot");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        for (final File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private void edit() {
+        final CalendarEvent event = events.get(next++ % events.size());
+        collection.beginUpdate();
+        event.setPriority(event.getPriority() + 1);
+        collection.endUpdate();
+    }
+
+    @Benchmark
+    public void journal() {
+        edit();
+    }
+
+    @Benchmark
+    public void journalAndCommit() throws IOException {
+        edit();
+        journal.commit();
+    }
+
+    @Benchmark
+    @Measurement(iterations = 5, time = 10)
+    public void snapshot() throws IOException {
+        edit();
+        EventSnapshot.write(collection.getAllEvents(), snapshot);
+    }
+}
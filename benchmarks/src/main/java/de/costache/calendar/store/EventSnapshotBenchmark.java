@@ -0,0 +1,76 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.store;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.util.EventCollection;
+import de.costache.calendar.util.EventCollectionRepository;
+import de.costache.calendar.util.SyntheticEvents;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup from a snapshot of 300000 events compared to adding the same
+ * events one at a time
+ *
+ * @author theodorcostache
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventSnapshotBenchmark {
+
+    @Param({"INDEXED", "INTERVAL_TREE"})
+    EventCollection.Type type;
+
+    List<CalendarEvent> events;
+    File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        events = SyntheticEvents.demoEvents(SyntheticEvents.SEED, 300000);
+        file = File.createTempFile("events", ".snapshot");
+        file.deleteOnExit();
+        EventSnapshot.write(events, file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public int load() throws IOException {
+        return EventSnapshot.load(file, EventCollectionRepository.get(new JCalendar(type)));
+    }
+
+    @Benchmark
+    public EventCollection addOneByOne() {
+        final EventCollection collection = EventCollectionRepository.get(new JCalendar(type));
+        for (final CalendarEvent event : events) {
+            collection.add(new CalendarEvent(event.getSummary(), event.getStart(), event.getEnd(), event.getType()));
+        }
+        return collection;
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The date helpers called per event and per paint
+ *
+ * @author theodorcostache
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CalendarUtilBenchmark {
+
+    @Param({ "7", "90", "365" })
+    int spanDays;
+
+    Date[] dates;
+    int next;
+
+    @Setup
+    public void setUp() {
+        final Random r = new Random(SyntheticEvents.SEED);
+        dates = new Date[1024];
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = CalendarUtil.createDate(2010 + r.nextInt(6), 1 + r.nextInt(12), 1 + r.nextInt(28),
+                    r.nextInt(24), r.nextInt(60), 0, 0);
+        }
+    }
+
+    private Date nextDate() {
+        next = (next + 1) & (dates.length - 1);
+        return dates[next];
+    }
+
+    @Benchmark
+    public Collection<Date> getDates() {
+        final Date start = nextDate();
+        return CalendarUtil.getDates(start, new Date(start.getTime() + spanDays * 86400000L));
+    }
+
+    @Benchmark
+    public Date stripTime() {
+        return CalendarUtil.stripTime(nextDate());
+    }
+
+    @Benchmark
+    public boolean isSameDay() {
+        final Date date = nextDate();
+        return CalendarUtil.isSameDay(date, nextDate());
+    }
+
+    @Benchmark
+    public int secondsToPixels() {
+        return CalendarUtil.secondsToPixels(nextDate(), 1440);
+    }
+}
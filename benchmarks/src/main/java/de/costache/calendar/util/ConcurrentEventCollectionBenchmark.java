@@ -0,0 +1,108 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.SwingUtilities;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Week lookups from four threads reading the published snapshot of a
+ * {@link ConcurrentEventCollection}, compared to the same lookups on the
+ * unchanging collection of the calendar, and the snapshot lookups of three
+ * threads while a fourth one keeps moving events
+ *
+ * @author theodorcostache
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ConcurrentEventCollectionBenchmark {
+
+    @Param({"INDEXED", "INTERVAL_TREE"})
+    EventCollection.Type type;
+
+    EventCollection target;
+    ConcurrentEventCollection collection;
+    List<CalendarEvent> events;
+    Date[] weeks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        events = SyntheticEvents.demoEvents(SyntheticEvents.SEED, 100000);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                final JCalendar calendar = new JCalendar(type);
+                target = EventCollectionRepository.get(calendar);
+                target.addAll(events);
+                collection = new ConcurrentEventCollection(calendar);
+            }
+        });
+        weeks = new Date[1024];
+        for (int i = 0; i < weeks.length; i++) {
+            weeks[i] = events.get(i * 97 % events.size()).getStart();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Reader {
+
+        int next;
+    }
+
+    @Benchmark
+    public EventBuckets snapshotWeek(final Reader reader) {
+        final Date from = weeks[reader.next++ & (weeks.length - 1)];
+        return collection.getEvents(from, new Date(from.getTime() + 7 * 24 * 3600000L));
+    }
+
+    @Benchmark
+    public EventBuckets collectionWeek(final Reader reader) {
+        final Date from = weeks[reader.next++ & (weeks.length - 1)];
+        return target.getEvents(from, new Date(from.getTime() + 7 * 24 * 3600000L));
+    }
+
+    @Benchmark
+    @Group("readWhileMoving")
+    @GroupThreads(3)
+    public EventBuckets read(final Reader reader) {
+        return snapshotWeek(reader);
+    }
+
+    @Benchmark
+    @Group("readWhileMoving")
+    @GroupThreads(1)
+    public void move(final Reader reader) {
+        final CalendarEvent event = events.get(reader.next++ % events.size());
+        collection.submit(new Runnable() {
+            @Override
+            public void run() {
+                event.setEnd(new Date(event.getEnd().getTime() + 3600000L));
+                event.setStart(new Date(event.getStart().getTime() + 3600000L));
+            }
+        });
+    }
+}
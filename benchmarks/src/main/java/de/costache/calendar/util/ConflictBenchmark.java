@@ -0,0 +1,62 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.model.CalendarEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overlap detection of the events of a day at different densities: the
+ * longer the events, the more of them overlap.
+ *
+ * @author theodorcostache
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConflictBenchmark {
+
+    @Param({ "20", "100", "500" })
+    int count;
+
+    @Param({ "30", "120", "480" })
+    int maxMinutes;
+
+    List<CalendarEvent> events;
+
+    @Setup
+    public void setUp() {
+        events = SyntheticEvents.dayEvents(SyntheticEvents.SEED, count, maxMinutes);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public Map<CalendarEvent, List<CalendarEvent>> getConflicting() {
+        return CalendarUtil.getConflicting(events);
+    }
+
+    @Benchmark
+    public DayLayout dayLayout() {
+        return DayLayout.compute(events);
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time spent on the owning thread when 300000 events are handed over as a
+ * prebuilt shard compared to adding them to the collection directly
+ *
+ * @author theodorcostache
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventLoaderBenchmark {
+
+    @Param({"INDEXED", "INTERVAL_TREE"})
+    EventCollection.Type type;
+
+    List<CalendarEvent> template;
+    AbstractEventCollection collection;
+    List<CalendarEvent> events;
+    EventShard shard;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        template = SyntheticEvents.demoEvents(SyntheticEvents.SEED, 300000);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        collection = (AbstractEventCollection) EventCollectionRepository.get(new JCalendar(type));
+        events = new ArrayList<CalendarEvent>(template.size());
+        for (final CalendarEvent event : template) {
+            events.add(new CalendarEvent(event.getSummary(), event.getStart(), event.getEnd(), event.getType()));
+        }
+        shard = collection.newShard();
+        shard.addAll(events);
+    }
+
+    @Benchmark
+    public EventCollection publish() {
+        collection.publish(shard);
+        return collection;
+    }
+
+    @Benchmark
+    public EventCollection addAll() {
+        collection.addAll(events);
+        return collection;
+    }
+}
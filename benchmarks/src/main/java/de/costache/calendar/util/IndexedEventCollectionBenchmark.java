@@ -0,0 +1,114 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.model.CalendarEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds, removes and lookups of {@link IndexedEventCollection} at growing
+ * sizes. Adds and removes are measured in batches of {@link #BATCH} events
+ * which are taken out of or put back into the collection between
+ * invocations, so that every invocation starts at the same size.
+ *
+ * @author theodorcostache
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexedEventCollectionBenchmark {
+
+    static final int BATCH = 100;
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    int size;
+
+    IndexedEventCollection collection;
+    List<CalendarEvent> batch;
+    Date[] days;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final List<CalendarEvent> events = SyntheticEvents.demoEvents(SyntheticEvents.SEED, size + BATCH);
+        batch = events.subList(size, size + BATCH);
+        collection = new IndexedEventCollection(null);
+        collection.addAll(events.subList(0, size));
+
+        days = new Date[1024];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = events.get(i % size).getStart();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Absent {
+
+        @Setup(Level.Invocation)
+        public void removeBatch(final IndexedEventCollectionBenchmark benchmark) {
+            for (final CalendarEvent calendarEvent : benchmark.batch) {
+                benchmark.collection.remove(calendarEvent);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Present {
+
+        @Setup(Level.Invocation)
+        public void addBatch(final IndexedEventCollectionBenchmark benchmark) {
+            for (final CalendarEvent calendarEvent : benchmark.batch) {
+                benchmark.collection.add(calendarEvent);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void add(final Absent absent) {
+        for (final CalendarEvent calendarEvent : batch) {
+            collection.add(calendarEvent);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void remove(final Present present) {
+        for (final CalendarEvent calendarEvent : batch) {
+            collection.remove(calendarEvent);
+        }
+    }
+
+    @Benchmark
+    public Collection<CalendarEvent> getEvents() {
+        next = (next + 1) & (days.length - 1);
+        return collection.getEvents(days[next]);
+    }
+
+    @Benchmark
+    public EventBuckets getEventsOfWeek() {
+        next = (next + 1) & (days.length - 1);
+        return collection.getEvents(days[next], CalendarUtil.createInDays(days[next], 7));
+    }
+}
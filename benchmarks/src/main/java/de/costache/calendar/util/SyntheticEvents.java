@@ -0,0 +1,137 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.EventType;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded event sets for the benchmarks, generated the way the demo fills its
+ * calendar so that every run measures the same data.
+ *
+ * @author theodorcostache
+ */
+public final class SyntheticEvents {
+
+    public static final long SEED = 42L;
+
+    private static final String[] NAMES = new String[] { "Team meeting", "Code review", "Project review",
+            "Telephone conference" };
+
+    private SyntheticEvents() {
+    }
+
+    /**
+     * Events between 8:00 and 22:00 of random days from 2010 to 2015, half of
+     * them all day, as generated by the demo
+     *
+     * @param seed
+     * @param count
+     * @return the events
+     */
+    public static List<CalendarEvent> demoEvents(final long seed, final int count) {
+        final Random r = new Random(seed);
+        final EventType[] types = types();
+        final List<CalendarEvent> result = new ArrayList<CalendarEvent>(count);
+        for (int i = 0; i < count; i++) {
+            int hour = r.nextInt(19);
+            hour = hour > 17 ? 17 : hour;
+            hour = hour < 8 ? 8 : hour;
+            final int min = r.nextInt(59);
+            final int day = r.nextInt(28);
+            final int month = r.nextInt(11);
+            final int year = 2010 + r.nextInt(6);
+            final Date start = CalendarUtil.createDate(year, month, day, hour, min, 0, 0);
+            final Date end = CalendarUtil.createDate(year, month, day, hour + 1 + r.nextInt(4), r.nextInt(59), 0, 0);
+            final CalendarEvent calendarEvent = new CalendarEvent(NAMES[r.nextInt(3)], start, end);
+            calendarEvent.setType(types[r.nextInt(3)]);
+            calendarEvent.setAllDay(i % 2 == 0);
+            result.add(calendarEvent);
+        }
+        return result;
+    }
+
+    /**
+     * Timed events of a single day. The longer the events, the more of them
+     * overlap.
+     *
+     * @param seed
+     * @param count
+     * @param maxMinutes the maximal duration of an event
+     * @return the events
+     */
+    public static List<CalendarEvent> dayEvents(final long seed, final int count, final int maxMinutes) {
+        final Random r = new Random(seed);
+        final EventType[] types = types();
+        final Date day = CalendarUtil.createDate(2013, 3, 12, 0, 0, 0, 0);
+        final List<CalendarEvent> result = new ArrayList<CalendarEvent>(count);
+        for (int i = 0; i < count; i++) {
+            final int duration = 15 + r.nextInt(Math.max(1, maxMinutes - 15));
+            final int start = r.nextInt(24 * 60 - duration);
+            final CalendarEvent calendarEvent = new CalendarEvent(NAMES[r.nextInt(3)],
+                    new Date(day.getTime() + start * 60000L), new Date(day.getTime() + (start + duration) * 60000L));
+            calendarEvent.setType(types[r.nextInt(3)]);
+            result.add(calendarEvent);
+        }
+        return result;
+    }
+
+    /**
+     * Timed events of one to four hours spread over the given number of
+     * resources, named "Resource 000" and so on, and over the days from the
+     * given one on
+     *
+     * @param seed
+     * @param resources
+     * @param days
+     * @param count
+     * @return the events
+     */
+    public static List<CalendarEvent> resourceEvents(final long seed, final int resources, final int days,
+                                                     final int count) {
+        final Random r = new Random(seed);
+        final EventType[] types = types();
+        final Date day = CalendarUtil.createDate(2013, 3, 12, 0, 0, 0, 0);
+        final List<CalendarEvent> result = new ArrayList<CalendarEvent>(count);
+        for (int i = 0; i < count; i++) {
+            final long start = day.getTime() + (r.nextInt(days) * 24 * 60 + r.nextInt(20 * 60)) * 60000L;
+            final CalendarEvent calendarEvent = new CalendarEvent(NAMES[r.nextInt(3)], new Date(start),
+                    new Date(start + (60 + r.nextInt(180)) * 60000L));
+            calendarEvent.setType(types[r.nextInt(3)]);
+            calendarEvent.setResource(String.format("Resource %03d", r.nextInt(resources)));
+            result.add(calendarEvent);
+        }
+        return result;
+    }
+
+    private static EventType[] types() {
+        final EventType type1 = new EventType();
+
+        final EventType type2 = new EventType();
+        type2.setBackgroundColor(new Color(255, 103, 0, 128));
+
+        final EventType type3 = new EventType();
+        type3.setBackgroundColor(new Color(165, 103, 230, 128));
+
+        return new EventType[] { type1, type2, type3 };
+    }
+}
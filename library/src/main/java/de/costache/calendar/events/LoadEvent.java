@@ -0,0 +1,118 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.events;
+
+import de.costache.calendar.JCalendar;
+
+/**
+ * 
+ * @author theodorcostache
+ * 
+ */
+public class LoadEvent {
+
+	private JCalendar source;
+	private int read;
+	private int published;
+	private Throwable error;
+
+	/**
+	 * Creates a new instance of {@link LoadEvent}
+	 */
+	public LoadEvent() {
+	}
+
+	/**
+	 * Creates a new instance of {@link LoadEvent}
+	 * 
+	 * @param source
+	 * @param read
+	 *            the number of events read so far
+	 * @param published
+	 *            the number of events added to the calendar so far
+	 * @param error
+	 *            the reason the load has failed or has been cancelled, null
+	 *            otherwise
+	 */
+	public LoadEvent(final JCalendar source, final int read, final int published, final Throwable error) {
+		super();
+		this.source = source;
+		this.read = read;
+		this.published = published;
+		this.error = error;
+	}
+
+	/**
+	 * @return the source
+	 */
+	public JCalendar getSource() {
+		return source;
+	}
+
+	/**
+	 * @param source
+	 *            the source to set
+	 */
+	public void setSource(final JCalendar source) {
+		this.source = source;
+	}
+
+	/**
+	 * @return the number of events read so far
+	 */
+	public int getRead() {
+		return read;
+	}
+
+	/**
+	 * @param read
+	 *            the read to set
+	 */
+	public void setRead(final int read) {
+		this.read = read;
+	}
+
+	/**
+	 * @return the number of events added to the calendar so far
+	 */
+	public int getPublished() {
+		return published;
+	}
+
+	/**
+	 * @param published
+	 *            the published to set
+	 */
+	public void setPublished(final int published) {
+		this.published = published;
+	}
+
+	/**
+	 * @return the reason the load has failed or has been cancelled, null if
+	 *         it has not
+	 */
+	public Throwable getError() {
+		return error;
+	}
+
+	/**
+	 * @param error
+	 *            the error to set
+	 */
+	public void setError(final Throwable error) {
+		this.error = error;
+	}
+}
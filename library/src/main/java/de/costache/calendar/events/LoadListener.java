@@ -0,0 +1,33 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.events;
+
+import java.util.EventListener;
+
+/**
+ * Receives the progress of a load started by
+ * {@link de.costache.calendar.util.EventLoader}. Both methods are called on
+ * the event dispatch thread.
+ * 
+ * @author theodorcostache
+ * 
+ */
+public interface LoadListener extends EventListener {
+
+	public void loadProgress(LoadEvent event);
+
+	public void loadFinished(LoadEvent event);
+}
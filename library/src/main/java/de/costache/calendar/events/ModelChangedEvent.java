@@ -15,8 +15,15 @@
  */
 package de.costache.calendar.events;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
 import de.costache.calendar.JCalendar;
 import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.CalendarEvent.Property;
 
 /**
  * 
@@ -27,6 +34,11 @@ public class ModelChangedEvent {
 
 	private JCalendar source;
 	private CalendarEvent calendarEvent;
+	private Collection<CalendarEvent> calendarEvents;
+	private Date intervalStart;
+	private Date intervalEnd;
+	private Set<Property> properties;
+	private List<ModelChangedEvent> changes;
 
 	/**
 	 * Creates a new instance of {@link ModelChangedEvent}
@@ -44,6 +56,50 @@ public class ModelChangedEvent {
 		super();
 		this.source = source;
 		this.calendarEvent = calendarEvent;
+		this.calendarEvents = Collections.singletonList(calendarEvent);
+		this.intervalStart = calendarEvent.getStart();
+		this.intervalEnd = calendarEvent.getEnd();
+	}
+
+	/**
+	 * Creates a new instance of {@link ModelChangedEvent} describing several
+	 * changes at once, as fired at the end of a batch update
+	 * 
+	 * @param source
+	 * @param calendarEvents
+	 *            the affected events
+	 * @param intervalStart
+	 *            the earliest start of the affected events
+	 * @param intervalEnd
+	 *            the latest end of the affected events
+	 */
+	public ModelChangedEvent(JCalendar source, Collection<CalendarEvent> calendarEvents, Date intervalStart,
+			Date intervalEnd) {
+		super();
+		this.source = source;
+		this.calendarEvent = calendarEvents.size() == 1 ? calendarEvents.iterator().next() : null;
+		this.calendarEvents = calendarEvents;
+		this.intervalStart = intervalStart;
+		this.intervalEnd = intervalEnd;
+	}
+
+	/**
+	 * Creates a new instance of {@link ModelChangedEvent} describing the
+	 * coalesced property changes of a single event
+	 * 
+	 * @param source
+	 * @param calendarEvent
+	 * @param properties
+	 *            the changed properties
+	 * @param intervalStart
+	 *            the earliest start the event had since the last notification
+	 * @param intervalEnd
+	 *            the latest end the event had since the last notification
+	 */
+	public ModelChangedEvent(JCalendar source, CalendarEvent calendarEvent, Set<Property> properties,
+			Date intervalStart, Date intervalEnd) {
+		this(source, Collections.singletonList(calendarEvent), intervalStart, intervalEnd);
+		this.properties = properties;
 	}
 
 	/**
@@ -79,4 +135,87 @@ public class ModelChangedEvent {
 	public void setCalendarEvent(CalendarEvent calendarEvent) {
 		this.calendarEvent = calendarEvent;
 	}
+
+	/**
+	 * 
+	 * @return all affected events
+	 */
+	public Collection<CalendarEvent> getCalendarEvents() {
+		return calendarEvents;
+	}
+
+	/**
+	 * 
+	 * @param calendarEvents
+	 */
+	public void setCalendarEvents(Collection<CalendarEvent> calendarEvents) {
+		this.calendarEvents = calendarEvents;
+	}
+
+	/**
+	 * 
+	 * @return the earliest start of the affected events
+	 */
+	public Date getIntervalStart() {
+		return intervalStart;
+	}
+
+	/**
+	 * 
+	 * @param intervalStart
+	 */
+	public void setIntervalStart(Date intervalStart) {
+		this.intervalStart = intervalStart;
+	}
+
+	/**
+	 * 
+	 * @return the latest end of the affected events
+	 */
+	public Date getIntervalEnd() {
+		return intervalEnd;
+	}
+
+	/**
+	 * 
+	 * @param intervalEnd
+	 */
+	public void setIntervalEnd(Date intervalEnd) {
+		this.intervalEnd = intervalEnd;
+	}
+
+	/**
+	 * 
+	 * @return the changed properties of {@link #getCalendarEvent()}, an empty
+	 *         set if this event does not describe a property change of a
+	 *         single event
+	 */
+	public Set<Property> getProperties() {
+		return properties == null ? Collections.<Property> emptySet() : properties;
+	}
+
+	/**
+	 * 
+	 * @param properties
+	 */
+	public void setProperties(Set<Property> properties) {
+		this.properties = properties;
+	}
+
+	/**
+	 * 
+	 * @return one event per changed event if this event summarises coalesced
+	 *         property changes, an empty list otherwise
+	 */
+	public List<ModelChangedEvent> getChanges() {
+		return changes == null ? Collections.<ModelChangedEvent> emptyList() : changes;
+	}
+
+	/**
+	 * 
+	 * @param changes
+	 */
+	public void setChanges(List<ModelChangedEvent> changes) {
+		this.changes = changes;
+	}
 }
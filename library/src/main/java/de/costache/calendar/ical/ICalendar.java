@@ -0,0 +1,115 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ical;
+
+import java.util.Calendar;
+
+/**
+ * The names and value encodings shared by {@link ICalendarReader} and
+ * {@link ICalendarWriter}. Dates are converted with plain arithmetic on the
+ * proleptic Gregorian calendar, so neither side allocates a
+ * {@link Calendar} or a formatter per value.
+ *
+ * @author theodorcostache
+ */
+final class ICalendar {
+
+    static final long MILLIS_PER_DAY = 86400000L;
+
+    /**
+     * The two letter day codes of RRULE BYDAY, indexed by
+     * {@link Calendar#DAY_OF_WEEK}
+     */
+    static final String[] DAY_CODES = { null, "SU", "MO", "TU", "WE", "TH", "FR", "SA" };
+
+    private ICalendar() {
+    }
+
+    /**
+     * @param code a two letter day code
+     * @return the matching {@link Calendar#DAY_OF_WEEK}, -1 if the code is
+     *         unknown
+     */
+    static int toDayOfWeek(final String code) {
+        for (int i = Calendar.SUNDAY; i <= Calendar.SATURDAY; i++) {
+            if (DAY_CODES[i].equals(code))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @param year
+     * @param month 1 to 12
+     * @param day   1 to 31
+     * @return the number of days since 1970-01-01
+     */
+    static int toEpochDay(final int year, final int month, final int day) {
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = Math.floorDiv(y, 400);
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Appends the given day as YYYYMMDD
+     *
+     * @param epochDay the number of days since 1970-01-01
+     * @param out
+     */
+    static void appendDate(final int epochDay, final StringBuilder out) {
+        final int z = epochDay + 719468;
+        final int era = Math.floorDiv(z, 146097);
+        final int dayOfEra = z - era * 146097;
+        final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final int mp = (5 * dayOfYear + 2) / 153;
+        final int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        final int month = mp < 10 ? mp + 3 : mp - 9;
+        final int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        appendDigits(year, 4, out);
+        appendDigits(month, 2, out);
+        appendDigits(day, 2, out);
+    }
+
+    /**
+     * Appends the given instant as a UTC date-time YYYYMMDDTHHMMSSZ
+     *
+     * @param millis epoch millis
+     * @param out
+     */
+    static void appendUtcDateTime(final long millis, final StringBuilder out) {
+        appendDate((int) Math.floorDiv(millis, MILLIS_PER_DAY), out);
+        final int seconds = (int) (Math.floorMod(millis, MILLIS_PER_DAY) / 1000);
+        out.append('T');
+        appendDigits(seconds / 3600, 2, out);
+        appendDigits(seconds / 60 % 60, 2, out);
+        appendDigits(seconds % 60, 2, out);
+        out.append('Z');
+    }
+
+    private static void appendDigits(final int value, final int width, final StringBuilder out) {
+        int divisor = 1;
+        for (int i = 1; i < width; i++) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + value / divisor % 10));
+        }
+    }
+}
@@ -0,0 +1,744 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ical;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.EventType;
+import de.costache.calendar.model.Recurrence;
+import de.costache.calendar.model.Recurrence.Frequency;
+import de.costache.calendar.model.RecurringEvent;
+import de.costache.calendar.util.CalendarUtil;
+import de.costache.calendar.util.EventCollection;
+import de.costache.calendar.util.EventCollectionRepository;
+import de.costache.calendar.util.EventSource;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Streaming reader of iCalendar (RFC 5545) data. The VEVENTs are read one
+ * at a time, so the memory used by the reader does not grow with the size of
+ * the feed: only the properties of the current event, the event types and
+ * the recurring series are kept.
+ * <p>
+ * SUMMARY, DESCRIPTION, LOCATION, DTSTART, DTEND or DURATION and PRIORITY
+ * map to the matching fields of a {@link CalendarEvent}, the first of the
+ * CATEGORIES to its {@link EventType} and the first of the RESOURCES to its
+ * resource. Events with a DATE start are all-day events ending at the start
+ * of their last day. An RRULE makes the event a {@link RecurringEvent} and
+ * its EXDATEs become exceptions; a VEVENT with a RECURRENCE-ID cancels the
+ * occurrence of the series with the same UID and is read as a separate
+ * event. Rules using parts a {@link Recurrence} cannot express, e.g. the n-th
+ * weekday of a month, are dropped and only their first occurrence is read.
+ * <p>
+ * Times with a TZID are resolved in that zone, floating times and dates in
+ * the default time zone. Other components, e.g. VTIMEZONE or VALARM, are
+ * skipped.
+ *
+ * @author theodorcostache
+ */
+public class ICalendarReader implements Closeable, EventSource {
+
+    /**
+     * The number of events passed to {@link EventCollection#addAll} at once
+     */
+    private static final int BATCH_SIZE = 4096;
+
+    private static final int[] NO_DAYS = new int[0];
+
+    private final BufferedReader reader;
+    private final ZoneId defaultZone;
+    private final Map<String, ZoneId> zones;
+    private final Map<String, EventType> types;
+    private final EventType defaultType;
+    private final Map<String, RecurringEvent> series;
+    private final Map<String, List<Long>> pendingExceptions;
+    private final Calendar calendar;
+
+    private String lookahead;
+    private int lookaheadNumber;
+    private int physicalLines;
+    private int lineNumber;
+    private int depth;
+    private int eventDepth;
+
+    /* the current content line */
+    private String name;
+    private String value;
+    private boolean dateValue;
+    private String tzid;
+    private boolean dateOnly;
+
+    /* the properties of the current event */
+    private String summary;
+    private String description;
+    private String location;
+    private String category;
+    private String resource;
+    private String uid;
+    private String rule;
+    private String startZone;
+    private int priority;
+    private boolean hasStart;
+    private boolean startDateOnly;
+    private long startValue;
+    private boolean hasEnd;
+    private boolean endDateOnly;
+    private long endValue;
+    private boolean hasDuration;
+    private long durationDays;
+    private long durationSeconds;
+    private boolean hasRecurrenceId;
+    private boolean recurrenceIdDateOnly;
+    private long recurrenceIdValue;
+    private final List<Long> exceptionTimes;
+    private final List<Integer> exceptionDays;
+
+    /**
+     * Creates a reader of the given UTF-8 encoded stream
+     *
+     * @param in
+     */
+    public ICalendarReader(final InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a new instance of {@link ICalendarReader}
+     *
+     * @param reader
+     */
+    public ICalendarReader(final Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 65536);
+        this.defaultZone = TimeZone.getDefault().toZoneId();
+        this.zones = new HashMap<String, ZoneId>();
+        this.types = new LinkedHashMap<String, EventType>();
+        this.defaultType = new EventType();
+        this.defaultType.setName("default");
+        this.series = new HashMap<String, RecurringEvent>();
+        this.pendingExceptions = new HashMap<String, List<Long>>();
+        this.calendar = Calendar.getInstance();
+        this.exceptionTimes = new ArrayList<Long>();
+        this.exceptionDays = new ArrayList<Integer>();
+    }
+
+    /**
+     * Registers a type for the events whose first category equals its name.
+     * For the other categories a type without colors is created.
+     *
+     * @param type
+     */
+    public void addType(final EventType type) {
+        types.put(type.getName(), type);
+    }
+
+    /**
+     * @return the registered types and those created for the categories
+     *         read so far
+     */
+    public Collection<EventType> getTypes() {
+        return Collections.unmodifiableCollection(types.values());
+    }
+
+    /**
+     * Reads the next VEVENT
+     *
+     * @return the event, null at the end of the stream
+     * @throws IOException if the stream cannot be read or holds an invalid
+     *                     value
+     */
+    @Override
+    public CalendarEvent next() throws IOException {
+        String line;
+        while ((line = readLine()) != null) {
+            if (!parse(line))
+                continue;
+            if ("BEGIN".equals(name)) {
+                depth++;
+                if (eventDepth == 0 && "VEVENT".equalsIgnoreCase(value)) {
+                    eventDepth = depth;
+                    reset();
+                }
+            } else if ("END".equals(name)) {
+                if (depth > 0 && depth-- == eventDepth) {
+                    eventDepth = 0;
+                    final CalendarEvent event = build();
+                    if (event != null)
+                        return event;
+                }
+            } else if (eventDepth != 0 && depth == eventDepth) {
+                property();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads all remaining events into the collection of the given calendar
+     *
+     * @param calendar
+     * @return the number of events read
+     * @throws IOException
+     */
+    public int readInto(final JCalendar calendar) throws IOException {
+        return readInto(EventCollectionRepository.get(calendar));
+    }
+
+    /**
+     * Reads all remaining events into the given collection. The events are
+     * added in batches through {@link EventCollection#addAll} inside one
+     * batch update, so the listeners are notified once at the end.
+     *
+     * @param collection
+     * @return the number of events read
+     * @throws IOException
+     */
+    public int readInto(final EventCollection collection) throws IOException {
+        final List<CalendarEvent> batch = new ArrayList<CalendarEvent>(BATCH_SIZE);
+        int count = 0;
+        collection.beginUpdate();
+        try {
+            CalendarEvent event;
+            while ((event = next()) != null) {
+                batch.add(event);
+                if (batch.size() == BATCH_SIZE) {
+                    collection.addAll(batch);
+                    count += batch.size();
+                    batch.clear();
+                }
+            }
+            collection.addAll(batch);
+            count += batch.size();
+        } finally {
+            collection.endUpdate();
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * @return the next content line with the folded lines following it
+     *         joined, null at the end of the stream
+     */
+    private String readLine() throws IOException {
+        String line = lookahead;
+        if (line != null) {
+            lookahead = null;
+            lineNumber = lookaheadNumber;
+        } else {
+            line = reader.readLine();
+            if (line == null)
+                return null;
+            lineNumber = ++physicalLines;
+        }
+
+        StringBuilder unfolded = null;
+        String next;
+        while ((next = reader.readLine()) != null) {
+            physicalLines++;
+            if (next.isEmpty() || (next.charAt(0) != ' ' && next.charAt(0) != '\t')) {
+                lookahead = next;
+                lookaheadNumber = physicalLines;
+                break;
+            }
+            if (unfolded == null)
+                unfolded = new StringBuilder(line);
+            unfolded.append(next, 1, next.length());
+        }
+        return unfolded == null ? line : unfolded.toString();
+    }
+
+    /**
+     * Splits the given content line into name, the parameters VALUE and TZID
+     * and value
+     *
+     * @param line
+     * @return false if the line is not a content line
+     */
+    private boolean parse(final String line) {
+        final int length = line.length();
+        int i = 0;
+        while (i < length && line.charAt(i) != ';' && line.charAt(i) != ':')
+            i++;
+        if (i == 0 || i == length)
+            return false;
+        name = line.substring(0, i).toUpperCase(Locale.ROOT);
+        dateValue = false;
+        tzid = null;
+
+        while (line.charAt(i) == ';') {
+            final int paramStart = ++i;
+            while (i < length && line.charAt(i) != '=')
+                i++;
+            final int paramEnd = i++;
+            final int valueStart = i;
+            boolean quoted = false;
+            while (i < length) {
+                final char c = line.charAt(i);
+                if (c == '"')
+                    quoted = !quoted;
+                else if (!quoted && (c == ';' || c == ':'))
+                    break;
+                i++;
+            }
+            if (i >= length)
+                return false;
+            if (isParameter(line, paramStart, paramEnd, "VALUE"))
+                dateValue = line.regionMatches(true, valueStart, "DATE", 0, 4) && i - valueStart == 4;
+            else if (isParameter(line, paramStart, paramEnd, "TZID"))
+                tzid = unquote(line, valueStart, i);
+        }
+        value = line.substring(i + 1);
+        return true;
+    }
+
+    private static boolean isParameter(final String line, final int from, final int to, final String parameter) {
+        return to - from == parameter.length() && line.regionMatches(true, from, parameter, 0, parameter.length());
+    }
+
+    private static String unquote(final String line, final int from, final int to) {
+        if (to - from >= 2 && line.charAt(from) == '"' && line.charAt(to - 1) == '"')
+            return line.substring(from + 1, to - 1);
+        return line.substring(from, to);
+    }
+
+    private void reset() {
+        summary = null;
+        description = null;
+        location = null;
+        category = null;
+        resource = null;
+        uid = null;
+        rule = null;
+        startZone = null;
+        priority = 0;
+        hasStart = false;
+        hasEnd = false;
+        hasDuration = false;
+        hasRecurrenceId = false;
+        exceptionTimes.clear();
+        exceptionDays.clear();
+    }
+
+    private void property() throws IOException {
+        switch (name) {
+            case "SUMMARY":
+                summary = unescape(value, 0, value.length());
+                break;
+            case "DESCRIPTION":
+                description = unescape(value, 0, value.length());
+                break;
+            case "LOCATION":
+                location = unescape(value, 0, value.length());
+                break;
+            case "CATEGORIES":
+                category = firstItem(value);
+                break;
+            case "RESOURCES":
+                resource = firstItem(value);
+                break;
+            case "UID":
+                uid = value;
+                break;
+            case "PRIORITY":
+                priority = parseInt(value);
+                break;
+            case "DTSTART":
+                startValue = parseTime(value, 0, value.length());
+                startDateOnly = dateOnly;
+                startZone = tzid;
+                hasStart = true;
+                break;
+            case "DTEND":
+                endValue = parseTime(value, 0, value.length());
+                endDateOnly = dateOnly;
+                hasEnd = true;
+                break;
+            case "DURATION":
+                parseDuration(value);
+                break;
+            case "RRULE":
+                rule = value;
+                break;
+            case "EXDATE":
+                int from = 0;
+                while (from < value.length()) {
+                    int to = value.indexOf(',', from);
+                    if (to < 0)
+                        to = value.length();
+                    final long exception = parseTime(value, from, to);
+                    if (dateOnly)
+                        exceptionDays.add((int) exception);
+                    else
+                        exceptionTimes.add(exception);
+                    from = to + 1;
+                }
+                break;
+            case "RECURRENCE-ID":
+                recurrenceIdValue = parseTime(value, 0, value.length());
+                recurrenceIdDateOnly = dateOnly;
+                hasRecurrenceId = true;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Creates the event from the properties read since BEGIN:VEVENT
+     *
+     * @return the event, null if it has no start
+     */
+    private CalendarEvent build() throws IOException {
+        if (!hasStart)
+            return null;
+
+        final long start;
+        final long end;
+        if (startDateOnly) {
+            final int startDay = (int) startValue;
+            int endDay = startDay + 1;
+            if (hasEnd)
+                endDay = endDateOnly ? (int) endValue : CalendarUtil.toEpochDay(endValue);
+            else if (hasDuration)
+                endDay = startDay + (int) (durationDays + durationSeconds / 86400);
+            start = CalendarUtil.startOfEpochDay(startDay);
+            end = CalendarUtil.startOfEpochDay(Math.max(startDay, endDay - 1));
+        } else {
+            start = startValue;
+            long endTime = start;
+            if (hasEnd)
+                endTime = endDateOnly ? CalendarUtil.startOfEpochDay((int) endValue) : endValue;
+            else if (hasDuration)
+                endTime = CalendarUtil.plusDays(start, (int) durationDays) + durationSeconds * 1000;
+            end = Math.max(start, endTime);
+        }
+
+        final Recurrence recurrence = rule == null ? null : parseRule(start);
+        final CalendarEvent event;
+        if (recurrence != null) {
+            final RecurringEvent recurringEvent = new RecurringEvent(new Date(start), new Date(end), recurrence);
+            for (final Long exception : exceptionTimes) {
+                recurringEvent.addException(new Date(exception));
+            }
+            for (final Integer day : exceptionDays) {
+                recurringEvent.addException(new Date(toOccurrenceStart(start, day)));
+            }
+            if (uid != null) {
+                series.put(uid, recurringEvent);
+                final List<Long> pending = pendingExceptions.remove(uid);
+                if (pending != null) {
+                    for (final Long exception : pending) {
+                        recurringEvent.addException(new Date(exception));
+                    }
+                }
+            }
+            recurringEvent.setType(getType());
+            event = recurringEvent;
+        } else {
+            event = new CalendarEvent(new Date(start), new Date(end), getType());
+        }
+        event.setSummary(summary);
+        event.setDescription(description);
+        event.setLocation(location);
+        event.setResource(resource);
+        event.setPriority(priority);
+        event.setAllDay(startDateOnly);
+
+        if (hasRecurrenceId && uid != null && recurrence == null) {
+            final long occurrence = recurrenceIdDateOnly
+                    ? CalendarUtil.startOfEpochDay((int) recurrenceIdValue) : recurrenceIdValue;
+            final RecurringEvent master = series.get(uid);
+            if (master != null) {
+                master.addException(new Date(master.isAllDay() || !recurrenceIdDateOnly ? occurrence
+                        : toOccurrenceStart(master.getStart().getTime(), (int) recurrenceIdValue)));
+            } else {
+                List<Long> pending = pendingExceptions.get(uid);
+                if (pending == null) {
+                    pending = new ArrayList<Long>(1);
+                    pendingExceptions.put(uid, pending);
+                }
+                pending.add(occurrence);
+            }
+        }
+        return event;
+    }
+
+    /**
+     * @param start    the start of the first occurrence
+     * @param epochDay
+     * @return the start of the occurrence on the given day
+     */
+    private static long toOccurrenceStart(final long start, final int epochDay) {
+        return CalendarUtil.plusDays(start, epochDay - CalendarUtil.toEpochDay(start));
+    }
+
+    private EventType getType() {
+        if (category == null)
+            return defaultType;
+        EventType type = types.get(category);
+        if (type == null) {
+            type = new EventType();
+            type.setName(category);
+            types.put(category, type);
+        }
+        return type;
+    }
+
+    /**
+     * @param start the start of the first occurrence
+     * @return the recurrence of the current RRULE, null if it uses parts a
+     *         {@link Recurrence} cannot express
+     */
+    private Recurrence parseRule(final long start) throws IOException {
+        Frequency frequency = null;
+        int interval = 1;
+        int count = 0;
+        Date until = null;
+        int[] byDay = NO_DAYS;
+        calendar.setTimeInMillis(start);
+
+        for (final String part : rule.split(";")) {
+            final int separator = part.indexOf('=');
+            if (separator < 0)
+                continue;
+            final String key = part.substring(0, separator).toUpperCase(Locale.ROOT);
+            final String text = part.substring(separator + 1);
+            switch (key) {
+                case "FREQ":
+                    try {
+                        frequency = Frequency.valueOf(text.toUpperCase(Locale.ROOT));
+                    } catch (final IllegalArgumentException e) {
+                        return null;
+                    }
+                    break;
+                case "INTERVAL":
+                    interval = parseInt(text);
+                    break;
+                case "COUNT":
+                    count = parseInt(text);
+                    break;
+                case "UNTIL":
+                    tzid = startZone;
+                    final long untilValue = parseTime(text, 0, text.length());
+                    until = new Date(dateOnly ? CalendarUtil.startOfEpochDay((int) untilValue + 1) - 1 : untilValue);
+                    break;
+                case "BYDAY":
+                    final String[] codes = text.split(",");
+                    byDay = new int[codes.length];
+                    for (int i = 0; i < codes.length; i++) {
+                        byDay[i] = ICalendar.toDayOfWeek(codes[i].trim().toUpperCase(Locale.ROOT));
+                        if (byDay[i] < 0)
+                            return null;
+                    }
+                    break;
+                case "BYMONTHDAY":
+                    if (!text.equals(Integer.toString(calendar.get(Calendar.DAY_OF_MONTH))))
+                        return null;
+                    break;
+                case "BYMONTH":
+                    if (!text.equals(Integer.toString(calendar.get(Calendar.MONTH) + 1)))
+                        return null;
+                    break;
+                case "WKST":
+                    break;
+                default:
+                    return null;
+            }
+        }
+        if (frequency == null)
+            return null;
+        if (byDay.length > 0 && frequency != Frequency.WEEKLY) {
+            if (byDay.length > 1 || byDay[0] != calendar.get(Calendar.DAY_OF_WEEK))
+                return null;
+            byDay = NO_DAYS;
+        }
+        try {
+            return new Recurrence(frequency, interval, count, until, byDay);
+        } catch (final IllegalArgumentException e) {
+            throw fail("Invalid RRULE '" + rule + "'");
+        }
+    }
+
+    /**
+     * Parses a DATE or DATE-TIME value. Sets {@link #dateOnly}.
+     *
+     * @return the epoch millis of a date-time, the epoch day of a date
+     */
+    private long parseTime(final String text, final int from, final int to) throws IOException {
+        final int length = to - from;
+        dateOnly = length == 8;
+        if (!dateOnly && (length != 15 && (length != 16 || text.charAt(to - 1) != 'Z')
+                || text.charAt(from + 8) != 'T') || dateValue && !dateOnly)
+            throw fail("Invalid date-time '" + text.substring(from, to) + "'");
+        final int year = digits(text, from, 4);
+        final int month = digits(text, from + 4, 2);
+        final int day = digits(text, from + 6, 2);
+        if (month < 1 || month > 12 || day < 1 || day > 31)
+            throw fail("Invalid date '" + text.substring(from, to) + "'");
+        final int epochDay = ICalendar.toEpochDay(year, month, day);
+        if (dateOnly)
+            return epochDay;
+
+        final int hour = digits(text, from + 9, 2);
+        final int minute = digits(text, from + 11, 2);
+        final int second = Math.min(59, digits(text, from + 13, 2));
+        if (length == 16)
+            return epochDay * ICalendar.MILLIS_PER_DAY + (hour * 3600 + minute * 60 + second) * 1000L;
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second).atZone(getZone(tzid)).toInstant()
+                    .toEpochMilli();
+        } catch (final DateTimeException e) {
+            throw fail("Invalid date-time '" + text.substring(from, to) + "'");
+        }
+    }
+
+    private int digits(final String text, final int from, final int count) throws IOException {
+        int result = 0;
+        for (int i = from; i < from + count; i++) {
+            final char c = text.charAt(i);
+            if (c < '0' || c > '9')
+                throw fail("Invalid number '" + text + "'");
+            result = result * 10 + c - '0';
+        }
+        return result;
+    }
+
+    /**
+     * @param id a TZID, may be null
+     * @return the zone of the given id, the default zone if there is no zone
+     *         with that id
+     */
+    private ZoneId getZone(final String id) {
+        if (id == null)
+            return defaultZone;
+        ZoneId zone = zones.get(id);
+        if (zone == null) {
+            try {
+                zone = ZoneId.of(id.startsWith("/") ? id.substring(1) : id);
+            } catch (final DateTimeException e) {
+                zone = defaultZone;
+            }
+            zones.put(id, zone);
+        }
+        return zone;
+    }
+
+    private void parseDuration(final String text) throws IOException {
+        int i = 0;
+        boolean negative = false;
+        if (i < text.length() && (text.charAt(i) == '+' || text.charAt(i) == '-'))
+            negative = text.charAt(i++) == '-';
+        if (i >= text.length() || text.charAt(i++) != 'P')
+            throw fail("Invalid duration '" + text + "'");
+        long days = 0;
+        long seconds = 0;
+        long number = -1;
+        for (; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                number = Math.max(0, number) * 10 + c - '0';
+                continue;
+            }
+            if (c == 'T')
+                continue;
+            if (number < 0)
+                throw fail("Invalid duration '" + text + "'");
+            switch (c) {
+                case 'W':
+                    days += 7 * number;
+                    break;
+                case 'D':
+                    days += number;
+                    break;
+                case 'H':
+                    seconds += 3600 * number;
+                    break;
+                case 'M':
+                    seconds += 60 * number;
+                    break;
+                case 'S':
+                    seconds += number;
+                    break;
+                default:
+                    throw fail("Invalid duration '" + text + "'");
+            }
+            number = -1;
+        }
+        if (number >= 0)
+            throw fail("Invalid duration '" + text + "'");
+        durationDays = negative ? -days : days;
+        durationSeconds = negative ? -seconds : seconds;
+        hasDuration = true;
+    }
+
+    private int parseInt(final String text) throws IOException {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (final NumberFormatException e) {
+            throw fail("Invalid number '" + text + "'");
+        }
+    }
+
+    /**
+     * @return the first item of a comma separated TEXT list
+     */
+    private static String firstItem(final String text) {
+        int i = 0;
+        while (i < text.length() && text.charAt(i) != ',') {
+            if (text.charAt(i) == '\\')
+                i++;
+            i++;
+        }
+        final String item = unescape(text, 0, Math.min(i, text.length())).trim();
+        return item.isEmpty() ? null : item;
+    }
+
+    private static String unescape(final String text, final int from, final int to) {
+        final int escape = text.indexOf('\\', from);
+        if (escape < 0 || escape >= to)
+            return text.substring(from, to);
+        final StringBuilder result = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < to) {
+                c = text.charAt(++i);
+                if (c == 'n' || c == 'N')
+                    c = '\n';
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+
+    private IOException fail(final String message) {
+        return new IOException(message + " at line " + lineNumber);
+    }
+}
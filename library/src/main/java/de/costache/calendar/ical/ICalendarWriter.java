@@ -0,0 +1,306 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ical;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.Recurrence;
+import de.costache.calendar.model.RecurringEvent;
+import de.costache.calendar.util.CalendarUtil;
+import de.costache.calendar.util.EventCollection;
+import de.costache.calendar.util.EventCollectionRepository;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Streaming writer of iCalendar (RFC 5545) data. Every event is written as
+ * one VEVENT as soon as it is passed in; the VCALENDAR is opened with the
+ * first event and closed by {@link #close()}.
+ * <p>
+ * Times are written in UTC, all-day events as DATE values ending on the
+ * day after the day of their end. A {@link RecurringEvent} is written once
+ * with its RRULE and EXDATEs. The type name is written as CATEGORIES and the
+ * resource as RESOURCES, so that {@link ICalendarReader} reads the events
+ * back unchanged.
+ *
+ * @author theodorcostache
+ */
+public class ICalendarWriter implements Closeable, Flushable {
+
+    private static final String PRODID = "-//Theodor Costache//JCalendar//EN";
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private final Writer writer;
+    private final StringBuilder line;
+    private final String uidPrefix;
+    private final String timestamp;
+    private char[] chars;
+    private long sequence;
+    private boolean started;
+
+    /**
+     * Creates a writer encoding to UTF-8 into the given stream
+     *
+     * @param out
+     */
+    public ICalendarWriter(final OutputStream out) {
+        this(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a new instance of {@link ICalendarWriter}
+     *
+     * @param writer
+     */
+    public ICalendarWriter(final Writer writer) {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, 65536);
+        this.line = new StringBuilder(256);
+        this.chars = new char[256];
+        final long now = System.currentTimeMillis();
+        this.uidPrefix = Long.toString(now, 36) + '-';
+        final StringBuilder stamp = new StringBuilder(16);
+        ICalendar.appendUtcDateTime(now - now % 1000, stamp);
+        this.timestamp = stamp.toString();
+    }
+
+    /**
+     * Writes all events of the collection of the given calendar overlapping
+     * the given interval
+     *
+     * @param calendar
+     * @param from     inclusive
+     * @param to       exclusive
+     * @return the number of events written
+     * @throws IOException
+     */
+    public int write(final JCalendar calendar, final Date from, final Date to) throws IOException {
+        return write(EventCollectionRepository.get(calendar), from, to);
+    }
+
+    /**
+     * Writes all events of the given collection overlapping the given
+     * interval, i.e. those with start &lt; to and end &gt;= from. The single
+     * events are looked up in the index of the collection, ordered by start
+     * and end, followed by the series having an occurrence in the interval,
+     * each written as a whole. The occurrences are not expanded, the search
+     * stops at the first one.
+     *
+     * @param collection
+     * @param from       inclusive
+     * @param to         exclusive
+     * @return the number of events written
+     * @throws IOException
+     */
+    public int write(final EventCollection collection, final Date from, final Date to) throws IOException {
+        final List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+        collection.getEvents(from, to, events);
+        for (final CalendarEvent event : events) {
+            write(event);
+        }
+        int count = events.size();
+        for (final RecurringEvent series : collection.getRecurringEvents()) {
+            if (series.overlaps(from, to)) {
+                write(series);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes the given event as a VEVENT
+     *
+     * @param event
+     * @throws IOException
+     */
+    public void write(final CalendarEvent event) throws IOException {
+        if (!started)
+            begin();
+
+        writeLine("BEGIN:VEVENT");
+        line.append("UID:").append(uidPrefix).append(sequence++).append("@de.costache.calendar");
+        writeLine();
+        line.append("DTSTAMP:").append(timestamp);
+        writeLine();
+
+        final long start = event.getStart().getTime();
+        final long end = event.getEnd().getTime();
+        if (event.isAllDay()) {
+            final int firstDay = CalendarUtil.toEpochDay(start);
+            line.append("DTSTART;VALUE=DATE:");
+            ICalendar.appendDate(firstDay, line);
+            writeLine();
+            line.append("DTEND;VALUE=DATE:");
+            ICalendar.appendDate(Math.max(firstDay, CalendarUtil.toEpochDay(end)) + 1, line);
+            writeLine();
+        } else {
+            line.append("DTSTART:");
+            ICalendar.appendUtcDateTime(start, line);
+            writeLine();
+            line.append("DTEND:");
+            ICalendar.appendUtcDateTime(end, line);
+            writeLine();
+        }
+
+        writeText("SUMMARY", event.getSummary());
+        writeText("DESCRIPTION", event.getDescription());
+        writeText("LOCATION", event.getLocation());
+        if (event.getType() != null)
+            writeText("CATEGORIES", event.getType().getName());
+        writeText("RESOURCES", event.getResource());
+        if (event.getPriority() != 0) {
+            line.append("PRIORITY:").append(event.getPriority());
+            writeLine();
+        }
+        if (event instanceof RecurringEvent)
+            writeRecurrence((RecurringEvent) event);
+        writeLine("END:VEVENT");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Closes the VCALENDAR and the underlying writer
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (!started)
+            begin();
+        writeLine("END:VCALENDAR");
+        writer.close();
+    }
+
+    private void begin() throws IOException {
+        started = true;
+        writeLine("BEGIN:VCALENDAR");
+        writeLine("VERSION:2.0");
+        writeLine("PRODID:" + PRODID);
+        writeLine("CALSCALE:GREGORIAN");
+    }
+
+    private void writeRecurrence(final RecurringEvent event) throws IOException {
+        final Recurrence recurrence = event.getRecurrence();
+        line.append("RRULE:FREQ=").append(recurrence.getFrequency().name());
+        if (recurrence.getInterval() > 1)
+            line.append(";INTERVAL=").append(recurrence.getInterval());
+        if (recurrence.getCount() > 0)
+            line.append(";COUNT=").append(recurrence.getCount());
+        if (recurrence.getUntil() != null) {
+            line.append(";UNTIL=");
+            if (event.isAllDay())
+                ICalendar.appendDate(CalendarUtil.toEpochDay(recurrence.getUntil().getTime()), line);
+            else
+                ICalendar.appendUtcDateTime(recurrence.getUntil().getTime(), line);
+        }
+        final List<Integer> byDay = recurrence.getByDay();
+        for (int i = 0; i < byDay.size(); i++) {
+            line.append(i == 0 ? ";BYDAY=" : ",").append(ICalendar.DAY_CODES[byDay.get(i)]);
+        }
+        writeLine();
+
+        final List<Date> exceptions = event.getExceptions();
+        if (exceptions.isEmpty())
+            return;
+        line.append(event.isAllDay() ? "EXDATE;VALUE=DATE:" : "EXDATE:");
+        for (int i = 0; i < exceptions.size(); i++) {
+            if (i > 0)
+                line.append(',');
+            if (event.isAllDay())
+                ICalendar.appendDate(CalendarUtil.toEpochDay(exceptions.get(i).getTime()), line);
+            else
+                ICalendar.appendUtcDateTime(exceptions.get(i).getTime(), line);
+        }
+        writeLine();
+    }
+
+    private void writeText(final String property, final String text) throws IOException {
+        if (text == null)
+            return;
+        line.append(property).append(':');
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                case ';':
+                case ',':
+                    line.append('\\').append(c);
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    break;
+                default:
+                    line.append(c);
+            }
+        }
+        writeLine();
+    }
+
+    private void writeLine(final String text) throws IOException {
+        line.append(text);
+        writeLine();
+    }
+
+    /**
+     * Writes the buffered line terminated by CRLF, folded so that no line
+     * exceeds 75 octets of UTF-8
+     */
+    private void writeLine() throws IOException {
+        final int length = line.length();
+        if (chars.length < length)
+            chars = new char[Math.max(length, chars.length * 2)];
+        line.getChars(0, length, chars, 0);
+        line.setLength(0);
+
+        int start = 0;
+        int octets = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = chars[i];
+            final int size;
+            if (Character.isHighSurrogate(c) && i + 1 < length)
+                size = 4;
+            else
+                size = c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+            if (octets + size > MAX_LINE_OCTETS) {
+                writer.write(chars, start, i - start);
+                writer.write("\r\n ");
+                start = i;
+                octets = 1;
+            }
+            octets += size;
+            if (size == 4)
+                i++;
+        }
+        writer.write(chars, start, length - start);
+        writer.write("\r\n");
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.model;
+
+import de.costache.calendar.model.CalendarEvent.Property;
+
+/**
+ * Receives the property changes of the {@link CalendarEvent}s it has been
+ * registered with.
+ *
+ * @author theodorcostache
+ */
+public interface CalendarEventObserver {
+
+    /**
+     * Called after a property of the given event has been set
+     *
+     * @param calendarEvent the changed event
+     * @param property      the changed property
+     * @param oldValue      the value of the property before the change
+     */
+    void propertyChanged(CalendarEvent calendarEvent, Property property, Object oldValue);
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.model;
+
+import java.util.Date;
+
+/**
+ * A single occurrence of a {@link RecurringEvent}. Only its start and end
+ * are its own, all other properties are read from and written to the
+ * series. Occurrences are created when an interval is expanded and are not
+ * observed themselves: a change made through an occurrence is reported by
+ * its series.
+ * <p>
+ * An occurrence cannot be moved. To move a single occurrence add its start
+ * as an exception to the series and add a separate event.
+ *
+ * @author theodorcostache
+ */
+public final class Occurrence extends CalendarEvent {
+
+    private final RecurringEvent series;
+
+    /**
+     * Creates a new instance of {@link Occurrence}
+     *
+     * @param series
+     * @param start  epoch millis
+     * @param end    epoch millis
+     */
+    public Occurrence(final RecurringEvent series, final long start, final long end) {
+        super(new Date(start), new Date(end), null);
+        this.series = series;
+    }
+
+    /**
+     * @return the series this is an occurrence of
+     */
+    public RecurringEvent getSeries() {
+        return series;
+    }
+
+    @Override
+    public String getSummary() {
+        return series.getSummary();
+    }
+
+    @Override
+    public void setSummary(final String summary) {
+        series.setSummary(summary);
+    }
+
+    @Override
+    public String getDescription() {
+        return series.getDescription();
+    }
+
+    @Override
+    public void setDescription(final String description) {
+        series.setDescription(description);
+    }
+
+    @Override
+    public String getLocation() {
+        return series.getLocation();
+    }
+
+    @Override
+    public void setLocation(final String location) {
+        series.setLocation(location);
+    }
+
+    @Override
+    public void setStart(final Date start) {
+        throw new UnsupportedOperationException("An occurrence of a recurring event cannot be moved");
+    }
+
+    @Override
+    public void setEnd(final Date end) {
+        throw new UnsupportedOperationException("An occurrence of a recurring event cannot be moved");
+    }
+
+    @Override
+    public EventType getType() {
+        return series.getType();
+    }
+
+    @Override
+    public void setType(final EventType type) {
+        series.setType(type);
+    }
+
+    @Override
+    public boolean isAllDay() {
+        return series.isAllDay();
+    }
+
+    @Override
+    public void setAllDay(final boolean value) {
+        series.setAllDay(value);
+    }
+
+    @Override
+    public int getPriority() {
+        return series.getPriority();
+    }
+
+    @Override
+    public void setPriority(final int value) {
+        series.setPriority(value);
+    }
+
+    @Override
+    public boolean isHoliday() {
+        return series.isHoliday();
+    }
+
+    @Override
+    public void setHoliday(final boolean holiday) {
+        series.setHoliday(holiday);
+    }
+
+    @Override
+    public String getResource() {
+        return series.getResource();
+    }
+
+    @Override
+    public void setResource(final String resource) {
+        series.setResource(resource);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(series) + getStart().hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof Occurrence))
+            return false;
+        final Occurrence other = (Occurrence) obj;
+        return series == other.series && getStart().equals(other.getStart());
+    }
+
+    @Override
+    public String toString() {
+        return "Occurrence [start=" + getStart() + ", end=" + getEnd() + ", series=" + series + "]";
+    }
+}
@@ -0,0 +1,302 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.model;
+
+import de.costache.calendar.util.CalendarUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Immutable recurrence rule in the manner of an iCalendar RRULE: a
+ * frequency, an interval between the periods, optionally the days of the
+ * week a weekly rule repeats on, and an end given by a number of
+ * occurrences or a last date.
+ * <p>
+ * Monthly and yearly rules repeat on the day of month of the first
+ * occurrence and skip the periods without that day, e.g. the 31st or the
+ * 29th of February. Weeks start on Monday. All occurrences keep the local
+ * time of the first one.
+ *
+ * @author theodorcostache
+ */
+public final class Recurrence {
+
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY, YEARLY
+    }
+
+    /**
+     * Returned by {@link #getFirstStart(Date, long, long)} if no occurrence
+     * starts in the interval
+     */
+    public static final long NO_START = Long.MIN_VALUE;
+
+    private static final int[] NO_DAYS = new int[0];
+
+    private final Frequency frequency;
+    private final int interval;
+    private final int count;
+    private final Date until;
+    private final int[] byDay;
+
+    /**
+     * Creates a rule repeating every period forever
+     *
+     * @param frequency
+     */
+    public Recurrence(final Frequency frequency) {
+        this(frequency, 1, 0, null);
+    }
+
+    /**
+     * Creates a new instance of {@link Recurrence}
+     *
+     * @param frequency
+     * @param interval  the number of periods between two repetitions, at
+     *                  least 1
+     * @param count     the number of occurrences, 0 for no limit
+     * @param until     the last possible start of an occurrence, inclusive,
+     *                  null for no limit
+     * @param byDay     the {@link Calendar#DAY_OF_WEEK}s a weekly rule
+     *                  repeats on, none to repeat on the day of the first
+     *                  occurrence
+     */
+    public Recurrence(final Frequency frequency, final int interval, final int count, final Date until,
+                      final int... byDay) {
+        if (frequency == null)
+            throw new IllegalArgumentException("frequency must not be null");
+        if (interval < 1)
+            throw new IllegalArgumentException("interval must be at least 1: " + interval);
+        if (count < 0)
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        for (final int day : byDay) {
+            if (day < Calendar.SUNDAY || day > Calendar.SATURDAY)
+                throw new IllegalArgumentException("Invalid day of week " + day);
+        }
+        if (byDay.length > 0 && frequency != Frequency.WEEKLY)
+            throw new IllegalArgumentException("byDay is only supported for weekly rules");
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+        this.until = until == null ? null : new Date(until.getTime());
+        this.byDay = byDay.length == 0 ? NO_DAYS : byDay.clone();
+        Arrays.sort(this.byDay);
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return the number of occurrences, 0 for no limit
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the last possible start of an occurrence, null for no limit
+     */
+    public Date getUntil() {
+        return until == null ? null : new Date(until.getTime());
+    }
+
+    /**
+     * @return the days of the week a weekly rule repeats on, sorted, empty
+     *         if it repeats on the day of the first occurrence
+     */
+    public List<Integer> getByDay() {
+        final List<Integer> result = new ArrayList<Integer>(byDay.length);
+        for (final int day : byDay) {
+            result.add(day);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Collects the starts of the occurrences in the given interval. Rules
+     * without count skip the periods before the interval, so the cost is
+     * proportional to the occurrences in the interval and not to those
+     * before it. Rules with count have to enumerate the occurrences from the
+     * first one, but at most count of them.
+     *
+     * @param first  the start of the first occurrence
+     * @param from   epoch millis, inclusive
+     * @param to     epoch millis, exclusive
+     * @param result receives the starts as epoch millis, in ascending order
+     */
+    public void getStarts(final Date first, final long from, final long to, final Collection<Long> result) {
+        getStarts(first, from, to, Integer.MAX_VALUE, result);
+    }
+
+    /**
+     * Finds the start of the first occurrence in the given interval without
+     * enumerating the ones after it
+     *
+     * @param first the start of the first occurrence
+     * @param from  epoch millis, inclusive
+     * @param to    epoch millis, exclusive
+     * @return the start as epoch millis, {@link #NO_START} if no occurrence
+     *         starts in the interval
+     */
+    public long getFirstStart(final Date first, final long from, final long to) {
+        final List<Long> result = new ArrayList<Long>(1);
+        getStarts(first, from, to, 1, result);
+        return result.isEmpty() ? NO_START : result.get(0);
+    }
+
+    private void getStarts(final Date first, final long from, final long to, final int limit,
+                           final Collection<Long> result) {
+        int added = 0;
+        final long start = first.getTime();
+        final long last = until == null ? Long.MAX_VALUE : until.getTime();
+        final int firstDay = CalendarUtil.toEpochDay(start);
+        int period = count > 0 ? 0 : Math.max(0, skippablePeriods(CalendarUtil.toEpochDay(from) - firstDay));
+        int index = 0;
+        final Calendar calendar = frequency == Frequency.MONTHLY || frequency == Frequency.YEARLY ? CalendarUtil
+                .getCalendar(first, false) : null;
+        final int dayOfMonth = calendar == null ? 0 : calendar.get(Calendar.DAY_OF_MONTH);
+        final int weekStartDay = firstDay - (dayOfWeek(firstDay) + 5) % 7;
+        final int[] days = frequency == Frequency.WEEKLY && byDay.length > 0 ? weekOffsets() : null;
+
+        while (true) {
+            final long periodStart;
+            long[] candidates;
+            switch (frequency) {
+                case DAILY:
+                    periodStart = CalendarUtil.plusDays(start, period * interval);
+                    candidates = new long[] { periodStart };
+                    break;
+                case WEEKLY:
+                    if (days == null) {
+                        periodStart = CalendarUtil.plusDays(start, period * interval * 7);
+                        candidates = new long[] { periodStart };
+                    } else {
+                        final int weekDay = weekStartDay + period * interval * 7;
+                        periodStart = CalendarUtil.plusDays(start, weekDay - firstDay);
+                        candidates = new long[days.length];
+                        for (int i = 0; i < days.length; i++) {
+                            candidates[i] = CalendarUtil.plusDays(start, weekDay + days[i] - firstDay);
+                        }
+                    }
+                    break;
+                default:
+                    calendar.setTime(first);
+                    calendar.set(Calendar.DAY_OF_MONTH, 1);
+                    calendar.add(frequency == Frequency.MONTHLY ? Calendar.MONTH : Calendar.YEAR, period * interval);
+                    periodStart = calendar.getTimeInMillis();
+                    if (calendar.getActualMaximum(Calendar.DAY_OF_MONTH) < dayOfMonth) {
+                        candidates = new long[0];
+                    } else {
+                        calendar.set(Calendar.DAY_OF_MONTH, dayOfMonth);
+                        candidates = new long[] { calendar.getTimeInMillis() };
+                    }
+                    break;
+            }
+            if (periodStart >= to || periodStart > last)
+                return;
+
+            for (final long candidate : candidates) {
+                if (candidate < start)
+                    continue;
+                if (count > 0 && ++index > count)
+                    return;
+                if (candidate >= to || candidate > last)
+                    return;
+                if (candidate >= from) {
+                    result.add(candidate);
+                    if (++added == limit)
+                        return;
+                }
+            }
+            period++;
+        }
+    }
+
+    /**
+     * @return a lower bound of the number of whole periods lying in the
+     *         given number of days
+     */
+    private int skippablePeriods(final int days) {
+        switch (frequency) {
+            case DAILY:
+                return days / interval - 1;
+            case WEEKLY:
+                return days / (7 * interval) - 1;
+            case MONTHLY:
+                return days / (31 * interval) - 1;
+            default:
+                return days / (366 * interval) - 1;
+        }
+    }
+
+    /**
+     * @return the offsets of the days of the rule from Monday, ascending
+     */
+    private int[] weekOffsets() {
+        final int[] result = new int[byDay.length];
+        for (int i = 0; i < byDay.length; i++) {
+            result[i] = (byDay[i] + 5) % 7;
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * @return the {@link Calendar#DAY_OF_WEEK} of the given epoch day
+     */
+    private static int dayOfWeek(final int epochDay) {
+        return (int) Math.floorMod(epochDay + 4L, 7L) + 1;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = frequency.hashCode();
+        result = 31 * result + interval;
+        result = 31 * result + count;
+        result = 31 * result + (until == null ? 0 : until.hashCode());
+        result = 31 * result + Arrays.hashCode(byDay);
+        return result;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof Recurrence))
+            return false;
+        final Recurrence other = (Recurrence) obj;
+        return frequency == other.frequency && interval == other.interval && count == other.count
+                && (until == null ? other.until == null : until.equals(other.until))
+                && Arrays.equals(byDay, other.byDay);
+    }
+
+    @Override
+    public String toString() {
+        return "Recurrence [frequency=" + frequency + ", interval=" + interval + ", count=" + count + ", until="
+                + until + ", byDay=" + Arrays.toString(byDay) + "]";
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * An event repeating according to a {@link Recurrence}. Its start and end
+ * are those of the first occurrence, all other occurrences are expanded on
+ * demand as {@link Occurrence}s sharing the properties of the series, so
+ * the memory of a series does not depend on the number of its occurrences.
+ * <p>
+ * Single occurrences are cancelled by adding their start as an exception.
+ * Changes of the rule and of the exceptions are reported as
+ * {@link CalendarEvent.Property#RECURRENCE}.
+ *
+ * @author theodorcostache
+ */
+public class RecurringEvent extends CalendarEvent {
+
+    private Recurrence recurrence;
+    private final Set<Long> exceptions;
+
+    public RecurringEvent(final Date start, final Date end, final Recurrence recurrence) {
+        super(start, end);
+        this.recurrence = recurrence;
+        this.exceptions = new TreeSet<Long>();
+    }
+
+    public RecurringEvent(final String summary, final Date start, final Date end, final Recurrence recurrence) {
+        super(summary, start, end);
+        this.recurrence = recurrence;
+        this.exceptions = new TreeSet<Long>();
+    }
+
+    /**
+     * @return the rule the series repeats by
+     */
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    /**
+     * @param recurrence the rule the series repeats by
+     */
+    public void setRecurrence(final Recurrence recurrence) {
+        final Object oldValue = this.recurrence;
+        this.recurrence = recurrence;
+        fireChanged(Property.RECURRENCE, oldValue);
+    }
+
+    /**
+     * @return the starts of the cancelled occurrences, ascending
+     */
+    public List<Date> getExceptions() {
+        final List<Date> result = new ArrayList<Date>(exceptions.size());
+        for (final Long exception : exceptions) {
+            result.add(new Date(exception));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Cancels the occurrence starting at the given date
+     *
+     * @param start
+     */
+    public void addException(final Date start) {
+        if (exceptions.add(start.getTime()))
+            fireChanged(Property.RECURRENCE, recurrence);
+    }
+
+    /**
+     * Restores the occurrence starting at the given date
+     *
+     * @param start
+     */
+    public void removeException(final Date start) {
+        if (exceptions.remove(start.getTime()))
+            fireChanged(Property.RECURRENCE, recurrence);
+    }
+
+    /**
+     * @param start epoch millis
+     * @return true if the occurrence starting at the given time is cancelled
+     */
+    public boolean isException(final long start) {
+        return !exceptions.isEmpty() && exceptions.contains(start);
+    }
+
+    /**
+     * @return the duration of every occurrence in millis
+     */
+    public long getDuration() {
+        return getEnd().getTime() - getStart().getTime();
+    }
+
+    /**
+     * Tells whether an occurrence overlaps the given interval, i.e. has start
+     * &lt; to and end &gt;= from and is not cancelled, without expanding the
+     * occurrences
+     *
+     * @param from
+     * @param to
+     * @return true if {@link #getOccurrences(Date, Date)} would not be empty
+     */
+    public boolean overlaps(final Date from, final Date to) {
+        long start = from.getTime() - getDuration();
+        while (true) {
+            start = recurrence.getFirstStart(getStart(), start, to.getTime());
+            if (start == Recurrence.NO_START)
+                return false;
+            if (!isException(start))
+                return true;
+            start++;
+        }
+    }
+
+    /**
+     * Expands the occurrences overlapping the given interval, i.e. those with
+     * start &lt; to and end &gt;= from, without the cancelled ones
+     *
+     * @param from
+     * @param to
+     * @return the occurrences ordered by start
+     */
+    public List<CalendarEvent> getOccurrences(final Date from, final Date to) {
+        final List<Long> starts = new ArrayList<Long>();
+        final long duration = getDuration();
+        recurrence.getStarts(getStart(), from.getTime() - duration, to.getTime(), starts);
+        final List<CalendarEvent> result = new ArrayList<CalendarEvent>(starts.size());
+        for (final Long start : starts) {
+            if (!isException(start))
+                result.add(new Occurrence(this, start, start + duration));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "RecurringEvent [start=" + getStart() + ", end=" + getEnd() + ", recurrence=" + recurrence + "]";
+    }
+}
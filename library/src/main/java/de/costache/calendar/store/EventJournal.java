@@ -0,0 +1,1010 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.store;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.events.ModelChangedEvent;
+import de.costache.calendar.events.ModelChangedListener;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.CalendarEvent.Property;
+import de.costache.calendar.model.EventType;
+import de.costache.calendar.model.Recurrence;
+import de.costache.calendar.model.Recurrence.Frequency;
+import de.costache.calendar.model.RecurringEvent;
+import de.costache.calendar.util.EventCollection;
+import de.costache.calendar.util.EventCollectionRepository;
+
+import java.awt.Color;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the changes of an {@link EventCollection}, so an
+ * edit costs a record of the size of the change instead of a new
+ * {@link EventSnapshot} of all events.
+ * <p>
+ * The journal listens to the collection and appends an add record with all
+ * fields of an added event, a remove record with the id of a removed event
+ * and one record per changed {@link Property} holding its new value. Each
+ * record is prefixed by its length and a CRC32 of its content. The records
+ * are buffered in memory and a writer thread commits them in groups: it
+ * waits up to the commit interval for more records to arrive and then
+ * writes and forces all of them at once, so a burst of edits costs a single
+ * fsync. {@link #commit()} waits until everything appended so far is on the
+ * device.
+ * <p>
+ * When the current journal exceeds the compaction threshold the journal is
+ * compacted: the events are captured on the calling thread, new records go
+ * to the journal of the next generation, and a background thread writes
+ * the captured events as the snapshot of that generation and deletes the
+ * files of the older generations afterwards. Every journal starts with the
+ * ids of the rows of the snapshot of its generation, so the ids the records
+ * refer to stay valid across generations.
+ * <p>
+ * On construction the newest snapshot and the journals from its generation
+ * on are replayed and the events added to the collection in one
+ * {@link EventCollection#addAll}. A record torn by a crash ends the replay
+ * and is cut off the last journal. Replaying a record twice has no effect,
+ * which is why a snapshot written while the events still change stays
+ * consistent with the journal that follows it.
+ * <p>
+ * The journal is used from the thread owning the collection, usually the
+ * event dispatch thread.
+ *
+ * @author theodorcostache
+ */
+public final class EventJournal implements Closeable {
+
+    /**
+     * The current version of the format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The default time a commit waits for more records, in milliseconds
+     */
+    public static final long DEFAULT_COMMIT_INTERVAL = 20;
+
+    /**
+     * The default size of a journal that triggers a compaction, in bytes
+     */
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 16 << 20;
+
+    private static final int MAGIC = 0x4E524A43;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int BATCH_SIZE = 1 << 20;
+    private static final String JOURNAL = "journal.";
+    private static final String SNAPSHOT = "snapshot.";
+
+    private static final byte BASE = 1;
+    private static final byte ADD = 2;
+    private static final byte REMOVE = 3;
+    private static final byte CHANGE = 4;
+
+    private static final int ALL_DAY = 1;
+    private static final int HOLIDAY = 2;
+    private static final int SERIES = 4;
+    private static final int NO_TYPE = 1;
+    private static final int HAS_BACKGROUND = 2;
+    private static final int HAS_FOREGROUND = 4;
+    private static final long NO_UNTIL = Long.MIN_VALUE;
+
+    private final File directory;
+    private final EventCollection collection;
+    private final long commitInterval;
+    private final long compactionThreshold;
+    private final IdentityHashMap<CalendarEvent, Long> ids;
+    private final ModelChangedListener listener;
+    private final CRC32 crc;
+    private final Object lock;
+    private final Thread writer;
+    private long nextId;
+
+    // guarded by lock
+    private ByteBuffer pending;
+    private ByteBuffer spare;
+    private Rollover rollover;
+    private long generation;
+    private long journalSize;
+    private long appended;
+    private long durable;
+    private boolean flushRequested;
+    private boolean compacting;
+    private boolean closing;
+    private IOException failure;
+
+    // owned by the writer thread once it has started
+    private FileChannel channel;
+
+    /**
+     * Opens the journal in the given directory for the collection of the
+     * given calendar
+     *
+     * @param directory
+     * @param calendar
+     * @throws IOException
+     * @see #EventJournal(File, EventCollection, long, long)
+     */
+    public EventJournal(final File directory, final JCalendar calendar) throws IOException {
+        this(directory, EventCollectionRepository.get(calendar));
+    }
+
+    /**
+     * Opens the journal in the given directory with the default commit
+     * interval and compaction threshold
+     *
+     * @param directory
+     * @param collection
+     * @throws IOException
+     * @see #EventJournal(File, EventCollection, long, long)
+     */
+    public EventJournal(final File directory, final EventCollection collection) throws IOException {
+        this(directory, collection, DEFAULT_COMMIT_INTERVAL, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Opens the journal in the given directory, adds the events it holds to
+     * the collection and starts recording the changes of the collection.
+     * Events the collection holds already are recorded by a compaction.
+     *
+     * @param directory           the directory of the snapshots and journals,
+     *                            created if missing
+     * @param collection
+     * @param commitInterval      the time a commit waits for more records, in
+     *                            milliseconds
+     * @param compactionThreshold the size of a journal in bytes that triggers
+     *                            a compaction
+     * @throws IOException if the journal cannot be read or is corrupt
+     */
+    public EventJournal(final File directory, final EventCollection collection, final long commitInterval,
+            final long compactionThreshold) throws IOException {
+        this.directory = directory;
+        this.collection = collection;
+        this.commitInterval = commitInterval;
+        this.compactionThreshold = compactionThreshold;
+        this.ids = new IdentityHashMap<CalendarEvent, Long>();
+        this.crc = new CRC32();
+        this.lock = new Object();
+        this.pending = ByteBuffer.allocate(64 << 10).order(ByteOrder.LITTLE_ENDIAN);
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Cannot create " + directory);
+
+        final Map<Long, CalendarEvent> events = replay();
+        final Collection<CalendarEvent> existing = collection.getAllEvents();
+        collection.addAll(events.values());
+        for (final Map.Entry<Long, CalendarEvent> entry : events.entrySet()) {
+            ids.put(entry.getValue(), entry.getKey());
+        }
+        boolean unrecorded = false;
+        for (final CalendarEvent calendarEvent : existing) {
+            if (!ids.containsKey(calendarEvent)) {
+                ids.put(calendarEvent, nextId++);
+                unrecorded = true;
+            }
+        }
+
+        this.listener = new ModelChangedListener() {
+            @Override
+            public void eventAdded(final ModelChangedEvent event) {
+                for (final CalendarEvent calendarEvent : event.getCalendarEvents()) {
+                    if (!ids.containsKey(calendarEvent))
+                        appendAdd(calendarEvent);
+                }
+                compactIfNeeded();
+            }
+
+            @Override
+            public void eventRemoved(final ModelChangedEvent event) {
+                for (final CalendarEvent calendarEvent : event.getCalendarEvents()) {
+                    final Long id = ids.remove(calendarEvent);
+                    if (id != null)
+                        appendRemove(id);
+                }
+                compactIfNeeded();
+            }
+
+            @Override
+            public void eventChanged(final ModelChangedEvent event) {
+                final List<ModelChangedEvent> changes = event.getChanges().isEmpty() ? Collections
+                        .singletonList(event) : event.getChanges();
+                for (final ModelChangedEvent change : changes) {
+                    final Long id = ids.get(change.getCalendarEvent());
+                    if (id == null)
+                        continue;
+                    for (final Property property : change.getProperties()) {
+                        appendChange(id, change.getCalendarEvent(), property);
+                    }
+                }
+                compactIfNeeded();
+            }
+        };
+
+        this.channel = open(generation);
+        collection.addCollectionChangedListener(listener);
+
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        }, "EventJournal writer " + directory.getName());
+        writer.setDaemon(true);
+        writer.start();
+        if (unrecorded)
+            compact();
+    }
+
+    /**
+     * Waits until all records appended so far are written and forced to the
+     * device
+     *
+     * @throws IOException if a record could not be written
+     */
+    public void commit() throws IOException {
+        synchronized (lock) {
+            final long target = appended;
+            flushRequested = true;
+            lock.notifyAll();
+            try {
+                while (durable < target && failure == null) {
+                    lock.wait();
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while committing the journal", e);
+            }
+            if (failure != null)
+                throw failure;
+        }
+    }
+
+    /**
+     * Starts a new generation of the journal and writes the snapshot of the
+     * current events in the background. Nothing happens while the previous
+     * compaction is still running.
+     *
+     * @return true if a compaction has been started
+     */
+    public boolean compact() {
+        synchronized (lock) {
+            if (compacting || closing || failure != null)
+                return false;
+            compacting = true;
+        }
+        final Collection<CalendarEvent> all = collection.getAllEvents();
+        final CalendarEvent[] events = all.toArray(new CalendarEvent[all.size()]);
+        final CalendarEvent[] rows = events.clone();
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] instanceof RecurringEvent)
+                rows[i] = copy((RecurringEvent) rows[i]);
+        }
+        @SuppressWarnings("unchecked")
+        final Map<CalendarEvent, Long> capturedIds = (Map<CalendarEvent, Long>) ids.clone();
+        synchronized (lock) {
+            generation++;
+            rollover = new Rollover(generation, events, rows, capturedIds, pending);
+            pending = spare != null ? spare : ByteBuffer.allocate(64 << 10).order(ByteOrder.LITTLE_ENDIAN);
+            spare = null;
+            journalSize = HEADER_SIZE;
+            lock.notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * @return the size of the current journal in bytes, including the
+     *         records not committed yet
+     */
+    public long getSize() {
+        synchronized (lock) {
+            return journalSize;
+        }
+    }
+
+    /**
+     * Records the changes the collection has not reported yet, stops
+     * recording, commits and waits for a running compaction
+     *
+     * @throws IOException if a record or the snapshot could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        collection.beginUpdate();
+        collection.endUpdate();
+        collection.removeCollectionChangedListener(listener);
+        synchronized (lock) {
+            closing = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+            synchronized (lock) {
+                while (compacting && failure == null) {
+                    lock.wait();
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing the journal", e);
+        }
+        synchronized (lock) {
+            if (failure != null)
+                throw failure;
+        }
+    }
+
+    private void compactIfNeeded() {
+        final boolean exceeded;
+        synchronized (lock) {
+            exceeded = journalSize > compactionThreshold;
+        }
+        if (exceeded)
+            compact();
+    }
+
+    private void appendAdd(final CalendarEvent calendarEvent) {
+        final long id = nextId++;
+        ids.put(calendarEvent, id);
+        synchronized (lock) {
+            final int start = beginRecord(ADD, id);
+            final boolean series = calendarEvent instanceof RecurringEvent;
+            pending.put((byte) ((calendarEvent.isAllDay() ? ALL_DAY : 0) | (calendarEvent.isHoliday() ? HOLIDAY : 0)
+                    | (series ? SERIES : 0)));
+            pending.putLong(calendarEvent.getStart().getTime());
+            pending.putLong(calendarEvent.getEnd().getTime());
+            pending.putInt(calendarEvent.getPriority());
+            putType(calendarEvent.getType());
+            putString(calendarEvent.getSummary());
+            putString(calendarEvent.getDescription());
+            putString(calendarEvent.getLocation());
+            putString(calendarEvent.getResource());
+            if (series)
+                putRecurrence((RecurringEvent) calendarEvent);
+            endRecord(start);
+        }
+    }
+
+    private void appendRemove(final long id) {
+        synchronized (lock) {
+            endRecord(beginRecord(REMOVE, id));
+        }
+    }
+
+    private void appendChange(final long id, final CalendarEvent calendarEvent, final Property property) {
+        synchronized (lock) {
+            final int start = beginRecord(CHANGE, id);
+            pending.put((byte) property.ordinal());
+            switch (property) {
+                case SUMMARY:
+                    putString(calendarEvent.getSummary());
+                    break;
+                case DESCRIPTION:
+                    putString(calendarEvent.getDescription());
+                    break;
+                case LOCATION:
+                    putString(calendarEvent.getLocation());
+                    break;
+                case RESOURCE:
+                    putString(calendarEvent.getResource());
+                    break;
+                case START:
+                    pending.putLong(calendarEvent.getStart().getTime());
+                    break;
+                case END:
+                    pending.putLong(calendarEvent.getEnd().getTime());
+                    break;
+                case TYPE:
+                    putType(calendarEvent.getType());
+                    break;
+                case ALLDAY:
+                    pending.put((byte) (calendarEvent.isAllDay() ? 1 : 0));
+                    break;
+                case HOLIDAY:
+                    pending.put((byte) (calendarEvent.isHoliday() ? 1 : 0));
+                    break;
+                case PRIORITY:
+                    pending.putInt(calendarEvent.getPriority());
+                    break;
+                case RECURRENCE:
+                    putRecurrence((RecurringEvent) calendarEvent);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown property " + property);
+            }
+            endRecord(start);
+        }
+    }
+
+    private int beginRecord(final byte kind, final long id) {
+        ensure(64);
+        final int start = pending.position();
+        pending.position(start + RECORD_HEADER_SIZE);
+        pending.put(kind);
+        pending.putLong(id);
+        return start;
+    }
+
+    private void endRecord(final int start) {
+        final int length = pending.position() - start - RECORD_HEADER_SIZE;
+        crc.reset();
+        crc.update(pending.array(), pending.arrayOffset() + start + RECORD_HEADER_SIZE, length);
+        pending.putInt(start, length);
+        pending.putInt(start + 4, (int) crc.getValue());
+        journalSize += length + RECORD_HEADER_SIZE;
+        appended += length + RECORD_HEADER_SIZE;
+        if (start == 0 || pending.position() >= BATCH_SIZE && start < BATCH_SIZE)
+            lock.notifyAll();
+    }
+
+    private void putString(final String value) {
+        if (value == null) {
+            ensure(4);
+            pending.putInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensure(4 + bytes.length);
+        pending.putInt(bytes.length);
+        pending.put(bytes);
+    }
+
+    private void putType(final EventType type) {
+        if (type == null) {
+            ensure(1);
+            pending.put((byte) NO_TYPE);
+            return;
+        }
+        final Color background = type.getBackgroundColor();
+        final Color foreground = type.getForegroundColor();
+        ensure(9);
+        pending.put((byte) ((background == null ? 0 : HAS_BACKGROUND) | (foreground == null ? 0 : HAS_FOREGROUND)));
+        pending.putInt(background == null ? 0 : background.getRGB());
+        pending.putInt(foreground == null ? 0 : foreground.getRGB());
+        putString(type.getName());
+    }
+
+    private void putRecurrence(final RecurringEvent series) {
+        final Recurrence recurrence = series.getRecurrence();
+        final List<Date> exceptions = series.getExceptions();
+        int byDay = 0;
+        for (final Integer day : recurrence.getByDay()) {
+            byDay |= 1 << day;
+        }
+        ensure(29 + 8 * exceptions.size());
+        pending.put((byte) recurrence.getFrequency().ordinal());
+        pending.putInt(recurrence.getInterval());
+        pending.putInt(recurrence.getCount());
+        pending.putLong(recurrence.getUntil() == null ? NO_UNTIL : recurrence.getUntil().getTime());
+        pending.putInt(byDay);
+        pending.putInt(exceptions.size());
+        for (final Date exception : exceptions) {
+            pending.putLong(exception.getTime());
+        }
+    }
+
+    private void ensure(final int bytes) {
+        if (pending.remaining() >= bytes)
+            return;
+        final ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        pending.flip();
+        grown.put(pending);
+        pending = grown;
+    }
+
+    /**
+     * The loop of the writer thread
+     */
+    private void write() {
+        try {
+            for (;;) {
+                final ByteBuffer batch;
+                final Rollover next;
+                final long target;
+                synchronized (lock) {
+                    while (pending.position() == 0 && rollover == null && !closing) {
+                        lock.wait();
+                    }
+                    if (pending.position() == 0 && rollover == null)
+                        break;
+                    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(commitInterval);
+                    long remaining;
+                    while (!closing && !flushRequested && rollover == null && pending.position() < BATCH_SIZE
+                            && (remaining = deadline - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                    }
+                    batch = pending;
+                    pending = spare != null ? spare : ByteBuffer.allocate(64 << 10).order(ByteOrder.LITTLE_ENDIAN);
+                    spare = null;
+                    next = rollover;
+                    rollover = null;
+                    target = appended;
+                    flushRequested = false;
+                }
+
+                if (next != null) {
+                    writeFully(next.records);
+                    channel.force(false);
+                    channel.close();
+                    channel = open(next.generation);
+                    final ByteBuffer base = next.base();
+                    final int size = base.position();
+                    writeFully(base);
+                    synchronized (lock) {
+                        journalSize += size;
+                    }
+                }
+                writeFully(batch);
+                channel.force(false);
+
+                synchronized (lock) {
+                    durable = target;
+                    batch.clear();
+                    if (batch.capacity() <= 4 * BATCH_SIZE)
+                        spare = batch;
+                    lock.notifyAll();
+                }
+                if (next != null)
+                    startSnapshot(next);
+            }
+            channel.close();
+        } catch (final IOException e) {
+            fail(e);
+        } catch (final InterruptedException e) {
+            fail(new IOException("Journal writer interrupted", e));
+        }
+    }
+
+    private void writeFully(final ByteBuffer records) throws IOException {
+        records.flip();
+        while (records.hasRemaining()) {
+            channel.write(records);
+        }
+    }
+
+    /**
+     * Opens the journal of the given generation for appending, writing the
+     * header if the journal is new
+     */
+    private FileChannel open(final long journalGeneration) throws IOException {
+        final FileChannel result = new RandomAccessFile(new File(directory, JOURNAL + journalGeneration), "rw")
+                .getChannel();
+        if (result.size() == 0) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(journalGeneration);
+            header.flip();
+            result.write(header);
+            result.force(true);
+        }
+        result.position(result.size());
+        return result;
+    }
+
+    private void startSnapshot(final Rollover next) {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    EventSnapshot.write(next.snapshot, new File(directory, SNAPSHOT + next.generation));
+                    for (final File file : listFiles()) {
+                        if (generationOf(file) < next.generation)
+                            file.delete();
+                    }
+                } catch (final IOException e) {
+                    fail(e);
+                } finally {
+                    synchronized (lock) {
+                        compacting = false;
+                        lock.notifyAll();
+                    }
+                }
+            }
+        }, "EventJournal compaction " + directory.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void fail(final IOException e) {
+        synchronized (lock) {
+            if (failure == null)
+                failure = e;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Reads the newest snapshot and the journals following it, cutting off a
+     * torn record at the end of the last journal
+     *
+     * @return the events by id
+     */
+    private Map<Long, CalendarEvent> replay() throws IOException {
+        final TreeMap<Long, File> journals = new TreeMap<Long, File>();
+        final TreeMap<Long, File> snapshots = new TreeMap<Long, File>();
+        for (final File file : listFiles()) {
+            if (file.getName().endsWith(".tmp"))
+                file.delete();
+            else if (file.getName().startsWith(JOURNAL))
+                journals.put(generationOf(file), file);
+            else
+                snapshots.put(generationOf(file), file);
+        }
+        final Map<Long, CalendarEvent> events = new LinkedHashMap<Long, CalendarEvent>();
+        if (journals.isEmpty()) {
+            journalSize = HEADER_SIZE;
+            return events;
+        }
+
+        final Long base = snapshots.floorKey(journals.lastKey());
+        final long first = base == null ? 0 : base;
+        final List<CalendarEvent> rows = base == null ? Collections.<CalendarEvent> emptyList() : EventSnapshot
+                .read(snapshots.get(base));
+        final Map<String, EventType> types = new HashMap<String, EventType>();
+        long expected = first;
+        for (final Map.Entry<Long, File> journal : journals.tailMap(first).entrySet()) {
+            if (journal.getKey() != expected++)
+                throw new IOException("Missing journal " + JOURNAL + (expected - 1) + " in " + directory);
+            replay(journal.getValue(), journal.getKey() == first ? rows : null, events, types,
+                    journal.getKey().equals(journals.lastKey()));
+        }
+        generation = journals.lastKey();
+        journalSize = journals.lastEntry().getValue().length();
+        return events;
+    }
+
+    private void replay(final File file, final List<CalendarEvent> rows, final Map<Long, CalendarEvent> events,
+            final Map<String, EventType> types, final boolean last) throws IOException {
+        final RandomAccessFile input = new RandomAccessFile(file, "rw");
+        try {
+            final FileChannel fileChannel = input.getChannel();
+            if (fileChannel.size() > Integer.MAX_VALUE)
+                throw new IOException("Journal too large: " + file);
+            final ByteBuffer buffer = ByteBuffer.allocate((int) fileChannel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && fileChannel.read(buffer) >= 0) {
+                // read fully
+            }
+            buffer.flip();
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+                throw new IOException("Not an event journal: " + file);
+            if (buffer.getInt(4) != VERSION)
+                throw new IOException("Unsupported journal version " + buffer.getInt(4) + ": " + file);
+
+            int position = HEADER_SIZE;
+            boolean first = true;
+            while (position + RECORD_HEADER_SIZE <= buffer.limit()) {
+                final int length = buffer.getInt(position);
+                if (length <= 0 || length > buffer.limit() - position - RECORD_HEADER_SIZE)
+                    break;
+                crc.reset();
+                crc.update(buffer.array(), position + RECORD_HEADER_SIZE, length);
+                if ((int) crc.getValue() != buffer.getInt(position + 4))
+                    break;
+                final ByteBuffer record = ByteBuffer.wrap(buffer.array(), position + RECORD_HEADER_SIZE, length).slice()
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                try {
+                    apply(record, first ? rows : null, events, types);
+                } catch (final RuntimeException e) {
+                    throw new IOException("Corrupt journal: " + file, e);
+                }
+                first = false;
+                position += RECORD_HEADER_SIZE + length;
+            }
+            if (position < buffer.limit()) {
+                if (!last)
+                    throw new IOException("Corrupt journal: " + file);
+                fileChannel.truncate(position);
+                fileChannel.force(true);
+            }
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Applies a single record. The rows of the snapshot are given for the
+     * first record of the journal of the snapshot's generation.
+     */
+    private void apply(final ByteBuffer record, final List<CalendarEvent> rows, final Map<Long, CalendarEvent> events,
+            final Map<String, EventType> types) throws IOException {
+        final byte kind = record.get();
+        if (kind == BASE) {
+            final int count = record.getInt();
+            if (rows != null && rows.size() != count)
+                throw new IOException("Journal does not match snapshot of " + rows.size() + " events");
+            for (int i = 0; i < count; i++) {
+                final long id = record.getLong();
+                nextId = Math.max(nextId, id + 1);
+                if (rows != null)
+                    events.put(id, rows.get(i));
+            }
+            return;
+        }
+        final long id = record.getLong();
+        switch (kind) {
+            case ADD: {
+                final int flags = record.get();
+                final Date start = new Date(record.getLong());
+                final Date end = new Date(record.getLong());
+                final int priority = record.getInt();
+                final EventType type = getType(record, types);
+                final String summary = getString(record);
+                final CalendarEvent event;
+                if ((flags & SERIES) == 0) {
+                    event = new CalendarEvent(start, end, type);
+                } else {
+                    event = new RecurringEvent(start, end, null);
+                    event.setType(type);
+                }
+                event.setSummary(summary);
+                event.setDescription(getString(record));
+                event.setLocation(getString(record));
+                event.setResource(getString(record));
+                event.setPriority(priority);
+                event.setAllDay((flags & ALL_DAY) != 0);
+                event.setHoliday((flags & HOLIDAY) != 0);
+                if (event instanceof RecurringEvent)
+                    getRecurrence(record, (RecurringEvent) event);
+                events.put(id, event);
+                nextId = Math.max(nextId, id + 1);
+                break;
+            }
+            case REMOVE:
+                events.remove(id);
+                break;
+            case CHANGE: {
+                final Property property = Property.values()[record.get()];
+                final CalendarEvent event = events.get(id);
+                if (event == null)
+                    break;
+                switch (property) {
+                    case SUMMARY:
+                        event.setSummary(getString(record));
+                        break;
+                    case DESCRIPTION:
+                        event.setDescription(getString(record));
+                        break;
+                    case LOCATION:
+                        event.setLocation(getString(record));
+                        break;
+                    case RESOURCE:
+                        event.setResource(getString(record));
+                        break;
+                    case START:
+                        event.setStart(new Date(record.getLong()));
+                        break;
+                    case END:
+                        event.setEnd(new Date(record.getLong()));
+                        break;
+                    case TYPE:
+                        event.setType(getType(record, types));
+                        break;
+                    case ALLDAY:
+                        event.setAllDay(record.get() != 0);
+                        break;
+                    case HOLIDAY:
+                        event.setHoliday(record.get() != 0);
+                        break;
+                    case PRIORITY:
+                        event.setPriority(record.getInt());
+                        break;
+                    case RECURRENCE:
+                        getRecurrence(record, (RecurringEvent) event);
+                        break;
+                    default:
+                        break;
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown journal record " + kind);
+        }
+    }
+
+    private static String getString(final ByteBuffer record) {
+        final int length = record.getInt();
+        if (length < 0)
+            return null;
+        final String value = new String(record.array(), record.arrayOffset() + record.position(), length,
+                StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+
+    /**
+     * Reads a type, sharing one instance between all events of equal name
+     * and colors
+     */
+    private static EventType getType(final ByteBuffer record, final Map<String, EventType> types) {
+        final int flags = record.get();
+        if ((flags & NO_TYPE) != 0)
+            return null;
+        final int background = record.getInt();
+        final int foreground = record.getInt();
+        final String name = getString(record);
+        final String key = flags + ":" + background + ":" + foreground + ":" + name;
+        EventType type = types.get(key);
+        if (type == null) {
+            type = new EventType();
+            type.setName(name);
+            if ((flags & HAS_BACKGROUND) != 0)
+                type.setBackgroundColor(new Color(background, true));
+            if ((flags & HAS_FOREGROUND) != 0)
+                type.setForegroundColor(new Color(foreground, true));
+            types.put(key, type);
+        }
+        return type;
+    }
+
+    private static void getRecurrence(final ByteBuffer record, final RecurringEvent series) {
+        final Frequency frequency = Frequency.values()[record.get()];
+        final int interval = record.getInt();
+        final int count = record.getInt();
+        final long until = record.getLong();
+        int byDayMask = record.getInt();
+        final int[] byDay = new int[Integer.bitCount(byDayMask)];
+        for (int i = 0; i < byDay.length; i++, byDayMask &= byDayMask - 1) {
+            byDay[i] = Integer.numberOfTrailingZeros(byDayMask);
+        }
+        series.setRecurrence(new Recurrence(frequency, interval, count, until == NO_UNTIL ? null : new Date(until),
+                byDay));
+        for (final Date exception : series.getExceptions()) {
+            series.removeException(exception);
+        }
+        final int exceptions = record.getInt();
+        for (int i = 0; i < exceptions; i++) {
+            series.addException(new Date(record.getLong()));
+        }
+    }
+
+    /**
+     * @return a detached copy of the given series, so the snapshot can be
+     *         written while the exceptions of the series change
+     */
+    private static RecurringEvent copy(final RecurringEvent series) {
+        final RecurringEvent copy = new RecurringEvent(series.getSummary(), series.getStart(), series.getEnd(),
+                series.getRecurrence());
+        copy.setType(series.getType());
+        copy.setDescription(series.getDescription());
+        copy.setLocation(series.getLocation());
+        copy.setResource(series.getResource());
+        copy.setPriority(series.getPriority());
+        copy.setAllDay(series.isAllDay());
+        copy.setHoliday(series.isHoliday());
+        for (final Date exception : series.getExceptions()) {
+            copy.addException(exception);
+        }
+        return copy;
+    }
+
+    private List<File> listFiles() {
+        final List<File> result = new ArrayList<File>();
+        final File[] files = directory.listFiles();
+        if (files == null)
+            return result;
+        for (final File file : files) {
+            if (generationOf(file) >= 0 || file.getName().startsWith(SNAPSHOT) && file.getName().endsWith(".tmp"))
+                result.add(file);
+        }
+        return result;
+    }
+
+    /**
+     * @return the generation of a journal or snapshot, -1 for other files
+     */
+    private static long generationOf(final File file) {
+        final String name = file.getName();
+        final int dot = name.indexOf('.');
+        if (dot < 0 || !(name.startsWith(JOURNAL) || name.startsWith(SNAPSHOT)))
+            return -1;
+        try {
+            return Long.parseLong(name.substring(dot + 1));
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * The records of a generation that has ended and the events captured for
+     * the snapshot of the next generation
+     */
+    private static final class Rollover {
+
+        final long generation;
+        final CalendarEvent[] events;
+        final CalendarEvent[] rows;
+        final Map<CalendarEvent, Long> ids;
+        final ByteBuffer records;
+        CalendarEvent[] snapshot;
+
+        Rollover(final long generation, final CalendarEvent[] events, final CalendarEvent[] rows,
+                final Map<CalendarEvent, Long> ids, final ByteBuffer records) {
+            this.generation = generation;
+            this.events = events;
+            this.rows = rows;
+            this.ids = ids;
+            this.records = records;
+        }
+
+        /**
+         * Sorts the rows of the snapshot by start and end and encodes their
+         * ids as the first record of the next journal. Events added in an
+         * update that has not ended yet have no id and are left to the add
+         * record that follows.
+         *
+         * @return the record
+         */
+        ByteBuffer base() {
+            final int count = events.length;
+            final long[] starts = new long[count];
+            final long[] ends = new long[count];
+            final Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                starts[i] = rows[i].getStart().getTime();
+                ends[i] = rows[i].getEnd().getTime();
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(final Integer o1, final Integer o2) {
+                    final int comp = Long.compare(starts[o1], starts[o2]);
+                    return comp != 0 ? comp : Long.compare(ends[o1], ends[o2]);
+                }
+            });
+
+            final List<CalendarEvent> sorted = new ArrayList<CalendarEvent>(count);
+            final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + 5 + 8 * count).order(
+                    ByteOrder.LITTLE_ENDIAN);
+            record.position(RECORD_HEADER_SIZE + 5);
+            for (final Integer i : order) {
+                final Long id = ids.get(events[i]);
+                if (id != null) {
+                    sorted.add(rows[i]);
+                    record.putLong(id);
+                }
+            }
+            final int length = record.position() - RECORD_HEADER_SIZE;
+            record.put(RECORD_HEADER_SIZE, BASE);
+            record.putInt(RECORD_HEADER_SIZE + 1, sorted.size());
+            final CRC32 crc = new CRC32();
+            crc.update(record.array(), RECORD_HEADER_SIZE, length);
+            record.putInt(0, length);
+            record.putInt(4, (int) crc.getValue());
+            snapshot = sorted.toArray(new CalendarEvent[sorted.size()]);
+            return record;
+        }
+    }
+}
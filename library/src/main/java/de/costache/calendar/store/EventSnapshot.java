@@ -0,0 +1,510 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.store;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.EventType;
+import de.costache.calendar.model.Recurrence;
+import de.costache.calendar.model.Recurrence.Frequency;
+import de.costache.calendar.model.RecurringEvent;
+import de.costache.calendar.util.EventCollection;
+import de.costache.calendar.util.EventCollectionRepository;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary snapshot of the events of an {@link EventCollection}, made
+ * to start a client without fetching and converting every event again.
+ * <p>
+ * The events are stored column by column, sorted by start and end: the
+ * epoch millis of start and end as long arrays, the type, summary,
+ * description, location and resource as int indexes into a table of
+ * distinct strings and types, the priorities as int array and all-day and
+ * holiday as bitsets. Series follow the columns with their rule and
+ * exceptions. A header holds a magic number, the format version, the sizes
+ * of the tables and a CRC32 of the rest of the file.
+ * <p>
+ * A snapshot is read through a memory-mapped {@link FileChannel}. Every
+ * distinct string is decoded once and shared by all events using it, and as
+ * the events come in start order the collections index them in one bulk
+ * {@link EventCollection#addAll} without sorting.
+ *
+ * @author theodorcostache
+ */
+public final class EventSnapshot {
+
+    /**
+     * The current version of the format
+     */
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x4C41434A;
+    private static final int HEADER_SIZE = 32;
+    private static final long NO_UNTIL = Long.MIN_VALUE;
+    private static final int NONE = -1;
+    private static final int HAS_BACKGROUND = 1;
+    private static final int HAS_FOREGROUND = 2;
+
+    private EventSnapshot() {
+    }
+
+    /**
+     * Writes all events of the collection of the given calendar
+     *
+     * @param calendar
+     * @param file
+     * @throws IOException
+     */
+    public static void write(final JCalendar calendar, final File file) throws IOException {
+        write(EventCollectionRepository.get(calendar).getAllEvents(), file);
+    }
+
+    /**
+     * Writes the given events. The snapshot is written to a temporary file
+     * which then replaces the given file, so a reader never sees a partly
+     * written snapshot.
+     *
+     * @param calendarEvents
+     * @param file
+     * @throws IOException
+     */
+    public static void write(final Collection<CalendarEvent> calendarEvents, final File file) throws IOException {
+        final CalendarEvent[] events = calendarEvents.toArray(new CalendarEvent[calendarEvents.size()]);
+        Arrays.sort(events);
+        write(events, file);
+    }
+
+    /**
+     * Writes the given events as rows in the given order and forces the file
+     * to the device before it replaces the given file
+     *
+     * @param events
+     * @param file
+     * @throws IOException
+     */
+    static void write(final CalendarEvent[] events, final File file) throws IOException {
+        final int count = events.length;
+
+        final Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+        final List<byte[]> strings = new ArrayList<byte[]>();
+        final Map<EventType, Integer> typesSeen = new IdentityHashMap<EventType, Integer>();
+        final Map<String, Integer> typeIndexes = new HashMap<String, Integer>();
+        final List<EventType> types = new ArrayList<EventType>();
+        final int[] typeColumn = new int[count];
+        final int[][] stringColumns = new int[4][count];
+        final List<Integer> seriesRows = new ArrayList<Integer>();
+
+        for (int i = 0; i < count; i++) {
+            final CalendarEvent event = events[i];
+            Integer type = typesSeen.get(event.getType());
+            if (type == null) {
+                type = indexOf(event.getType(), typeIndexes, types);
+                typesSeen.put(event.getType(), type);
+            }
+            typeColumn[i] = type;
+            stringColumns[0][i] = indexOf(event.getSummary(), stringIndexes, strings);
+            stringColumns[1][i] = indexOf(event.getDescription(), stringIndexes, strings);
+            stringColumns[2][i] = indexOf(event.getLocation(), stringIndexes, strings);
+            stringColumns[3][i] = indexOf(event.getResource(), stringIndexes, strings);
+            if (event instanceof RecurringEvent)
+                seriesRows.add(i);
+        }
+        final int[] typeNames = new int[types.size()];
+        for (int i = 0; i < typeNames.length; i++) {
+            typeNames[i] = indexOf(types.get(i).getName(), stringIndexes, strings);
+        }
+
+        final File temp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try {
+            final RandomAccessFile output = new RandomAccessFile(temp, "rw");
+            try {
+                final Output out = new Output(output.getChannel());
+                out.skip(HEADER_SIZE);
+
+                int offset = 0;
+                out.putInt(offset);
+                for (final byte[] string : strings) {
+                    offset += string.length;
+                    out.putInt(offset);
+                }
+                for (final byte[] string : strings) {
+                    out.put(string);
+                }
+                out.align();
+
+                for (int i = 0; i < types.size(); i++) {
+                    final Color background = types.get(i).getBackgroundColor();
+                    final Color foreground = types.get(i).getForegroundColor();
+                    out.putInt(typeNames[i]);
+                    out.putInt(background == null ? 0 : background.getRGB());
+                    out.putInt(foreground == null ? 0 : foreground.getRGB());
+                    out.putInt((background == null ? 0 : HAS_BACKGROUND) | (foreground == null ? 0 : HAS_FOREGROUND));
+                }
+
+                for (final CalendarEvent event : events) {
+                    out.putLong(event.getStart().getTime());
+                }
+                for (final CalendarEvent event : events) {
+                    out.putLong(event.getEnd().getTime());
+                }
+                out.putInts(typeColumn);
+                for (final int[] column : stringColumns) {
+                    out.putInts(column);
+                }
+                for (final CalendarEvent event : events) {
+                    out.putInt(event.getPriority());
+                }
+                out.align();
+                final long[] allDay = new long[words(count)];
+                final long[] holiday = new long[words(count)];
+                for (int i = 0; i < count; i++) {
+                    if (events[i].isAllDay())
+                        allDay[i >>> 6] |= 1L << i;
+                    if (events[i].isHoliday())
+                        holiday[i >>> 6] |= 1L << i;
+                }
+                out.putLongs(allDay);
+                out.putLongs(holiday);
+
+                for (final Integer row : seriesRows) {
+                    final RecurringEvent series = (RecurringEvent) events[row];
+                    final Recurrence recurrence = series.getRecurrence();
+                    int byDay = 0;
+                    for (final Integer day : recurrence.getByDay()) {
+                        byDay |= 1 << day;
+                    }
+                    final List<Date> exceptions = series.getExceptions();
+                    out.putInt(row);
+                    out.putInt(recurrence.getFrequency().ordinal());
+                    out.putInt(recurrence.getInterval());
+                    out.putInt(recurrence.getCount());
+                    out.putLong(recurrence.getUntil() == null ? NO_UNTIL : recurrence.getUntil().getTime());
+                    out.putInt(byDay);
+                    out.putInt(exceptions.size());
+                    for (final Date exception : exceptions) {
+                        out.putLong(exception.getTime());
+                    }
+                }
+                out.flush();
+
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(strings.size()).putInt(types.size())
+                        .putInt(seriesRows.size()).putLong(out.getChecksum());
+                header.flip();
+                output.getChannel().write(header, 0);
+                output.getChannel().force(true);
+            } finally {
+                output.close();
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Reads the snapshot into the collection of the given calendar
+     *
+     * @param file
+     * @param calendar
+     * @return the number of events read
+     * @throws IOException
+     */
+    public static int load(final File file, final JCalendar calendar) throws IOException {
+        return load(file, EventCollectionRepository.get(calendar));
+    }
+
+    /**
+     * Reads the snapshot and adds its events to the given collection with a
+     * single {@link EventCollection#addAll}
+     *
+     * @param file
+     * @param collection
+     * @return the number of events read
+     * @throws IOException
+     */
+    public static int load(final File file, final EventCollection collection) throws IOException {
+        final List<CalendarEvent> events = read(file);
+        collection.addAll(events);
+        return events.size();
+    }
+
+    /**
+     * Reads the events of the given snapshot
+     *
+     * @param file
+     * @return the events sorted by start and end
+     * @throws IOException if the file cannot be read, is not a snapshot, has
+     *                     an unsupported version or is corrupt
+     */
+    public static List<CalendarEvent> read(final File file) throws IOException {
+        final RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = input.getChannel();
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Not an event snapshot: " + file);
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return read(buffer, file);
+        } finally {
+            input.close();
+        }
+    }
+
+    private static List<CalendarEvent> read(final ByteBuffer buffer, final File file) throws IOException {
+        if (buffer.getInt(0) != MAGIC)
+            throw new IOException("Not an event snapshot: " + file);
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException("Unsupported snapshot version " + buffer.getInt(4) + ": " + file);
+        final int count = buffer.getInt(8);
+        final int stringCount = buffer.getInt(12);
+        final int typeCount = buffer.getInt(16);
+        final int seriesCount = buffer.getInt(20);
+        final CRC32 crc = new CRC32();
+        final ByteBuffer payload = buffer.duplicate();
+        payload.position(HEADER_SIZE);
+        crc.update(payload);
+        if (crc.getValue() != buffer.getLong(24))
+            throw new IOException("Corrupt snapshot: " + file);
+
+        try {
+            int position = HEADER_SIZE;
+            final int blob = position + 4 * (stringCount + 1);
+            final byte[] bytes = new byte[buffer.getInt(position + 4 * stringCount)];
+            final ByteBuffer blobBuffer = buffer.duplicate();
+            blobBuffer.position(blob);
+            blobBuffer.get(bytes);
+            final String[] strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                final int from = buffer.getInt(position + 4 * i);
+                strings[i] = new String(bytes, from, buffer.getInt(position + 4 * i + 4) - from, StandardCharsets.UTF_8);
+            }
+            position = align(blob + bytes.length);
+
+            final EventType[] types = new EventType[typeCount];
+            for (int i = 0; i < typeCount; i++, position += 16) {
+                final EventType type = new EventType();
+                type.setName(string(strings, buffer.getInt(position)));
+                final int colors = buffer.getInt(position + 12);
+                if ((colors & HAS_BACKGROUND) != 0)
+                    type.setBackgroundColor(new Color(buffer.getInt(position + 4), true));
+                if ((colors & HAS_FOREGROUND) != 0)
+                    type.setForegroundColor(new Color(buffer.getInt(position + 8), true));
+                types[i] = type;
+            }
+
+            final int starts = position;
+            final int ends = starts + 8 * count;
+            final int typeColumn = ends + 8 * count;
+            final int summaries = typeColumn + 4 * count;
+            final int descriptions = summaries + 4 * count;
+            final int locations = descriptions + 4 * count;
+            final int resources = locations + 4 * count;
+            final int priorities = resources + 4 * count;
+            final int allDay = align(priorities + 4 * count);
+            final int holiday = allDay + 8 * words(count);
+            position = holiday + 8 * words(count);
+
+            final CalendarEvent[] events = new CalendarEvent[count];
+            for (int i = 0; i < seriesCount; i++) {
+                final int row = buffer.getInt(position);
+                int byDayMask = buffer.getInt(position + 24);
+                final int[] byDay = new int[Integer.bitCount(byDayMask)];
+                for (int j = 0; j < byDay.length; j++, byDayMask &= byDayMask - 1) {
+                    byDay[j] = Integer.numberOfTrailingZeros(byDayMask);
+                }
+                final long until = buffer.getLong(position + 16);
+                final Recurrence recurrence = new Recurrence(Frequency.values()[buffer.getInt(position + 4)],
+                        buffer.getInt(position + 8), buffer.getInt(position + 12),
+                        until == NO_UNTIL ? null : new Date(until), byDay);
+                final RecurringEvent series = new RecurringEvent(new Date(buffer.getLong(starts + 8 * row)),
+                        new Date(buffer.getLong(ends + 8 * row)), recurrence);
+                final int exceptions = buffer.getInt(position + 28);
+                position += 32;
+                for (int j = 0; j < exceptions; j++, position += 8) {
+                    series.addException(new Date(buffer.getLong(position)));
+                }
+                events[row] = series;
+            }
+
+            for (int i = 0; i < count; i++) {
+                final EventType type = types[buffer.getInt(typeColumn + 4 * i)];
+                CalendarEvent event = events[i];
+                if (event == null) {
+                    event = new CalendarEvent(new Date(buffer.getLong(starts + 8 * i)),
+                            new Date(buffer.getLong(ends + 8 * i)), type);
+                    events[i] = event;
+                } else {
+                    event.setType(type);
+                }
+                event.setSummary(string(strings, buffer.getInt(summaries + 4 * i)));
+                event.setDescription(string(strings, buffer.getInt(descriptions + 4 * i)));
+                event.setLocation(string(strings, buffer.getInt(locations + 4 * i)));
+                event.setResource(string(strings, buffer.getInt(resources + 4 * i)));
+                event.setPriority(buffer.getInt(priorities + 4 * i));
+                final long bit = 1L << i;
+                event.setAllDay((buffer.getLong(allDay + 8 * (i >>> 6)) & bit) != 0);
+                event.setHoliday((buffer.getLong(holiday + 8 * (i >>> 6)) & bit) != 0);
+            }
+            return Arrays.asList(events);
+        } catch (final IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt snapshot: " + file, e);
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("Corrupt snapshot: " + file, e);
+        }
+    }
+
+    private static String string(final String[] strings, final int index) {
+        return index == NONE ? null : strings[index];
+    }
+
+    private static int indexOf(final String string, final Map<String, Integer> indexes, final List<byte[]> strings) {
+        if (string == null)
+            return NONE;
+        Integer index = indexes.get(string);
+        if (index == null) {
+            index = strings.size();
+            indexes.put(string, index);
+            strings.add(string.getBytes(StandardCharsets.UTF_8));
+        }
+        return index;
+    }
+
+    private static int indexOf(final EventType type, final Map<String, Integer> indexes, final List<EventType> types) {
+        final Color background = type == null ? null : type.getBackgroundColor();
+        final Color foreground = type == null ? null : type.getForegroundColor();
+        final String key = (type == null ? "" : type.getName()) + '\0' + (background == null ? "" : background.getRGB())
+                + '\0' + (foreground == null ? "" : foreground.getRGB());
+        Integer index = indexes.get(key);
+        if (index == null) {
+            index = types.size();
+            indexes.put(key, index);
+            types.add(type == null ? new EventType() : type);
+        }
+        return index;
+    }
+
+    private static int words(final int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    private static int align(final int position) {
+        return (position + 7) & ~7;
+    }
+
+    /**
+     * Little-endian output to a channel through a reused buffer, keeping the
+     * position for alignment and the CRC32 of everything written
+     */
+    private static final class Output {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final CRC32 crc;
+        private long position;
+
+        Output(final FileChannel channel) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            this.crc = new CRC32();
+        }
+
+        void skip(final int bytes) throws IOException {
+            channel.position(channel.position() + bytes);
+            position += bytes;
+        }
+
+        void putInt(final int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        void putLong(final long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+            position += 8;
+        }
+
+        void putInts(final int[] values) throws IOException {
+            for (final int value : values) {
+                putInt(value);
+            }
+        }
+
+        void putLongs(final long[] values) throws IOException {
+            for (final long value : values) {
+                putLong(value);
+            }
+        }
+
+        void put(final byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                final int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+            position += bytes.length;
+        }
+
+        void align() throws IOException {
+            while ((position & 7) != 0) {
+                ensure(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+        }
+
+        long getChecksum() {
+            return crc.getValue();
+        }
+
+        private void ensure(final int bytes) throws IOException {
+            if (buffer.remaining() < bytes)
+                flush();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.array(), 0, buffer.limit());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
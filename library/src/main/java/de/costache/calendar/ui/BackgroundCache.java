@@ -0,0 +1,152 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui;
+
+import de.costache.calendar.ui.strategy.Config;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * Off-screen image holding the static background of a panel, e.g. the
+ * working hours shading and the hour lines. The image is drawn again only
+ * if the size of the panel, the scale of the device, the configuration or
+ * the panel specific state it was drawn for change, otherwise painting is a
+ * single blit.
+ * <p>
+ * The panels are not opaque. The image is filled with the background of the
+ * nearest opaque ancestor, which is what shows through, so that it can be
+ * copied instead of blended. Without such an ancestor the image is kept
+ * translucent.
+ *
+ * @author theodorcostache
+ */
+final class BackgroundCache {
+
+    private BufferedImage image;
+    private int width;
+    private int height;
+    private double scaleX;
+    private double scaleY;
+    private Config config;
+    private int configVersion;
+    private int state;
+    private Color backdrop;
+
+    /**
+     * @param g      the graphics the background will be painted on
+     * @param width  the width of the panel
+     * @param height the height of the panel
+     * @param config
+     * @param state  panel specific inputs of the background, e.g. a bit mask
+     *               of flags
+     * @return true if the cached image was drawn for the given inputs
+     */
+    boolean isValid(final Component component, final Graphics2D g, final int width, final int height,
+                    final Config config, final int state) {
+        final AffineTransform transform = g.getTransform();
+        return image != null && this.width == width && this.height == height
+                && scaleX == transform.getScaleX() && scaleY == transform.getScaleY() && this.config == config
+                && configVersion == config.getVersion() && this.state == state
+                && equals(backdrop, getBackdrop(component));
+    }
+
+    /**
+     * Prepares the image for the given inputs. The image is cleared and
+     * reallocated only if its size has changed.
+     *
+     * @param component the panel, used to create an image compatible with
+     *                  its screen
+     * @return a graphics drawing on the image in the coordinates of the
+     *         panel, to be disposed by the caller, or null if the panel is
+     *         empty
+     */
+    Graphics2D render(final Component component, final Graphics2D g, final int width, final int height,
+                      final Config config, final int state) {
+        final AffineTransform transform = g.getTransform();
+        final int imageWidth = (int) Math.ceil(width * transform.getScaleX());
+        final int imageHeight = (int) Math.ceil(height * transform.getScaleY());
+        if (imageWidth <= 0 || imageHeight <= 0) {
+            image = null;
+            return null;
+        }
+
+        final Color backdrop = getBackdrop(component);
+        final int transparency = backdrop == null ? Transparency.TRANSLUCENT : Transparency.OPAQUE;
+        if (image == null || image.getWidth() != imageWidth || image.getHeight() != imageHeight
+                || image.getTransparency() != transparency) {
+            final GraphicsConfiguration gc = component.getGraphicsConfiguration();
+            if (gc != null) {
+                image = gc.createCompatibleImage(imageWidth, imageHeight, transparency);
+            } else {
+                image = new BufferedImage(imageWidth, imageHeight, backdrop == null ? BufferedImage.TYPE_INT_ARGB_PRE
+                        : BufferedImage.TYPE_INT_RGB);
+            }
+        }
+        this.backdrop = backdrop;
+        this.width = width;
+        this.height = height;
+        this.scaleX = transform.getScaleX();
+        this.scaleY = transform.getScaleY();
+        this.config = config;
+        this.configVersion = config.getVersion();
+        this.state = state;
+
+        final Graphics2D graphics = image.createGraphics();
+        if (backdrop == null) {
+            graphics.setComposite(AlphaComposite.Clear);
+            graphics.fillRect(0, 0, imageWidth, imageHeight);
+            graphics.setComposite(AlphaComposite.SrcOver);
+        } else {
+            graphics.setColor(backdrop);
+            graphics.fillRect(0, 0, imageWidth, imageHeight);
+        }
+        graphics.setRenderingHints(g.getRenderingHints());
+        graphics.scale(scaleX, scaleY);
+        graphics.setFont(g.getFont());
+        return graphics;
+    }
+
+    /**
+     * @return the opaque background showing through the given component,
+     *         null if it is unknown or not opaque itself
+     */
+    private static Color getBackdrop(final Component component) {
+        for (Container parent = component.getParent(); parent != null; parent = parent.getParent()) {
+            if (parent instanceof JComponent && ((JComponent) parent).isOpaque()) {
+                final Color background = parent.getBackground();
+                return background != null && background.getAlpha() == 255 ? background : null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean equals(final Color a, final Color b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Blits the cached image
+     *
+     * @param g
+     */
+    void draw(final Graphics2D g) {
+        if (image != null)
+            g.drawImage(image, 0, 0, width, height, null);
+    }
+}
@@ -21,21 +21,23 @@ import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.Rectangle;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.BorderFactory;
 import javax.swing.JPanel;
 
 import de.costache.calendar.ui.strategy.Config;
 import de.costache.calendar.JCalendar;
+import de.costache.calendar.format.CalendarEventFormat;
 import de.costache.calendar.model.CalendarEvent;
 import de.costache.calendar.util.EventCollection;
 import de.costache.calendar.util.EventCollectionRepository;
 import de.costache.calendar.util.GraphicsUtil;
+import de.costache.calendar.util.WrappedText;
 
 /**
  * 
@@ -49,6 +51,12 @@ public class DayCompleteContentPanel extends JPanel {
 	 */
 	private static final long serialVersionUID = 1L;
 	private final DayPanel owner;
+	private final EventShapeCache shapes = new EventShapeCache();
+	private int preferredHeight = -1;
+	private int allDayHeight = 2;
+	private int tooltipGeneration = -1;
+	private CalendarEvent tooltipEvent;
+	private CalendarEventFormat tooltipFormat;
 
 	public DayCompleteContentPanel(DayPanel owner) {
 		this.owner = owner;
@@ -113,8 +121,14 @@ public class DayCompleteContentPanel extends JPanel {
 				super.mouseMoved(e);
 				final JCalendar calendar = DayCompleteContentPanel.this.owner.getOwner();
 				final CalendarEvent event = getEvent(e.getX(), e.getY());
+				final CalendarEventFormat format = calendar.getTooltipFormater();
+				if (tooltipGeneration == shapes.getGeneration() && tooltipEvent == event && tooltipFormat == format)
+					return;
+				tooltipGeneration = shapes.getGeneration();
+				tooltipEvent = event;
+				tooltipFormat = format;
 				if (event != null) {
-					setToolTipText(calendar.getTooltipFormater().format(event));
+					setToolTipText(format.format(event));
 				} else {
 					setToolTipText(null);
 				}
@@ -135,68 +149,56 @@ public class DayCompleteContentPanel extends JPanel {
 
 	private void drawFullDayEvents(final Graphics2D graphics2d) {
 
-		final EventCollection eventsCollection = EventCollectionRepository.get(owner.getOwner());
-		final Collection<CalendarEvent> events = eventsCollection.getEvents(owner.getDate());
-		int pos = 2;
-		if (events.size() > 0) {
-
-			final Config config = owner.getOwner().getConfig();
-
-			for (final CalendarEvent event : events) {
-				if (!event.isAllDay())
-					continue;
-				Color bgColor = event.getType().getBackgroundColor();
-				bgColor = bgColor == null ? config.getEventDefaultBackgroundColor() : bgColor;
-				Color fgColor = event.getType().getForegroundColor();
-				fgColor = fgColor == null ? config.getEventDefaultForegroundColor() : fgColor;
-				graphics2d.setColor(!event.isSelected() ? bgColor : bgColor.darker().darker());
-				graphics2d.fillRect(2, pos, getWidth() - 4, 15);
-
-				final String eventString = event.getSummary();
-				int fontSize = Math.round(getHeight() * 0.5f);
-				fontSize = fontSize > 9 ? 9 : fontSize;
-
-				final Font font = new Font("Verdana", Font.BOLD, fontSize);
-				final FontMetrics metrics = graphics2d.getFontMetrics(font);
-				graphics2d.setFont(font);
-
-				graphics2d.setColor(!event.isSelected() ? fgColor : Color.white);
-				GraphicsUtil.drawTrimmedString(graphics2d, eventString, 6,
-						pos + (13 / 2 + metrics.getHeight() / 2) - 2, getWidth());
-
-				pos += 17;
-			}
-			setPreferredSize(new Dimension(0, pos));
+		for (final EventShape shape : getShapes()) {
+			graphics2d.setColor(shape.getFill());
+			graphics2d.fillRect(shape.x, shape.y, shape.width, shape.height);
+			shape.paintText(graphics2d);
+		}
+		if (!owner.getEvents().isEmpty() && preferredHeight != allDayHeight) {
+			preferredHeight = allDayHeight;
+			setPreferredSize(new Dimension(0, preferredHeight));
 			revalidate();
 		}
 	}
 
-	private CalendarEvent getEvent(final int x, final int y) {
-
-		final EventCollection eventsCollection = EventCollectionRepository.get(owner.getOwner());
-		final Collection<CalendarEvent> events = eventsCollection.getEvents(owner.getDate());
-
-		int pos = 2;
-		if (events.size() > 0) {
-			for (final CalendarEvent event : events) {
-				if (!event.isAllDay())
-					continue;
-				final int rectXStart = 2;
-				final int rectYStart = pos;
+	/**
+	 * @return the shapes of the all day events, laid out again only if the
+	 *         events, the size or the configuration have changed
+	 */
+	private EventShape[] getShapes() {
+		final Config config = owner.getOwner().getConfig();
+		final int version = owner.getLayoutVersion();
+		if (!shapes.isValid(version, getWidth(), getHeight(), config)) {
+			shapes.update(layoutFullDayEvents(config), version, getWidth(), getHeight(), config);
+		}
+		return shapes.getShapes();
+	}
 
-				final int rectWidth = getWidth() - 4;
+	private EventShape[] layoutFullDayEvents(final Config config) {
 
-				final int rectHeight = 15;
+		final List<EventShape> result = new ArrayList<EventShape>();
+		int fontSize = Math.round(getHeight() * 0.5f);
+		fontSize = fontSize > 9 ? 9 : fontSize;
+		final Font font = config.getFont(Font.BOLD, fontSize);
+		final FontMetrics metrics = getFontMetrics(font);
 
-				final Rectangle r = new Rectangle(rectXStart, rectYStart, rectWidth, rectHeight);
-				if (r.contains(x, y)) {
-					return event;
-				}
+		int pos = 2;
+		for (final CalendarEvent event : owner.getEvents()) {
+			if (!event.isAllDay())
+				continue;
 
-				pos += 17;
+			final WrappedText text = GraphicsUtil.layoutTrimmedString(metrics, event.getSummary(), getWidth());
+			result.add(new EventShape(event, config, 2, pos, getWidth() - 4, 15, font, text, 6,
+					pos + (13 / 2 + metrics.getHeight() / 2) - 2));
 
-			}
+			pos += 17;
 		}
-		return null;
+		allDayHeight = pos;
+		return result.toArray(new EventShape[result.size()]);
+	}
+
+	private CalendarEvent getEvent(final int x, final int y) {
+		getShapes();
+		return shapes.getEventAt(x, y);
 	}
 }
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui;
+
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.ui.strategy.Config;
+import de.costache.calendar.util.WrappedText;
+
+import java.awt.*;
+
+/**
+ * The painted form of an event inside a day: its rectangle, its colours and
+ * its laid out label.
+ *
+ * @author theodorcostache
+ */
+final class EventShape {
+
+    final CalendarEvent event;
+    final int x;
+    final int y;
+    final int width;
+    final int height;
+    final Color background;
+    final Color selectedBackground;
+    final Color foreground;
+    final Font font;
+    final WrappedText text;
+    final int textX;
+    final int textY;
+
+    EventShape(final CalendarEvent event, final Config config, final int x, final int y, final int width,
+               final int height, final Font font, final WrappedText text, final int textX, final int textY) {
+        this.event = event;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        final Color bgColor = event.getType().getBackgroundColor();
+        this.background = bgColor == null ? config.getEventDefaultBackgroundColor() : bgColor;
+        this.selectedBackground = background.darker().darker();
+        final Color fgColor = event.getType().getForegroundColor();
+        this.foreground = fgColor == null ? config.getEventDefaultForegroundColor() : fgColor;
+        this.font = font;
+        this.text = text;
+        this.textX = textX;
+        this.textY = textY;
+    }
+
+    boolean contains(final int px, final int py) {
+        return px >= x && py >= y && px < x + width && py < y + height;
+    }
+
+    /**
+     * Paints the label with the colours matching the selection state of the
+     * event. The caller paints the shape itself.
+     *
+     * @param g
+     */
+    void paintText(final Graphics g) {
+        g.setFont(font);
+        g.setColor(!event.isSelected() ? foreground : Color.white);
+        text.draw(g, textX, textY);
+    }
+
+    Color getFill() {
+        return !event.isSelected() ? background : selectedBackground;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui;
+
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.ui.strategy.Config;
+
+import java.util.Collection;
+
+/**
+ * The event shapes of a day panel together with the state they were laid out
+ * for. The shapes stay valid until the events of the day, the size of the
+ * panel or the configuration change, so that painting, selection and
+ * tooltips share a single layout.
+ *
+ * @author theodorcostache
+ */
+final class EventShapeCache {
+
+    private static final EventShape[] NO_SHAPES = new EventShape[0];
+
+    private EventShape[] shapes = NO_SHAPES;
+    private ShapeIndex index = new ShapeIndex(NO_SHAPES);
+    private int eventsVersion = -1;
+    private int width;
+    private int height;
+    private Config config;
+    private int configVersion;
+    private int generation;
+
+    /**
+     * @return true if the cached shapes were laid out for the given state
+     */
+    boolean isValid(final int eventsVersion, final int width, final int height, final Config config) {
+        return this.eventsVersion == eventsVersion && this.width == width && this.height == height
+                && this.config == config && this.configVersion == config.getVersion();
+    }
+
+    void update(final EventShape[] shapes, final int eventsVersion, final int width, final int height,
+                final Config config) {
+        this.shapes = shapes;
+        this.index = new ShapeIndex(shapes);
+        this.eventsVersion = eventsVersion;
+        this.width = width;
+        this.height = height;
+        this.config = config;
+        this.configVersion = config.getVersion();
+        generation++;
+    }
+
+    /**
+     * @return a counter incremented whenever the shapes are replaced
+     */
+    int getGeneration() {
+        return generation;
+    }
+
+    EventShape[] getShapes() {
+        return shapes;
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return the event painted at the given point, null if there is none
+     */
+    CalendarEvent getEventAt(final int x, final int y) {
+        final EventShape shape = index.getShapeAt(x, y);
+        return shape == null ? null : shape.event;
+    }
+
+    /**
+     * Collects the events painted inside the given rectangle
+     *
+     * @param x
+     * @param y
+     * @param width
+     * @param height
+     * @param result
+     */
+    void getEvents(final int x, final int y, final int width, final int height,
+                   final Collection<CalendarEvent> result) {
+        index.getEvents(x, y, width, height, result);
+    }
+}
@@ -27,6 +27,7 @@ import java.util.Date;
 import javax.swing.JPanel;
 
 import de.costache.calendar.JCalendar;
+import de.costache.calendar.ui.strategy.Config;
 import de.costache.calendar.util.CalendarUtil;
 
 /**
@@ -42,6 +43,7 @@ public class HoursPanel extends JPanel {
 	private static final long serialVersionUID = 1L;
 
 	private final JCalendar owner;
+	private final BackgroundCache background = new BackgroundCache();
 
 	/**
 	 * Creates a new instance of {@link HoursPanel}
@@ -57,6 +59,31 @@ public class HoursPanel extends JPanel {
 	public void paint(Graphics g) {
 		super.paint(g);
 
+		final Graphics2D g2 = (Graphics2D) g;
+		final Config config = owner.getConfig();
+		if (!background.isValid(this, g2, getWidth(), getHeight(), config, 0)) {
+			final Graphics2D graphics = background.render(this, g2, getWidth(), getHeight(), config, 0);
+			if (graphics != null) {
+				try {
+					drawHours(graphics, config);
+				} finally {
+					graphics.dispose();
+				}
+			}
+		}
+		background.draw(g2);
+
+		g2.setStroke(new BasicStroke(2f));
+		g2.setColor(config.getTodayHeaderBackgroundColor());
+		int yNow = CalendarUtil.secondsToPixels(new Date(), 1440);
+		g2.drawLine(0, yNow, getWidth(), yNow);
+	}
+
+	/**
+	 * Draws the border, the hour labels and the hour lines, which only
+	 * depend on the size of the panel and the configuration
+	 */
+	private void drawHours(final Graphics g, final Config config) {
 		g.setColor(new Color(230, 230, 230));
 		g.drawRect(0, 0, getWidth(), getHeight());
 		int height = 60;
@@ -64,8 +91,8 @@ public class HoursPanel extends JPanel {
 
 		int fontSize = 12;
 		boolean fits = false;
-		while (!fits) {
-			final Font font = new Font("Verdana", Font.PLAIN, fontSize);
+		while (!fits && fontSize > 1) {
+			final Font font = config.getFont(Font.PLAIN, fontSize);
 			final FontMetrics metrics = g.getFontMetrics(font);
 
 			if (metrics.stringWidth("12 pm") <= (getWidth() - 5)) {
@@ -74,7 +101,7 @@ public class HoursPanel extends JPanel {
 			fontSize -= 1;
 		}
 		fontSize = fontSize > 12 ? 12 : fontSize;
-		final Font font = new Font("Verdana", Font.PLAIN, fontSize);
+		final Font font = config.getFont(Font.PLAIN, fontSize);
 		g.setFont(font);
 		final FontMetrics metrics = g.getFontMetrics(font);
 
@@ -89,15 +116,10 @@ public class HoursPanel extends JPanel {
 			g.setColor(Color.gray);
 
 			g.drawString(hour, getWidth() - stringWidth - 2, y - 2);
-			g.setColor(owner.getConfig().getLineColor());
+			g.setColor(config.getLineColor());
 			g.drawLine(0, y, getWidth(), y);
-			g.setColor(owner.getConfig().getMiddleLineColor());
+			g.setColor(config.getMiddleLineColor());
 			g.drawLine(0, y - 30, getWidth(), y - 30);
 		}
-
-		((Graphics2D) g).setStroke(new BasicStroke(2f));
-		g.setColor(owner.getConfig().getTodayHeaderBackgroundColor());
-		int yNow = CalendarUtil.secondsToPixels(new Date(), 1440);
-		g.drawLine(0, yNow, getWidth(), yNow);
 	}
 }
@@ -0,0 +1,645 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.format.CalendarEventFormat;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.ui.strategy.Config;
+import de.costache.calendar.ui.strategy.DisplayStrategy.Type;
+import de.costache.calendar.util.*;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.text.MessageFormat;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Flyweight month grid. A single component lays out the 5 or 6 weeks of the
+ * month itself, paints every day from one range query on the event
+ * collection and finds the day and the event under the cursor by coordinate
+ * math, instead of a {@link DayPanel} with its own components and
+ * listeners per day.
+ * <p>
+ * The geometry and the painting match a grid of {@link DayPanel}s with a
+ * header taking a tenth of every day.
+ *
+ * @author theodorcostache
+ */
+public class MonthPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+    private static final Color SELECTION_COLOR = new Color(173, 216, 230, 50);
+    private static final float HEADER_RATIO = 0.1f;
+    /**
+     * The preferred height of the empty header and content panels a day
+     * used to be made of
+     */
+    private static final int MIN_PART_HEIGHT = 10;
+    private static final int EVENT_TOP = 2;
+    private static final int EVENT_HEIGHT = 15;
+    private static final int EVENT_SPACING = 17;
+    private static final List<CalendarEvent> NO_EVENTS = Collections.emptyList();
+
+    private final JCalendar owner;
+    private final SimpleDateFormat headerFormat = new SimpleDateFormat("EEE dd MMM");
+    private final SimpleDateFormat sdf = new SimpleDateFormat("HH:mm");
+    private final String moreFormat;
+    private Date[] dates = new Date[0];
+    private String[] headers = new String[0];
+    private boolean[] enabled = new boolean[0];
+    private final List<List<CalendarEvent>> events = new ArrayList<List<CalendarEvent>>();
+    private DayAggregate[] aggregates = new DayAggregate[0];
+    private EventShapeCache[] shapes = new EventShapeCache[0];
+    private String[] moreLabels = new String[0];
+    private int[] versions = new int[0];
+    private int rows;
+
+    private int cellWidth;
+    private int cellHeight;
+    private int originX;
+    private int originY;
+    private int headerTop;
+    private int headerHeight;
+    private int contentHeight;
+
+    private int selectionDay = -1;
+    private int selectionStart;
+    private int selectionEnd;
+    private int tooltipDay = -1;
+    private int tooltipVersion;
+    private CalendarEvent tooltipEvent;
+    private CalendarEventFormat tooltipFormat;
+    private String tooltipText;
+
+    /**
+     * Creates a new instance of {@link MonthPanel}
+     *
+     * @param owner
+     */
+    public MonthPanel(final JCalendar owner) {
+        super(true);
+        setOpaque(false);
+        this.owner = owner;
+        this.moreFormat = ResourceBundle.getBundle("calendar", getLocale()).getString("more");
+        ToolTipManager.sharedInstance().registerComponent(this);
+        addListeners();
+    }
+
+    public JCalendar getOwner() {
+        return owner;
+    }
+
+    /**
+     * Shows the given number of weeks starting at the given day. The days
+     * outside the given month are painted disabled.
+     *
+     * @param firstDay the first day of the first week
+     * @param weeks    the number of weeks
+     * @param month    a day of the displayed month
+     */
+    public void setDays(final Date firstDay, final int weeks, final Calendar month) {
+        final int count = weeks * 7;
+        rows = weeks;
+        dates = new Date[count];
+        headers = new String[count];
+        enabled = new boolean[count];
+        shapes = new EventShapeCache[count];
+        moreLabels = new String[count];
+        versions = new int[count];
+        aggregates = new DayAggregate[count];
+        events.clear();
+
+        final EventCollection collection = EventCollectionRepository.get(owner);
+        final Calendar c = CalendarUtil.getCalendar(firstDay, true);
+        for (int i = 0; i < count; i++) {
+            dates[i] = c.getTime();
+            aggregates[i] = collection.getAggregate(dates[i]);
+            headers[i] = headerFormat.format(dates[i]);
+            enabled[i] = CalendarUtil.isSameMonth(month, c);
+            shapes[i] = new EventShapeCache();
+            events.add(NO_EVENTS);
+            c.add(Calendar.DATE, 1);
+        }
+        selectionDay = -1;
+        tooltipDay = -1;
+    }
+
+    /**
+     * @return the number of displayed days
+     */
+    public int getDayCount() {
+        return dates.length;
+    }
+
+    /**
+     * @param index
+     * @return the day at the given index
+     */
+    public Date getDate(final int index) {
+        return dates[index];
+    }
+
+    /**
+     * @param index
+     * @return the sorted events of the day at the given index
+     */
+    public List<CalendarEvent> getEvents(final int index) {
+        return events.get(index);
+    }
+
+    /**
+     * Fetches the events of all displayed days with a single range query
+     */
+    public void refresh() {
+        if (dates.length == 0)
+            return;
+        refresh(0, dates.length - 1, false);
+    }
+
+    /**
+     * Refreshes and repaints only the days intersecting the given interval
+     *
+     * @param from start of the changed interval, null if unknown
+     * @param to   end of the changed interval, null if unknown
+     */
+    public void refresh(final Date from, final Date to) {
+        if (dates.length == 0)
+            return;
+        int first = 0;
+        int last = dates.length - 1;
+        if (from != null && to != null) {
+            final int firstDay = CalendarUtil.toEpochDay(dates[0].getTime());
+            first = Math.max(first, CalendarUtil.toEpochDay(from.getTime()) - firstDay);
+            last = Math.min(last, CalendarUtil.toEpochDay(to.getTime()) - firstDay);
+            if (first > last)
+                return;
+        }
+        refresh(first, last, true);
+
+        updateGeometry();
+        for (int i = first; i <= last; i++) {
+            repaint(getDayBounds(i));
+        }
+    }
+
+    private void refresh(final int first, final int last, final boolean invalidate) {
+        final EventCollection collection = EventCollectionRepository.get(owner);
+        final EventBuckets buckets = collection.getEvents(dates[first], CalendarUtil.createInDays(dates[last], 1));
+        for (int i = first; i <= last; i++) {
+            final List<CalendarEvent> dayEvents = buckets.getEvents(i - first);
+            if (!invalidate && isSame(events.get(i), dayEvents))
+                continue;
+            events.set(i, dayEvents);
+            aggregates[i] = collection.getAggregate(dates[i]);
+            versions[i]++;
+        }
+    }
+
+    private static boolean isSame(final List<CalendarEvent> a, final List<CalendarEvent> b) {
+        if (a.size() != b.size())
+            return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Computes the bounds of the days and of their header and content the
+     * same way a {@link GridLayout} of {@link DayPanel}s would
+     */
+    private void updateGeometry() {
+        final int width = getWidth();
+        final int height = getHeight();
+        cellWidth = width / 7;
+        cellHeight = rows == 0 ? 0 : height / rows;
+        originX = (width - cellWidth * 7) / 2;
+        originY = (height - cellHeight * rows) / 2;
+
+        final double weight = HEADER_RATIO + (1.0 - HEADER_RATIO);
+        final int diff = cellHeight - 2 * MIN_PART_HEIGHT;
+        headerHeight = MIN_PART_HEIGHT + (int) ((double) diff * HEADER_RATIO / weight);
+        contentHeight = MIN_PART_HEIGHT + (int) ((double) diff * (1.0 - HEADER_RATIO) / weight);
+        headerTop = (cellHeight - headerHeight - contentHeight) / 2;
+    }
+
+    private Rectangle getDayBounds(final int index) {
+        return new Rectangle(originX + (index % 7) * cellWidth, originY + (index / 7) * cellHeight, cellWidth,
+                cellHeight);
+    }
+
+    private int getContentY(final int index) {
+        return originY + (index / 7) * cellHeight + headerTop + headerHeight;
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return the index of the day at the given point, -1 if there is none
+     */
+    public int getDayAt(final int x, final int y) {
+        updateGeometry();
+        if (cellWidth <= 0 || cellHeight <= 0 || x < originX || y < originY)
+            return -1;
+        final int column = (x - originX) / cellWidth;
+        final int row = (y - originY) / cellHeight;
+        if (column >= 7 || row >= rows)
+            return -1;
+        return row * 7 + column;
+    }
+
+    private boolean isInContent(final int day, final int y) {
+        final int contentY = getContentY(day);
+        return y >= contentY && y < contentY + contentHeight;
+    }
+
+    private boolean isInHeader(final int day, final int y) {
+        final int headerY = originY + (day / 7) * cellHeight + headerTop;
+        return y >= headerY && y < headerY + headerHeight;
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return the event painted at the given point, null if there is none
+     */
+    public CalendarEvent getEventAt(final int x, final int y) {
+        final int day = getDayAt(x, y);
+        if (day < 0 || !isInContent(day, y))
+            return null;
+        final int localX = x - originX - (day % 7) * cellWidth;
+        final int localY = y - getContentY(day) - EVENT_TOP;
+        if (localY < 0 || localY % EVENT_SPACING >= EVENT_HEIGHT || localX < 2 || localX >= cellWidth - 2)
+            return null;
+        final EventShape[] dayShapes = getShapes(day);
+        final int index = localY / EVENT_SPACING;
+        return index < dayShapes.length ? dayShapes[index].event : null;
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return true if the given point lies on the line telling about the
+     *         events which did not fit into their day
+     */
+    boolean isOnMore(final int x, final int y) {
+        final int day = getDayAt(x, y);
+        if (day < 0 || !isInContent(day, y))
+            return false;
+        final int localY = y - getContentY(day) - EVENT_TOP;
+        final int hidden = getHiddenCount(day);
+        return hidden > 0 && localY >= 0 && localY / EVENT_SPACING == getShapes(day).length
+                && localY % EVENT_SPACING < EVENT_HEIGHT;
+    }
+
+    /**
+     * @return the number of events of the given day which did not fit into
+     *         its cell
+     */
+    int getHiddenCount(final int day) {
+        updateGeometry();
+        final DayAggregate aggregate = aggregates[day];
+        return aggregate.getEventCount() - aggregate.getHolidays().size() - getShapes(day).length;
+    }
+
+    /**
+     * Collects the events painted inside the given area, e.g. for a rubber
+     * band selection
+     *
+     * @param area   in the coordinates of this panel
+     * @param result receives the events
+     */
+    public void getEvents(final Rectangle area, final Collection<CalendarEvent> result) {
+        updateGeometry();
+        for (int day = 0; day < dates.length; day++) {
+            final Rectangle bounds = getDayBounds(day);
+            final Rectangle content = new Rectangle(bounds.x, getContentY(day), cellWidth, contentHeight);
+            if (!content.intersects(area))
+                continue;
+            for (final EventShape shape : getShapes(day)) {
+                final Rectangle rect = new Rectangle(content.x + shape.x, content.y + shape.y, shape.width,
+                        shape.height).intersection(content);
+                if (!rect.isEmpty() && rect.intersects(area))
+                    result.add(shape.event);
+            }
+        }
+    }
+
+    /**
+     * @return the shapes of the events of the given day, laid out again only
+     *         if its events, the size or the configuration have changed
+     */
+    private EventShape[] getShapes(final int day) {
+        final Config config = owner.getConfig();
+        final EventShapeCache cache = shapes[day];
+        if (!cache.isValid(versions[day], cellWidth, contentHeight, config)) {
+            cache.update(layoutEvents(day, config), versions[day], cellWidth, contentHeight, config);
+            moreLabels[day] = null;
+        }
+        return cache.getShapes();
+    }
+
+    /**
+     * @return the label telling the number of events of the given day which
+     *         do not fit, formatted once per layout of the day, null if all
+     *         events fit
+     */
+    String getMoreLabel(final int day) {
+        final int hidden = getHiddenCount(day);
+        if (hidden <= 0)
+            return null;
+        if (moreLabels[day] == null)
+            moreLabels[day] = MessageFormat.format(moreFormat, hidden);
+        return moreLabels[day];
+    }
+
+    /**
+     * Lays out a strip per event, as many as fit into the cell. If some do
+     * not fit, the last line is left for telling their number.
+     */
+    private EventShape[] layoutEvents(final int day, final Config config) {
+        final List<EventShape> result = new ArrayList<EventShape>();
+        final Font font = getEventFont(config);
+        final FontMetrics metrics = getFontMetrics(font);
+
+        final DayAggregate aggregate = aggregates[day];
+        final int total = aggregate.getEventCount() - aggregate.getHolidays().size();
+        final int fitting = Math.max(0, (contentHeight - EVENT_TOP - EVENT_HEIGHT) / EVENT_SPACING + 1);
+        final int shown = total > fitting ? Math.max(0, fitting - 1) : total;
+
+        int pos = EVENT_TOP;
+        for (final CalendarEvent event : events.get(day)) {
+            if (event.isHoliday())
+                continue;
+            if (result.size() == shown)
+                break;
+
+            final String eventString = sdf.format(event.getStart()) + " " + sdf.format(event.getEnd()) + " "
+                    + event.getSummary();
+            final WrappedText text = GraphicsUtil.layoutTrimmedString(metrics, eventString, cellWidth);
+
+            result.add(new EventShape(event, config, 2, pos, cellWidth - 4, EVENT_HEIGHT, font, text, 6, pos
+                    + (13 / 2 + metrics.getHeight() / 2) - 2));
+
+            pos += EVENT_SPACING;
+        }
+        return result.toArray(new EventShape[result.size()]);
+    }
+
+    private Font getEventFont(final Config config) {
+        int fontSize = Math.round(contentHeight * 0.5f);
+        fontSize = fontSize > 9 ? 9 : fontSize;
+        return config.getFont(Font.BOLD, fontSize);
+    }
+
+    @Override
+    public void paint(final Graphics g) {
+        super.paint(g);
+        updateGeometry();
+        if (cellWidth <= 0 || cellHeight <= 0)
+            return;
+
+        final Config config = owner.getConfig();
+        final Rectangle clip = g.getClipBounds();
+        for (int day = 0; day < dates.length; day++) {
+            final Rectangle bounds = getDayBounds(day);
+            if (clip != null && !clip.intersects(bounds))
+                continue;
+
+            final Graphics2D header = (Graphics2D) g.create(bounds.x, bounds.y + headerTop, cellWidth, headerHeight);
+            try {
+                paintHeader(header, day, config);
+            } finally {
+                header.dispose();
+            }
+            final Graphics2D content = (Graphics2D) g.create(bounds.x, getContentY(day), cellWidth, contentHeight);
+            try {
+                paintContent(content, day, config);
+            } finally {
+                content.dispose();
+            }
+        }
+    }
+
+    private void paintHeader(final Graphics2D g2d, final int day, final Config config) {
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_HRGB);
+        final int height = headerHeight;
+        final int width = cellWidth;
+
+        final boolean isToday = CalendarUtil.isToday(dates[day]);
+        final Color bgColor = isToday ? config.getTodayHeaderBackgroundColor() : config.getDayHeaderBackgroundColor();
+        final Color fgColor = isToday ? config.getTodayHeaderForegroundColor() : config.getDayHeaderForegroundColor();
+
+        g2d.setColor(bgColor);
+        g2d.fillRect(0, 0, width, height);
+        g2d.drawRect(0, 0, width, height);
+        g2d.setColor(fgColor);
+        int fontSize = Math.round(height * 0.5f);
+        fontSize = fontSize > 12 ? 12 : fontSize;
+
+        final Font font = config.getFont(Font.PLAIN, fontSize);
+        final FontMetrics metrics = g2d.getFontMetrics(font);
+        g2d.setFont(font);
+
+        g2d.drawString(headers[day], 5, height / 2 + metrics.getHeight() / 2);
+    }
+
+    private void paintContent(final Graphics2D g, final int day, final Config config) {
+        final int width = cellWidth;
+        final int height = contentHeight;
+        if (enabled[day]) {
+            if (!aggregates[day].getHolidays().isEmpty()) {
+                g.setColor(config.getHolidayBgColor());
+                g.fillRect(0, 0, width, height);
+            }
+        } else {
+            g.setColor(config.getDayDisabledBackgroundColor());
+            g.fillRect(0, 0, width, height);
+        }
+        g.setColor(config.getLineColor());
+        g.drawRect(0, 0, width, height);
+
+        final EventShape[] dayShapes = getShapes(day);
+        for (final EventShape shape : dayShapes) {
+            g.setColor(shape.getFill());
+            g.fillRect(shape.x, shape.y, shape.width, shape.height);
+            shape.paintText(g);
+        }
+
+        final String more = getMoreLabel(day);
+        if (more != null && dayShapes.length * EVENT_SPACING + EVENT_TOP + EVENT_HEIGHT <= height) {
+            final Font font = getEventFont(config);
+            final int pos = EVENT_TOP + dayShapes.length * EVENT_SPACING;
+            g.setFont(font);
+            g.setColor(config.getDayHeaderForegroundColor());
+            g.drawString(more, 6, pos
+                    + (13 / 2 + g.getFontMetrics(font).getHeight() / 2) - 2);
+        }
+
+        if (selectionDay == day) {
+            g.setColor(SELECTION_COLOR);
+            final int selectionHeight = selectionEnd - selectionStart;
+            final int yStart = selectionHeight > 0 ? selectionStart : selectionEnd;
+            g.fillRect(0, yStart, width, Math.abs(selectionHeight));
+        }
+    }
+
+    @Override
+    public String getToolTipText(final MouseEvent e) {
+        final int day = getDayAt(e.getX(), e.getY());
+        if (day < 0 || !isInContent(day, e.getY()))
+            return null;
+        final CalendarEvent event = getEventAt(e.getX(), e.getY());
+        final CalendarEventFormat format = owner.getTooltipFormater();
+        if (tooltipDay == day && tooltipVersion == versions[day] && tooltipEvent == event
+                && tooltipFormat == format)
+            return tooltipText;
+        tooltipDay = day;
+        tooltipVersion = versions[day];
+        tooltipEvent = event;
+        tooltipFormat = format;
+        tooltipText = event != null ? format.format(event) : format.format(aggregates[day].getHolidays());
+        return tooltipText;
+    }
+
+    private void setSelection(final int day, final int start, final int end) {
+        if (selectionDay == day && selectionStart == start && selectionEnd == end)
+            return;
+        if (selectionDay >= 0)
+            repaint(getDayBounds(selectionDay));
+        selectionDay = day;
+        selectionStart = start;
+        selectionEnd = end;
+        if (day >= 0)
+            repaint(getDayBounds(day));
+    }
+
+    private void addListeners() {
+        final MouseAdapter adapter = new MouseAdapter() {
+
+            @Override
+            public void mouseClicked(final MouseEvent e) {
+                final int day = getDayAt(e.getX(), e.getY());
+                if (day < 0)
+                    return;
+                if (isInHeader(day, e.getY())) {
+                    if (e.getClickCount() == 2) {
+                        owner.setSelectedDay(dates[day]);
+                        owner.setDisplayStrategy(Type.DAY, dates[day]);
+                    }
+                    return;
+                }
+                if (!isInContent(day, e.getY()))
+                    return;
+                for (final MouseListener ml : owner.getMouseListeners()) {
+                    ml.mouseClicked(e);
+                }
+                if (e.getClickCount() == 2 && e.getButton() == MouseEvent.BUTTON1 && isOnMore(e.getX(), e.getY())) {
+                    owner.setSelectedDay(dates[day]);
+                    owner.setDisplayStrategy(Type.DAY, dates[day]);
+                    return;
+                }
+                if (e.getClickCount() == 2 && e.getButton() == MouseEvent.BUTTON1 && selectionDay == day) {
+                    final Date startDate = CalendarUtil.pixelToDate(dates[day], selectionStart, contentHeight);
+                    final Date endDate = CalendarUtil.pixelToDate(dates[day], selectionEnd, contentHeight);
+                    EventRepository.get().triggerIntervalSelection(owner, startDate, endDate);
+                }
+            }
+
+            @Override
+            public void mousePressed(final MouseEvent e) {
+                final int day = getDayAt(e.getX(), e.getY());
+                if (day < 0 || !isInContent(day, e.getY()))
+                    return;
+
+                final CalendarEvent event = getEventAt(e.getX(), e.getY());
+                if (e.getClickCount() == 1) {
+                    final EventCollection events = EventCollectionRepository.get(owner);
+                    if (!e.isControlDown()) {
+                        events.clearSelected(event, true);
+                    }
+                    if (event != null) {
+                        event.setSelected(true);
+                        if (event.isSelected()) {
+                            events.addSelected(event);
+                        } else {
+                            events.removeSelected(event);
+                        }
+                    }
+                    repaint();
+                }
+                if (e.isPopupTrigger() && owner.getPopupMenu() != null) {
+                    owner.getPopupMenu().show(MonthPanel.this, e.getX(), e.getY());
+                }
+                for (final MouseListener ml : owner.getMouseListeners()) {
+                    ml.mousePressed(e);
+                }
+            }
+
+            @Override
+            public void mouseReleased(final MouseEvent e) {
+                final int day = getDayAt(e.getX(), e.getY());
+                if (day < 0 || !isInContent(day, e.getY()))
+                    return;
+                if (e.isPopupTrigger() && owner.getPopupMenu() != null) {
+                    owner.getPopupMenu().show(MonthPanel.this, e.getX(), e.getY());
+                }
+                for (final MouseListener ml : owner.getMouseListeners()) {
+                    ml.mouseReleased(e);
+                }
+            }
+
+            @Override
+            public void mouseExited(final MouseEvent e) {
+                setSelection(-1, 0, 0);
+            }
+
+            @Override
+            public void mouseMoved(final MouseEvent e) {
+                final int day = getDayAt(e.getX(), e.getY());
+                if (day < 0 || !isInContent(day, e.getY()) || getEventAt(e.getX(), e.getY()) != null
+                        || isOnMore(e.getX(), e.getY())) {
+                    setSelection(-1, 0, 0);
+                    return;
+                }
+                final int localY = e.getY() - getContentY(day);
+                setSelection(day, CalendarUtil.roundPixelToHalfAnHour(localY, contentHeight, false),
+                        CalendarUtil.roundPixelToHalfAnHour(localY, contentHeight, true));
+            }
+
+            @Override
+            public void mouseDragged(final MouseEvent e) {
+                if (selectionDay < 0)
+                    return;
+                updateGeometry();
+                final int localY = e.getY() - getContentY(selectionDay);
+                if (localY > selectionStart) {
+                    setSelection(selectionDay, selectionStart,
+                            CalendarUtil.roundPixelToHalfAnHour(localY, contentHeight, true));
+                }
+            }
+        };
+        addMouseListener(adapter);
+        addMouseMotionListener(adapter);
+    }
+}
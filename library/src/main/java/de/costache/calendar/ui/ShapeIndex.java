@@ -0,0 +1,175 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui;
+
+import de.costache.calendar.model.CalendarEvent;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Spatial index over the {@link EventShape}s of a panel. The shapes are
+ * grouped into clusters with disjoint vertical extents, every cluster into
+ * columns of shapes sharing their x, and every column is sorted by y. Point
+ * lookups therefore take three binary searches and allocate nothing.
+ * <p>
+ * Shapes of the same column must not overlap vertically, which holds for the
+ * column layout of timed events as well as for stacked rows.
+ *
+ * @author theodorcostache
+ */
+final class ShapeIndex {
+
+    private static final Comparator<EventShape> BY_Y = new Comparator<EventShape>() {
+        @Override
+        public int compare(final EventShape a, final EventShape b) {
+            return a.y != b.y ? (a.y < b.y ? -1 : 1) : (a.x < b.x ? -1 : a.x > b.x ? 1 : 0);
+        }
+    };
+
+    private static final Comparator<EventShape> BY_X = new Comparator<EventShape>() {
+        @Override
+        public int compare(final EventShape a, final EventShape b) {
+            return a.x != b.x ? (a.x < b.x ? -1 : 1) : (a.y < b.y ? -1 : a.y > b.y ? 1 : 0);
+        }
+    };
+
+    private final EventShape[] shapes;
+    private final int[] shapeTops;
+    private final int clusterCount;
+    private final int[] clusterTops;
+    private final int[] clusterBottoms;
+    private final int[] clusterColumns;
+    private final int[] columnXs;
+    private final int[] columnShapes;
+
+    ShapeIndex(final EventShape[] source) {
+        final int size = source.length;
+        shapes = source.clone();
+        Arrays.sort(shapes, BY_Y);
+        shapeTops = new int[size];
+
+        final int[] tops = new int[size + 1];
+        final int[] bottoms = new int[size + 1];
+        final int[] firstColumns = new int[size + 1];
+        final int[] xs = new int[size + 1];
+        final int[] firstShapes = new int[size + 1];
+        int clusters = 0;
+        int columns = 0;
+
+        int i = 0;
+        while (i < size) {
+            final int top = shapes[i].y;
+            int bottom = shapes[i].y + shapes[i].height;
+            int j = i + 1;
+            while (j < size && shapes[j].y < bottom) {
+                bottom = Math.max(bottom, shapes[j].y + shapes[j].height);
+                j++;
+            }
+            Arrays.sort(shapes, i, j, BY_X);
+
+            tops[clusters] = top;
+            bottoms[clusters] = bottom;
+            firstColumns[clusters++] = columns;
+            for (int k = i; k < j; k++) {
+                if (k == i || shapes[k].x != shapes[k - 1].x) {
+                    xs[columns] = shapes[k].x;
+                    firstShapes[columns++] = k;
+                }
+                shapeTops[k] = shapes[k].y;
+            }
+            i = j;
+        }
+        firstColumns[clusters] = columns;
+        firstShapes[columns] = size;
+
+        clusterCount = clusters;
+        clusterTops = Arrays.copyOf(tops, clusters);
+        clusterBottoms = Arrays.copyOf(bottoms, clusters);
+        clusterColumns = Arrays.copyOf(firstColumns, clusters + 1);
+        columnXs = Arrays.copyOf(xs, columns);
+        columnShapes = Arrays.copyOf(firstShapes, columns + 1);
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return the shape containing the given point, null if there is none
+     */
+    EventShape getShapeAt(final int x, final int y) {
+        final int cluster = lastAtMost(clusterTops, 0, clusterCount, y);
+        if (cluster < 0 || y >= clusterBottoms[cluster])
+            return null;
+        final int firstColumn = clusterColumns[cluster];
+        final int column = lastAtMost(columnXs, firstColumn, clusterColumns[cluster + 1], x);
+        if (column < firstColumn)
+            return null;
+        final int firstShape = columnShapes[column];
+        final int shape = lastAtMost(shapeTops, firstShape, columnShapes[column + 1], y);
+        if (shape < firstShape || !shapes[shape].contains(x, y))
+            return null;
+        return shapes[shape];
+    }
+
+    /**
+     * Collects the events of all shapes intersecting the given rectangle,
+     * e.g. for a rubber-band selection
+     *
+     * @param x
+     * @param y
+     * @param width
+     * @param height
+     * @param result
+     */
+    void getEvents(final int x, final int y, final int width, final int height,
+                   final Collection<CalendarEvent> result) {
+        final int right = x + width;
+        final int bottom = y + height;
+        for (int c = Math.max(0, lastAtMost(clusterTops, 0, clusterCount, y)); c < clusterCount
+                && clusterTops[c] < bottom; c++) {
+            if (clusterBottoms[c] <= y)
+                continue;
+            for (int k = clusterColumns[c]; k < clusterColumns[c + 1] && columnXs[k] < right; k++) {
+                final int last = columnShapes[k + 1];
+                for (int s = Math.max(columnShapes[k], lastAtMost(shapeTops, columnShapes[k], last, y)); s < last
+                        && shapes[s].y < bottom; s++) {
+                    final EventShape shape = shapes[s];
+                    if (shape.x + shape.width > x && shape.y + shape.height > y)
+                        result.add(shape.event);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the greatest index in [from, to) whose value is at most the
+     *         given key, from - 1 if there is none
+     */
+    private static int lastAtMost(final int[] values, final int from, final int to, final int key) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (values[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low - 1;
+    }
+}
@@ -0,0 +1,636 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.events.ModelChangedEvent;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.CalendarEvent.Property;
+import de.costache.calendar.ui.strategy.Config;
+import de.costache.calendar.util.*;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Timeline of many resources, e.g. rooms or people, shown as horizontal
+ * lanes over a common time axis. The panel is meant to be the view of a
+ * {@link JScrollPane}, with {@link #getRowHeader()} and
+ * {@link #getColumnHeader()} as its headers.
+ * <p>
+ * Only the lanes inside the clip are laid out and only the events
+ * intersecting it are painted. The events of a lane are fetched from the
+ * index partitioned by resource when the lane becomes visible for the first
+ * time and kept until one of its events changes, so scrolling costs
+ * O(visible events) independent of the number of lanes and events.
+ *
+ * @author theodorcostache
+ */
+public class TimelinePanel extends JPanel implements Scrollable {
+
+    private static final long serialVersionUID = 1L;
+    private static final int LANE_HEIGHT = 24;
+    private static final int HEADER_WIDTH = 120;
+    private static final int AXIS_HEIGHT = 20;
+    private static final int INSET = 2;
+    private static final int MIN_LABEL_WIDTH = 40;
+    /**
+     * The maximal number of rows overlapping events of a lane are spread
+     * over, further overlapping events share the last row
+     */
+    private static final int MAX_ROWS = 3;
+    private static final long MILLIS_PER_HOUR = 3600000L;
+
+    private final JCalendar owner;
+    private final SimpleDateFormat hourFormat = new SimpleDateFormat("HH:mm");
+    private final SimpleDateFormat dayFormat = new SimpleDateFormat("EEE dd MMM");
+    private final String unassigned;
+    private final JComponent rowHeader;
+    private final JComponent columnHeader;
+    private long start;
+    private long end;
+    private List<String> lanes = Collections.emptyList();
+    private Map<String, Integer> laneIndexes = Collections.emptyMap();
+    private LaneLayout[] layouts = new LaneLayout[0];
+    private final Map<Color, Color> evenFills = new HashMap<Color, Color>();
+    private final Map<Color, Color> oddFills = new HashMap<Color, Color>();
+    private Color fillsBackdrop;
+    private Color fillsStripe;
+
+    /**
+     * Creates a new instance of {@link TimelinePanel}
+     *
+     * @param owner
+     */
+    public TimelinePanel(final JCalendar owner) {
+        super(true);
+        setOpaque(false);
+        this.owner = owner;
+        this.unassigned = ResourceBundle.getBundle("calendar", getLocale()).getString("unassigned");
+        this.rowHeader = new Lanes();
+        this.columnHeader = new Axis();
+        ToolTipManager.sharedInstance().registerComponent(this);
+        addListeners();
+    }
+
+    public JCalendar getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return the component painting the names of the lanes, to be used as
+     *         row header of the scroll pane
+     */
+    public JComponent getRowHeader() {
+        return rowHeader;
+    }
+
+    /**
+     * @return the component painting the time axis, to be used as column
+     *         header of the scroll pane
+     */
+    public JComponent getColumnHeader() {
+        return columnHeader;
+    }
+
+    /**
+     * @param from the start of the shown interval
+     * @param to   the end of the shown interval, exclusive
+     */
+    public void setInterval(final Date from, final Date to) {
+        start = from.getTime();
+        end = to.getTime();
+        Arrays.fill(layouts, null);
+    }
+
+    /**
+     * @return the resources shown as lanes, null standing for the events
+     *         without resource
+     */
+    public List<String> getLanes() {
+        return lanes;
+    }
+
+    /**
+     * Determines the lanes to show and drops the events fetched for them
+     */
+    public void refresh() {
+        final List<String> newLanes = getResources();
+        final boolean resized = newLanes.size() != lanes.size();
+        lanes = newLanes;
+        layouts = new LaneLayout[lanes.size()];
+        laneIndexes = new HashMap<String, Integer>(lanes.size() * 2);
+        for (int i = 0; i < lanes.size(); i++) {
+            laneIndexes.put(lanes.get(i), i);
+        }
+        if (resized) {
+            revalidate();
+            rowHeader.revalidate();
+        }
+        repaint();
+        rowHeader.repaint();
+        columnHeader.repaint();
+    }
+
+    /**
+     * Drops the events fetched for the lanes if the given interval intersects
+     * the shown one and repaints the visible lanes
+     *
+     * @param from start of the changed interval, null if unknown
+     * @param to   end of the changed interval, null if unknown
+     */
+    public void refresh(final Date from, final Date to) {
+        if (from != null && to != null && (to.getTime() < start || from.getTime() >= end))
+            return;
+        refresh();
+    }
+
+    /**
+     * Drops the events fetched for the lanes of the changed events and
+     * repaints just these lanes, if the changed interval intersects the shown
+     * one. The other lanes keep their events, layouts and pixels. All lanes
+     * are refreshed if the shown resources or the resource of an event have
+     * changed.
+     *
+     * @param event
+     */
+    public void refresh(final ModelChangedEvent event) {
+        final Date from = event.getIntervalStart();
+        final Date to = event.getIntervalEnd();
+        if (from != null && to != null && (to.getTime() < start || from.getTime() >= end))
+            return;
+        final List<String> resources = getResources();
+        if (isResourceChange(event) || resources != lanes && !resources.equals(lanes)) {
+            refresh();
+            return;
+        }
+
+        final int width = getWidth();
+        for (final CalendarEvent calendarEvent : event.getCalendarEvents()) {
+            final Integer lane = laneIndexes.get(calendarEvent.getResource());
+            if (lane != null && layouts[lane] != null) {
+                layouts[lane] = null;
+                repaint(0, lane * LANE_HEIGHT, width, LANE_HEIGHT);
+            }
+        }
+    }
+
+    /**
+     * @return the resources to show as lanes, those of the configuration if
+     *         set, those of the events otherwise
+     */
+    private List<String> getResources() {
+        final List<String> resources = owner.getConfig().getTimelineResources();
+        return resources != null ? resources : EventCollectionRepository.get(owner).getResources();
+    }
+
+    /**
+     * @return true if the given change moves an event from one lane to
+     *         another, whose previous lane is not known
+     */
+    private static boolean isResourceChange(final ModelChangedEvent event) {
+        if (event.getProperties().contains(Property.RESOURCE))
+            return true;
+        for (final ModelChangedEvent change : event.getChanges()) {
+            if (change.getProperties().contains(Property.RESOURCE))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param lane
+     * @return true if the events of the given lane have been fetched
+     */
+    boolean isLoaded(final int lane) {
+        return layouts[lane] != null;
+    }
+
+    /**
+     * @return the events of the given lane spread over rows, fetched when the
+     *         lane is needed for the first time
+     */
+    private LaneLayout getLayout(final int lane) {
+        LaneLayout layout = layouts[lane];
+        if (layout == null) {
+            final List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+            EventCollectionRepository.get(owner).getEvents(lanes.get(lane), new Date(start), new Date(end), events);
+            layout = new LaneLayout(events);
+            layouts[lane] = layout;
+        }
+        return layout;
+    }
+
+    /**
+     * @return the painted form of the events of the given lane, laid out
+     *         again only if the width of the panel has changed. Events too
+     *         narrow for a label get none.
+     */
+    private EventShape[] getShapes(final int lane) {
+        final LaneLayout layout = getLayout(lane);
+        final int width = getWidth();
+        if (layout.shapes != null && layout.shapesWidth == width)
+            return layout.shapes;
+
+        final Config config = owner.getConfig();
+        final Font font = config.getFont(Font.BOLD, 9);
+        final FontMetrics metrics = getFontMetrics(font);
+        final int rowHeight = (LANE_HEIGHT - 2 * INSET) / layout.rowCount;
+        final EventShape[] shapes = new EventShape[layout.events.length];
+        for (int i = 0; i < shapes.length; i++) {
+            final CalendarEvent event = layout.events[i];
+            final int x = toX(event.getStart().getTime());
+            final int w = Math.max(2, toX(event.getEnd().getTime()) - x);
+            final int y = lane * LANE_HEIGHT + INSET + layout.rows[i] * rowHeight;
+            final int h = rowHeight - 1;
+            final boolean labelled = w > MIN_LABEL_WIDTH && h >= metrics.getAscent();
+            final WrappedText text = labelled ? GraphicsUtil.layoutTrimmedString(metrics,
+                    event.getSummary() == null ? "" : event.getSummary(), w - 4) : null;
+            shapes[i] = new EventShape(event, config, x, y, w, h, font, text, x + 3, y + h / 2
+                    + metrics.getAscent() / 2 - 1);
+        }
+        layout.shapes = shapes;
+        layout.shapesWidth = width;
+        return shapes;
+    }
+
+    private int toX(final long millis) {
+        final long clamped = Math.max(start, Math.min(end, millis));
+        return (int) ((clamped - start) * getWidth() / Math.max(1, end - start));
+    }
+
+    private long toMillis(final int x) {
+        return start + (long) x * (end - start) / Math.max(1, getWidth());
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return the event painted at the given point, null if there is none
+     */
+    public CalendarEvent getEventAt(final int x, final int y) {
+        final int lane = y / LANE_HEIGHT;
+        if (y < 0 || lane >= lanes.size())
+            return null;
+        final EventShape[] shapes = getShapes(lane);
+        for (int i = shapes.length - 1; i >= 0; i--) {
+            if (shapes[i].contains(x, y))
+                return shapes[i].event;
+        }
+        return null;
+    }
+
+    @Override
+    public void paint(final Graphics g) {
+        super.paint(g);
+        if (lanes.isEmpty() || end <= start)
+            return;
+        final Graphics2D g2d = (Graphics2D) g;
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_HRGB);
+        final Config config = owner.getConfig();
+        final Rectangle clip = g.getClipBounds() != null ? g.getClipBounds() : new Rectangle(getSize());
+        final int first = Math.max(0, clip.y / LANE_HEIGHT);
+        final int last = Math.min(lanes.size() - 1, (clip.y + clip.height - 1) / LANE_HEIGHT);
+
+        for (int lane = first; lane <= last; lane++) {
+            if (lane % 2 == 1) {
+                g2d.setColor(config.getMiddleLineColor());
+                g2d.fillRect(clip.x, lane * LANE_HEIGHT, clip.width, LANE_HEIGHT);
+            }
+        }
+
+        g2d.setColor(config.getLineColor());
+        final long step = getGridStep();
+        final int top = first * LANE_HEIGHT;
+        final int bottom = (last + 1) * LANE_HEIGHT;
+        for (long time = start + step; time < end; time += step) {
+            final int x = toX(time);
+            if (x >= clip.x && x < clip.x + clip.width)
+                g2d.drawLine(x, top, x, bottom);
+        }
+        for (int lane = first; lane <= last; lane++) {
+            g2d.drawLine(clip.x, (lane + 1) * LANE_HEIGHT - 1, clip.x + clip.width, (lane + 1) * LANE_HEIGHT - 1);
+        }
+
+        final Color backdrop = getBackdrop();
+        if (!equals(backdrop, fillsBackdrop) || !config.getMiddleLineColor().equals(fillsStripe)) {
+            evenFills.clear();
+            oddFills.clear();
+            fillsBackdrop = backdrop;
+            fillsStripe = config.getMiddleLineColor();
+        }
+        final Color stripe = backdrop == null ? null : blend(fillsStripe, backdrop);
+        for (int lane = first; lane <= last; lane++) {
+            for (final EventShape shape : getShapes(lane)) {
+                if (shape.x + shape.width < clip.x || shape.x > clip.x + clip.width)
+                    continue;
+                if (backdrop == null)
+                    g2d.setColor(shape.getFill());
+                else if (lane % 2 == 0)
+                    g2d.setColor(getOpaqueFill(shape.getFill(), backdrop, evenFills));
+                else
+                    g2d.setColor(getOpaqueFill(shape.getFill(), stripe, oddFills));
+                g2d.fillRect(shape.x, shape.y, shape.width, shape.height);
+                if (shape.text != null) {
+                    final Graphics2D textGraphics = (Graphics2D) g2d.create();
+                    try {
+                        textGraphics.clipRect(shape.x, shape.y, shape.width, shape.height);
+                        shape.paintText(textGraphics);
+                    } finally {
+                        textGraphics.dispose();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Translucent fills are much more expensive than opaque ones when painted
+     * in software, so the colours of the events are blended with the
+     * background of their lane once and painted opaque. Overlapping events
+     * of the last row hide each other instead of showing through.
+     *
+     * @return the given colour blended with the given opaque background
+     */
+    private static Color getOpaqueFill(final Color fill, final Color background, final Map<Color, Color> cache) {
+        Color result = cache.get(fill);
+        if (result == null) {
+            result = blend(fill, background);
+            cache.put(fill, result);
+        }
+        return result;
+    }
+
+    private static Color blend(final Color color, final Color background) {
+        final int alpha = color.getAlpha();
+        if (alpha == 255)
+            return color;
+        return new Color((color.getRed() * alpha + background.getRed() * (255 - alpha)) / 255,
+                (color.getGreen() * alpha + background.getGreen() * (255 - alpha)) / 255,
+                (color.getBlue() * alpha + background.getBlue() * (255 - alpha)) / 255);
+    }
+
+    /**
+     * @return the opaque background showing through the panel, null if it
+     *         is unknown or not opaque itself
+     */
+    private Color getBackdrop() {
+        for (Container parent = getParent(); parent != null; parent = parent.getParent()) {
+            if (parent instanceof JComponent && ((JComponent) parent).isOpaque()) {
+                final Color background = parent.getBackground();
+                return background != null && background.getAlpha() == 255 ? background : null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean equals(final Color a, final Color b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * @return the interval between two ticks of the axis and two grid lines,
+     *         the shortest of an hour, two hours, six hours and a day that
+     *         leaves room for a label
+     */
+    private long getGridStep() {
+        final long hours = Math.max(1, (end - start) / MILLIS_PER_HOUR);
+        final long hourWidth = getWidth() / hours;
+        if (hourWidth >= 40)
+            return MILLIS_PER_HOUR;
+        if (hourWidth >= 20)
+            return 2 * MILLIS_PER_HOUR;
+        if (hourWidth * 6 >= 40)
+            return 6 * MILLIS_PER_HOUR;
+        return 24 * MILLIS_PER_HOUR;
+    }
+
+    @Override
+    public String getToolTipText(final MouseEvent e) {
+        final CalendarEvent event = getEventAt(e.getX(), e.getY());
+        if (event != null)
+            return owner.getTooltipFormater().format(event);
+        final int lane = e.getY() / LANE_HEIGHT;
+        if (lane < 0 || lane >= lanes.size())
+            return null;
+        return getLaneName(lane) + " " + hourFormat.format(new Date(toMillis(e.getX())));
+    }
+
+    private String getLaneName(final int lane) {
+        final String resource = lanes.get(lane);
+        return resource == null ? unassigned : resource;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(super.getPreferredSize().width, lanes.size() * LANE_HEIGHT);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(final Rectangle visibleRect, final int orientation, final int direction) {
+        return orientation == SwingConstants.VERTICAL ? LANE_HEIGHT : 10;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(final Rectangle visibleRect, final int orientation, final int direction) {
+        if (orientation == SwingConstants.VERTICAL)
+            return Math.max(LANE_HEIGHT, visibleRect.height / LANE_HEIGHT * LANE_HEIGHT - LANE_HEIGHT);
+        return visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return getParent() instanceof JViewport && getParent().getHeight() > getPreferredSize().height;
+    }
+
+    private void addListeners() {
+        addMouseListener(new MouseAdapter() {
+
+            @Override
+            public void mouseClicked(final MouseEvent e) {
+                for (final MouseListener ml : owner.getMouseListeners()) {
+                    ml.mouseClicked(e);
+                }
+                if (e.getClickCount() == 2 && e.getButton() == MouseEvent.BUTTON1
+                        && getEventAt(e.getX(), e.getY()) == null) {
+                    final Date time = new Date(toMillis(e.getX()));
+                    EventRepository.get().triggerIntervalSelection(owner,
+                            CalendarUtil.roundDateToHalfAnHour(time, false),
+                            CalendarUtil.roundDateToHalfAnHour(time, true));
+                }
+            }
+
+            @Override
+            public void mousePressed(final MouseEvent e) {
+                final CalendarEvent event = getEventAt(e.getX(), e.getY());
+                if (e.getClickCount() == 1) {
+                    final EventCollection events = EventCollectionRepository.get(owner);
+                    if (!e.isControlDown()) {
+                        events.clearSelected(event, true);
+                    }
+                    if (event != null) {
+                        event.setSelected(true);
+                        if (event.isSelected()) {
+                            events.addSelected(event);
+                        } else {
+                            events.removeSelected(event);
+                        }
+                    }
+                    repaint();
+                }
+                if (e.isPopupTrigger() && owner.getPopupMenu() != null) {
+                    owner.getPopupMenu().show(TimelinePanel.this, e.getX(), e.getY());
+                }
+                for (final MouseListener ml : owner.getMouseListeners()) {
+                    ml.mousePressed(e);
+                }
+            }
+
+            @Override
+            public void mouseReleased(final MouseEvent e) {
+                if (e.isPopupTrigger() && owner.getPopupMenu() != null) {
+                    owner.getPopupMenu().show(TimelinePanel.this, e.getX(), e.getY());
+                }
+                for (final MouseListener ml : owner.getMouseListeners()) {
+                    ml.mouseReleased(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * The events of a lane, ordered by start and end, each assigned to the
+     * first row in which it does not overlap the event before it, and their
+     * shapes for the width they were last painted at
+     */
+    private static final class LaneLayout {
+
+        final CalendarEvent[] events;
+        final int[] rows;
+        final int rowCount;
+        EventShape[] shapes;
+        int shapesWidth;
+
+        LaneLayout(final List<CalendarEvent> calendarEvents) {
+            events = calendarEvents.toArray(new CalendarEvent[calendarEvents.size()]);
+            rows = new int[events.length];
+            final long[] rowEnds = new long[MAX_ROWS];
+            Arrays.fill(rowEnds, Long.MIN_VALUE);
+            int count = 1;
+            for (int i = 0; i < events.length; i++) {
+                final long eventStart = events[i].getStart().getTime();
+                int row = 0;
+                while (row < MAX_ROWS - 1 && rowEnds[row] > eventStart)
+                    row++;
+                rows[i] = row;
+                rowEnds[row] = Math.max(rowEnds[row], events[i].getEnd().getTime());
+                count = Math.max(count, row + 1);
+            }
+            rowCount = count;
+        }
+    }
+
+    /**
+     * Row header painting the names of the visible lanes
+     */
+    private final class Lanes extends JComponent {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Dimension getPreferredSize() {
+            return new Dimension(HEADER_WIDTH, lanes.size() * LANE_HEIGHT);
+        }
+
+        @Override
+        public void paint(final Graphics g) {
+            final Graphics2D g2d = (Graphics2D) g;
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_HRGB);
+            final Config config = owner.getConfig();
+            final Rectangle clip = g.getClipBounds() != null ? g.getClipBounds() : new Rectangle(getSize());
+            final int first = Math.max(0, clip.y / LANE_HEIGHT);
+            final int last = Math.min(lanes.size() - 1, (clip.y + clip.height - 1) / LANE_HEIGHT);
+            final Font font = config.getFont(Font.PLAIN, 11);
+            final FontMetrics metrics = g2d.getFontMetrics(font);
+            g2d.setFont(font);
+            for (int lane = first; lane <= last; lane++) {
+                final int y = lane * LANE_HEIGHT;
+                g2d.setColor(config.getDayHeaderBackgroundColor());
+                g2d.fillRect(0, y, getWidth(), LANE_HEIGHT);
+                g2d.setColor(config.getLineColor());
+                g2d.drawLine(0, y + LANE_HEIGHT - 1, getWidth(), y + LANE_HEIGHT - 1);
+                g2d.setColor(config.getDayHeaderForegroundColor());
+                GraphicsUtil.layoutTrimmedString(metrics, getLaneName(lane), getWidth() - 10).draw(g2d, 5,
+                        y + LANE_HEIGHT / 2 + metrics.getAscent() / 2 - 1);
+            }
+        }
+    }
+
+    /**
+     * Column header painting the time axis
+     */
+    private final class Axis extends JComponent {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Dimension getPreferredSize() {
+            return new Dimension(TimelinePanel.this.getWidth(), AXIS_HEIGHT);
+        }
+
+        @Override
+        public void paint(final Graphics g) {
+            final Graphics2D g2d = (Graphics2D) g;
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_HRGB);
+            final Config config = owner.getConfig();
+            g2d.setColor(config.getDayHeaderBackgroundColor());
+            g2d.fillRect(0, 0, getWidth(), getHeight());
+            if (end <= start)
+                return;
+
+            final Font font = config.getFont(Font.PLAIN, 10);
+            final FontMetrics metrics = g2d.getFontMetrics(font);
+            g2d.setFont(font);
+            final long step = getGridStep();
+            final SimpleDateFormat format = step < 24 * MILLIS_PER_HOUR ? hourFormat : dayFormat;
+            for (long time = start; time < end; time += step) {
+                final int x = toX(time);
+                g2d.setColor(config.getLineColor());
+                g2d.drawLine(x, 0, x, getHeight());
+                g2d.setColor(config.getDayHeaderForegroundColor());
+                g2d.drawString(format.format(new Date(time)), x + 3, getHeight() / 2 + metrics.getAscent() / 2 - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,386 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.ui.strategy.Config;
+import de.costache.calendar.ui.strategy.DisplayStrategy.Type;
+import de.costache.calendar.util.CalendarUtil;
+import de.costache.calendar.util.DayAggregate;
+import de.costache.calendar.util.EventCollectionRepository;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Overview of several months painted as a heatmap: every day is coloured by
+ * its number of events. The panel only reads the per-day counts maintained
+ * by the event collection, so painting and navigating cost O(days)
+ * independent of the number of events.
+ *
+ * @author theodorcostache
+ */
+public class YearPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+    /**
+     * The number of shades of the heatmap colour, not counting days without
+     * events
+     */
+    private static final int LEVELS = 4;
+    private static final int PADDING = 6;
+    private static final String[] DAY_LABELS = new String[31];
+
+    static {
+        for (int i = 0; i < DAY_LABELS.length; i++) {
+            DAY_LABELS[i] = Integer.toString(i + 1);
+        }
+    }
+
+    private final JCalendar owner;
+    private final SimpleDateFormat titleFormat = new SimpleDateFormat("MMMM yyyy");
+    private final SimpleDateFormat dayFormat = new SimpleDateFormat("EEE dd MMM yyyy");
+    private final SimpleDateFormat weekdayFormat = new SimpleDateFormat("EEE");
+    private Date[] months = new Date[0];
+    private String[] titles = new String[0];
+    private int[] monthOffsets = new int[0];
+    private int[] monthLengths = new int[0];
+    private int[] firstColumns = new int[0];
+    private String[] weekdays = new String[7];
+    private final int[] weekdayWidths = new int[7];
+    private final int[] dayWidths = new int[DAY_LABELS.length];
+    private Font labelFont;
+    private int firstDay;
+    private int[] counts = new int[0];
+    private int maxCount;
+    private Color[] shades;
+    private Color shadesColor;
+
+    private int columns;
+    private int blockWidth;
+    private int blockHeight;
+    private int titleHeight;
+    private int cellWidth;
+    private int cellHeight;
+
+    /**
+     * Creates a new instance of {@link YearPanel}
+     *
+     * @param owner
+     */
+    public YearPanel(final JCalendar owner) {
+        super(true);
+        setOpaque(false);
+        this.owner = owner;
+        ToolTipManager.sharedInstance().registerComponent(this);
+        addListeners();
+    }
+
+    public JCalendar getOwner() {
+        return owner;
+    }
+
+    /**
+     * Shows the given number of months
+     *
+     * @param start the first day of the first month
+     * @param count the number of months
+     */
+    public void setMonths(final Calendar start, final int count) {
+        months = new Date[count];
+        titles = new String[count];
+        monthOffsets = new int[count];
+        monthLengths = new int[count];
+        firstColumns = new int[count];
+
+        final Calendar c = CalendarUtil.copyCalendar(start, true);
+        c.set(Calendar.DAY_OF_MONTH, 1);
+        firstDay = CalendarUtil.toEpochDay(c.getTimeInMillis());
+        for (int i = 0; i < count; i++) {
+            months[i] = c.getTime();
+            titles[i] = titleFormat.format(months[i]);
+            monthOffsets[i] = CalendarUtil.toEpochDay(c.getTimeInMillis()) - firstDay;
+            monthLengths[i] = c.getActualMaximum(Calendar.DAY_OF_MONTH);
+            firstColumns[i] = (c.get(Calendar.DAY_OF_WEEK) - c.getFirstDayOfWeek() + 7) % 7;
+            c.add(Calendar.MONTH, 1);
+        }
+
+        final Calendar week = CalendarUtil.copyCalendar(start, true);
+        week.set(Calendar.DAY_OF_WEEK, week.getFirstDayOfWeek());
+        for (int i = 0; i < 7; i++) {
+            final String weekday = weekdayFormat.format(week.getTime());
+            weekdays[i] = weekday.substring(0, Math.min(2, weekday.length()));
+            week.add(Calendar.DATE, 1);
+        }
+        labelFont = null;
+        counts = new int[0];
+        maxCount = 0;
+    }
+
+    /**
+     * @return the number of displayed days
+     */
+    public int getDayCount() {
+        return months.length == 0 ? 0 : monthOffsets[months.length - 1] + monthLengths[months.length - 1];
+    }
+
+    /**
+     * @param index
+     * @return the day at the given index
+     */
+    public Date getDate(final int index) {
+        return new Date(CalendarUtil.startOfEpochDay(firstDay + index));
+    }
+
+    /**
+     * @param index
+     * @return the number of events of the day at the given index
+     */
+    public int getCount(final int index) {
+        return index < counts.length ? counts[index] : 0;
+    }
+
+    /**
+     * Reads the event counts of all displayed days and repaints the panel
+     */
+    public void refresh() {
+        final int days = getDayCount();
+        if (days == 0)
+            return;
+        counts = EventCollectionRepository.get(owner).getEventCounts(getDate(0), getDate(days));
+        int max = 0;
+        for (final int count : counts) {
+            max = Math.max(max, count);
+        }
+        maxCount = max;
+        repaint();
+    }
+
+    private void updateGeometry() {
+        final int count = months.length;
+        columns = count <= 3 ? Math.max(count, 1) : count % 3 == 0 && count <= 6 ? 3 : 4;
+        final int rows = (count + columns - 1) / columns;
+        blockWidth = getWidth() / columns;
+        blockHeight = rows == 0 ? 0 : getHeight() / rows;
+        titleHeight = Math.max(12, Math.min(24, blockHeight / 10));
+        cellWidth = Math.max(0, (blockWidth - 2 * PADDING) / 7);
+        cellHeight = Math.max(0, (blockHeight - 2 * PADDING - titleHeight) / 7);
+    }
+
+    private Rectangle getMonthBounds(final int month) {
+        return new Rectangle((month % columns) * blockWidth, (month / columns) * blockHeight, blockWidth,
+                blockHeight);
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return the index of the month at the given point, -1 if there is none
+     */
+    private int getMonthAt(final int x, final int y) {
+        updateGeometry();
+        if (blockWidth <= 0 || blockHeight <= 0 || x < 0 || y < 0)
+            return -1;
+        final int column = x / blockWidth;
+        final int month = (y / blockHeight) * columns + column;
+        return column < columns && month < months.length ? month : -1;
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return the index of the day at the given point, -1 if there is none
+     */
+    public int getDayAt(final int x, final int y) {
+        final int month = getMonthAt(x, y);
+        if (month < 0 || cellWidth <= 0 || cellHeight <= 0)
+            return -1;
+        final Rectangle bounds = getMonthBounds(month);
+        final int localX = x - bounds.x - PADDING;
+        final int localY = y - bounds.y - PADDING - titleHeight - cellHeight;
+        if (localX < 0 || localY < 0)
+            return -1;
+        final int column = localX / cellWidth;
+        final int row = localY / cellHeight;
+        if (column >= 7 || row >= 6)
+            return -1;
+        final int day = row * 7 + column - firstColumns[month];
+        return day >= 0 && day < monthLengths[month] ? monthOffsets[month] + day : -1;
+    }
+
+    private boolean isInTitle(final int month, final int y) {
+        final Rectangle bounds = getMonthBounds(month);
+        return y >= bounds.y + PADDING && y < bounds.y + PADDING + titleHeight;
+    }
+
+    /**
+     * @return the fill of the days by their level, null for days without
+     *         events
+     */
+    private Color[] getShades(final Config config) {
+        final Color color = config.getHeatmapColor();
+        if (shades == null || shadesColor != color) {
+            shades = new Color[LEVELS + 1];
+            for (int level = 1; level <= LEVELS; level++) {
+                shades[level] = new Color(color.getRed(), color.getGreen(), color.getBlue(), 255 * level / LEVELS);
+            }
+            shadesColor = color;
+        }
+        return shades;
+    }
+
+    /**
+     * Measures the weekday and day labels, once per font
+     */
+    private void measureLabels(final Font font, final FontMetrics metrics) {
+        if (font.equals(labelFont))
+            return;
+        for (int i = 0; i < weekdays.length; i++) {
+            weekdayWidths[i] = metrics.stringWidth(weekdays[i]);
+        }
+        for (int i = 0; i < DAY_LABELS.length; i++) {
+            dayWidths[i] = metrics.stringWidth(DAY_LABELS[i]);
+        }
+        labelFont = font;
+    }
+
+    /**
+     * Maps the given count to a shade on a logarithmic scale, so that a few
+     * very busy days do not wash out the differences between the others
+     */
+    private int getLevel(final int count) {
+        if (count == 0 || maxCount == 0)
+            return 0;
+        final double level = LEVELS * Math.log1p(count) / Math.log1p(maxCount);
+        return Math.max(1, Math.min(LEVELS, (int) Math.ceil(level)));
+    }
+
+    @Override
+    public void paint(final Graphics g) {
+        super.paint(g);
+        updateGeometry();
+        if (cellWidth <= 0 || cellHeight <= 0)
+            return;
+
+        final Config config = owner.getConfig();
+        final Rectangle clip = g.getClipBounds();
+        for (int month = 0; month < months.length; month++) {
+            final Rectangle bounds = getMonthBounds(month);
+            if (clip != null && !clip.intersects(bounds))
+                continue;
+            final Graphics2D graphics = (Graphics2D) g.create(bounds.x + PADDING, bounds.y + PADDING, blockWidth - 2
+                    * PADDING, blockHeight - 2 * PADDING);
+            try {
+                paintMonth(graphics, month, config);
+            } finally {
+                graphics.dispose();
+            }
+        }
+    }
+
+    private void paintMonth(final Graphics2D g2d, final int month, final Config config) {
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_HRGB);
+        final int width = cellWidth * 7;
+
+        g2d.setColor(config.getDayHeaderBackgroundColor());
+        g2d.fillRect(0, 0, width, titleHeight);
+        g2d.setColor(config.getDayHeaderForegroundColor());
+        final Font titleFont = config.getFont(Font.PLAIN, Math.min(12, Math.round(titleHeight * 0.6f)));
+        final FontMetrics titleMetrics = g2d.getFontMetrics(titleFont);
+        g2d.setFont(titleFont);
+        g2d.drawString(titles[month], 5, titleHeight / 2 + titleMetrics.getAscent() / 2 - 1);
+
+        final Font font = config.getFont(Font.PLAIN, Math.max(1, Math.min(10, Math.round(cellHeight * 0.6f))));
+        final FontMetrics metrics = g2d.getFontMetrics(font);
+        g2d.setFont(font);
+        measureLabels(font, metrics);
+        final int textY = cellHeight / 2 + metrics.getAscent() / 2 - 1;
+        int y = titleHeight;
+        for (int i = 0; i < 7; i++) {
+            g2d.drawString(weekdays[i], i * cellWidth + (cellWidth - weekdayWidths[i]) / 2, y + textY);
+        }
+
+        final Color[] fills = getShades(config);
+        final int firstColumn = firstColumns[month];
+        final int offset = monthOffsets[month];
+        final int today = CalendarUtil.toEpochDay(System.currentTimeMillis()) - firstDay;
+        y += cellHeight;
+        for (int day = 0; day < monthLengths[month]; day++) {
+            final int cell = firstColumn + day;
+            final int cellX = (cell % 7) * cellWidth;
+            final int cellY = y + (cell / 7) * cellHeight;
+            final int level = getLevel(getCount(offset + day));
+            if (level > 0) {
+                g2d.setColor(fills[level]);
+                g2d.fillRect(cellX, cellY, cellWidth, cellHeight);
+            }
+            g2d.setColor(config.getLineColor());
+            g2d.drawRect(cellX, cellY, cellWidth, cellHeight);
+            if (offset + day == today) {
+                g2d.setColor(config.getTodayHeaderBackgroundColor());
+                g2d.drawRect(cellX + 1, cellY + 1, cellWidth - 2, cellHeight - 2);
+            }
+
+            g2d.setColor(level > LEVELS / 2 ? Color.white : config.getDayHeaderForegroundColor());
+            g2d.drawString(DAY_LABELS[day], cellX + (cellWidth - dayWidths[day]) / 2, cellY + textY);
+        }
+    }
+
+    @Override
+    public String getToolTipText(final MouseEvent e) {
+        final int day = getDayAt(e.getX(), e.getY());
+        if (day < 0)
+            return null;
+        final DayAggregate aggregate = EventCollectionRepository.get(owner).getAggregate(getDate(day));
+        final StringBuilder text = new StringBuilder(dayFormat.format(getDate(day)));
+        text.append(": ").append(aggregate.getEventCount());
+        final int busyMinutes = aggregate.getBusyMinutes();
+        if (busyMinutes > 0)
+            text.append(String.format(" (%d:%02d h)", busyMinutes / 60, busyMinutes % 60));
+        for (final CalendarEvent holiday : aggregate.getHolidays()) {
+            text.append(", ").append(holiday.getSummary());
+        }
+        return text.toString();
+    }
+
+    private void addListeners() {
+        addMouseListener(new MouseAdapter() {
+
+            @Override
+            public void mouseClicked(final MouseEvent e) {
+                if (e.getClickCount() != 2 || e.getButton() != MouseEvent.BUTTON1)
+                    return;
+                final int day = getDayAt(e.getX(), e.getY());
+                if (day >= 0) {
+                    owner.setSelectedDay(getDate(day));
+                    owner.setDisplayStrategy(Type.DAY, getDate(day));
+                    return;
+                }
+                final int month = getMonthAt(e.getX(), e.getY());
+                if (month >= 0 && isInTitle(month, e.getY())) {
+                    owner.setSelectedDay(months[month]);
+                    owner.setDisplayStrategy(Type.MONTH, months[month]);
+                }
+            }
+        });
+    }
+}
@@ -21,8 +21,11 @@ import de.costache.calendar.util.CalendarUtil;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author theodorcostache
@@ -43,8 +46,15 @@ public class Config {
     private Color dayDisabledBackgroundColor;
     private boolean allDayPanelVisible;
     private Color holidayBgColor;
+    private Color heatmapColor;
+    private int overviewMonths;
+    private int timelineDays;
+    private List<String> timelineResources;
     private Calendar intervalStart;
     private Calendar intervalEnd;
+    private String fontName;
+    private final Map<Integer, Font> fonts;
+    private int version;
 
     public Config() {
         lineColor = new Color(220, 220, 220);
@@ -68,6 +78,13 @@ public class Config {
         allDayPanelVisible = true;
 
         holidayBgColor = new Color(220, 220, 220);
+
+        heatmapColor = new Color(70, 130, 180);
+        overviewMonths = 12;
+        timelineDays = 1;
+
+        fontName = "Verdana";
+        fonts = new HashMap<Integer, Font>();
     }
 
     public Color getLineColor() {
@@ -76,6 +93,7 @@ public class Config {
 
     public void setLineColor(Color lineColor) {
         this.lineColor = lineColor;
+        version++;
     }
 
     public Color getMiddleLineColor() {
@@ -84,6 +102,7 @@ public class Config {
 
     public void setMiddleLineColor(Color middleLineColor) {
         this.middleLineColor = middleLineColor;
+        version++;
     }
 
     public Color getDayHeaderBackgroundColor() {
@@ -92,6 +111,7 @@ public class Config {
 
     public void setDayHeaderBackgroundColor(Color dayHeaderBackgroundColor) {
         this.dayHeaderBackgroundColor = dayHeaderBackgroundColor;
+        version++;
     }
 
     public Color getDayHeaderForegroundColor() {
@@ -100,6 +120,7 @@ public class Config {
 
     public void setDayHeaderForegroundColor(Color dayHeaderForegroundColor) {
         this.dayHeaderForegroundColor = dayHeaderForegroundColor;
+        version++;
     }
 
     public Color getTodayHeaderBackgroundColor() {
@@ -108,6 +129,7 @@ public class Config {
 
     public void setTodayHeaderBackgroundColor(Color todayHeaderBackgroundColor) {
         this.todayHeaderBackgroundColor = todayHeaderBackgroundColor;
+        version++;
     }
 
     public Color getTodayHeaderForegroundColor() {
@@ -116,6 +138,7 @@ public class Config {
 
     public void setTodayHeaderForegroundColor(Color todayHeaderForegroundColor) {
         this.todayHeaderForegroundColor = todayHeaderForegroundColor;
+        version++;
     }
 
     public Color getEventDefaultBackgroundColor() {
@@ -124,6 +147,7 @@ public class Config {
 
     public void setEventDefaultBackgroundColor(Color eventDefaultBackgroundColor) {
         this.eventDefaultBackgroundColor = eventDefaultBackgroundColor;
+        version++;
     }
 
     public Color getEventDefaultForegroundColor() {
@@ -132,6 +156,7 @@ public class Config {
 
     public void setEventDefaultForegroundColor(Color eventDefaultForegroundColor) {
         this.eventDefaultForegroundColor = eventDefaultForegroundColor;
+        version++;
     }
 
     public int getWorkingHoursEnd() {
@@ -140,6 +165,7 @@ public class Config {
 
     public void setWorkingHoursEnd(int workingHoursEnd) {
         this.workingHoursEnd = workingHoursEnd;
+        version++;
     }
 
     public int getWorkingHoursStart() {
@@ -148,6 +174,7 @@ public class Config {
 
     public void setWorkingHoursStart(int workingHoursStart) {
         this.workingHoursStart = workingHoursStart;
+        version++;
     }
 
     public Color getOutsideWorkingHoursColor() {
@@ -156,6 +183,7 @@ public class Config {
 
     public void setOutsideWorkingHoursColor(Color outsideWorkingHoursColor) {
         this.outsideWorkingHoursColor = outsideWorkingHoursColor;
+        version++;
     }
 
     public Color getDayDisabledBackgroundColor() {
@@ -164,6 +192,7 @@ public class Config {
 
     public void setDayDisabledBackgroundColor(Color dayDisabledBackgroundColor) {
         this.dayDisabledBackgroundColor = dayDisabledBackgroundColor;
+        version++;
     }
 
     public boolean isAllDayPanelVisible() {
@@ -172,6 +201,7 @@ public class Config {
 
     public void setAllDayPanelVisible(boolean allDayPanelVisible) {
         this.allDayPanelVisible = allDayPanelVisible;
+        version++;
     }
 
     public Color getHolidayBgColor() {
@@ -180,6 +210,106 @@ public class Config {
 
     public void setHolidayBgColor(Color holidayBgColor) {
         this.holidayBgColor = holidayBgColor;
+        version++;
+    }
+
+    /**
+     * @return the colour of the busiest days of the year view, quieter days
+     *         are painted with a more transparent variant of it
+     */
+    public Color getHeatmapColor() {
+        return heatmapColor;
+    }
+
+    public void setHeatmapColor(Color heatmapColor) {
+        this.heatmapColor = heatmapColor;
+        version++;
+    }
+
+    /**
+     * @return the number of months shown by the year view
+     */
+    public int getOverviewMonths() {
+        return overviewMonths;
+    }
+
+    /**
+     * Sets the number of months shown by the year view. Divisors of 12 align
+     * the view to quarters, half years or years.
+     *
+     * @param overviewMonths between 1 and 12
+     */
+    public void setOverviewMonths(int overviewMonths) {
+        if (overviewMonths < 1 || overviewMonths > 12)
+            throw new IllegalArgumentException("overviewMonths must be between 1 and 12: " + overviewMonths);
+        this.overviewMonths = overviewMonths;
+        version++;
+    }
+
+    /**
+     * @return the number of days shown by the timeline
+     */
+    public int getTimelineDays() {
+        return timelineDays;
+    }
+
+    /**
+     * @param timelineDays the number of days shown by the timeline, at least
+     *                     one
+     */
+    public void setTimelineDays(int timelineDays) {
+        if (timelineDays < 1)
+            throw new IllegalArgumentException("timelineDays must be at least 1: " + timelineDays);
+        this.timelineDays = timelineDays;
+        version++;
+    }
+
+    /**
+     * @return the ids of the resources shown as lanes by the timeline, null
+     *         to show every resource having events
+     */
+    public List<String> getTimelineResources() {
+        return timelineResources;
+    }
+
+    /**
+     * @param timelineResources the ids of the resources shown as lanes by the
+     *                          timeline in the given order, null to show
+     *                          every resource having events
+     */
+    public void setTimelineResources(List<String> timelineResources) {
+        this.timelineResources = timelineResources == null ? null : Collections
+                .unmodifiableList(new ArrayList<String>(timelineResources));
+        version++;
+    }
+
+    public String getFontName() {
+        return fontName;
+    }
+
+    public void setFontName(String fontName) {
+        this.fontName = fontName;
+        fonts.clear();
+        version++;
+    }
+
+    /**
+     * Returns the shared instance of the font of the configured family with
+     * the given style and size, so that painting and text layout caches see
+     * the very same font
+     *
+     * @param style the style, e.g. {@link Font#BOLD}
+     * @param size  the point size
+     * @return the font
+     */
+    public Font getFont(int style, int size) {
+        final Integer key = (style << 16) | (size & 0xFFFF);
+        Font font = fonts.get(key);
+        if (font == null) {
+            font = new Font(fontName, style, size);
+            fonts.put(key, font);
+        }
+        return font;
     }
 
     public Calendar getIntervalStart() {
@@ -197,4 +327,13 @@ public class Config {
     void setIntervalEnd(Calendar intervalEnd) {
         this.intervalEnd = intervalEnd;
     }
+
+    /**
+     * @return a counter which is incremented by every setter of a style
+     *         property, allowing painted layouts to be cached until the
+     *         configuration changes
+     */
+    public int getVersion() {
+        return version;
+    }
 }
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui.strategy;
+
+import java.util.Date;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.ui.DayPanel;
+import de.costache.calendar.util.CalendarUtil;
+import de.costache.calendar.util.EventBuckets;
+import de.costache.calendar.util.EventCollectionRepository;
+
+/**
+ * Refreshes a row of consecutive {@link DayPanel}s as shown by the display
+ * strategies
+ * 
+ * @author theodorcostache
+ * 
+ */
+final class DayPanels {
+
+	private DayPanels() {
+	}
+
+	/**
+	 * Fetches the events of all given days with a single range query and
+	 * hands every day its share
+	 * 
+	 * @param calendar
+	 * @param days
+	 *            consecutive days
+	 */
+	static void refresh(final JCalendar calendar, final DayPanel[] days) {
+		refresh(calendar, days, 0, days.length - 1);
+	}
+
+	/**
+	 * Refreshes and repaints only the days intersecting the given interval.
+	 * The other days keep their events, layouts and pixels.
+	 * 
+	 * @param calendar
+	 * @param days
+	 *            consecutive days
+	 * @param from
+	 *            start of the changed interval, null if unknown
+	 * @param to
+	 *            end of the changed interval, null if unknown
+	 */
+	static void refresh(final JCalendar calendar, final DayPanel[] days, final Date from, final Date to) {
+		int first = 0;
+		int last = days.length - 1;
+		if (from != null && to != null) {
+			final int firstDay = CalendarUtil.toEpochDay(days[0].getDate().getTime());
+			first = Math.max(first, CalendarUtil.toEpochDay(from.getTime()) - firstDay);
+			last = Math.min(last, CalendarUtil.toEpochDay(to.getTime()) - firstDay);
+			if (first > last)
+				return;
+		}
+
+		refresh(calendar, days, first, last);
+		for (int i = first; i <= last; i++) {
+			days[i].invalidateLayout();
+			days[i].repaint();
+		}
+	}
+
+	private static void refresh(final JCalendar calendar, final DayPanel[] days, final int first, final int last) {
+		final EventBuckets events = EventCollectionRepository.get(calendar).getEvents(days[first].getDate(),
+				CalendarUtil.createInDays(days[last].getDate(), 1));
+		for (int i = first; i <= last; i++) {
+			days[i].setEvents(events.getEvents(i - first));
+		}
+	}
+}
@@ -1,44 +1,74 @@
-/**
- * Copyright 2013 Theodor Costache
- * 
- * Licensed under the Apache License, Version 2.0 (the "License"); you may not
- * use this file except in compliance with the License. You may obtain a copy of
- * the License at
- * 
- * http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
- * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
- * License for the specific language governing permissions and limitations under
- * the License. 
- */
-package de.costache.calendar.ui.strategy;
-
-import java.util.Date;
-
-/**
- * 
- * @author theodorcostache
- * 
- */
-public interface DisplayStrategy {
-
-	public enum Type {
-		MONTH, WEEK, DAY
-	}
-
-	public Type getType();
-
-	public void display();
-
-	public void init();
-
-	public void moveIntervalLeft();
-
-	public void moveIntervalRight();
-
-	public String getDisplayInterval();
-
-	void setIntervalStart(Date date);
-}
+/**
+ * Copyright 2013 Theodor Costache
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui.strategy;
+
+import java.util.Date;
+
+import de.costache.calendar.events.ModelChangedEvent;
+
+/**
+ * 
+ * @author theodorcostache
+ * 
+ */
+public interface DisplayStrategy {
+
+	public enum Type {
+		MONTH, WEEK, DAY, YEAR, TIMELINE
+	}
+
+	public Type getType();
+
+	public void display();
+
+	public void init();
+
+	public void moveIntervalLeft();
+
+	public void moveIntervalRight();
+
+	public String getDisplayInterval();
+
+	/**
+	 * Fetches the events of the displayed days with a single range query and
+	 * hands every day its share
+	 */
+	public void refresh();
+
+	/**
+	 * Refreshes only the displayed days intersecting the given interval, drops
+	 * their cached layouts and repaints just their components. Days outside
+	 * the interval are left alone.
+	 * 
+	 * @param from
+	 *            start of the changed interval, null to refresh all days
+	 * @param to
+	 *            end of the changed interval, null to refresh all days
+	 */
+	public void refresh(Date from, Date to);
+
+	/**
+	 * Refreshes the display after the given change of the model. Strategies
+	 * which can tell the affected parts from the changed events use them,
+	 * the others refresh the changed interval as {@link #refresh(Date, Date)}
+	 * does.
+	 * 
+	 * @param event
+	 */
+	public void refresh(ModelChangedEvent event);
+
+	void setIntervalStart(Date date);
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui.strategy;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.events.ModelChangedEvent;
+import de.costache.calendar.ui.ContentPanel;
+import de.costache.calendar.ui.TimelinePanel;
+import de.costache.calendar.util.CalendarUtil;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Shows {@link Config#getTimelineDays()} days as a timeline with one lane
+ * per resource, so that hundreds of parallel calendars can be shown by a
+ * single {@link JCalendar}. Only the lanes scrolled into view are queried
+ * and painted.
+ *
+ * @author theodorcostache
+ */
+class TimelineDisplayStrategy implements DisplayStrategy {
+
+    private final ContentPanel parent;
+    private final JCalendar calendar;
+    private final SimpleDateFormat dayFormat = new SimpleDateFormat("EEE dd MMM yyyy");
+    private TimelinePanel timelinePanel;
+    private JScrollPane displayPanel;
+
+    /**
+     * Creates a new instance of TimelineDisplayStrategy
+     *
+     * @param parent
+     */
+    public TimelineDisplayStrategy(final ContentPanel parent) {
+        this.parent = parent;
+        this.calendar = parent.getOwner();
+        init();
+    }
+
+    @Override
+    public void init() {
+        timelinePanel = new TimelinePanel(calendar);
+        displayPanel = new JScrollPane(timelinePanel, ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED,
+                ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+        displayPanel.setRowHeaderView(timelinePanel.getRowHeader());
+        displayPanel.setColumnHeaderView(timelinePanel.getColumnHeader());
+        displayPanel.setOpaque(false);
+        displayPanel.getViewport().setOpaque(false);
+        displayPanel.setBorder(new EmptyBorder(0, 0, 0, 0));
+        showDays(new Date());
+    }
+
+    @Override
+    public void display() {
+        parent.removeAll();
+        parent.setLayout(new BorderLayout());
+        parent.add(displayPanel, BorderLayout.CENTER);
+        refresh();
+        parent.validate();
+        parent.repaint();
+    }
+
+    @Override
+    public void moveIntervalLeft() {
+        setIntervalStart(CalendarUtil.createInDays(calendar.getConfig().getIntervalStart().getTime(),
+                -calendar.getConfig().getTimelineDays()));
+    }
+
+    @Override
+    public void moveIntervalRight() {
+        setIntervalStart(CalendarUtil.createInDays(calendar.getConfig().getIntervalStart().getTime(),
+                calendar.getConfig().getTimelineDays()));
+    }
+
+    @Override
+    public String getDisplayInterval() {
+        final Config config = calendar.getConfig();
+        final Date start = config.getIntervalStart().getTime();
+        if (config.getTimelineDays() == 1)
+            return dayFormat.format(start);
+        final Date last = CalendarUtil.createInDays(config.getIntervalEnd().getTime(), -1);
+        return dayFormat.format(start) + " - " + dayFormat.format(last);
+    }
+
+    @Override
+    public void refresh() {
+        timelinePanel.refresh();
+    }
+
+    @Override
+    public void refresh(final Date from, final Date to) {
+        timelinePanel.refresh(from, to);
+    }
+
+    @Override
+    public void refresh(final ModelChangedEvent event) {
+        timelinePanel.refresh(event);
+    }
+
+    @Override
+    public void setIntervalStart(Date date) {
+        showDays(date);
+        refresh();
+
+        parent.validate();
+        parent.repaint();
+    }
+
+    private void showDays(final Date date) {
+        final Calendar start = CalendarUtil.getCalendar(date, true);
+        final Calendar end = CalendarUtil.getCalendar(start.getTime(), true);
+        end.add(Calendar.DATE, calendar.getConfig().getTimelineDays());
+
+        calendar.getConfig().setIntervalStart(start);
+        calendar.getConfig().setIntervalEnd(end);
+
+        timelinePanel.setInterval(start.getTime(), end.getTime());
+    }
+
+    @Override
+    public Type getType() {
+        return Type.TIMELINE;
+    }
+
+}
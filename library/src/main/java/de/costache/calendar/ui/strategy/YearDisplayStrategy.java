@@ -0,0 +1,149 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui.strategy;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.events.ModelChangedEvent;
+import de.costache.calendar.ui.ContentPanel;
+import de.costache.calendar.ui.YearPanel;
+import de.costache.calendar.util.CalendarUtil;
+
+import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Shows {@link Config#getOverviewMonths()} months, a whole year by default,
+ * as a heatmap of the number of events per day. Moving the interval reads
+ * the per-day counts of the event collection again, which costs O(days)
+ * independent of the number of events.
+ *
+ * @author theodorcostache
+ */
+class YearDisplayStrategy implements DisplayStrategy {
+
+    private final ContentPanel parent;
+    private final JCalendar calendar;
+    private final SimpleDateFormat yearFormat = new SimpleDateFormat("yyyy");
+    private final SimpleDateFormat monthFormat = new SimpleDateFormat("MMM yyyy");
+    private YearPanel displayPanel;
+
+    /**
+     * Creates a new instance of YearDisplayStrategy
+     *
+     * @param parent
+     */
+    public YearDisplayStrategy(final ContentPanel parent) {
+        this.parent = parent;
+        this.calendar = parent.getOwner();
+        init();
+    }
+
+    @Override
+    public void init() {
+        displayPanel = new YearPanel(calendar);
+        showMonths(new Date());
+    }
+
+    @Override
+    public void display() {
+        parent.removeAll();
+        parent.setLayout(new BorderLayout());
+        parent.add(displayPanel, BorderLayout.CENTER);
+        refresh();
+        parent.validate();
+        parent.repaint();
+    }
+
+    @Override
+    public void moveIntervalLeft() {
+        Calendar start = CalendarUtil.copyCalendar(calendar.getConfig().getIntervalStart(), true);
+        start.add(Calendar.MONTH, -calendar.getConfig().getOverviewMonths());
+        setIntervalStart(start.getTime());
+    }
+
+    @Override
+    public void moveIntervalRight() {
+        Calendar start = CalendarUtil.copyCalendar(calendar.getConfig().getIntervalStart(), true);
+        start.add(Calendar.MONTH, calendar.getConfig().getOverviewMonths());
+        setIntervalStart(start.getTime());
+    }
+
+    @Override
+    public String getDisplayInterval() {
+        final Config config = calendar.getConfig();
+        final Calendar start = config.getIntervalStart();
+        if (config.getOverviewMonths() == 12 && start.get(Calendar.MONTH) == Calendar.JANUARY)
+            return yearFormat.format(start.getTime());
+        final Calendar last = CalendarUtil.copyCalendar(config.getIntervalEnd(), true);
+        last.add(Calendar.MONTH, -1);
+        return monthFormat.format(start.getTime()) + " - " + monthFormat.format(last.getTime());
+    }
+
+    @Override
+    public void refresh() {
+        displayPanel.refresh();
+    }
+
+    @Override
+    public void refresh(final Date from, final Date to) {
+        displayPanel.refresh();
+    }
+
+    @Override
+    public void refresh(final ModelChangedEvent event) {
+        refresh(event.getIntervalStart(), event.getIntervalEnd());
+    }
+
+    @Override
+    public void setIntervalStart(Date date) {
+        showMonths(date);
+        refresh();
+
+        parent.validate();
+        parent.repaint();
+    }
+
+    /**
+     * Sets the interval to the configured number of months containing the
+     * given date. If that number divides a year the interval starts at a
+     * multiple of it, e.g. at the start of the year or of the quarter.
+     *
+     * @param date
+     */
+    private void showMonths(final Date date) {
+        final int months = calendar.getConfig().getOverviewMonths();
+        Calendar start = CalendarUtil.getCalendar(date, true);
+        start.set(Calendar.DAY_OF_MONTH, 1);
+        if (12 % months == 0)
+            start.set(Calendar.MONTH, start.get(Calendar.MONTH) / months * months);
+
+        Calendar end = CalendarUtil.getCalendar(start.getTime(), true);
+        end.add(Calendar.MONTH, months);
+
+        calendar.getConfig().setIntervalStart(start);
+        calendar.getConfig().setIntervalEnd(end);
+
+        displayPanel.setMonths(start, months);
+    }
+
+    @Override
+    public Type getType() {
+        return Type.YEAR;
+    }
+
+}
@@ -0,0 +1,715 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.events.ModelChangedEvent;
+import de.costache.calendar.events.ModelChangedListener;
+import de.costache.calendar.events.SelectionChangedEvent;
+import de.costache.calendar.events.SelectionChangedListener;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.CalendarEvent.Property;
+import de.costache.calendar.model.CalendarEventObserver;
+import de.costache.calendar.model.Occurrence;
+import de.costache.calendar.model.RecurringEvent;
+
+import javax.swing.*;
+import java.util.*;
+
+/**
+ * Listener and selection handling shared by the {@link EventCollection}
+ * implementations. Subclasses only have to provide the index.
+ * <p>
+ * Property changes of the contained events are applied to the index right
+ * away, but their notification is coalesced: all changes made up to the end
+ * of the current batch, or outside a batch up to the next turn of the event
+ * dispatch thread, are delivered as a single
+ * {@link ModelChangedListener#eventChanged(ModelChangedEvent)} holding one
+ * {@link ModelChangedEvent} per changed event and the date range they cover.
+ * <p>
+ * {@link RecurringEvent}s are not indexed by the subclasses but kept aside
+ * and expanded into {@link Occurrence}s for the queried interval only, see
+ * {@link OccurrenceCache}. Changes of a series are reported without a date
+ * range, as they may affect any day.
+ *
+ * @author theodorcostache
+ */
+abstract class AbstractEventCollection implements CalendarEventObserver, EventCollection {
+
+    protected final JCalendar parent;
+    private final List<ModelChangedListener> collectionChangedListeners;
+    private final List<SelectionChangedListener> selectionChangedListeners;
+    private final Set<CalendarEvent> selectedEvents;
+    private final List<CalendarEvent> pendingAdded;
+    private final List<CalendarEvent> pendingRemoved;
+    private final Map<CalendarEvent, PendingChange> pendingChanges;
+    private final List<PendingChange> pendingChangeOrder;
+    private final Runnable flushTask;
+    private DayAggregates aggregates;
+    private final OccurrenceCache occurrences;
+    private ResourceIndex resourceIndex;
+    private int updateDepth;
+    private boolean flushScheduled;
+
+    protected AbstractEventCollection(final JCalendar parent) {
+        this.parent = parent;
+        this.collectionChangedListeners = new ArrayList<ModelChangedListener>();
+        this.selectionChangedListeners = new ArrayList<SelectionChangedListener>();
+        this.selectedEvents = new HashSet<CalendarEvent>();
+        this.pendingAdded = new ArrayList<CalendarEvent>();
+        this.pendingRemoved = new ArrayList<CalendarEvent>();
+        this.pendingChanges = new IdentityHashMap<CalendarEvent, PendingChange>();
+        this.pendingChangeOrder = new ArrayList<PendingChange>();
+        this.aggregates = new DayAggregates();
+        this.occurrences = new OccurrenceCache();
+        this.flushTask = new Runnable() {
+            @Override
+            public void run() {
+                flushScheduled = false;
+                if (updateDepth == 0)
+                    flushChanges();
+            }
+        };
+    }
+
+    /**
+     * Moves the given event to the position given by its current start and
+     * end. Called after the START or END property of the event has changed.
+     *
+     * @param calendarEvent
+     */
+    protected abstract void reindex(CalendarEvent calendarEvent);
+
+    /**
+     * @return a new, empty index of the kind this collection uses. Called on
+     *         any thread.
+     */
+    protected abstract EventIndex newIndex();
+
+    /**
+     * @return the index of the single events of this collection
+     */
+    protected abstract EventIndex getIndex();
+
+    /**
+     * Replaces the index of the single events of this collection
+     *
+     * @param index an index created by {@link #newIndex()}
+     */
+    protected abstract void setIndex(EventIndex index);
+
+    /**
+     * Creates an empty shard to index events for this collection on another
+     * thread
+     *
+     * @return the shard
+     */
+    EventShard newShard() {
+        return new EventShard(this, newIndex(), resourceIndex != null);
+    }
+
+    /**
+     * Adds the events of the given shard in a single batch. The larger of the
+     * two indexes is kept: if the shard holds more events than the
+     * collection, the collection takes over the index of the shard and adds
+     * its own events to it, otherwise the events of the shard are added to
+     * the index of the collection.
+     *
+     * @param shard a shard created by {@link #newShard()}
+     */
+    void publish(final EventShard shard) {
+        beginUpdate();
+        try {
+            final EventIndex index = getIndex();
+            if (shard.index.size() > index.size()) {
+                final List<CalendarEvent> current = new ArrayList<CalendarEvent>(index.size());
+                index.values(current);
+                final List<CalendarEvent> moved = new ArrayList<CalendarEvent>(current.size());
+                shard.index.addAll(current, moved);
+                for (final CalendarEvent calendarEvent : moved) {
+                    shard.aggregates.add(calendarEvent, 1);
+                    if (shard.resources != null)
+                        shard.resources.add(calendarEvent);
+                }
+                Set<CalendarEvent> known = null;
+                if (moved.size() < current.size()) {
+                    known = Collections.newSetFromMap(new IdentityHashMap<CalendarEvent, Boolean>());
+                    known.addAll(current);
+                }
+                setIndex(shard.index);
+                aggregates = shard.aggregates;
+                resourceIndex = shard.resources;
+                for (final CalendarEvent calendarEvent : shard.events) {
+                    if (known == null || !known.contains(calendarEvent))
+                        pendingAdded.add(calendarEvent);
+                }
+            } else {
+                final List<CalendarEvent> added = new ArrayList<CalendarEvent>(shard.events.size());
+                index.addAll(shard.events, added);
+                for (final CalendarEvent calendarEvent : added) {
+                    fireEventAdded(calendarEvent);
+                }
+            }
+            for (final RecurringEvent series : shard.series) {
+                addSeries(series);
+            }
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Keeps the given event aside if it is a {@link RecurringEvent}, and
+     * notifies the listeners if it has not been part of the collection yet
+     *
+     * @param calendarEvent
+     * @return true if the event is a series and has been handled, false if
+     *         the subclass has to index it
+     * @throws IllegalArgumentException if the event is an {@link Occurrence}
+     */
+    protected boolean addSeries(final CalendarEvent calendarEvent) {
+        if (calendarEvent instanceof Occurrence)
+            throw new IllegalArgumentException("Add the series of an occurrence instead");
+        if (!(calendarEvent instanceof RecurringEvent))
+            return false;
+        if (occurrences.add((RecurringEvent) calendarEvent)) {
+            calendarEvent.addObserver(this);
+            fireEventAdded(calendarEvent);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the given event if it is a {@link RecurringEvent}, together
+     * with its expanded and selected occurrences
+     *
+     * @param calendarEvent
+     * @return true if the event is a series and has been handled, false if
+     *         the subclass has to remove it from its index
+     */
+    protected boolean removeSeries(final CalendarEvent calendarEvent) {
+        if (!(calendarEvent instanceof RecurringEvent))
+            return false;
+        if (occurrences.remove((RecurringEvent) calendarEvent)) {
+            calendarEvent.removeObserver(this);
+            deselect(calendarEvent);
+            for (final Iterator<CalendarEvent> it = selectedEvents.iterator(); it.hasNext(); ) {
+                final CalendarEvent selected = it.next();
+                if (selected instanceof Occurrence && ((Occurrence) selected).getSeries() == calendarEvent)
+                    it.remove();
+            }
+            fireEventRemoved(calendarEvent);
+        }
+        return true;
+    }
+
+    /**
+     * Collects the occurrences of the series with start &lt; to and end
+     * &gt;= from
+     *
+     * @param from   epoch millis, inclusive
+     * @param to     epoch millis, exclusive
+     * @param result
+     * @return true if any occurrence has been added
+     */
+    protected boolean addOccurrences(final long from, final long to, final Collection<CalendarEvent> result) {
+        return !occurrences.isEmpty() && occurrences.query(from, to, result);
+    }
+
+    /**
+     * Adds the occurrences of the series to every day of the given buckets
+     * they span and sorts the days they were added to
+     *
+     * @param result
+     */
+    protected void addOccurrences(final EventBuckets result) {
+        if (occurrences.isEmpty())
+            return;
+        final List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+        if (occurrences.query(result.getStart(), result.getEnd(), events))
+            result.addSpanning(events);
+    }
+
+    /**
+     * @param result receives the series of the collection
+     */
+    protected void getSeries(final Collection<CalendarEvent> result) {
+        result.addAll(occurrences.getSeries());
+    }
+
+    /**
+     * @return the number of series of the collection
+     */
+    protected int getSeriesCount() {
+        return occurrences.size();
+    }
+
+    @Override
+    public void addAll(final Collection<CalendarEvent> calendarEvents) {
+        beginUpdate();
+        try {
+            for (final CalendarEvent calendarEvent : calendarEvents) {
+                add(calendarEvent);
+            }
+        } finally {
+            endUpdate();
+        }
+    }
+
+    @Override
+    public void removeAll(final List<CalendarEvent> calendarEvents) {
+        beginUpdate();
+        try {
+            for (CalendarEvent calendarEvent : calendarEvents) {
+                remove(calendarEvent);
+            }
+        } finally {
+            endUpdate();
+        }
+    }
+
+    @Override
+    public void beginUpdate() {
+        updateDepth++;
+    }
+
+    @Override
+    public void endUpdate() {
+        if (updateDepth == 0)
+            throw new IllegalStateException("endUpdate() called without a matching beginUpdate()");
+        if (--updateDepth > 0)
+            return;
+
+        if (!pendingAdded.isEmpty()) {
+            final ModelChangedEvent event = createBatchEvent(pendingAdded);
+            pendingAdded.clear();
+            for (final ModelChangedListener listener : collectionChangedListeners) {
+                listener.eventAdded(event);
+            }
+        }
+        if (!pendingRemoved.isEmpty()) {
+            final ModelChangedEvent event = createBatchEvent(pendingRemoved);
+            pendingRemoved.clear();
+            for (final ModelChangedListener listener : collectionChangedListeners) {
+                listener.eventRemoved(event);
+            }
+        }
+        flushChanges();
+    }
+
+    /**
+     * Delivers the pending property changes as a single notification. The
+     * calendar repaints the days of its range.
+     */
+    private void flushChanges() {
+        if (pendingChangeOrder.isEmpty())
+            return;
+
+        final List<ModelChangedEvent> changes = new ArrayList<ModelChangedEvent>(pendingChanges.size());
+        final List<CalendarEvent> calendarEvents = new ArrayList<CalendarEvent>(pendingChanges.size());
+        long from = Long.MAX_VALUE;
+        long to = Long.MIN_VALUE;
+        for (final PendingChange change : pendingChangeOrder) {
+            if (change.discarded)
+                continue;
+            change.include(change.calendarEvent.getStart());
+            change.include(change.calendarEvent.getEnd());
+            from = Math.min(from, change.from);
+            to = Math.max(to, change.to);
+            calendarEvents.add(change.calendarEvent);
+            changes.add(new ModelChangedEvent(parent, change.calendarEvent, change.properties,
+                    toDate(change.from), toDate(change.to)));
+        }
+        pendingChanges.clear();
+        pendingChangeOrder.clear();
+        if (changes.isEmpty())
+            return;
+
+        final ModelChangedEvent event = changes.size() == 1 ? changes.get(0) : new ModelChangedEvent(parent,
+                calendarEvents, toDate(from), toDate(to));
+        event.setChanges(changes);
+        for (final ModelChangedListener listener : collectionChangedListeners) {
+            listener.eventChanged(event);
+        }
+    }
+
+    private static Date toDate(final long millis) {
+        return millis == Long.MAX_VALUE || millis == Long.MIN_VALUE ? null : new Date(millis);
+    }
+
+    private ModelChangedEvent createBatchEvent(final Collection<CalendarEvent> calendarEvents) {
+        Date start = null;
+        Date end = null;
+        for (final CalendarEvent calendarEvent : calendarEvents) {
+            if (calendarEvent instanceof RecurringEvent)
+                return new ModelChangedEvent(parent, new ArrayList<CalendarEvent>(calendarEvents), null, null);
+            if (start == null || calendarEvent.getStart().before(start))
+                start = calendarEvent.getStart();
+            if (end == null || calendarEvent.getEnd().after(end))
+                end = calendarEvent.getEnd();
+        }
+        return new ModelChangedEvent(parent, new ArrayList<CalendarEvent>(calendarEvents), start, end);
+    }
+
+    @Override
+    public void addSelected(final CalendarEvent calendarEvent) {
+        selectedEvents.add(calendarEvent);
+        final SelectionChangedEvent event = new SelectionChangedEvent(calendarEvent);
+        for (final SelectionChangedListener listener : selectionChangedListeners) {
+            listener.selectionChanged(event);
+        }
+    }
+
+    @Override
+    public void removeSelected(final CalendarEvent calendarEvent) {
+        final boolean remove = selectedEvents.remove(calendarEvent);
+        if (remove) {
+            final SelectionChangedEvent event = new SelectionChangedEvent(calendarEvent);
+            for (final SelectionChangedListener listener : selectionChangedListeners) {
+                listener.selectionChanged(event);
+            }
+        }
+
+    }
+
+    @Override
+    public void clearSelected(final CalendarEvent toIgnore, final boolean notifyListeners) {
+        for (final CalendarEvent event : selectedEvents) {
+            if (event != toIgnore) {
+                event.setSelected(false);
+            }
+        }
+        selectedEvents.clear();
+
+        if (notifyListeners) {
+            final SelectionChangedEvent event = new SelectionChangedEvent(null);
+            for (final SelectionChangedListener listener : selectionChangedListeners) {
+                listener.selectionChanged(event);
+            }
+        }
+    }
+
+    @Override
+    public Collection<CalendarEvent> getSelectedEvents() {
+        return Collections.unmodifiableSet(new HashSet<CalendarEvent>(selectedEvents));
+    }
+
+    @Override
+    public EventBuckets getEvents(final Date from, final Date to) {
+        final EventBuckets result = new EventBuckets(from, to);
+        for (int i = 0; i < result.size(); i++) {
+            result.addAll(i, getEvents(result.getDay(i)));
+        }
+        return result;
+    }
+
+    @Override
+    public int[] getEventCounts(final Date from, final Date to) {
+        final int first = CalendarUtil.toEpochDay(from.getTime());
+        final int[] result = new int[Math.max(1, CalendarUtil.toEpochDay(to.getTime()) - first)];
+        aggregates.getCounts(first, result);
+
+        final List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+        if (addOccurrences(CalendarUtil.startOfEpochDay(first), CalendarUtil.startOfEpochDay(first + result.length),
+                events)) {
+            for (final CalendarEvent event : events) {
+                final int last = Math.min(result.length - 1, CalendarUtil.toEpochDay(event.getEnd().getTime()) - first);
+                for (int i = Math.max(0, CalendarUtil.toEpochDay(event.getStart().getTime()) - first); i <= last; i++) {
+                    result[i]++;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public DayAggregate getAggregate(final Date date) {
+        final int day = CalendarUtil.toEpochDay(date.getTime());
+        final DayAggregate aggregate = aggregates.get(day);
+        final long dayStart = CalendarUtil.startOfEpochDay(day);
+        final long dayEnd = CalendarUtil.startOfEpochDay(day + 1);
+        final List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+        if (!addOccurrences(dayStart, dayEnd, events))
+            return aggregate;
+
+        int count = aggregate.getEventCount();
+        int allDayCount = aggregate.getAllDayCount();
+        int busyMinutes = aggregate.getBusyMinutes();
+        List<CalendarEvent> holidays = aggregate.getHolidays();
+        for (final CalendarEvent event : events) {
+            count++;
+            if (event.isAllDay())
+                allDayCount++;
+            if (event.isHoliday()) {
+                if (!(holidays instanceof ArrayList))
+                    holidays = new ArrayList<CalendarEvent>(holidays);
+                holidays.add(event);
+            } else if (!event.isAllDay()) {
+                final long covered = Math.min(event.getEnd().getTime(), dayEnd)
+                        - Math.max(event.getStart().getTime(), dayStart);
+                busyMinutes += (int) (Math.max(0, covered) / 60000L);
+            }
+        }
+        if (holidays instanceof ArrayList) {
+            Collections.sort(holidays);
+            holidays = Collections.unmodifiableList(holidays);
+        }
+        return new DayAggregate(aggregate.getDay(), count, allDayCount, busyMinutes, holidays);
+    }
+
+    @Override
+    public List<String> getResources() {
+        final List<String> resources = getResourceIndex().getResources();
+        if (occurrences.isEmpty())
+            return resources;
+        final Set<String> result = new HashSet<String>(resources);
+        for (final RecurringEvent recurringEvent : occurrences.getSeries()) {
+            result.add(recurringEvent.getResource());
+        }
+        if (result.size() == resources.size())
+            return resources;
+        final List<String> sorted = new ArrayList<String>(result);
+        Collections.sort(sorted, ResourceIndex.RESOURCE_ORDER);
+        return Collections.unmodifiableList(sorted);
+    }
+
+    @Override
+    public void getEvents(final String resource, final Date from, final Date to,
+                          final Collection<CalendarEvent> result) {
+        if (occurrences.isEmpty()) {
+            getResourceIndex().query(resource, from.getTime(), to.getTime(), result);
+            return;
+        }
+        final List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+        getResourceIndex().query(resource, from.getTime(), to.getTime(), events);
+        if (occurrences.query(resource, from.getTime(), to.getTime(), events))
+            Collections.sort(events);
+        result.addAll(events);
+    }
+
+    @Override
+    public void getEvents(final Date from, final Date to, final Collection<CalendarEvent> result) {
+        final ResourceIndex index = getResourceIndex();
+        final List<String> resources = index.getResources();
+        if (resources.size() == 1) {
+            index.query(resources.get(0), from.getTime(), to.getTime(), result);
+            return;
+        }
+        final List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+        for (final String resource : resources) {
+            index.query(resource, from.getTime(), to.getTime(), events);
+        }
+        Collections.sort(events);
+        result.addAll(events);
+    }
+
+    @Override
+    public Collection<RecurringEvent> getRecurringEvents() {
+        return Collections.unmodifiableList(new ArrayList<RecurringEvent>(occurrences.getSeries()));
+    }
+
+    /**
+     * @return the index of the events by resource, built when it is needed
+     *         for the first time and maintained on every change afterwards
+     */
+    private ResourceIndex getResourceIndex() {
+        if (resourceIndex == null) {
+            final ResourceIndex index = new ResourceIndex();
+            for (final CalendarEvent calendarEvent : getAllEvents()) {
+                if (!(calendarEvent instanceof RecurringEvent))
+                    index.add(calendarEvent);
+            }
+            resourceIndex = index;
+        }
+        return resourceIndex;
+    }
+
+    @Override
+    public List<CalendarEvent> getHolidayEvents(final Date date) {
+        return getAggregate(date).getHolidays();
+    }
+
+    @Override
+    public void propertyChanged(final CalendarEvent calendarEvent, final Property property, final Object oldValue) {
+        PendingChange change = pendingChanges.get(calendarEvent);
+        if (change == null) {
+            change = new PendingChange(calendarEvent);
+            pendingChanges.put(calendarEvent, change);
+            pendingChangeOrder.add(change);
+        }
+        change.properties.add(property);
+
+        if (calendarEvent instanceof RecurringEvent) {
+            if (property == Property.START || property == Property.END || property == Property.RECURRENCE)
+                occurrences.invalidate((RecurringEvent) calendarEvent);
+            change.from = Long.MIN_VALUE;
+            change.to = Long.MAX_VALUE;
+        } else switch (property) {
+            case START:
+                change.include((Date) oldValue);
+                aggregates.add(calendarEvent, ((Date) oldValue).getTime(), calendarEvent.getEnd().getTime(),
+                        calendarEvent.isAllDay(), calendarEvent.isHoliday(), -1);
+                aggregates.add(calendarEvent, 1);
+                reindex(calendarEvent);
+                if (resourceIndex != null)
+                    resourceIndex.update(calendarEvent);
+                break;
+            case END:
+                change.include((Date) oldValue);
+                aggregates.add(calendarEvent, calendarEvent.getStart().getTime(), ((Date) oldValue).getTime(),
+                        calendarEvent.isAllDay(), calendarEvent.isHoliday(), -1);
+                aggregates.add(calendarEvent, 1);
+                reindex(calendarEvent);
+                if (resourceIndex != null)
+                    resourceIndex.update(calendarEvent);
+                break;
+            case ALLDAY:
+                aggregates.add(calendarEvent, calendarEvent.getStart().getTime(), calendarEvent.getEnd().getTime(),
+                        (Boolean) oldValue, calendarEvent.isHoliday(), -1);
+                aggregates.add(calendarEvent, 1);
+                break;
+            case HOLIDAY:
+                aggregates.add(calendarEvent, calendarEvent.getStart().getTime(), calendarEvent.getEnd().getTime(),
+                        calendarEvent.isAllDay(), (Boolean) oldValue, -1);
+                aggregates.add(calendarEvent, 1);
+                break;
+            case RESOURCE:
+                if (resourceIndex != null) {
+                    resourceIndex.remove(calendarEvent, (String) oldValue);
+                    resourceIndex.add(calendarEvent);
+                }
+                break;
+            default:
+                break;
+        }
+
+        if (updateDepth == 0 && !flushScheduled) {
+            flushScheduled = true;
+            SwingUtilities.invokeLater(flushTask);
+        }
+    }
+
+    /**
+     * Drops the given event from the selection without notifying the
+     * selection listeners
+     *
+     * @param calendarEvent
+     */
+    protected void deselect(final CalendarEvent calendarEvent) {
+        selectedEvents.remove(calendarEvent);
+    }
+
+    /**
+     * Notifies the listeners about an event which has just been indexed
+     *
+     * @param calendarEvent
+     */
+    protected void fireEventAdded(final CalendarEvent calendarEvent) {
+        if (!(calendarEvent instanceof RecurringEvent)) {
+            aggregates.add(calendarEvent, 1);
+            if (resourceIndex != null)
+                resourceIndex.add(calendarEvent);
+        }
+        if (updateDepth > 0) {
+            pendingAdded.add(calendarEvent);
+            return;
+        }
+        final ModelChangedEvent event = createEvent(calendarEvent);
+        for (final ModelChangedListener listener : collectionChangedListeners) {
+            listener.eventAdded(event);
+        }
+    }
+
+    /**
+     * Notifies the listeners about an event which has just been removed from
+     * the index
+     *
+     * @param calendarEvent
+     */
+    protected void fireEventRemoved(final CalendarEvent calendarEvent) {
+        if (!(calendarEvent instanceof RecurringEvent)) {
+            aggregates.add(calendarEvent, -1);
+            if (resourceIndex != null)
+                resourceIndex.remove(calendarEvent, calendarEvent.getResource());
+        }
+        final PendingChange change = pendingChanges.remove(calendarEvent);
+        if (change != null)
+            change.discarded = true;
+        if (updateDepth > 0) {
+            pendingRemoved.add(calendarEvent);
+            return;
+        }
+        final ModelChangedEvent event = createEvent(calendarEvent);
+        for (final ModelChangedListener listener : collectionChangedListeners) {
+            listener.eventRemoved(event);
+        }
+    }
+
+    /**
+     * @return the notification about the given event, covering all days if
+     *         it is a series
+     */
+    private ModelChangedEvent createEvent(final CalendarEvent calendarEvent) {
+        if (calendarEvent instanceof RecurringEvent)
+            return new ModelChangedEvent(parent, Collections.singletonList(calendarEvent), null, null);
+        return new ModelChangedEvent(parent, calendarEvent);
+    }
+
+    @Override
+    public void addCollectionChangedListener(final ModelChangedListener listener) {
+        this.collectionChangedListeners.add(listener);
+    }
+
+    @Override
+    public void removeCollectionChangedListener(final ModelChangedListener listener) {
+        this.collectionChangedListeners.remove(listener);
+    }
+
+    @Override
+    public void addSelectionChangedListener(final SelectionChangedListener listener) {
+        this.selectionChangedListeners.add(listener);
+    }
+
+    @Override
+    public void removeSelectionChangedListener(final SelectionChangedListener listener) {
+        this.selectionChangedListeners.remove(listener);
+    }
+
+    /**
+     * The changed properties of an event and the range of days it covered
+     * since the last notification
+     */
+    private static final class PendingChange {
+
+        final CalendarEvent calendarEvent;
+        final Set<Property> properties;
+        long from = Long.MAX_VALUE;
+        long to = Long.MIN_VALUE;
+        boolean discarded;
+
+        PendingChange(final CalendarEvent calendarEvent) {
+            this.calendarEvent = calendarEvent;
+            this.properties = EnumSet.noneOf(Property.class);
+        }
+
+        void include(final Date date) {
+            if (date == null)
+                return;
+            from = Math.min(from, date.getTime());
+            to = Math.max(to, date.getTime());
+        }
+    }
+}
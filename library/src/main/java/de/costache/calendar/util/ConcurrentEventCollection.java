@@ -0,0 +1,1011 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.events.ModelChangedEvent;
+import de.costache.calendar.events.ModelChangedListener;
+import de.costache.calendar.events.SelectionChangedEvent;
+import de.costache.calendar.events.SelectionChangedListener;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.Occurrence;
+import de.costache.calendar.model.Recurrence;
+import de.costache.calendar.model.RecurringEvent;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link EventCollection} which can be used from any thread. It stands in
+ * front of the collection of a {@link JCalendar}, for example to let several
+ * message consumers feed the calendar.
+ * <p>
+ * Writes are not applied by the calling thread. They are queued, and the
+ * event dispatch thread, as the single writer, applies everything queued
+ * since its last turn in one batch, at most once per publication interval.
+ * The changes a thread makes between {@link #beginUpdate()} and
+ * {@link #endUpdate()} are queued together and applied in the same batch.
+ * <p>
+ * After each batch an immutable snapshot of the events is published. The
+ * snapshot divides the days into segments of 8 days, each holding the
+ * events overlapping it sorted by start and end, and a publication copies
+ * only the segments whose events have changed. The start, end, flags and
+ * resource of an event are captured when it is published, and the rule and
+ * exceptions of a series are copied, so the snapshot never reads the
+ * events, which the event dispatch thread may be changing. Other threads
+ * read the last published snapshot and never block. The event dispatch
+ * thread reads the collection of the calendar itself. Unlike the
+ * collection, the snapshot has to look at the events of a queried interval
+ * to count or aggregate them.
+ * <p>
+ * The events are shared with the calendar. Once added, an event must only
+ * be changed on the event dispatch thread, e.g. through
+ * {@link #submit(Runnable)}.
+ *
+ * @author theodorcostache
+ */
+public final class ConcurrentEventCollection implements EventCollection {
+
+    /**
+     * The default publication interval in millis
+     */
+    public static final int DEFAULT_PUBLISH_INTERVAL = 40;
+
+    private static final int SEGMENT_SHIFT = 3;
+    private static final int ALL_DAY = 1;
+    private static final int HOLIDAY = 2;
+
+    private final EventCollection target;
+    private final Queue<Runnable> queue;
+    private final ThreadLocal<List<Runnable>> batches;
+    private final ThreadLocal<int[]> batchDepths;
+    private final AtomicBoolean scheduled;
+    private final Timer timer;
+    private volatile Snapshot snapshot;
+
+    // owned by the event dispatch thread
+    private final Map<CalendarEvent, Boolean> touched;
+    private final Map<CalendarEvent, Long> placements;
+    private final Set<RecurringEvent> series;
+    private boolean seriesChanged;
+    private boolean selectionChanged;
+    private boolean publishing;
+
+    /**
+     * Creates a collection publishing to the given calendar every
+     * {@link #DEFAULT_PUBLISH_INTERVAL} millis at most. Create it on the event
+     * dispatch thread, or before the calendar is shown.
+     *
+     * @param calendar
+     */
+    public ConcurrentEventCollection(final JCalendar calendar) {
+        this(calendar, DEFAULT_PUBLISH_INTERVAL);
+    }
+
+    /**
+     * Creates a collection publishing to the given calendar at most once per
+     * given interval. Create it on the event dispatch thread, or before the
+     * calendar is shown.
+     *
+     * @param calendar
+     * @param publishInterval the minimum time between two publications in
+     *                        millis
+     */
+    public ConcurrentEventCollection(final JCalendar calendar, final int publishInterval) {
+        this.target = EventCollectionRepository.get(calendar);
+        this.queue = new ConcurrentLinkedQueue<Runnable>();
+        this.batches = new ThreadLocal<List<Runnable>>();
+        this.batchDepths = new ThreadLocal<int[]>();
+        this.scheduled = new AtomicBoolean();
+        this.touched = new IdentityHashMap<CalendarEvent, Boolean>();
+        this.placements = new IdentityHashMap<CalendarEvent, Long>();
+        this.series = Collections.newSetFromMap(new IdentityHashMap<RecurringEvent, Boolean>());
+        this.timer = new Timer(publishInterval, new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                publish();
+            }
+        });
+        this.timer.setRepeats(false);
+
+        target.addCollectionChangedListener(new ModelChangedListener() {
+            @Override
+            public void eventAdded(final ModelChangedEvent event) {
+                touch(event.getCalendarEvents(), true);
+            }
+
+            @Override
+            public void eventRemoved(final ModelChangedEvent event) {
+                touch(event.getCalendarEvents(), false);
+            }
+
+            @Override
+            public void eventChanged(final ModelChangedEvent event) {
+                touch(event.getCalendarEvents(), true);
+            }
+        });
+        target.addSelectionChangedListener(new SelectionChangedListener() {
+            @Override
+            public void selectionChanged(final SelectionChangedEvent event) {
+                touchSelection();
+            }
+        });
+        snapshot = new Snapshot(Collections.<Integer, Segment>emptyMap(), new Series[0],
+                Collections.<CalendarEvent>emptyList());
+        publishing = true;
+        touch(target.getAllEvents(), true);
+        publishing = false;
+        snapshot = nextSnapshot();
+    }
+
+    /**
+     * Queues a change of events of the collection, such as moving them, to
+     * run on the event dispatch thread with the next batch. On the event
+     * dispatch thread the change runs right away.
+     *
+     * @param change
+     */
+    public void submit(final Runnable change) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            change.run();
+            return;
+        }
+        final List<Runnable> batch = batches.get();
+        if (batch != null) {
+            batch.add(change);
+            return;
+        }
+        queue.add(change);
+        schedule();
+    }
+
+    /**
+     * Schedules a publication unless one is pending
+     */
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true))
+            timer.start();
+    }
+
+    /**
+     * Applies the queued changes in one batch and publishes the new snapshot.
+     * Called on the event dispatch thread.
+     */
+    void publish() {
+        scheduled.set(false);
+        publishing = true;
+        try {
+            if (!queue.isEmpty()) {
+                target.beginUpdate();
+                try {
+                    Runnable change;
+                    while ((change = queue.poll()) != null) {
+                        change.run();
+                    }
+                } finally {
+                    target.endUpdate();
+                }
+            }
+        } finally {
+            publishing = false;
+            if (!queue.isEmpty())
+                schedule();
+            snapshot = nextSnapshot();
+        }
+    }
+
+    /**
+     * Remembers the given events for the next snapshot
+     *
+     * @param calendarEvents
+     * @param present        whether the events are part of the collection
+     */
+    private void touch(final Collection<CalendarEvent> calendarEvents, final boolean present) {
+        for (final CalendarEvent calendarEvent : calendarEvents) {
+            if (calendarEvent instanceof RecurringEvent) {
+                if (present)
+                    series.add((RecurringEvent) calendarEvent);
+                else
+                    series.remove(calendarEvent);
+                seriesChanged = true;
+            } else {
+                touched.put(calendarEvent, present);
+            }
+        }
+        if (!publishing)
+            schedule();
+    }
+
+    /**
+     * Remembers to copy the selection for the next snapshot
+     */
+    private void touchSelection() {
+        selectionChanged = true;
+        if (!publishing)
+            schedule();
+    }
+
+    /**
+     * @return a snapshot sharing the segments of the current one which do not
+     *         hold any of the events touched since
+     */
+    private Snapshot nextSnapshot() {
+        final Snapshot current = snapshot;
+        if (touched.isEmpty() && !seriesChanged && !selectionChanged)
+            return current;
+
+        Map<Integer, Segment> segments = current.segments;
+        if (!touched.isEmpty()) {
+            final Map<Integer, List<Entry>> added = new HashMap<Integer, List<Entry>>();
+            for (final Map.Entry<CalendarEvent, Boolean> touchedEvent : touched.entrySet()) {
+                final CalendarEvent calendarEvent = touchedEvent.getKey();
+                final Long previous;
+                if (touchedEvent.getValue()) {
+                    final Entry entry = new Entry(calendarEvent);
+                    final Long placement = entry.placement();
+                    previous = placements.put(calendarEvent, placement);
+                    for (int key = first(placement); key <= last(placement); key++) {
+                        segmentOf(added, key).add(entry);
+                    }
+                } else {
+                    previous = placements.remove(calendarEvent);
+                }
+                if (previous != null) {
+                    for (int key = first(previous); key <= last(previous); key++) {
+                        segmentOf(added, key);
+                    }
+                }
+            }
+
+            segments = new HashMap<Integer, Segment>(segments);
+            for (final Map.Entry<Integer, List<Entry>> segment : added.entrySet()) {
+                final Segment merged = merge(segments.get(segment.getKey()), segment.getValue());
+                if (merged.size == 0)
+                    segments.remove(segment.getKey());
+                else
+                    segments.put(segment.getKey(), merged);
+            }
+            touched.clear();
+        }
+
+        Series[] copies = current.series;
+        if (seriesChanged) {
+            copies = new Series[series.size()];
+            int i = 0;
+            for (final RecurringEvent recurringEvent : series) {
+                copies[i++] = new Series(recurringEvent);
+            }
+        }
+        final List<CalendarEvent> selected = selectionChanged ? Collections
+                .unmodifiableList(new ArrayList<CalendarEvent>(target.getSelectedEvents())) : current.selected;
+        seriesChanged = false;
+        selectionChanged = false;
+        return new Snapshot(segments, copies, selected);
+    }
+
+    /**
+     * Merges the events of the given segment which have not been touched
+     * with the given entries. Both are ordered by the start and end captured
+     * at their publication, so only the given entries have to be sorted and
+     * none of the events is read.
+     *
+     * @param segment the events of a segment, may be null
+     * @param added   the entries of the touched events overlapping the
+     *                segment now
+     * @return the sorted events of the segment
+     */
+    private Segment merge(final Segment segment, final List<Entry> added) {
+        Collections.sort(added);
+        final int length = segment == null ? 0 : segment.size;
+        final Segment result = new Segment(length + added.size());
+        int next = 0;
+        for (int i = 0; i < length; i++) {
+            if (touched.containsKey(segment.events[i]))
+                continue;
+            while (next < added.size() && compare(added.get(next).start, added.get(next).end, segment.starts[i],
+                    segment.ends[i]) < 0) {
+                result.add(added.get(next++));
+            }
+            result.add(segment, i);
+        }
+        while (next < added.size()) {
+            result.add(added.get(next++));
+        }
+        return result;
+    }
+
+    /**
+     * Orders by start and then by end like {@link CalendarEvent#compareTo}
+     */
+    private static int compare(final long start, final long end, final long otherStart, final long otherEnd) {
+        if (start != otherStart)
+            return start < otherStart ? -1 : 1;
+        return end < otherEnd ? -1 : end == otherEnd ? 0 : 1;
+    }
+
+    private static List<Entry> segmentOf(final Map<Integer, List<Entry>> segments, final int key) {
+        List<Entry> segment = segments.get(key);
+        if (segment == null) {
+            segment = new ArrayList<Entry>();
+            segments.put(key, segment);
+        }
+        return segment;
+    }
+
+    private static int first(final long placement) {
+        return (int) (placement >> 32);
+    }
+
+    private static int last(final long placement) {
+        return (int) placement;
+    }
+
+    private static int firstDay(final long start) {
+        return CalendarUtil.toEpochDay(start);
+    }
+
+    private static int lastDay(final long end, final int firstDay) {
+        return Math.max(firstDay, CalendarUtil.toEpochDay(end));
+    }
+
+    @Override
+    public void add(final CalendarEvent calendarEvent) {
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                target.add(calendarEvent);
+            }
+        });
+    }
+
+    @Override
+    public void addAll(final Collection<CalendarEvent> calendarEvents) {
+        final List<CalendarEvent> copy = new ArrayList<CalendarEvent>(calendarEvents);
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                target.addAll(copy);
+            }
+        });
+    }
+
+    @Override
+    public void remove(final CalendarEvent calendarEvent) {
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                target.remove(calendarEvent);
+            }
+        });
+    }
+
+    @Override
+    public void removeAll(final List<CalendarEvent> calendarEvents) {
+        final List<CalendarEvent> copy = new ArrayList<CalendarEvent>(calendarEvents);
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                target.removeAll(copy);
+            }
+        });
+    }
+
+    @Override
+    public void beginUpdate() {
+        if (SwingUtilities.isEventDispatchThread()) {
+            target.beginUpdate();
+            return;
+        }
+        final int[] depth = batchDepths.get();
+        if (depth != null) {
+            depth[0]++;
+            return;
+        }
+        batchDepths.set(new int[]{1});
+        batches.set(new ArrayList<Runnable>());
+    }
+
+    @Override
+    public void endUpdate() {
+        if (SwingUtilities.isEventDispatchThread()) {
+            target.endUpdate();
+            return;
+        }
+        final int[] depth = batchDepths.get();
+        if (depth == null)
+            throw new IllegalStateException("endUpdate() called without a matching beginUpdate()");
+        if (--depth[0] > 0)
+            return;
+        final List<Runnable> batch = batches.get();
+        batchDepths.remove();
+        batches.remove();
+        if (batch.isEmpty())
+            return;
+        queue.add(new Runnable() {
+            @Override
+            public void run() {
+                for (final Runnable change : batch) {
+                    change.run();
+                }
+            }
+        });
+        schedule();
+    }
+
+    @Override
+    public void addSelected(final CalendarEvent calendarEvent) {
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                target.addSelected(calendarEvent);
+            }
+        });
+    }
+
+    @Override
+    public void removeSelected(final CalendarEvent calendarEvent) {
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                target.removeSelected(calendarEvent);
+            }
+        });
+    }
+
+    @Override
+    public void clearSelected(final CalendarEvent toIgnore, final boolean notifyListeners) {
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                target.clearSelected(toIgnore, notifyListeners);
+                touchSelection();
+            }
+        });
+    }
+
+    @Override
+    public Collection<CalendarEvent> getSelectedEvents() {
+        if (SwingUtilities.isEventDispatchThread())
+            return target.getSelectedEvents();
+        return snapshot.selected;
+    }
+
+    @Override
+    public Collection<CalendarEvent> getEvents(final Date date) {
+        if (SwingUtilities.isEventDispatchThread())
+            return target.getEvents(date);
+        final Snapshot current = snapshot;
+        final int day = CalendarUtil.toEpochDay(date.getTime());
+        final Found found = new Found();
+        current.findDay(day, found);
+        return found.merge(current.getOccurrences(CalendarUtil.startOfEpochDay(day),
+                CalendarUtil.startOfEpochDay(day + 1), true, null));
+    }
+
+    @Override
+    public EventBuckets getEvents(final Date from, final Date to) {
+        if (SwingUtilities.isEventDispatchThread())
+            return target.getEvents(from, to);
+        final Snapshot current = snapshot;
+        final EventBuckets result = new EventBuckets(from, to);
+        final int first = CalendarUtil.toEpochDay(result.getStart());
+        final int last = first + result.size() - 1;
+        final List<Occurrence> occurrences = current.getOccurrences(result.getStart(), result.getEnd(), true, null);
+        if (!occurrences.isEmpty()) {
+            for (int day = first; day <= last; day++) {
+                final Found found = new Found();
+                current.findDay(day, found);
+                final List<Occurrence> dayOccurrences = new ArrayList<Occurrence>();
+                for (final Occurrence occurrence : occurrences) {
+                    final int occurrenceFirst = firstDay(occurrence.getStart().getTime());
+                    if (occurrenceFirst <= day && lastDay(occurrence.getEnd().getTime(), occurrenceFirst) >= day)
+                        dayOccurrences.add(occurrence);
+                }
+                result.addAll(day - first, found.merge(dayOccurrences));
+            }
+            return result;
+        }
+        for (int key = first >> SEGMENT_SHIFT; key <= last >> SEGMENT_SHIFT; key++) {
+            final Segment segment = current.segments.get(key);
+            if (segment == null)
+                continue;
+            final int segmentFirst = Math.max(first, key << SEGMENT_SHIFT);
+            final int segmentLast = Math.min(last, ((key + 1) << SEGMENT_SHIFT) - 1);
+            for (int i = 0; i < segment.size; i++) {
+                final int eventLast = Math.min(segmentLast, segment.lastDays[i]);
+                for (int day = Math.max(segmentFirst, segment.firstDays[i]); day <= eventLast; day++) {
+                    result.add(day - first, segment.events[i]);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int[] getEventCounts(final Date from, final Date to) {
+        if (SwingUtilities.isEventDispatchThread())
+            return target.getEventCounts(from, to);
+        final Snapshot current = snapshot;
+        final int first = CalendarUtil.toEpochDay(from.getTime());
+        final int[] result = new int[Math.max(1, CalendarUtil.toEpochDay(to.getTime()) - first)];
+        final int last = first + result.length - 1;
+        for (int key = first >> SEGMENT_SHIFT; key <= last >> SEGMENT_SHIFT; key++) {
+            final Segment segment = current.segments.get(key);
+            if (segment == null)
+                continue;
+            final int segmentFirst = Math.max(first, key << SEGMENT_SHIFT);
+            final int segmentLast = Math.min(last, ((key + 1) << SEGMENT_SHIFT) - 1);
+            for (int i = 0; i < segment.size; i++) {
+                final int eventLast = Math.min(segmentLast, segment.lastDays[i]);
+                for (int day = Math.max(segmentFirst, segment.firstDays[i]); day <= eventLast; day++) {
+                    result[day - first]++;
+                }
+            }
+        }
+        for (final Occurrence occurrence : current.getOccurrences(CalendarUtil.startOfEpochDay(first),
+                CalendarUtil.startOfEpochDay(last + 1), true, null)) {
+            final int eventFirst = firstDay(occurrence.getStart().getTime());
+            final int eventLast = Math.min(last, lastDay(occurrence.getEnd().getTime(), eventFirst));
+            for (int day = Math.max(first, eventFirst); day <= eventLast; day++) {
+                result[day - first]++;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public DayAggregate getAggregate(final Date date) {
+        if (SwingUtilities.isEventDispatchThread())
+            return target.getAggregate(date);
+        final Snapshot current = snapshot;
+        final int day = CalendarUtil.toEpochDay(date.getTime());
+        final long dayStart = CalendarUtil.startOfEpochDay(day);
+        final long dayEnd = CalendarUtil.startOfEpochDay(day + 1);
+        final Found found = new Found();
+        current.findDay(day, found);
+        int count = found.size;
+        int allDayCount = 0;
+        int busyMinutes = 0;
+        final Found holidays = new Found();
+        for (int i = 0; i < found.size; i++) {
+            final int flags = found.flags[i];
+            if ((flags & ALL_DAY) != 0)
+                allDayCount++;
+            if ((flags & HOLIDAY) != 0)
+                holidays.add(found.events[i], found.starts[i], found.ends[i], flags);
+            else if ((flags & ALL_DAY) == 0)
+                busyMinutes += covered(found.starts[i], found.ends[i], dayStart, dayEnd);
+        }
+        final List<Occurrence> holidayOccurrences = new ArrayList<Occurrence>();
+        final List<Occurrence> occurrences = new ArrayList<Occurrence>();
+        for (final Series copy : current.series) {
+            occurrences.clear();
+            copy.addOccurrences(dayStart, dayEnd, occurrences);
+            count += occurrences.size();
+            if ((copy.flags & ALL_DAY) != 0)
+                allDayCount += occurrences.size();
+            if ((copy.flags & HOLIDAY) != 0) {
+                holidayOccurrences.addAll(occurrences);
+            } else if ((copy.flags & ALL_DAY) == 0) {
+                for (final Occurrence occurrence : occurrences) {
+                    busyMinutes += covered(occurrence.getStart().getTime(), occurrence.getEnd().getTime(), dayStart,
+                            dayEnd);
+                }
+            }
+        }
+        Collections.sort(holidayOccurrences);
+        final List<CalendarEvent> holidayList = holidays.merge(holidayOccurrences);
+        return new DayAggregate(new Date(dayStart), count, allDayCount, busyMinutes,
+                holidayList.isEmpty() ? Collections.<CalendarEvent>emptyList() : Collections
+                        .unmodifiableList(holidayList));
+    }
+
+    /**
+     * @return the minutes of the given day covered by the given interval
+     */
+    private static int covered(final long start, final long end, final long dayStart, final long dayEnd) {
+        return (int) (Math.max(0, Math.min(end, dayEnd) - Math.max(start, dayStart)) / 60000L);
+    }
+
+    @Override
+    public List<CalendarEvent> getHolidayEvents(final Date date) {
+        return getAggregate(date).getHolidays();
+    }
+
+    @Override
+    public List<String> getResources() {
+        if (SwingUtilities.isEventDispatchThread())
+            return target.getResources();
+        final Snapshot current = snapshot;
+        List<String> resources = current.resources;
+        if (resources == null) {
+            final Set<String> result = new HashSet<String>();
+            for (final Segment segment : current.segments.values()) {
+                result.addAll(Arrays.asList(segment.resources).subList(0, segment.size));
+            }
+            for (final Series copy : current.series) {
+                result.add(copy.resource);
+            }
+            resources = new ArrayList<String>(result);
+            Collections.sort(resources, ResourceIndex.RESOURCE_ORDER);
+            resources = Collections.unmodifiableList(resources);
+            current.resources = resources;
+        }
+        return resources;
+    }
+
+    @Override
+    public void getEvents(final String resource, final Date from, final Date to,
+                          final Collection<CalendarEvent> result) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            target.getEvents(resource, from, to, result);
+            return;
+        }
+        final Snapshot current = snapshot;
+        final Found found = new Found();
+        current.find(from.getTime(), to.getTime(), false, resource, found);
+        result.addAll(found.merge(current.getOccurrences(from.getTime(), to.getTime(), false, resource)));
+    }
+
+    @Override
+    public void getEvents(final Date from, final Date to, final Collection<CalendarEvent> result) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            target.getEvents(from, to, result);
+            return;
+        }
+        final Found found = new Found();
+        snapshot.find(from.getTime(), to.getTime(), true, null, found);
+        result.addAll(found.merge(Collections.<Occurrence>emptyList()));
+    }
+
+    @Override
+    public Collection<RecurringEvent> getRecurringEvents() {
+        if (SwingUtilities.isEventDispatchThread())
+            return target.getRecurringEvents();
+        final Series[] copies = snapshot.series;
+        final List<RecurringEvent> result = new ArrayList<RecurringEvent>(copies.length);
+        for (final Series copy : copies) {
+            result.add(copy.event);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static boolean equal(final String a, final String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    @Override
+    public Collection<CalendarEvent> getAllEvents() {
+        if (SwingUtilities.isEventDispatchThread())
+            return target.getAllEvents();
+        final Snapshot current = snapshot;
+        final Set<CalendarEvent> result = Collections.newSetFromMap(new IdentityHashMap<CalendarEvent, Boolean>());
+        for (final Segment segment : current.segments.values()) {
+            result.addAll(Arrays.asList(segment.events).subList(0, segment.size));
+        }
+        for (final Series copy : current.series) {
+            result.add(copy.event);
+        }
+        return new ArrayList<CalendarEvent>(result);
+    }
+
+    @Override
+    public void addCollectionChangedListener(final ModelChangedListener listener) {
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                target.addCollectionChangedListener(listener);
+            }
+        });
+    }
+
+    @Override
+    public void removeCollectionChangedListener(final ModelChangedListener listener) {
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                target.removeCollectionChangedListener(listener);
+            }
+        });
+    }
+
+    @Override
+    public void addSelectionChangedListener(final SelectionChangedListener listener) {
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                target.addSelectionChangedListener(listener);
+            }
+        });
+    }
+
+    @Override
+    public void removeSelectionChangedListener(final SelectionChangedListener listener) {
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                target.removeSelectionChangedListener(listener);
+            }
+        });
+    }
+
+    /**
+     * The events of the collection as of one publication. The maps, segments
+     * and arrays are never changed once published.
+     */
+    private static final class Snapshot {
+
+        final Map<Integer, Segment> segments;
+        final Series[] series;
+        final List<CalendarEvent> selected;
+        volatile List<String> resources;
+
+        Snapshot(final Map<Integer, Segment> segments, final Series[] series, final List<CalendarEvent> selected) {
+            this.segments = segments;
+            this.series = series;
+            this.selected = selected;
+        }
+
+        /**
+         * Collects the single events of the given epoch day in order
+         */
+        void findDay(final int day, final Found result) {
+            final Segment segment = segments.get(day >> SEGMENT_SHIFT);
+            if (segment == null)
+                return;
+            for (int i = 0; i < segment.size; i++) {
+                if (segment.firstDays[i] <= day && segment.lastDays[i] >= day)
+                    result.add(segment, i);
+            }
+        }
+
+        /**
+         * Collects the single events with start &lt; to and end &gt;= from in
+         * order. An event overlapping several of the queried segments is
+         * taken from the first of them, so the segments following the first
+         * one only contribute the events starting in them, which start after
+         * the events collected before.
+         *
+         * @param anyResource false to collect only the events of the given
+         *                    resource
+         */
+        void find(final long from, final long to, final boolean anyResource, final String resource,
+                  final Found result) {
+            final int firstKey = firstDay(from) >> SEGMENT_SHIFT;
+            final int lastKey = firstDay(to) >> SEGMENT_SHIFT;
+            for (int key = firstKey; key <= lastKey; key++) {
+                final Segment segment = segments.get(key);
+                if (segment == null)
+                    continue;
+                for (int i = 0; i < segment.size; i++) {
+                    if (segment.starts[i] < to && segment.ends[i] >= from
+                            && Math.max(firstKey, segment.firstDays[i] >> SEGMENT_SHIFT) == key
+                            && (anyResource || equal(resource, segment.resources[i])))
+                        result.add(segment, i);
+                }
+            }
+        }
+
+        /**
+         * Expands the occurrences of the series with start &lt; to and end
+         * &gt;= from
+         *
+         * @param anyResource false to expand only the series of the given
+         *                    resource
+         * @return the occurrences sorted by start and end
+         */
+        List<Occurrence> getOccurrences(final long from, final long to, final boolean anyResource,
+                                        final String resource) {
+            final List<Occurrence> result = new ArrayList<Occurrence>();
+            for (final Series copy : series) {
+                if (anyResource || equal(resource, copy.resource))
+                    copy.addOccurrences(from, to, result);
+            }
+            if (series.length > 1)
+                Collections.sort(result);
+            return result;
+        }
+    }
+
+    /**
+     * The events overlapping a segment of days together with their state
+     * captured at publication, in parallel arrays sorted by start and end
+     */
+    private static final class Segment {
+
+        final CalendarEvent[] events;
+        final long[] starts;
+        final long[] ends;
+        final int[] firstDays;
+        final int[] lastDays;
+        final byte[] flags;
+        final String[] resources;
+        int size;
+
+        Segment(final int capacity) {
+            events = new CalendarEvent[capacity];
+            starts = new long[capacity];
+            ends = new long[capacity];
+            firstDays = new int[capacity];
+            lastDays = new int[capacity];
+            flags = new byte[capacity];
+            resources = new String[capacity];
+        }
+
+        void add(final Entry entry) {
+            events[size] = entry.event;
+            starts[size] = entry.start;
+            ends[size] = entry.end;
+            firstDays[size] = entry.firstDay;
+            lastDays[size] = entry.lastDay;
+            flags[size] = entry.flags;
+            resources[size] = entry.resource;
+            size++;
+        }
+
+        void add(final Segment segment, final int i) {
+            events[size] = segment.events[i];
+            starts[size] = segment.starts[i];
+            ends[size] = segment.ends[i];
+            firstDays[size] = segment.firstDays[i];
+            lastDays[size] = segment.lastDays[i];
+            flags[size] = segment.flags[i];
+            resources[size] = segment.resources[i];
+            size++;
+        }
+    }
+
+    /**
+     * The state of a touched event read on the event dispatch thread when it
+     * is published
+     */
+    private static final class Entry implements Comparable<Entry> {
+
+        final CalendarEvent event;
+        final long start;
+        final long end;
+        final int firstDay;
+        final int lastDay;
+        final byte flags;
+        final String resource;
+
+        Entry(final CalendarEvent calendarEvent) {
+            event = calendarEvent;
+            start = calendarEvent.getStart().getTime();
+            end = calendarEvent.getEnd().getTime();
+            firstDay = firstDay(start);
+            lastDay = lastDay(end, firstDay);
+            flags = (byte) ((calendarEvent.isAllDay() ? ALL_DAY : 0) | (calendarEvent.isHoliday() ? HOLIDAY : 0));
+            resource = calendarEvent.getResource();
+        }
+
+        /**
+         * @return the first and the last segment the event overlaps, packed
+         *         into one value
+         */
+        Long placement() {
+            return ((long) (firstDay >> SEGMENT_SHIFT) << 32) | ((lastDay >> SEGMENT_SHIFT) & 0xFFFFFFFFL);
+        }
+
+        @Override
+        public int compareTo(final Entry o) {
+            return compare(start, end, o.start, o.end);
+        }
+    }
+
+    /**
+     * A series as of its publication: its first occurrence, rule and
+     * exceptions are copied, so that it can be expanded while the event
+     * dispatch thread changes it
+     */
+    private static final class Series {
+
+        final RecurringEvent event;
+        final Date first;
+        final long duration;
+        final Recurrence recurrence;
+        final long[] exceptions;
+        final byte flags;
+        final String resource;
+
+        Series(final RecurringEvent recurringEvent) {
+            event = recurringEvent;
+            first = new Date(recurringEvent.getStart().getTime());
+            duration = recurringEvent.getDuration();
+            recurrence = recurringEvent.getRecurrence();
+            final List<Date> dates = recurringEvent.getExceptions();
+            exceptions = new long[dates.size()];
+            for (int i = 0; i < exceptions.length; i++) {
+                exceptions[i] = dates.get(i).getTime();
+            }
+            Arrays.sort(exceptions);
+            flags = (byte) ((recurringEvent.isAllDay() ? ALL_DAY : 0) | (recurringEvent.isHoliday() ? HOLIDAY : 0));
+            resource = recurringEvent.getResource();
+        }
+
+        /**
+         * Expands the occurrences with start &lt; to and end &gt;= from
+         * without the cancelled ones, ordered by start
+         */
+        void addOccurrences(final long from, final long to, final Collection<Occurrence> result) {
+            final List<Long> starts = new ArrayList<Long>();
+            recurrence.getStarts(first, from - duration, to, starts);
+            for (final Long start : starts) {
+                if (Arrays.binarySearch(exceptions, start) < 0)
+                    result.add(new Occurrence(event, start, start + duration));
+            }
+        }
+    }
+
+    /**
+     * The single events found by a query in order, together with the start,
+     * end and flags they were published with
+     */
+    private static final class Found {
+
+        CalendarEvent[] events = new CalendarEvent[16];
+        long[] starts = new long[16];
+        long[] ends = new long[16];
+        byte[] flags = new byte[16];
+        int size;
+
+        void add(final Segment segment, final int i) {
+            add(segment.events[i], segment.starts[i], segment.ends[i], segment.flags[i]);
+        }
+
+        void add(final CalendarEvent calendarEvent, final long start, final long end, final int eventFlags) {
+            if (size == events.length) {
+                events = Arrays.copyOf(events, size * 2);
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                flags = Arrays.copyOf(flags, size * 2);
+            }
+            events[size] = calendarEvent;
+            starts[size] = start;
+            ends[size] = end;
+            flags[size] = (byte) eventFlags;
+            size++;
+        }
+
+        /**
+         * @param occurrences sorted by start and end
+         * @return the found events merged with the given occurrences, sorted
+         *         by start and end, the found events first on a tie
+         */
+        List<CalendarEvent> merge(final List<Occurrence> occurrences) {
+            final List<CalendarEvent> result = new ArrayList<CalendarEvent>(size + occurrences.size());
+            int next = 0;
+            for (int i = 0; i < size; i++) {
+                while (next < occurrences.size()) {
+                    final Occurrence occurrence = occurrences.get(next);
+                    final long start = occurrence.getStart().getTime();
+                    if (compare(start, occurrence.getEnd().getTime(), starts[i], ends[i]) >= 0)
+                        break;
+                    result.add(occurrence);
+                    next++;
+                }
+                result.add(events[i]);
+            }
+            result.addAll(occurrences.subList(next, occurrences.size()));
+            return result;
+        }
+    }
+}
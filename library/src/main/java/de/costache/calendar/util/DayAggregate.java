@@ -0,0 +1,83 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.model.CalendarEvent;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the aggregates of the events of a day, as maintained
+ * by the {@link EventCollection}.
+ *
+ * @author theodorcostache
+ */
+public final class DayAggregate {
+
+    private final Date day;
+    private final int eventCount;
+    private final int allDayCount;
+    private final int busyMinutes;
+    private final List<CalendarEvent> holidays;
+
+    DayAggregate(final Date day, final int eventCount, final int allDayCount, final int busyMinutes,
+                 final List<CalendarEvent> holidays) {
+        this.day = day;
+        this.eventCount = eventCount;
+        this.allDayCount = allDayCount;
+        this.busyMinutes = busyMinutes;
+        this.holidays = holidays;
+    }
+
+    /**
+     * @return the start of the day
+     */
+    public Date getDay() {
+        return new Date(day.getTime());
+    }
+
+    /**
+     * @return the number of events of the day, including all-day events and
+     *         holidays
+     */
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * @return the number of all-day events of the day
+     */
+    public int getAllDayCount() {
+        return allDayCount;
+    }
+
+    /**
+     * @return the minutes of the day covered by timed events, i.e. neither
+     *         all-day events nor holidays. Overlapping events are counted
+     *         once each.
+     */
+    public int getBusyMinutes() {
+        return busyMinutes;
+    }
+
+    /**
+     * @return the holidays of the day, sorted by start and end
+     */
+    public List<CalendarEvent> getHolidays() {
+        return holidays;
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.model.CalendarEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per epoch day aggregates of the events of a collection: the number of
+ * events, the number of all-day events, the minutes covered by timed events
+ * and the holidays. The values are kept in pages of {@value #PAGE_SIZE} days
+ * which are allocated when the first event touches them and released when
+ * their last event is removed, so that events far away from the others do
+ * not allocate the days in between.
+ * <p>
+ * Adding or removing an event spanning d days costs O(d), reading the
+ * aggregate of a day O(1) and the counts of n consecutive days O(n),
+ * independent of the number of events.
+ *
+ * @author theodorcostache
+ */
+final class DayAggregates {
+
+    private static final int PAGE_SHIFT = 9;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final CalendarEvent[] NO_HOLIDAYS = new CalendarEvent[0];
+    private static final long MILLIS_PER_MINUTE = 60000L;
+
+    private final Map<Integer, Page> pages = new HashMap<Integer, Page>();
+
+    /**
+     * Adds the given event with its current state to every day it spans
+     *
+     * @param calendarEvent
+     * @param delta         1 to add the event, -1 to remove it
+     */
+    void add(final CalendarEvent calendarEvent, final int delta) {
+        add(calendarEvent, calendarEvent.getStart().getTime(), calendarEvent.getEnd().getTime(),
+                calendarEvent.isAllDay(), calendarEvent.isHoliday(), delta);
+    }
+
+    /**
+     * Adds the given event with the given state to every day from the day of
+     * <code>start</code> to the day of <code>end</code>, both inclusive. The
+     * state is passed separately so that the former state of a changed event
+     * can be removed.
+     *
+     * @param calendarEvent
+     * @param start         epoch millis
+     * @param end           epoch millis
+     * @param allDay
+     * @param holiday
+     * @param delta         1 to add the event, -1 to remove it
+     */
+    void add(final CalendarEvent calendarEvent, final long start, final long end, final boolean allDay,
+             final boolean holiday, final int delta) {
+        final int first = CalendarUtil.toEpochDay(start);
+        final int last = Math.max(first, CalendarUtil.toEpochDay(end));
+        final boolean timed = !allDay && !holiday;
+        long dayStart = CalendarUtil.startOfEpochDay(first);
+        Page page = null;
+        for (int day = first; day <= last; day++) {
+            if (page == null || (day & PAGE_MASK) == 0) {
+                release(page);
+                page = getPage(day >> PAGE_SHIFT, delta > 0);
+            }
+            final long dayEnd = CalendarUtil.startOfEpochDay(day + 1);
+            if (page != null) {
+                final int index = day & PAGE_MASK;
+                page.counts[index] += delta;
+                page.total += delta;
+                if (allDay)
+                    page.allDayCounts[index] += delta;
+                if (timed) {
+                    final long covered = Math.max(0, Math.min(end, dayEnd) - Math.max(start, dayStart));
+                    page.busyMinutes[index] += delta * (int) (covered / MILLIS_PER_MINUTE);
+                }
+                if (holiday) {
+                    page.holidays[index] = delta > 0 ? insert(page.holidays[index], calendarEvent) : remove(
+                            page.holidays[index], calendarEvent);
+                }
+            }
+            dayStart = dayEnd;
+        }
+        release(page);
+    }
+
+    /**
+     * @param epochDay
+     * @return the aggregate of the given epoch day
+     */
+    DayAggregate get(final int epochDay) {
+        final Page page = pages.get(epochDay >> PAGE_SHIFT);
+        final Date day = new Date(CalendarUtil.startOfEpochDay(epochDay));
+        if (page == null)
+            return new DayAggregate(day, 0, 0, 0, Collections.<CalendarEvent>emptyList());
+        final int index = epochDay & PAGE_MASK;
+        final CalendarEvent[] dayHolidays = page.holidays[index];
+        final List<CalendarEvent> holidayList = dayHolidays == null ? Collections.<CalendarEvent>emptyList()
+                : Collections.unmodifiableList(Arrays.asList(dayHolidays));
+        return new DayAggregate(day, page.counts[index], page.allDayCounts[index], page.busyMinutes[index],
+                holidayList);
+    }
+
+    /**
+     * Copies the event counts of consecutive days
+     *
+     * @param epochDay the first day
+     * @param result   receives one count per day
+     */
+    void getCounts(final int epochDay, final int[] result) {
+        int i = 0;
+        while (i < result.length) {
+            final int day = epochDay + i;
+            final int index = day & PAGE_MASK;
+            final int length = Math.min(PAGE_SIZE - index, result.length - i);
+            final Page page = pages.get(day >> PAGE_SHIFT);
+            if (page == null)
+                Arrays.fill(result, i, i + length, 0);
+            else
+                System.arraycopy(page.counts, index, result, i, length);
+            i += length;
+        }
+    }
+
+    /**
+     * @return the number of allocated pages
+     */
+    int getPageCount() {
+        return pages.size();
+    }
+
+    private Page getPage(final int key, final boolean create) {
+        Page page = pages.get(key);
+        if (page == null && create) {
+            page = new Page(key);
+            pages.put(key, page);
+        }
+        return page;
+    }
+
+    /**
+     * Drops the given page if no event touches it anymore
+     */
+    private void release(final Page page) {
+        if (page != null && page.total == 0)
+            pages.remove(page.key);
+    }
+
+    /**
+     * @return a copy of the given holidays with the given event inserted in
+     *         the order of start and end
+     */
+    private static CalendarEvent[] insert(final CalendarEvent[] dayHolidays, final CalendarEvent calendarEvent) {
+        final List<CalendarEvent> result = new ArrayList<CalendarEvent>(dayHolidays == null ? 1
+                : dayHolidays.length + 1);
+        if (dayHolidays != null)
+            result.addAll(Arrays.asList(dayHolidays));
+        result.add(calendarEvent);
+        Collections.sort(result);
+        return result.toArray(new CalendarEvent[result.size()]);
+    }
+
+    /**
+     * @return a copy of the given holidays without the given event, null if
+     *         none are left
+     */
+    private static CalendarEvent[] remove(final CalendarEvent[] dayHolidays, final CalendarEvent calendarEvent) {
+        if (dayHolidays == null)
+            return null;
+        final List<CalendarEvent> result = new ArrayList<CalendarEvent>(dayHolidays.length);
+        for (final CalendarEvent holiday : dayHolidays) {
+            if (holiday != calendarEvent)
+                result.add(holiday);
+        }
+        return result.isEmpty() ? null : result.toArray(NO_HOLIDAYS);
+    }
+
+    /**
+     * The aggregates of {@value #PAGE_SIZE} consecutive days
+     */
+    private static final class Page {
+
+        final int key;
+        final int[] counts = new int[PAGE_SIZE];
+        final int[] allDayCounts = new int[PAGE_SIZE];
+        final int[] busyMinutes = new int[PAGE_SIZE];
+        final CalendarEvent[][] holidays = new CalendarEvent[PAGE_SIZE][];
+        /**
+         * the sum of the counts, zero once no event touches the page
+         */
+        int total;
+
+        Page(final int key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.model.CalendarEvent;
+
+import java.util.*;
+
+/**
+ * Immutable column layout of the timed events of a day. Overlapping events
+ * form clusters; inside a cluster every event gets the lowest column not
+ * used by an event it overlaps, and all events of the cluster share its
+ * column count.
+ * <p>
+ * The layout is computed with a sweep over the events sorted by start,
+ * keeping the running events in a heap ordered by end, in O(n log n).
+ * All-day events and holidays are not part of the layout.
+ *
+ * @author theodorcostache
+ */
+public final class DayLayout {
+
+    private final CalendarEvent[] events;
+    private final int[] columns;
+    private final int[] columnCounts;
+    private final int[] clusters;
+    private final int clusterCount;
+    private final Map<CalendarEvent, Integer> indexes;
+
+    private DayLayout(final CalendarEvent[] events, final int[] columns, final int[] columnCounts,
+                      final int[] clusters, final int clusterCount) {
+        this.events = events;
+        this.columns = columns;
+        this.columnCounts = columnCounts;
+        this.clusters = clusters;
+        this.clusterCount = clusterCount;
+        this.indexes = new IdentityHashMap<CalendarEvent, Integer>(events.length);
+        for (int i = 0; i < events.length; i++) {
+            indexes.put(events[i], i);
+        }
+    }
+
+    /**
+     * Computes the layout of the given events
+     *
+     * @param calendarEvents the events of a day
+     * @return the layout of the timed events
+     */
+    public static DayLayout compute(final Collection<CalendarEvent> calendarEvents) {
+        final List<CalendarEvent> timed = new ArrayList<CalendarEvent>(calendarEvents.size());
+        for (final CalendarEvent event : calendarEvents) {
+            if (!event.isAllDay() && !event.isHoliday())
+                timed.add(event);
+        }
+        Collections.sort(timed);
+
+        final int size = timed.size();
+        final CalendarEvent[] events = timed.toArray(new CalendarEvent[size]);
+        final int[] columns = new int[size];
+        final int[] columnCounts = new int[size];
+        final int[] clusters = new int[size];
+
+        final IntHeap running = new IntHeap(size);
+        final IntHeap freeColumns = new IntHeap(size);
+        int cluster = -1;
+        int clusterStart = 0;
+        int clusterColumns = 0;
+
+        for (int i = 0; i < size; i++) {
+            final long start = events[i].getStart().getTime();
+            while (!running.isEmpty() && running.peekKey() <= start) {
+                final int column = columns[running.pop()];
+                freeColumns.push(column, column);
+            }
+
+            if (running.isEmpty()) {
+                Arrays.fill(columnCounts, clusterStart, i, clusterColumns);
+                freeColumns.clear();
+                clusterStart = i;
+                clusterColumns = 0;
+                cluster++;
+            }
+
+            final int column = freeColumns.isEmpty() ? clusterColumns++ : freeColumns.pop();
+            columns[i] = column;
+            clusters[i] = cluster;
+            running.push(events[i].getEnd().getTime(), i);
+        }
+        Arrays.fill(columnCounts, clusterStart, size, clusterColumns);
+
+        return new DayLayout(events, columns, columnCounts, clusters, cluster + 1);
+    }
+
+    /**
+     * @return the number of laid out events
+     */
+    public int size() {
+        return events.length;
+    }
+
+    /**
+     * @param index
+     * @return the event at the given index, ordered by start and end
+     */
+    public CalendarEvent getEvent(final int index) {
+        return events[index];
+    }
+
+    /**
+     * @param index
+     * @return the column of the event at the given index
+     */
+    public int getColumn(final int index) {
+        return columns[index];
+    }
+
+    /**
+     * @param index
+     * @return the number of columns of the cluster of the event at the given
+     *         index
+     */
+    public int getColumnCount(final int index) {
+        return columnCounts[index];
+    }
+
+    /**
+     * @param index
+     * @return the cluster of the event at the given index. Clusters are
+     *         numbered in the order of their start.
+     */
+    public int getCluster(final int index) {
+        return clusters[index];
+    }
+
+    /**
+     * @return the number of clusters
+     */
+    public int getClusterCount() {
+        return clusterCount;
+    }
+
+    /**
+     * @param calendarEvent
+     * @return the index of the given event, -1 if it is not part of the
+     *         layout
+     */
+    public int indexOf(final CalendarEvent calendarEvent) {
+        final Integer index = indexes.get(calendarEvent);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Binary min-heap of int values ordered by a long key
+     */
+    private static final class IntHeap {
+
+        private final long[] keys;
+        private final int[] values;
+        private int size;
+
+        IntHeap(final int capacity) {
+            keys = new long[Math.max(capacity, 1)];
+            values = new int[Math.max(capacity, 1)];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        long peekKey() {
+            return keys[0];
+        }
+
+        void push(final long key, final int value) {
+            int i = size++;
+            while (i > 0) {
+                final int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key)
+                    break;
+                keys[i] = keys[parent];
+                values[i] = values[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        int pop() {
+            final int result = values[0];
+            final long key = keys[--size];
+            final int value = values[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size)
+                    break;
+                if (child + 1 < size && keys[child + 1] < keys[child])
+                    child++;
+                if (keys[child] >= key)
+                    break;
+                keys[i] = keys[child];
+                values[i] = values[child];
+                i = child;
+            }
+            keys[i] = key;
+            values[i] = value;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.model.CalendarEvent;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Index of {@link CalendarEvent}s by the epoch days they span. Every event
+ * gets an int id from an identity keyed open addressing table; every day maps
+ * to a compact array of ids in a second table keyed by the epoch day, so
+ * neither lookups nor updates box keys or allocate dates.
+ * <p>
+ * The days spanned by an event are captured when it is indexed, which allows
+ * the event to be removed from exactly those days after its start or end has
+ * been changed.
+ *
+ * @author theodorcostache
+ */
+final class EpochDayIndex implements EventIndex {
+
+    private static final int NO_KEY = Integer.MIN_VALUE;
+    private static final int[] NO_IDS = new int[0];
+
+    private CalendarEvent[] idKeys = new CalendarEvent[32];
+    private int[] idValues = new int[32];
+    private int size;
+    private CalendarEvent[] events = new CalendarEvent[16];
+    private int[] firstDays = new int[16];
+    private int[] lastDays = new int[16];
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int nextId;
+
+    private int[] keys;
+    private int[][] buckets;
+    private int[] bucketSizes;
+    private int keyCount;
+
+    EpochDayIndex() {
+        keys = new int[64];
+        Arrays.fill(keys, NO_KEY);
+        buckets = new int[64][];
+        bucketSizes = new int[64];
+    }
+
+    /**
+     * @param calendarEvent
+     * @return false if the event is already indexed
+     */
+    boolean add(final CalendarEvent calendarEvent) {
+        if (idKeys[findId(calendarEvent)] != null)
+            return false;
+        final int id = newId();
+        putId(calendarEvent, id);
+        events[id] = calendarEvent;
+        index(id, calendarEvent);
+        return true;
+    }
+
+    @Override
+    public void addAll(final Collection<CalendarEvent> calendarEvents, final Collection<CalendarEvent> added) {
+        for (final CalendarEvent calendarEvent : calendarEvents) {
+            if (add(calendarEvent))
+                added.add(calendarEvent);
+        }
+    }
+
+    /**
+     * @param calendarEvent
+     * @return false if the event is not indexed
+     */
+    boolean remove(final CalendarEvent calendarEvent) {
+        final int slot = findId(calendarEvent);
+        if (idKeys[slot] == null)
+            return false;
+        final int id = idValues[slot];
+        removeId(slot);
+        unindex(id);
+        events[id] = null;
+        if (freeCount == freeIds.length)
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        freeIds[freeCount++] = id;
+        return true;
+    }
+
+    /**
+     * Moves the given event to the days given by its current start and end
+     *
+     * @param calendarEvent
+     * @return false if the event is not indexed
+     */
+    boolean update(final CalendarEvent calendarEvent) {
+        final int slot = findId(calendarEvent);
+        if (idKeys[slot] == null)
+            return false;
+        final int id = idValues[slot];
+        unindex(id);
+        index(id, calendarEvent);
+        return true;
+    }
+
+    /**
+     * Collects the events of the given epoch day in no particular order
+     *
+     * @param epochDay
+     * @param result
+     */
+    void get(final int epochDay, final Collection<CalendarEvent> result) {
+        final int slot = find(epochDay);
+        if (keys[slot] == NO_KEY)
+            return;
+        final int[] bucket = buckets[slot];
+        for (int i = 0, size = bucketSizes[slot]; i < size; i++) {
+            result.add(events[bucket[i]]);
+        }
+    }
+
+    /**
+     * @param epochDay
+     * @return the number of events of the given epoch day
+     */
+    int count(final int epochDay) {
+        final int slot = find(epochDay);
+        return keys[slot] == NO_KEY ? 0 : bucketSizes[slot];
+    }
+
+    @Override
+    public void values(final Collection<CalendarEvent> result) {
+        for (int id = 0; id < nextId; id++) {
+            if (events[id] != null)
+                result.add(events[id]);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private int newId() {
+        if (freeCount > 0)
+            return freeIds[--freeCount];
+        if (nextId == events.length) {
+            final int capacity = nextId + (nextId >> 1);
+            events = Arrays.copyOf(events, capacity);
+            firstDays = Arrays.copyOf(firstDays, capacity);
+            lastDays = Arrays.copyOf(lastDays, capacity);
+        }
+        return nextId++;
+    }
+
+    /**
+     * @return the slot of the id table holding the given event or the empty
+     *         slot where it belongs
+     */
+    private int findId(final CalendarEvent calendarEvent) {
+        final int mask = idKeys.length - 1;
+        int slot = mix(System.identityHashCode(calendarEvent)) & mask;
+        while (idKeys[slot] != null && idKeys[slot] != calendarEvent) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void putId(final CalendarEvent calendarEvent, final int id) {
+        if (2 * (size + 1) > idKeys.length) {
+            final CalendarEvent[] oldKeys = idKeys;
+            final int[] oldValues = idValues;
+            idKeys = new CalendarEvent[oldKeys.length * 2];
+            idValues = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    final int slot = findId(oldKeys[i]);
+                    idKeys[slot] = oldKeys[i];
+                    idValues[slot] = oldValues[i];
+                }
+            }
+        }
+        final int slot = findId(calendarEvent);
+        idKeys[slot] = calendarEvent;
+        idValues[slot] = id;
+        size++;
+    }
+
+    /**
+     * Empties the given slot of the id table, moving back the entries of the
+     * probe sequence following it
+     */
+    private void removeId(int slot) {
+        final int mask = idKeys.length - 1;
+        idKeys[slot] = null;
+        size--;
+        int next = (slot + 1) & mask;
+        while (idKeys[next] != null) {
+            final int home = mix(System.identityHashCode(idKeys[next])) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                idKeys[slot] = idKeys[next];
+                idValues[slot] = idValues[next];
+                idKeys[next] = null;
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+    }
+
+    private void index(final int id, final CalendarEvent calendarEvent) {
+        final int first = CalendarUtil.toEpochDay(calendarEvent.getStart().getTime());
+        final int last = Math.max(first, CalendarUtil.toEpochDay(calendarEvent.getEnd().getTime()));
+        firstDays[id] = first;
+        lastDays[id] = last;
+        for (int day = first; day <= last; day++) {
+            int slot = find(day);
+            if (keys[slot] == NO_KEY) {
+                if (2 * (keyCount + 1) > keys.length) {
+                    rehash(keys.length * 2);
+                    slot = find(day);
+                }
+                keys[slot] = day;
+                buckets[slot] = NO_IDS;
+                keyCount++;
+            }
+            int[] bucket = buckets[slot];
+            final int size = bucketSizes[slot];
+            if (size == bucket.length) {
+                bucket = Arrays.copyOf(bucket, Math.max(4, size * 2));
+                buckets[slot] = bucket;
+            }
+            bucket[size] = id;
+            bucketSizes[slot] = size + 1;
+        }
+    }
+
+    private void unindex(final int id) {
+        for (int day = firstDays[id]; day <= lastDays[id]; day++) {
+            final int slot = find(day);
+            if (keys[slot] == NO_KEY)
+                continue;
+            final int[] bucket = buckets[slot];
+            final int size = bucketSizes[slot];
+            for (int i = 0; i < size; i++) {
+                if (bucket[i] == id) {
+                    bucket[i] = bucket[size - 1];
+                    bucketSizes[slot] = size - 1;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the slot holding the given epoch day or the empty slot where
+     *         it belongs
+     */
+    private int find(final int epochDay) {
+        final int mask = keys.length - 1;
+        int slot = mix(epochDay) & mask;
+        while (keys[slot] != NO_KEY && keys[slot] != epochDay) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(final int value) {
+        final int hash = value * 0x9E3779B9;
+        return hash ^ hash >>> 16;
+    }
+
+    private void rehash(final int capacity) {
+        final int[] oldKeys = keys;
+        final int[][] oldBuckets = buckets;
+        final int[] oldSizes = bucketSizes;
+        keys = new int[capacity];
+        Arrays.fill(keys, NO_KEY);
+        buckets = new int[capacity][];
+        bucketSizes = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == NO_KEY)
+                continue;
+            final int slot = find(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            buckets[slot] = oldBuckets[i];
+            bucketSizes[slot] = oldSizes[i];
+        }
+    }
+}
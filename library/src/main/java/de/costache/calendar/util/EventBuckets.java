@@ -0,0 +1,152 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.model.CalendarEvent;
+
+import java.util.*;
+
+/**
+ * The result of a range query on an {@link EventCollection}: the events of an
+ * interval grouped by day. Every day holds its events sorted by start and end.
+ *
+ * @author theodorcostache
+ */
+public class EventBuckets {
+
+    private final long[] dayStarts;
+    private final List<List<CalendarEvent>> buckets;
+    private final List<List<CalendarEvent>> views;
+
+    /**
+     * Creates empty buckets for every day from the day of <code>from</code>
+     * up to, but excluding, the day of <code>to</code>
+     *
+     * @param from
+     * @param to
+     */
+    EventBuckets(final Date from, final Date to) {
+        final int first = CalendarUtil.toEpochDay(from.getTime());
+        final int days = Math.max(1, CalendarUtil.toEpochDay(to.getTime()) - first);
+        dayStarts = new long[days + 1];
+        for (int i = 0; i < dayStarts.length; i++) {
+            dayStarts[i] = CalendarUtil.startOfEpochDay(first + i);
+        }
+        buckets = new ArrayList<List<CalendarEvent>>(dayStarts.length - 1);
+        views = new ArrayList<List<CalendarEvent>>(dayStarts.length - 1);
+        for (int i = 0; i < dayStarts.length - 1; i++) {
+            final List<CalendarEvent> bucket = new ArrayList<CalendarEvent>();
+            buckets.add(bucket);
+            views.add(Collections.unmodifiableList(bucket));
+        }
+    }
+
+    void add(final int index, final CalendarEvent calendarEvent) {
+        buckets.get(index).add(calendarEvent);
+    }
+
+    void addAll(final int index, final Collection<CalendarEvent> calendarEvents) {
+        buckets.get(index).addAll(calendarEvents);
+    }
+
+    void sort(final int index) {
+        Collections.sort(buckets.get(index));
+    }
+
+    /**
+     * Adds each of the given events to every day it spans and sorts the days
+     * events were added to
+     *
+     * @param calendarEvents
+     */
+    void addSpanning(final Collection<CalendarEvent> calendarEvents) {
+        final boolean[] touched = new boolean[size()];
+        for (final CalendarEvent calendarEvent : calendarEvents) {
+            final int first = Math.max(0, indexOf(calendarEvent.getStart().getTime()));
+            final int last = Math.min(size() - 1, indexOf(calendarEvent.getEnd().getTime()));
+            for (int i = first; i <= last; i++) {
+                add(i, calendarEvent);
+                touched[i] = true;
+            }
+        }
+        for (int i = 0; i < touched.length; i++) {
+            if (touched[i])
+                sort(i);
+        }
+    }
+
+    /**
+     * @param millis
+     * @return the index of the day containing the given epoch millis, -1 if it
+     *         lies before the first day and {@link #size()} if it lies after
+     *         the last one
+     */
+    int indexOf(final long millis) {
+        int index = Arrays.binarySearch(dayStarts, millis);
+        if (index < 0)
+            index = -index - 2;
+        return index;
+    }
+
+    /**
+     * @return the epoch millis of the first day
+     */
+    long getStart() {
+        return dayStarts[0];
+    }
+
+    /**
+     * @return the epoch millis following the last day
+     */
+    long getEnd() {
+        return dayStarts[dayStarts.length - 1];
+    }
+
+    /**
+     * @return the number of days
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * @param index
+     * @return the day at the given index
+     */
+    public Date getDay(final int index) {
+        return new Date(dayStarts[index]);
+    }
+
+    /**
+     * @param index
+     * @return the sorted events of the day at the given index
+     */
+    public List<CalendarEvent> getEvents(final int index) {
+        return views.get(index);
+    }
+
+    /**
+     * @param date
+     * @return the sorted events of the given day, an empty list if the day
+     *         is not part of the interval
+     */
+    public List<CalendarEvent> getEvents(final Date date) {
+        final int index = indexOf(date.getTime());
+        if (index < 0 || index >= size())
+            return Collections.emptyList();
+        return views.get(index);
+    }
+}
@@ -22,6 +22,7 @@ import java.util.List;
 import de.costache.calendar.events.ModelChangedListener;
 import de.costache.calendar.events.SelectionChangedListener;
 import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.RecurringEvent;
 
 /**
  * 
@@ -30,24 +31,136 @@ import de.costache.calendar.model.CalendarEvent;
  */
 public interface EventCollection {
 
+	/**
+	 * The available index implementations
+	 */
+	public enum Type {
+		/**
+		 * indexes every event under each day it spans
+		 */
+		INDEXED,
+		/**
+		 * keeps the events in an interval tree keyed on their start and end
+		 */
+		INTERVAL_TREE
+	}
+
 	void add(CalendarEvent event);
 
+	/**
+	 * Adds all given events, indexing them in bulk and notifying the
+	 * listeners once
+	 *
+	 * @param events
+	 */
+	void addAll(Collection<CalendarEvent> events);
+
 	void remove(CalendarEvent event);
 
     void removeAll(List<CalendarEvent> calendarEventList);
 
+	/**
+	 * Starts a batch update. Until the matching {@link #endUpdate()} the
+	 * listeners are not notified, afterwards they receive one coalesced
+	 * event per kind of change. Batches can be nested.
+	 */
+	void beginUpdate();
+
+	/**
+	 * Ends a batch update started with {@link #beginUpdate()}
+	 */
+	void endUpdate();
+
 	void addSelected(CalendarEvent event);
 
 	void removeSelected(CalendarEvent event);
 
 	void clearSelected(CalendarEvent event, boolean b);
 
-    List<CalendarEvent> getHolidayEvents(Date date);
+	/**
+	 * @param date
+	 * @return the holidays of the given day, sorted by start and end
+	 */
+	List<CalendarEvent> getHolidayEvents(Date date);
 
 	Collection<CalendarEvent> getSelectedEvents();
 
 	Collection<CalendarEvent> getEvents(Date date);
 
+	/**
+	 * Returns the events of every day from the day of <code>from</code> up to,
+	 * but excluding, the day of <code>to</code> with a single lookup
+	 *
+	 * @param from
+	 * @param to
+	 * @return the events grouped by day
+	 */
+	EventBuckets getEvents(Date from, Date to);
+
+	/**
+	 * Returns the number of events of every day from the day of
+	 * <code>from</code> up to, but excluding, the day of <code>to</code>. The
+	 * counts are maintained on every add, remove and move of an event, so
+	 * reading them costs O(days) independent of the number of events.
+	 *
+	 * @param from
+	 * @param to
+	 * @return one count per day
+	 */
+	int[] getEventCounts(Date from, Date to);
+
+	/**
+	 * Returns the aggregates of the events of the given day: the number of
+	 * events and of all-day events, the minutes covered by timed events and
+	 * the holidays. Like the counts they are maintained on every change, so
+	 * reading them costs O(1).
+	 *
+	 * @param date
+	 * @return the aggregates of the day of the given date
+	 */
+	DayAggregate getAggregate(Date date);
+
+	/**
+	 * @return the ids of the resources the events are scheduled for, sorted,
+	 *         with null standing for the events without resource last
+	 */
+	List<String> getResources();
+
+	/**
+	 * Collects the events of the given resource overlapping the given
+	 * interval, ordered by start and end. The events are kept partitioned by
+	 * resource, so the events of the other resources are not looked at.
+	 *
+	 * @param resource
+	 *            the id of the resource, null for the events without resource
+	 * @param from
+	 *            inclusive
+	 * @param to
+	 *            exclusive
+	 * @param result
+	 *            receives the events
+	 */
+	void getEvents(String resource, Date from, Date to, Collection<CalendarEvent> result);
+
+	/**
+	 * Collects the events overlapping the given interval, i.e. those with
+	 * start &lt; to and end &gt;= from, ordered by start and end. The series
+	 * are left out rather than expanded, see {@link #getRecurringEvents()}.
+	 * 
+	 * @param from
+	 *            inclusive
+	 * @param to
+	 *            exclusive
+	 * @param result
+	 *            receives the events
+	 */
+	void getEvents(Date from, Date to, Collection<CalendarEvent> result);
+
+	/**
+	 * @return the series of the collection, not expanded into occurrences
+	 */
+	Collection<RecurringEvent> getRecurringEvents();
+
     Collection<CalendarEvent> getAllEvents();
 
 	void addCollectionChangedListener(ModelChangedListener listener);
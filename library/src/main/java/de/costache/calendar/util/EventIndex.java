@@ -0,0 +1,50 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.model.CalendarEvent;
+
+import java.util.Collection;
+
+/**
+ * The index of the single events of an {@link AbstractEventCollection}, as
+ * far as it is needed to build an index apart from the collection and to
+ * hand it over, see {@link EventShard}.
+ *
+ * @author theodorcostache
+ */
+interface EventIndex {
+
+    /**
+     * Adds all given events which are not yet part of the index
+     *
+     * @param calendarEvents
+     * @param added receives the events which were not yet part of the index
+     */
+    void addAll(Collection<CalendarEvent> calendarEvents, Collection<CalendarEvent> added);
+
+    /**
+     * Collects all indexed events
+     *
+     * @param result
+     */
+    void values(Collection<CalendarEvent> result);
+
+    /**
+     * @return the number of indexed events
+     */
+    int size();
+}
@@ -0,0 +1,307 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.model.CalendarEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Augmented AVL tree of {@link CalendarEvent}s keyed on the epoch millis of
+ * their start and end. Every node also stores the greatest end of its subtree
+ * so that overlap queries can skip whole subtrees.
+ * <p>
+ * Nodes are immutable, an insert or a delete copies the O(log n) nodes on the
+ * path to the root. The position of an event is captured when it is inserted,
+ * which allows the event to be found again after its start or end has been
+ * changed.
+ *
+ * @author theodorcostache
+ */
+final class EventIntervalTree implements EventIndex {
+
+    private static final Comparator<Node> NODE_ORDER = new Comparator<Node>() {
+        @Override
+        public int compare(final Node a, final Node b) {
+            return EventIntervalTree.compare(a, b);
+        }
+    };
+
+    private Node root;
+    private long sequence;
+    private final Map<CalendarEvent, Node> nodes;
+
+    public EventIntervalTree() {
+        nodes = new IdentityHashMap<CalendarEvent, Node>();
+    }
+
+    /**
+     * Adds the given event to the tree
+     *
+     * @param calendarEvent
+     * @return false if the event is already part of the tree
+     */
+    public boolean add(final CalendarEvent calendarEvent) {
+        if (nodes.containsKey(calendarEvent))
+            return false;
+        final Node node = new Node(calendarEvent, calendarEvent.getStart().getTime(),
+                calendarEvent.getEnd().getTime(), sequence++);
+        root = insert(root, node);
+        nodes.put(calendarEvent, node);
+        return true;
+    }
+
+    /**
+     * Adds all given events to the tree. A batch at least as large as the
+     * tree is sorted once and the tree is rebuilt from the sorted nodes
+     * instead of being inserted into one event at a time.
+     *
+     * @param calendarEvents
+     * @param added receives the events which were not yet part of the tree
+     */
+    @Override
+    public void addAll(final Collection<CalendarEvent> calendarEvents, final Collection<CalendarEvent> added) {
+        final List<Node> leaves = new ArrayList<Node>(calendarEvents.size());
+        for (final CalendarEvent calendarEvent : calendarEvents) {
+            if (nodes.containsKey(calendarEvent))
+                continue;
+            final Node node = new Node(calendarEvent, calendarEvent.getStart().getTime(),
+                    calendarEvent.getEnd().getTime(), sequence++);
+            nodes.put(calendarEvent, node);
+            leaves.add(node);
+            added.add(calendarEvent);
+        }
+
+        if (leaves.size() < nodes.size() - leaves.size()) {
+            for (final Node leaf : leaves) {
+                root = insert(root, leaf);
+            }
+            return;
+        }
+
+        final List<Node> sorted = new ArrayList<Node>(nodes.size());
+        collect(root, sorted);
+        sorted.addAll(leaves);
+        Collections.sort(sorted, NODE_ORDER);
+        root = build(sorted, 0, sorted.size());
+    }
+
+    /**
+     * Removes the given event from the tree
+     *
+     * @param calendarEvent
+     * @return false if the event is not part of the tree
+     */
+    public boolean remove(final CalendarEvent calendarEvent) {
+        final Node key = nodes.remove(calendarEvent);
+        if (key == null)
+            return false;
+        root = delete(root, key);
+        return true;
+    }
+
+    /**
+     * Moves the given event to the position given by its current start and end
+     *
+     * @param calendarEvent
+     * @return false if the event is not part of the tree
+     */
+    public boolean update(final CalendarEvent calendarEvent) {
+        final Node key = nodes.get(calendarEvent);
+        if (key == null)
+            return false;
+        root = delete(root, key);
+        final Node node = new Node(calendarEvent, calendarEvent.getStart().getTime(),
+                calendarEvent.getEnd().getTime(), key.seq);
+        root = insert(root, node);
+        nodes.put(calendarEvent, node);
+        return true;
+    }
+
+    public boolean contains(final CalendarEvent calendarEvent) {
+        return nodes.containsKey(calendarEvent);
+    }
+
+    /**
+     * Collects all events with start &lt; to and end &gt;= from, ordered by
+     * start and end.
+     *
+     * @param from epoch millis, inclusive
+     * @param to   epoch millis, exclusive
+     * @param result
+     */
+    public void query(final long from, final long to, final Collection<CalendarEvent> result) {
+        query(root, from, to, result);
+    }
+
+    /**
+     * Collects all events ordered by start and end
+     *
+     * @param result
+     */
+    @Override
+    public void values(final Collection<CalendarEvent> result) {
+        query(root, Long.MIN_VALUE, Long.MAX_VALUE, result);
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    private static void query(final Node node, final long from, final long to,
+                              final Collection<CalendarEvent> result) {
+        if (node == null || node.maxEnd < from)
+            return;
+        query(node.left, from, to, result);
+        if (node.start >= to)
+            return;
+        if (node.end >= from)
+            result.add(node.event);
+        query(node.right, from, to, result);
+    }
+
+    private static void collect(final Node node, final List<Node> result) {
+        if (node == null)
+            return;
+        collect(node.left, result);
+        result.add(node.with(null, null));
+        collect(node.right, result);
+    }
+
+    private static Node build(final List<Node> sorted, final int from, final int to) {
+        if (from >= to)
+            return null;
+        final int middle = (from + to) >>> 1;
+        return sorted.get(middle).with(build(sorted, from, middle), build(sorted, middle + 1, to));
+    }
+
+    private static Node insert(final Node node, final Node leaf) {
+        if (node == null)
+            return leaf;
+        if (compare(leaf, node) < 0)
+            return balance(node.with(insert(node.left, leaf), node.right));
+        return balance(node.with(node.left, insert(node.right, leaf)));
+    }
+
+    private static Node delete(final Node node, final Node key) {
+        if (node == null)
+            return null;
+        final int comp = compare(key, node);
+        if (comp < 0)
+            return balance(node.with(delete(node.left, key), node.right));
+        if (comp > 0)
+            return balance(node.with(node.left, delete(node.right, key)));
+        if (node.left == null)
+            return node.right;
+        if (node.right == null)
+            return node.left;
+        Node min = node.right;
+        while (min.left != null)
+            min = min.left;
+        return balance(min.with(node.left, deleteMin(node.right)));
+    }
+
+    private static Node deleteMin(final Node node) {
+        if (node.left == null)
+            return node.right;
+        return balance(node.with(deleteMin(node.left), node.right));
+    }
+
+    private static Node balance(final Node node) {
+        final int diff = height(node.left) - height(node.right);
+        if (diff > 1) {
+            Node left = node.left;
+            if (height(left.left) < height(left.right))
+                left = rotateLeft(left);
+            return rotateRight(node.with(left, node.right));
+        }
+        if (diff < -1) {
+            Node right = node.right;
+            if (height(right.right) < height(right.left))
+                right = rotateRight(right);
+            return rotateLeft(node.with(node.left, right));
+        }
+        return node;
+    }
+
+    private static Node rotateLeft(final Node node) {
+        final Node right = node.right;
+        return right.with(node.with(node.left, right.left), right.right);
+    }
+
+    private static Node rotateRight(final Node node) {
+        final Node left = node.left;
+        return left.with(left.left, node.with(left.right, node.right));
+    }
+
+    private static int height(final Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int compare(final Node a, final Node b) {
+        if (a.start != b.start)
+            return a.start < b.start ? -1 : 1;
+        if (a.end != b.end)
+            return a.end < b.end ? -1 : 1;
+        return a.seq < b.seq ? -1 : a.seq > b.seq ? 1 : 0;
+    }
+
+    private static final class Node {
+
+        final CalendarEvent event;
+        final long start;
+        final long end;
+        final long seq;
+        final Node left;
+        final Node right;
+        final int height;
+        final long maxEnd;
+
+        Node(final CalendarEvent event, final long start, final long end, final long seq) {
+            this(event, start, end, seq, null, null);
+        }
+
+        private Node(final CalendarEvent event, final long start, final long end, final long seq,
+                     final Node left, final Node right) {
+            this.event = event;
+            this.start = start;
+            this.end = end;
+            this.seq = seq;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(EventIntervalTree.height(left), EventIntervalTree.height(right)) + 1;
+            long max = end;
+            if (left != null && left.maxEnd > max)
+                max = left.maxEnd;
+            if (right != null && right.maxEnd > max)
+                max = right.maxEnd;
+            this.maxEnd = max;
+        }
+
+        Node with(final Node left, final Node right) {
+            if (left == this.left && right == this.right)
+                return this;
+            return new Node(event, start, end, seq, left, right);
+        }
+    }
+}
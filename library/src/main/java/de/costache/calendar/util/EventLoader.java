@@ -0,0 +1,274 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.events.LoadEvent;
+import de.costache.calendar.events.LoadListener;
+import de.costache.calendar.events.ModelChangedListener;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.RecurringEvent;
+
+import javax.swing.*;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads events into the collection of a {@link JCalendar} without blocking
+ * the event dispatch thread.
+ * <p>
+ * The events are read from an {@link EventSource} and indexed on the given
+ * executor into an index private to the load, see {@link EventShard}. The
+ * index is then handed to the collection in a single task on the event
+ * dispatch thread, which only costs the size of the smaller of the two
+ * indexes and fires one {@link ModelChangedListener#eventAdded} for all
+ * events of the index. Given an interval, usually the one on display, the
+ * events intersecting it are published first: as soon as an
+ * {@link OrderedEventSource} has passed the end of the interval, or else
+ * after {@value #CHUNK_SIZE} events have been read. The
+ * remaining events follow in chunks of that size, so that a load holds at
+ * most one chunk besides the events already published.
+ * <p>
+ * Progress is reported to a {@link LoadListener} on the event dispatch
+ * thread. At most one progress notification is queued at a time, so a fast
+ * source does not flood the event queue.
+ *
+ * @author theodorcostache
+ */
+public class EventLoader {
+
+    private static final int PROGRESS_STEP = 4096;
+    private static final int CHUNK_SIZE = 65536;
+
+    private final JCalendar calendar;
+    private final ExecutorService executor;
+    private final int chunkSize;
+
+    /**
+     * Creates a new instance of {@link EventLoader}
+     *
+     * @param calendar the calendar to load the events into
+     * @param executor runs the reading and indexing
+     */
+    public EventLoader(final JCalendar calendar, final ExecutorService executor) {
+        this(calendar, executor, CHUNK_SIZE);
+    }
+
+    EventLoader(final JCalendar calendar, final ExecutorService executor, final int chunkSize) {
+        this.calendar = calendar;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Loads all events of the given source
+     *
+     * @param source
+     * @param listener may be null
+     * @return the number of events read
+     * @see #load(EventSource, Date, Date, LoadListener)
+     */
+    public Future<Integer> load(final EventSource source, final LoadListener listener) {
+        return load(source, null, null, listener);
+    }
+
+    /**
+     * Loads all events of the given source, publishing the events
+     * intersecting the given interval and all series first. Called on the
+     * event dispatch thread; the source is closed at the end of the load if
+     * it is {@link Closeable}.
+     * <p>
+     * Cancelling the returned future with interruption stops the load before
+     * its next publication; the chunks published until then stay in the
+     * collection. The result of the future must not be awaited on the event
+     * dispatch thread.
+     *
+     * @param source
+     * @param from     the start of the interval to publish first, inclusive,
+     *                 null to publish all events at once
+     * @param to       the end of the interval to publish first, exclusive
+     * @param listener may be null
+     * @return the number of events read
+     */
+    public Future<Integer> load(final EventSource source, final Date from, final Date to,
+            final LoadListener listener) {
+        final AbstractEventCollection collection = (AbstractEventCollection) EventCollectionRepository.get(calendar);
+        final EventShard first = from == null ? null : collection.newShard();
+        final EventShard rest = collection.newShard();
+        return executor.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return new Load(collection, source, listener).run(from, to, first, rest);
+            }
+        });
+    }
+
+    /**
+     * The state of a single load, shared with the tasks it queues on the
+     * event dispatch thread
+     */
+    private final class Load {
+
+        final AbstractEventCollection collection;
+        final EventSource source;
+        final LoadListener listener;
+        final AtomicInteger read;
+        final AtomicInteger published;
+        final AtomicBoolean progressQueued;
+
+        Load(final AbstractEventCollection collection, final EventSource source, final LoadListener listener) {
+            this.collection = collection;
+            this.source = source;
+            this.listener = listener;
+            this.read = new AtomicInteger();
+            this.published = new AtomicInteger();
+            this.progressQueued = new AtomicBoolean();
+        }
+
+        int run(final Date from, final Date to, final EventShard first, final EventShard rest) throws Exception {
+            try {
+                final List<CalendarEvent> window = new ArrayList<CalendarEvent>();
+                final List<CalendarEvent> chunk = new ArrayList<CalendarEvent>();
+                final long start = from == null ? 0 : from.getTime();
+                final long end = to == null ? 0 : to.getTime();
+                final boolean ordered = source instanceof OrderedEventSource;
+                EventShard head = first;
+                EventShard next = rest;
+                CalendarEvent calendarEvent;
+                while ((calendarEvent = source.next()) != null) {
+                    final long eventStart = calendarEvent.getStart().getTime();
+                    if (head != null && (ordered && eventStart >= end || read.get() >= chunkSize)) {
+                        head.addAll(window);
+                        window.clear();
+                        publish(head);
+                        head = null;
+                    }
+                    if (head != null && (calendarEvent instanceof RecurringEvent
+                            || eventStart < end && calendarEvent.getEnd().getTime() >= start)) {
+                        window.add(calendarEvent);
+                    } else {
+                        chunk.add(calendarEvent);
+                        if (head == null && chunk.size() >= chunkSize)
+                            next = publish(next, chunk);
+                    }
+                    if (read.incrementAndGet() % PROGRESS_STEP == 0) {
+                        checkCancelled();
+                        progress();
+                    }
+                }
+
+                if (head != null) {
+                    head.addAll(window);
+                    publish(head);
+                }
+                if (!chunk.isEmpty())
+                    publish(next, chunk);
+                finished(null);
+                return read.get();
+            } catch (final Exception e) {
+                finished(e);
+                throw e;
+            } catch (final Error e) {
+                finished(e);
+                throw e;
+            } finally {
+                if (source instanceof Closeable)
+                    ((Closeable) source).close();
+            }
+        }
+
+        /**
+         * Indexes and publishes the given chunk and clears it
+         *
+         * @return an empty shard for the next chunk
+         */
+        private EventShard publish(final EventShard shard, final List<CalendarEvent> chunk)
+                throws InterruptedException, IOException {
+            shard.addAll(chunk);
+            chunk.clear();
+            return publish(shard);
+        }
+
+        private void checkCancelled() {
+            if (Thread.currentThread().isInterrupted())
+                throw new CancellationException("Load of " + read.get() + " events cancelled");
+        }
+
+        /**
+         * Hands the shard to the collection on the event dispatch thread and
+         * waits until it is part of the collection
+         *
+         * @return an empty shard created on the event dispatch thread right
+         *         after the publication
+         */
+        private EventShard publish(final EventShard shard) throws InterruptedException, IOException {
+            checkCancelled();
+            final EventShard[] next = new EventShard[1];
+            final Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    collection.publish(shard);
+                    published.addAndGet(shard.size());
+                    next[0] = collection.newShard();
+                }
+            };
+            try {
+                SwingUtilities.invokeAndWait(task);
+            } catch (final InvocationTargetException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                if (e.getCause() instanceof Error)
+                    throw (Error) e.getCause();
+                throw new IOException(e.getCause());
+            }
+            progress();
+            return next[0];
+        }
+
+        private void progress() {
+            if (listener == null || !progressQueued.compareAndSet(false, true))
+                return;
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    progressQueued.set(false);
+                    listener.loadProgress(new LoadEvent(calendar, read.get(), published.get(), null));
+                }
+            });
+        }
+
+        private void finished(final Throwable error) {
+            if (listener == null)
+                return;
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    listener.loadFinished(new LoadEvent(calendar, read.get(), published.get(), error));
+                }
+            });
+        }
+    }
+}
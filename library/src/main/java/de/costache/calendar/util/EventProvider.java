@@ -0,0 +1,45 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.model.CalendarEvent;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Supplies the events of a calendar one window of days at a time, such as
+ * from a database holding more events than should be kept in memory, see
+ * {@link EventWindowCache}
+ *
+ * @author theodorcostache
+ */
+public interface EventProvider {
+
+    /**
+     * Returns the events starting in the given window. Each event has to be
+     * returned by the window its start falls into only. Called on a
+     * background thread; if the executor of the cache runs several threads,
+     * also for several windows at once.
+     *
+     * @param from the start of the window, inclusive
+     * @param to   the end of the window, exclusive
+     * @return the events with from &lt;= start &lt; to
+     * @throws IOException
+     */
+    List<CalendarEvent> getEvents(Date from, Date to) throws IOException;
+}
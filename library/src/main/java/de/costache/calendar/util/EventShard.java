@@ -0,0 +1,92 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.Occurrence;
+import de.costache.calendar.model.RecurringEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Events indexed apart from the {@link AbstractEventCollection} they are
+ * meant for, so a large import can be indexed on a background thread and
+ * handed to the collection with
+ * {@link AbstractEventCollection#publish(EventShard)}.
+ * <p>
+ * A shard builds the same kind of index as its collection together with the
+ * day aggregates, and the resource partitions if the collection has them.
+ * The collection is registered as observer of the events right away. The
+ * events must not be changed or handed to another thread until the shard
+ * has been published.
+ *
+ * @author theodorcostache
+ */
+final class EventShard {
+
+    final AbstractEventCollection owner;
+    final EventIndex index;
+    final DayAggregates aggregates;
+    final ResourceIndex resources;
+    final List<CalendarEvent> events;
+    final List<RecurringEvent> series;
+
+    EventShard(final AbstractEventCollection owner, final EventIndex index, final boolean withResources) {
+        this.owner = owner;
+        this.index = index;
+        this.aggregates = new DayAggregates();
+        this.resources = withResources ? new ResourceIndex() : null;
+        this.events = new ArrayList<CalendarEvent>();
+        this.series = new ArrayList<RecurringEvent>();
+    }
+
+    /**
+     * Indexes the given events
+     *
+     * @param calendarEvents
+     * @throws IllegalArgumentException if one of the events is an
+     *                                  {@link Occurrence}
+     */
+    void addAll(final Collection<CalendarEvent> calendarEvents) {
+        final List<CalendarEvent> single = new ArrayList<CalendarEvent>(calendarEvents.size());
+        for (final CalendarEvent calendarEvent : calendarEvents) {
+            if (calendarEvent instanceof Occurrence)
+                throw new IllegalArgumentException("Add the series of an occurrence instead");
+            if (calendarEvent instanceof RecurringEvent)
+                series.add((RecurringEvent) calendarEvent);
+            else
+                single.add(calendarEvent);
+        }
+        final int first = events.size();
+        index.addAll(single, events);
+        for (int i = first; i < events.size(); i++) {
+            final CalendarEvent calendarEvent = events.get(i);
+            calendarEvent.addObserver(owner);
+            aggregates.add(calendarEvent, 1);
+            if (resources != null)
+                resources.add(calendarEvent);
+        }
+    }
+
+    /**
+     * @return the number of events and series of the shard
+     */
+    int size() {
+        return events.size() + series.size();
+    }
+}
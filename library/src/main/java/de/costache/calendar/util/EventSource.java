@@ -0,0 +1,35 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.model.CalendarEvent;
+
+import java.io.IOException;
+
+/**
+ * A sequence of events read one at a time, such as
+ * {@link de.costache.calendar.ical.ICalendarReader}
+ *
+ * @author theodorcostache
+ */
+public interface EventSource {
+
+    /**
+     * @return the next event, null at the end of the source
+     * @throws IOException
+     */
+    CalendarEvent next() throws IOException;
+}
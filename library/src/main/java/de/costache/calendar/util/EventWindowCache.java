@@ -0,0 +1,284 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.events.IntervalChangedEvent;
+import de.costache.calendar.events.IntervalChangedListener;
+import de.costache.calendar.events.LoadEvent;
+import de.costache.calendar.events.LoadListener;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.ui.strategy.Config;
+
+import javax.swing.*;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Keeps the events of a {@link JCalendar} loaded on demand from an
+ * {@link EventProvider}, so that only the events around the interval on
+ * display are held in memory.
+ * <p>
+ * The days are divided into windows of a fixed number of days. Whenever the
+ * interval of the calendar changes, the windows it overlaps are requested
+ * from the provider on the given executor, followed by the windows of the
+ * next and of the previous interval of the same length. Every loaded window
+ * is added to the collection of the calendar in one batch on the event
+ * dispatch thread. Windows which are no longer wanted by the time their turn
+ * comes are skipped.
+ * <p>
+ * The loaded windows are kept in least recently used order. When there are
+ * more of them than the capacity of the cache, the least recently used
+ * windows outside the wanted ones are evicted and their events removed from
+ * the collection. Changes of these events have to be written back by the
+ * application beforehand. Events added to the calendar directly, such as
+ * recurring events which may occur in any window, are left alone.
+ * <p>
+ * An event is loaded with the window it starts in, so an event lasting
+ * longer than a window may be missing from the first days of the interval
+ * until the window it starts in has been loaded. The cache also loads the
+ * window preceding the interval, so choose windows longer than the longest
+ * event.
+ *
+ * @author theodorcostache
+ */
+public final class EventWindowCache implements Closeable {
+
+    /**
+     * The default number of days of a window
+     */
+    public static final int DEFAULT_WINDOW_DAYS = 32;
+
+    /**
+     * The default number of windows kept
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private final JCalendar calendar;
+    private final EventCollection collection;
+    private final EventProvider provider;
+    private final ExecutorService executor;
+    private final LoadListener listener;
+    private final int windowDays;
+    private final int capacity;
+    private final LinkedHashMap<Integer, List<CalendarEvent>> windows;
+    private final Set<Integer> loading;
+    private final IntervalChangedListener intervalListener;
+    private volatile long wanted;
+    private volatile boolean closed;
+
+    /**
+     * Creates a cache of {@link #DEFAULT_CAPACITY} windows of
+     * {@link #DEFAULT_WINDOW_DAYS} days and loads the windows of the current
+     * interval. Create it on the event dispatch thread, or before the
+     * calendar is shown.
+     *
+     * @param calendar the calendar to load the events into
+     * @param provider supplies the events
+     * @param executor runs the requests to the provider
+     * @param listener notified on the event dispatch thread about every
+     *                 loaded or failed window, may be null
+     */
+    public EventWindowCache(final JCalendar calendar, final EventProvider provider, final ExecutorService executor,
+                            final LoadListener listener) {
+        this(calendar, provider, executor, listener, DEFAULT_WINDOW_DAYS, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache and loads the windows of the current interval. Create
+     * it on the event dispatch thread, or before the calendar is shown.
+     *
+     * @param calendar   the calendar to load the events into
+     * @param provider   supplies the events
+     * @param executor   runs the requests to the provider
+     * @param listener   notified on the event dispatch thread about every
+     *                   loaded or failed window, may be null
+     * @param windowDays the number of days of a window
+     * @param capacity   the number of windows kept besides the wanted ones
+     */
+    public EventWindowCache(final JCalendar calendar, final EventProvider provider, final ExecutorService executor,
+                            final LoadListener listener, final int windowDays, final int capacity) {
+        if (windowDays < 1 || capacity < 0)
+            throw new IllegalArgumentException("Invalid window days " + windowDays + " or capacity " + capacity);
+        this.calendar = calendar;
+        this.collection = EventCollectionRepository.get(calendar);
+        this.provider = provider;
+        this.executor = executor;
+        this.listener = listener;
+        this.windowDays = windowDays;
+        this.capacity = capacity;
+        this.windows = new LinkedHashMap<Integer, List<CalendarEvent>>(16, 0.75f, true);
+        this.loading = new HashSet<Integer>();
+        this.intervalListener = new IntervalChangedListener() {
+            @Override
+            public void intervalChanged(final IntervalChangedEvent event) {
+                request();
+            }
+        };
+        calendar.addIntervalChangedListener(intervalListener);
+        request();
+    }
+
+    /**
+     * Stops loading. The events loaded so far stay in the calendar.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        calendar.removeIntervalChangedListener(intervalListener);
+    }
+
+    /**
+     * Requests the windows of the current interval and of its neighbours,
+     * those of the interval first, and evicts windows if the cache is full
+     */
+    private void request() {
+        if (closed)
+            return;
+        final Config config = calendar.getConfig();
+        final int first = CalendarUtil.toEpochDay(config.getIntervalStart().getTimeInMillis());
+        final int last = Math.max(first, CalendarUtil.toEpochDay(config.getIntervalEnd().getTimeInMillis() - 1));
+        final int length = last - first + 1;
+        final int firstVisible = windowOf(first);
+        final int lastVisible = windowOf(last);
+        final int firstWanted = windowOf(first - Math.max(length, windowDays));
+        final int lastWanted = windowOf(last + length);
+        wanted = ((long) firstWanted << 32) | (lastWanted & 0xFFFFFFFFL);
+
+        for (int window = firstVisible; window <= lastVisible; window++) {
+            request(window);
+        }
+        for (int window = lastVisible + 1; window <= lastWanted; window++) {
+            request(window);
+        }
+        for (int window = firstVisible - 1; window >= firstWanted; window--) {
+            request(window);
+        }
+        evict();
+    }
+
+    private void request(final int window) {
+        if (windows.get(window) == null && loading.add(window))
+            executor.execute(new Load(window));
+    }
+
+    /**
+     * @return whether the given window is part of the interval on display or
+     *         of its neighbours. Called on any thread.
+     */
+    private boolean isWanted(final int window) {
+        final long current = wanted;
+        return window >= (int) (current >> 32) && window <= (int) current;
+    }
+
+    /**
+     * Removes the least recently used windows which are not wanted until at
+     * most {@link #capacity} windows are left
+     */
+    private void evict() {
+        int excess = windows.size() - capacity;
+        if (excess <= 0)
+            return;
+        final List<CalendarEvent> evicted = new ArrayList<CalendarEvent>();
+        for (final Iterator<Map.Entry<Integer, List<CalendarEvent>>> it = windows.entrySet().iterator(); excess > 0
+                && it.hasNext(); ) {
+            final Map.Entry<Integer, List<CalendarEvent>> entry = it.next();
+            if (isWanted(entry.getKey()))
+                continue;
+            evicted.addAll(entry.getValue());
+            it.remove();
+            excess--;
+        }
+        if (!evicted.isEmpty())
+            collection.removeAll(evicted);
+    }
+
+    /**
+     * Adds the events of a window to the calendar. Called on the event
+     * dispatch thread.
+     *
+     * @param window
+     * @param events the events of the window, null if it has been skipped or
+     *               has failed
+     * @param error  the reason the window has failed, null otherwise
+     */
+    private void loaded(final int window, final List<CalendarEvent> events, final Throwable error) {
+        loading.remove(window);
+        if (closed)
+            return;
+        if (events != null) {
+            windows.put(window, events);
+            collection.addAll(events);
+            evict();
+        }
+        if (listener != null && (events != null || error != null)) {
+            final int count = events == null ? 0 : events.size();
+            listener.loadFinished(new LoadEvent(calendar, count, count, error));
+        }
+    }
+
+    /**
+     * @return the window holding the given epoch day
+     */
+    private int windowOf(final int epochDay) {
+        return epochDay >= 0 ? epochDay / windowDays : -((-epochDay - 1) / windowDays) - 1;
+    }
+
+    /**
+     * @return whether no window is being loaded. Called on the event dispatch
+     *         thread.
+     */
+    boolean isIdle() {
+        return loading.isEmpty();
+    }
+
+    /**
+     * Requests one window from the provider
+     */
+    private final class Load implements Runnable {
+
+        private final int window;
+
+        Load(final int window) {
+            this.window = window;
+        }
+
+        @Override
+        public void run() {
+            List<CalendarEvent> events = null;
+            Throwable error = null;
+            if (!closed && isWanted(window)) {
+                try {
+                    events = new ArrayList<CalendarEvent>(provider.getEvents(
+                            new Date(CalendarUtil.startOfEpochDay(window * windowDays)),
+                            new Date(CalendarUtil.startOfEpochDay((window + 1) * windowDays))));
+                } catch (final IOException | RuntimeException e) {
+                    error = e;
+                }
+            }
+            final List<CalendarEvent> result = events;
+            final Throwable failure = error;
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    loaded(window, result, failure);
+                }
+            });
+        }
+    }
+}
@@ -17,6 +17,9 @@ package de.costache.calendar.util;
 
 import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * 
@@ -24,6 +27,9 @@ import java.awt.Graphics;
  * 
  */
 public class GraphicsUtil {
+
+	private static final TextLayoutCache LAYOUTS = new TextLayoutCache(4096);
+
 	/**
 	 * 
 	 * @param g
@@ -33,14 +39,39 @@ public class GraphicsUtil {
 	 * @param width
 	 */
 	public static void drawString(Graphics g, String s, int x, int y, int width, int height) {
-		// FontMetrics gives us information about the width,
-		// height, etc. of the current Graphics object's Font.
-		FontMetrics fm = g.getFontMetrics();
+		layoutString(g.getFontMetrics(), s, width, height).draw(g, x, y);
+	}
+
+	/**
+	 * Breaks the given string into words which fit the given width, trimming
+	 * the words which do not fit a line on their own and cutting the text
+	 * which exceeds the given height. Layouts are cached.
+	 * 
+	 * @param fm
+	 * @param s
+	 * @param width
+	 * @param height
+	 * @return the positioned fragments
+	 */
+	public static WrappedText layoutString(FontMetrics fm, String s, int width, int height) {
+		final TextLayoutCache.Key key = new TextLayoutCache.Key(s, fm.getFont(), fm.getFontRenderContext(), width,
+				Math.max(height, 0));
+		WrappedText text = LAYOUTS.get(key);
+		if (text == null) {
+			text = computeString(fm, s, width, height);
+			LAYOUTS.put(key, text);
+		}
+		return text;
+	}
+
+	private static WrappedText computeString(FontMetrics fm, String s, int width, int height) {
+		final List<String> fragments = new ArrayList<String>();
+		final List<int[]> positions = new ArrayList<int[]>();
 
 		int lineHeight = fm.getHeight();
 		int textHeight = 0;
-		int curX = x;
-		int curY = y;
+		int curX = 0;
+		int curY = 0;
 
 		String[] words = s.split(" ");
 
@@ -49,16 +80,14 @@ public class GraphicsUtil {
 			int wordWidth = fm.stringWidth(word + " ");
 
 			// If text exceeds the width, then move to next line.
-			if (curX + wordWidth >= x + width) {
+			if (curX + wordWidth >= width) {
 				curY += lineHeight;
 				textHeight += lineHeight;
-				curX = x;
+				curX = 0;
 			}
-			int charIdx = word.length();
 			boolean textTrimmed = false;
-			while (charIdx > 0 && wordWidth >= width) {
-				charIdx -= 1;
-				word = word.substring(0, charIdx);
+			if (word.length() > 0 && wordWidth >= width) {
+				word = word.substring(0, fitPrefix(fm, word, width));
 				wordWidth = fm.stringWidth(word + " ");
 				textTrimmed = true;
 			}
@@ -66,14 +95,19 @@ public class GraphicsUtil {
 					: word.length() > 2 ? word : "";
 
 			if (textHeight + lineHeight > height) {
-				g.drawString("...", curX, curY);
+				fragments.add("...");
+				positions.add(new int[] { curX, curY });
 				break;
 			}
-			g.drawString(word, curX, curY);
+			if (word.length() > 0) {
+				fragments.add(word);
+				positions.add(new int[] { curX, curY });
+			}
 
 			// Move over to the right for next word.
 			curX += wordWidth;
 		}
+		return new WrappedText(fragments, positions);
 	}
 
 	/**
@@ -85,27 +119,63 @@ public class GraphicsUtil {
 	 * @param width
 	 */
 	public static void drawTrimmedString(Graphics g, String s, int x, int y, int width) {
-		// FontMetrics gives us information about the width,
-		// height, etc. of the current Graphics object's Font.
+		layoutTrimmedString(g.getFontMetrics(), s, width).draw(g, x, y);
+	}
 
+	/**
+	 * Trims the given string to the given width. Layouts are cached.
+	 * 
+	 * @param fm
+	 * @param s
+	 * @param width
+	 * @return the single fragment
+	 */
+	public static WrappedText layoutTrimmedString(FontMetrics fm, String s, int width) {
         if(s == null)
             s = "" + s;
 
-		FontMetrics fm = g.getFontMetrics();
-
-		int wordWidth = fm.stringWidth(s + " ");
+		final TextLayoutCache.Key key = new TextLayoutCache.Key(s, fm.getFont(), fm.getFontRenderContext(), width,
+				-1);
+		WrappedText text = LAYOUTS.get(key);
+		if (text == null) {
+			text = computeTrimmedString(fm, s, width);
+			LAYOUTS.put(key, text);
+		}
+		return text;
+	}
 
-		int charIdx = s.length();
+	private static WrappedText computeTrimmedString(FontMetrics fm, String s, int width) {
 		boolean textTrimmed = false;
-		while (charIdx > 0 && wordWidth >= width) {
-			charIdx -= 1;
-			s = s.substring(0, charIdx);
-			wordWidth = fm.stringWidth(s + " ");
+		if (s.length() > 0 && fm.stringWidth(s + " ") >= width) {
+			s = s.substring(0, fitPrefix(fm, s, width));
 			textTrimmed = true;
 		}
 		s = s.length() > 3 && textTrimmed ? s.substring(0, s.length() - 3) + "..." : s.length() > 2 ? s : "";
 
-		g.drawString(s, x, y);
+		return new WrappedText(Collections.singletonList(s), Collections.singletonList(new int[] { 0, 0 }));
+	}
 
+	/**
+	 * Binary search for the longest prefix of the given word which, followed
+	 * by a space, is narrower than the given width. The word itself is known
+	 * not to fit.
+	 * 
+	 * @param fm
+	 * @param word
+	 * @param width
+	 * @return the length of the prefix, 0 if no prefix fits
+	 */
+	private static int fitPrefix(FontMetrics fm, String word, int width) {
+		int low = 0;
+		int high = word.length() - 1;
+		while (low < high) {
+			final int middle = (low + high + 1) >>> 1;
+			if (fm.stringWidth(word.substring(0, middle) + " ") < width) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
 	}
 }
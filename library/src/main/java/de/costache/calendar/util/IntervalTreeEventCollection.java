@@ -0,0 +1,139 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+
+import java.util.*;
+
+/**
+ * {@link EventCollection} backed by an {@link EventIntervalTree}. Lookups
+ * cost O(log n + k), adds and removes O(log n) independent of the number of
+ * days an event spans.
+ *
+ * @author theodorcostache
+ */
+class IntervalTreeEventCollection extends AbstractEventCollection {
+
+    private EventIntervalTree tree;
+
+    /**
+     * Creates a new instance of {@link IntervalTreeEventCollection}
+     */
+    public IntervalTreeEventCollection(final JCalendar parent) {
+        super(parent);
+        this.tree = new EventIntervalTree();
+    }
+
+    @Override
+    public void add(final CalendarEvent calendarEvent) {
+        if (addSeries(calendarEvent) || !tree.add(calendarEvent))
+            return;
+        calendarEvent.addObserver(this);
+
+        fireEventAdded(calendarEvent);
+    }
+
+    @Override
+    public void addAll(final Collection<CalendarEvent> calendarEvents) {
+        beginUpdate();
+        try {
+            final List<CalendarEvent> indexed = new ArrayList<CalendarEvent>(calendarEvents.size());
+            for (final CalendarEvent calendarEvent : calendarEvents) {
+                if (!addSeries(calendarEvent))
+                    indexed.add(calendarEvent);
+            }
+            final List<CalendarEvent> added = new ArrayList<CalendarEvent>(indexed.size());
+            tree.addAll(indexed, added);
+            for (final CalendarEvent calendarEvent : added) {
+                calendarEvent.addObserver(this);
+                fireEventAdded(calendarEvent);
+            }
+        } finally {
+            endUpdate();
+        }
+    }
+
+    @Override
+    public void remove(final CalendarEvent calendarEvent) {
+        if (removeSeries(calendarEvent) || !tree.remove(calendarEvent))
+            return;
+        calendarEvent.removeObserver(this);
+        deselect(calendarEvent);
+
+        fireEventRemoved(calendarEvent);
+    }
+
+    @Override
+    public Collection<CalendarEvent> getEvents(final Date date) {
+        final Date day = CalendarUtil.stripTime(date);
+        final List<CalendarEvent> result = new ArrayList<CalendarEvent>();
+        final long to = CalendarUtil.createInDays(day, 1).getTime();
+        tree.query(day.getTime(), to, result);
+        if (addOccurrences(day.getTime(), to, result))
+            Collections.sort(result);
+        return result;
+    }
+
+    @Override
+    public EventBuckets getEvents(final Date from, final Date to) {
+        final EventBuckets result = new EventBuckets(from, to);
+        final List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+        tree.query(result.getStart(), result.getEnd(), events);
+        for (final CalendarEvent event : events) {
+            final int first = Math.max(0, result.indexOf(event.getStart().getTime()));
+            final int last = Math.min(result.size() - 1, result.indexOf(event.getEnd().getTime()));
+            for (int i = first; i <= last; i++) {
+                result.add(i, event);
+            }
+        }
+        addOccurrences(result);
+        return result;
+    }
+
+    @Override
+    public Collection<CalendarEvent> getAllEvents() {
+        final List<CalendarEvent> result = new ArrayList<CalendarEvent>(size());
+        tree.values(result);
+        getSeries(result);
+        return result;
+    }
+
+    @Override
+    protected EventIndex newIndex() {
+        return new EventIntervalTree();
+    }
+
+    @Override
+    protected EventIndex getIndex() {
+        return tree;
+    }
+
+    @Override
+    protected void setIndex(final EventIndex index) {
+        tree = (EventIntervalTree) index;
+    }
+
+    @Override
+    protected void reindex(final CalendarEvent calendarEvent) {
+        tree.update(calendarEvent);
+    }
+
+    public int size() {
+        return tree.size() + getSeriesCount();
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.Occurrence;
+import de.costache.calendar.model.RecurringEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The recurring events of a collection and a bounded cache of their
+ * expanded occurrences.
+ * <p>
+ * Occurrences are expanded per series in windows of {@link #WINDOW_DAYS}
+ * days, each holding the occurrences starting in it. A query expands only
+ * the windows it touches; the windows are kept in least recently used order
+ * and evicted once more than {@link #MAX_OCCURRENCES} occurrences are
+ * cached. An occurrence therefore keeps its identity, and with it its
+ * selection, as long as its window stays cached.
+ *
+ * @author theodorcostache
+ */
+final class OccurrenceCache {
+
+    static final int WINDOW_DAYS = 32;
+    static final int MAX_OCCURRENCES = 1 << 16;
+    private static final Occurrence[] NO_OCCURRENCES = new Occurrence[0];
+
+    private final Set<RecurringEvent> series;
+    private final LinkedHashMap<Window, Occurrence[]> windows;
+    private int cached;
+
+    OccurrenceCache() {
+        series = Collections.newSetFromMap(new IdentityHashMap<RecurringEvent, Boolean>());
+        windows = new LinkedHashMap<Window, Occurrence[]>(64, 0.75f, true);
+    }
+
+    /**
+     * @param recurringEvent
+     * @return false if the series is already part of the cache
+     */
+    boolean add(final RecurringEvent recurringEvent) {
+        return series.add(recurringEvent);
+    }
+
+    /**
+     * @param recurringEvent
+     * @return false if the series is not part of the cache
+     */
+    boolean remove(final RecurringEvent recurringEvent) {
+        if (!series.remove(recurringEvent))
+            return false;
+        invalidate(recurringEvent);
+        return true;
+    }
+
+    boolean isEmpty() {
+        return series.isEmpty();
+    }
+
+    int size() {
+        return series.size();
+    }
+
+    Collection<RecurringEvent> getSeries() {
+        return series;
+    }
+
+    /**
+     * Drops the expanded windows of the given series, e.g. after its rule
+     * or its first occurrence has changed
+     *
+     * @param recurringEvent
+     */
+    void invalidate(final RecurringEvent recurringEvent) {
+        for (final Iterator<Map.Entry<Window, Occurrence[]>> it = windows.entrySet().iterator(); it.hasNext(); ) {
+            final Map.Entry<Window, Occurrence[]> entry = it.next();
+            if (entry.getKey().series == recurringEvent) {
+                cached -= entry.getValue().length;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Collects the occurrences of all series with start &lt; to and end
+     * &gt;= from
+     *
+     * @param from   epoch millis, inclusive
+     * @param to     epoch millis, exclusive
+     * @param result
+     * @return true if any occurrence has been added
+     */
+    boolean query(final long from, final long to, final Collection<CalendarEvent> result) {
+        boolean added = false;
+        for (final RecurringEvent recurringEvent : series) {
+            added |= query(recurringEvent, from, to, result);
+        }
+        return added;
+    }
+
+    /**
+     * Collects the occurrences of the series with the given resource with
+     * start &lt; to and end &gt;= from
+     *
+     * @param resource
+     * @param from     epoch millis, inclusive
+     * @param to       epoch millis, exclusive
+     * @param result
+     * @return true if any occurrence has been added
+     */
+    boolean query(final String resource, final long from, final long to, final Collection<CalendarEvent> result) {
+        boolean added = false;
+        for (final RecurringEvent recurringEvent : series) {
+            final String r = recurringEvent.getResource();
+            if (resource == null ? r == null : resource.equals(r))
+                added |= query(recurringEvent, from, to, result);
+        }
+        return added;
+    }
+
+    private boolean query(final RecurringEvent recurringEvent, final long from, final long to,
+                          final Collection<CalendarEvent> result) {
+        if (to <= recurringEvent.getStart().getTime())
+            return false;
+        final long earliestStart = Math.max(recurringEvent.getStart().getTime(), from - recurringEvent.getDuration());
+        final int first = Math.floorDiv(CalendarUtil.toEpochDay(earliestStart), WINDOW_DAYS);
+        final int last = Math.floorDiv(CalendarUtil.toEpochDay(to - 1), WINDOW_DAYS);
+        boolean added = false;
+        for (int window = first; window <= last; window++) {
+            for (final Occurrence occurrence : getWindow(recurringEvent, window)) {
+                final long start = occurrence.getStart().getTime();
+                if (start < to && occurrence.getEnd().getTime() >= from) {
+                    result.add(occurrence);
+                    added = true;
+                }
+            }
+        }
+        return added;
+    }
+
+    private Occurrence[] getWindow(final RecurringEvent recurringEvent, final int window) {
+        final Window key = new Window(recurringEvent, window);
+        Occurrence[] occurrences = windows.get(key);
+        if (occurrences == null) {
+            occurrences = expand(recurringEvent, window);
+            windows.put(key, occurrences);
+            cached += occurrences.length;
+            evict();
+        }
+        return occurrences;
+    }
+
+    private static Occurrence[] expand(final RecurringEvent recurringEvent, final int window) {
+        final List<Long> starts = new ArrayList<Long>();
+        recurringEvent.getRecurrence().getStarts(recurringEvent.getStart(),
+                CalendarUtil.startOfEpochDay(window * WINDOW_DAYS),
+                CalendarUtil.startOfEpochDay((window + 1) * WINDOW_DAYS), starts);
+        if (starts.isEmpty())
+            return NO_OCCURRENCES;
+        final long duration = recurringEvent.getDuration();
+        final List<Occurrence> result = new ArrayList<Occurrence>(starts.size());
+        for (final Long start : starts) {
+            if (!recurringEvent.isException(start))
+                result.add(new Occurrence(recurringEvent, start, start + duration));
+        }
+        return result.toArray(new Occurrence[result.size()]);
+    }
+
+    /**
+     * Evicts the least recently used windows until at most
+     * {@link #MAX_OCCURRENCES} occurrences are cached, keeping the most
+     * recent one even if it is larger
+     */
+    private void evict() {
+        final Iterator<Map.Entry<Window, Occurrence[]>> it = windows.entrySet().iterator();
+        while (cached > MAX_OCCURRENCES && windows.size() > 1) {
+            final Map.Entry<Window, Occurrence[]> entry = it.next();
+            cached -= entry.getValue().length;
+            it.remove();
+        }
+    }
+
+    /**
+     * The key of the occurrences of a series starting in a window
+     */
+    private static final class Window {
+
+        final RecurringEvent series;
+        final int index;
+
+        Window(final RecurringEvent series, final int index) {
+            this.series = series;
+            this.index = index;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(series) + index;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Window))
+                return false;
+            final Window other = (Window) obj;
+            return series == other.series && index == other.index;
+        }
+    }
+}
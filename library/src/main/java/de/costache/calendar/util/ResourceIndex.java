@@ -0,0 +1,129 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import de.costache.calendar.model.CalendarEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link EventIntervalTree}s partitioned by the resource of the events, so
+ * that the events of one resource in an interval are found in
+ * O(log n + k) without looking at the events of the other resources. Events
+ * without a resource share the partition of the null key.
+ *
+ * @author theodorcostache
+ */
+final class ResourceIndex {
+
+    /**
+     * Orders the resources by their id, events without resource last
+     */
+    static final Comparator<String> RESOURCE_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(final String a, final String b) {
+            if (a == null)
+                return b == null ? 0 : 1;
+            if (b == null)
+                return -1;
+            return a.compareTo(b);
+        }
+    };
+
+    private final Map<String, EventIntervalTree> trees;
+    private List<String> resources;
+
+    ResourceIndex() {
+        trees = new HashMap<String, EventIntervalTree>();
+    }
+
+    /**
+     * Adds the given event to the partition of its current resource
+     *
+     * @param calendarEvent
+     */
+    void add(final CalendarEvent calendarEvent) {
+        final String resource = calendarEvent.getResource();
+        EventIntervalTree tree = trees.get(resource);
+        if (tree == null) {
+            tree = new EventIntervalTree();
+            trees.put(resource, tree);
+            resources = null;
+        }
+        tree.add(calendarEvent);
+    }
+
+    /**
+     * Removes the given event from the partition of the given resource
+     *
+     * @param calendarEvent
+     * @param resource      the resource the event was added for
+     */
+    void remove(final CalendarEvent calendarEvent, final String resource) {
+        final EventIntervalTree tree = trees.get(resource);
+        if (tree == null || !tree.remove(calendarEvent))
+            return;
+        if (tree.size() == 0) {
+            trees.remove(resource);
+            resources = null;
+        }
+    }
+
+    /**
+     * Moves the given event to the position given by its current start and
+     * end
+     *
+     * @param calendarEvent
+     */
+    void update(final CalendarEvent calendarEvent) {
+        final EventIntervalTree tree = trees.get(calendarEvent.getResource());
+        if (tree != null)
+            tree.update(calendarEvent);
+    }
+
+    /**
+     * Collects the events of the given resource with start &lt; to and end
+     * &gt;= from, ordered by start and end
+     *
+     * @param resource
+     * @param from     epoch millis, inclusive
+     * @param to       epoch millis, exclusive
+     * @param result
+     */
+    void query(final String resource, final long from, final long to, final Collection<CalendarEvent> result) {
+        final EventIntervalTree tree = trees.get(resource);
+        if (tree != null)
+            tree.query(from, to, result);
+    }
+
+    /**
+     * @return the resources having events, sorted by id with null last
+     */
+    List<String> getResources() {
+        if (resources == null) {
+            final List<String> result = new ArrayList<String>(trees.keySet());
+            Collections.sort(result, RESOURCE_ORDER);
+            resources = Collections.unmodifiableList(result);
+        }
+        return resources;
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of the {@link WrappedText}s computed by
+ * {@link GraphicsUtil}, keyed by the string, the font, the render context of
+ * the metrics and the available space. Re-laying out a day whose events did
+ * not change, e.g. after a resize or a change of another event, then costs
+ * no font measurement at all.
+ *
+ * @author theodorcostache
+ */
+final class TextLayoutCache {
+
+    private final Map<Key, WrappedText> layouts;
+
+    /**
+     * @param capacity the number of layouts kept before the least recently
+     *                 used one is evicted
+     */
+    TextLayoutCache(final int capacity) {
+        this.layouts = new LinkedHashMap<Key, WrappedText>(capacity * 4 / 3 + 1, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, WrappedText> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    synchronized WrappedText get(final Key key) {
+        return layouts.get(key);
+    }
+
+    synchronized void put(final Key key, final WrappedText text) {
+        layouts.put(key, text);
+    }
+
+    synchronized int size() {
+        return layouts.size();
+    }
+
+    /**
+     * The inputs of a layout. The height is -1 for a trimmed single line.
+     */
+    static final class Key {
+
+        private final String text;
+        private final Font font;
+        private final FontRenderContext frc;
+        private final int width;
+        private final int height;
+        private final int hash;
+
+        Key(final String text, final Font font, final FontRenderContext frc, final int width, final int height) {
+            this.text = text;
+            this.font = font;
+            this.frc = frc;
+            this.width = width;
+            this.height = height;
+            int h = text.hashCode();
+            h = 31 * h + font.hashCode();
+            h = 31 * h + frc.hashCode();
+            h = 31 * h + width;
+            h = 31 * h + height;
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            final Key other = (Key) obj;
+            return hash == other.hash && width == other.width && height == other.height
+                    && text.equals(other.text) && font.equals(other.font) && frc.equals(other.frc);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import java.awt.Graphics;
+import java.util.List;
+
+/**
+ * A string broken into fragments positioned relative to the baseline of its
+ * first line, as computed by {@link GraphicsUtil#layoutString}. Drawing it
+ * again needs no font metrics.
+ *
+ * @author theodorcostache
+ */
+public final class WrappedText {
+
+    private final String[] fragments;
+    private final int[] xs;
+    private final int[] ys;
+
+    WrappedText(final List<String> fragments, final List<int[]> positions) {
+        final int size = fragments.size();
+        this.fragments = fragments.toArray(new String[size]);
+        this.xs = new int[size];
+        this.ys = new int[size];
+        for (int i = 0; i < size; i++) {
+            xs[i] = positions.get(i)[0];
+            ys[i] = positions.get(i)[1];
+        }
+    }
+
+    /**
+     * @return the number of fragments
+     */
+    public int size() {
+        return fragments.length;
+    }
+
+    /**
+     * @param index
+     * @return the fragment at the given index
+     */
+    public String getFragment(final int index) {
+        return fragments[index];
+    }
+
+    /**
+     * Draws the text with the current font and color of the given graphics
+     *
+     * @param g
+     * @param x
+     * @param y the baseline of the first line
+     */
+    public void draw(final Graphics g, final int x, final int y) {
+        for (int i = 0; i < fragments.length; i++) {
+            g.drawString(fragments[i], x + xs[i], y + ys[i]);
+        }
+    }
+}
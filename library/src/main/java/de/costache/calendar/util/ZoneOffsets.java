@@ -0,0 +1,115 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The UTC offsets of a time zone as a table of transitions, so that local
+ * time can be computed from epoch millis with a binary search and no
+ * allocation. The table covers the years 1900 to 2200; instants outside of
+ * it are resolved through the {@link ZoneRules} directly.
+ *
+ * @author theodorcostache
+ */
+final class ZoneOffsets {
+
+    private static final long TABLE_START = Instant.parse("1900-01-01T00:00:00Z").toEpochMilli();
+    private static final long TABLE_END = Instant.parse("2200-01-01T00:00:00Z").toEpochMilli();
+
+    private final ZoneRules rules;
+    private final long start;
+    private final long end;
+    private final long[] transitions;
+    private final int[] offsets;
+
+    ZoneOffsets(final ZoneId zone) {
+        rules = zone.getRules();
+        if (rules.isFixedOffset()) {
+            start = Long.MIN_VALUE;
+            end = Long.MAX_VALUE;
+            transitions = new long[0];
+            offsets = new int[] { rules.getOffset(Instant.EPOCH).getTotalSeconds() * 1000 };
+            return;
+        }
+
+        final List<Long> instants = new ArrayList<Long>();
+        final List<Integer> values = new ArrayList<Integer>();
+        final Instant first = Instant.ofEpochMilli(TABLE_START);
+        values.add(rules.getOffset(first).getTotalSeconds() * 1000);
+        ZoneOffsetTransition transition = rules.nextTransition(first);
+        while (transition != null && transition.getInstant().toEpochMilli() < TABLE_END) {
+            instants.add(transition.getInstant().toEpochMilli());
+            values.add(transition.getOffsetAfter().getTotalSeconds() * 1000);
+            transition = rules.nextTransition(transition.getInstant());
+        }
+
+        start = TABLE_START;
+        end = TABLE_END;
+        transitions = new long[instants.size()];
+        offsets = new int[values.size()];
+        for (int i = 0; i < transitions.length; i++) {
+            transitions[i] = instants.get(i);
+        }
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = values.get(i);
+        }
+    }
+
+    /**
+     * @param millis epoch millis
+     * @return the offset from UTC in millis at the given instant
+     */
+    int getOffset(final long millis) {
+        if (millis < start || millis >= end)
+            return rules.getOffset(Instant.ofEpochMilli(millis)).getTotalSeconds() * 1000;
+        int low = 0;
+        int high = transitions.length - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (transitions[middle] <= millis) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return offsets[low];
+    }
+
+    /**
+     * Converts local time to epoch millis. A local time skipped by a
+     * transition is moved forward by the length of the gap, as a lenient
+     * {@link java.util.Calendar} does.
+     *
+     * @param local millis of local time since 1970-01-01T00:00
+     * @return epoch millis
+     */
+    long toEpochMillis(final long local) {
+        final int offset = getOffset(local);
+        final int adjusted = getOffset(local - offset);
+        if (offset == adjusted)
+            return local - offset;
+        final long millis = local - adjusted;
+        if (getOffset(millis) == adjusted)
+            return millis;
+        return local - Math.min(offset, adjusted);
+    }
+}
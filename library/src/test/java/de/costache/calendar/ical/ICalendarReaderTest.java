@@ -0,0 +1,173 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ical;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.EventType;
+import de.costache.calendar.model.RecurringEvent;
+import de.costache.calendar.util.CalendarUtil;
+import de.costache.calendar.util.EventCollection;
+import de.costache.calendar.util.EventCollectionRepository;
+
+/**
+ *
+ * @author theodorcostache
+ *
+ */
+public class ICalendarReaderTest {
+
+	/**
+	 * Test method for {@link de.costache.calendar.ical.ICalendarReader#next()}
+	 * .
+	 */
+	@Test
+	public void testReadsEventProperties() throws IOException {
+		ICalendarReader reader = new ICalendarReader(new StringReader(lines("BEGIN:VCALENDAR", "VERSION:2.0",
+				"BEGIN:VTIMEZONE", "TZID:Europe/Berlin", "BEGIN:STANDARD", "DTSTART:19701025T030000",
+				"END:STANDARD", "END:VTIMEZONE", "BEGIN:VEVENT", "UID:1",
+				"DTSTART;TZID=Europe/Berlin:20130610T100000", "DTEND;TZID=\"Europe/Berlin\":20130610T113000",
+				"SUMMARY:Project review\\, part 1", "DESCRIPTION:First line\\nsecond li", " ne", "LOCATION:Room 1",
+				"CATEGORIES:Work,Meetings", "RESOURCES:Room A", "PRIORITY:2", "BEGIN:VALARM", "TRIGGER:-PT15M",
+				"DESCRIPTION:Reminder", "END:VALARM", "END:VEVENT", "BEGIN:VEVENT", "DTSTART;VALUE=DATE:20130612",
+				"DTEND;VALUE=DATE:20130614", "SUMMARY:Conference", "END:VEVENT", "BEGIN:VEVENT",
+				"DTSTART:20130615T080000Z", "DURATION:PT1H30M", "SUMMARY:Breakfast", "END:VEVENT", "END:VCALENDAR")));
+		EventType work = new EventType();
+		work.setName("Work");
+		work.setBackgroundColor(Color.orange);
+		reader.addType(work);
+
+		CalendarEvent review = reader.next();
+		Assert.assertEquals(utc(2013, 6, 10, 8, 0), review.getStart());
+		Assert.assertEquals(utc(2013, 6, 10, 9, 30), review.getEnd());
+		Assert.assertEquals("Project review, part 1", review.getSummary());
+		Assert.assertEquals("First line\nsecond line", review.getDescription());
+		Assert.assertEquals("Room 1", review.getLocation());
+		Assert.assertSame(work, review.getType());
+		Assert.assertEquals("Room A", review.getResource());
+		Assert.assertEquals(2, review.getPriority());
+		Assert.assertFalse(review.isAllDay());
+
+		CalendarEvent conference = reader.next();
+		Assert.assertTrue(conference.isAllDay());
+		Assert.assertEquals(CalendarUtil.createDate(2013, 6, 12, 0, 0, 0, 0), conference.getStart());
+		Assert.assertEquals(CalendarUtil.createDate(2013, 6, 13, 0, 0, 0, 0), conference.getEnd());
+		Assert.assertEquals("default", conference.getType().getName());
+
+		CalendarEvent breakfast = reader.next();
+		Assert.assertEquals(utc(2013, 6, 15, 8, 0), breakfast.getStart());
+		Assert.assertEquals(utc(2013, 6, 15, 9, 30), breakfast.getEnd());
+
+		Assert.assertNull(reader.next());
+		reader.close();
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ical.ICalendarReader#readInto(de.costache.calendar.util.EventCollection)}
+	 * .
+	 */
+	@Test
+	public void testRecurrenceRulesAndOverrides() throws IOException {
+		ICalendarReader reader = new ICalendarReader(new StringReader(lines("BEGIN:VCALENDAR", "BEGIN:VEVENT",
+				"UID:standup", "RECURRENCE-ID:20130617T090000", "DTSTART:20130617T140000",
+				"DTEND:20130617T141500", "SUMMARY:Standup (moved)", "END:VEVENT", "BEGIN:VEVENT", "UID:standup",
+				"DTSTART:20130610T090000", "DTEND:20130610T091500", "RRULE:FREQ=WEEKLY;BYDAY=MO,WE;COUNT=6",
+				"EXDATE:20130612T090000", "SUMMARY:Standup", "END:VEVENT", "BEGIN:VEVENT", "UID:board",
+				"DTSTART:20130603T100000", "DTEND:20130603T120000", "RRULE:FREQ=MONTHLY;BYDAY=1MO",
+				"SUMMARY:Board", "END:VEVENT", "END:VCALENDAR")));
+		JCalendar calendar = new JCalendar(EventCollection.Type.INTERVAL_TREE);
+		EventCollection collection = EventCollectionRepository.get(calendar);
+
+		Assert.assertEquals(3, reader.readInto(collection));
+		Assert.assertEquals(3, collection.getAllEvents().size());
+
+		RecurringEvent standup = null;
+		for (CalendarEvent event : collection.getAllEvents()) {
+			if (event instanceof RecurringEvent)
+				standup = (RecurringEvent) event;
+			else if ("Board".equals(event.getSummary()))
+				Assert.assertEquals(CalendarUtil.createDate(2013, 6, 3, 12, 0, 0, 0), event.getEnd());
+		}
+		Assert.assertEquals("Standup", standup.getSummary());
+		List<Date> starts = new ArrayList<Date>();
+		for (CalendarEvent occurrence : standup.getOccurrences(CalendarUtil.createDate(2013, 6, 1, 0, 0, 0, 0),
+				CalendarUtil.createDate(2013, 8, 1, 0, 0, 0, 0))) {
+			starts.add(occurrence.getStart());
+		}
+		Assert.assertEquals(dates(CalendarUtil.createDate(2013, 6, 10, 9, 0, 0, 0),
+				CalendarUtil.createDate(2013, 6, 19, 9, 0, 0, 0), CalendarUtil.createDate(2013, 6, 24, 9, 0, 0, 0),
+				CalendarUtil.createDate(2013, 6, 26, 9, 0, 0, 0)), starts);
+
+		Collection<CalendarEvent> moved = collection.getEvents(CalendarUtil.createDate(2013, 6, 17, 0, 0, 0, 0));
+		Assert.assertEquals(1, moved.size());
+		Assert.assertEquals("Standup (moved)", moved.iterator().next().getSummary());
+		reader.close();
+	}
+
+	/**
+	 * Test method for {@link de.costache.calendar.ical.ICalendarReader#next()}
+	 * .
+	 */
+	@Test
+	public void testInvalidValueReportsLine() {
+		ICalendarReader reader = new ICalendarReader(new StringReader(lines("BEGIN:VCALENDAR", "BEGIN:VEVENT",
+				"SUMMARY:Broken", " feed", "DTSTART:2013-06-10", "END:VEVENT", "END:VCALENDAR")));
+		try {
+			reader.next();
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().endsWith("at line 5"));
+		}
+	}
+
+	static String lines(String... lines) {
+		StringBuilder result = new StringBuilder();
+		for (String line : lines) {
+			result.append(line).append("\r\n");
+		}
+		return result.toString();
+	}
+
+	private static Date utc(int year, int month, int day, int hour, int minute) {
+		Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+		calendar.clear();
+		calendar.set(year, month - 1, day, hour, minute);
+		return calendar.getTime();
+	}
+
+	private static List<Date> dates(Date... dates) {
+		List<Date> result = new ArrayList<Date>();
+		for (Date date : dates) {
+			result.add(date);
+		}
+		return result;
+	}
+}
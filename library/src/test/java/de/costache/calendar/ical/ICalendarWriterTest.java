@@ -0,0 +1,142 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ical;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.EventType;
+import de.costache.calendar.model.Recurrence;
+import de.costache.calendar.model.Recurrence.Frequency;
+import de.costache.calendar.model.RecurringEvent;
+import de.costache.calendar.util.CalendarUtil;
+import de.costache.calendar.util.EventCollection;
+import de.costache.calendar.util.EventCollectionRepository;
+
+/**
+ *
+ * @author theodorcostache
+ *
+ */
+public class ICalendarWriterTest {
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ical.ICalendarWriter#write(de.costache.calendar.util.EventCollection, java.util.Date, java.util.Date)}
+	 * .
+	 */
+	@Test
+	public void testWrittenEventsAreReadBackUnchanged() throws IOException {
+		EventCollection collection = EventCollectionRepository.get(new JCalendar(EventCollection.Type.INTERVAL_TREE));
+		EventType work = new EventType();
+		work.setName("Work");
+
+		CalendarEvent review = new CalendarEvent("Review; part 1, draft", CalendarUtil.createDate(2013, 6, 10, 10, 0,
+				0, 0), CalendarUtil.createDate(2013, 6, 10, 11, 30, 0, 0), work);
+		review.setDescription("Agenda:\n\u00c4nderungen der Gr\u00f6\u00dfenberechnung \\ \u00dcberblick \u00fcber alle Ma\u00dfnahmen f\u00fcr das "
+				+ "n\u00e4chste Quartal, einschlie\u00dflich der offenen Punkte");
+		review.setLocation("Room 1");
+		review.setResource("Room A");
+		review.setPriority(3);
+		CalendarEvent conference = new CalendarEvent("Conference", CalendarUtil.createDate(2013, 6, 12, 0, 0, 0, 0),
+				CalendarUtil.createDate(2013, 6, 13, 0, 0, 0, 0));
+		conference.setAllDay(true);
+		RecurringEvent standup = new RecurringEvent("Standup", CalendarUtil.createDate(2013, 6, 3, 9, 30, 0, 0),
+				CalendarUtil.createDate(2013, 6, 3, 9, 45, 0, 0), new Recurrence(Frequency.WEEKLY, 2, 0,
+						CalendarUtil.createDate(2013, 8, 1, 0, 0, 0, 0), Calendar.MONDAY, Calendar.FRIDAY));
+		standup.addException(CalendarUtil.createDate(2013, 6, 14, 9, 30, 0, 0));
+		CalendarEvent outside = new CalendarEvent("Outside", CalendarUtil.createDate(2013, 8, 10, 10, 0, 0, 0),
+				CalendarUtil.createDate(2013, 8, 10, 11, 0, 0, 0));
+		RecurringEvent cancelled = new RecurringEvent("Cancelled", CalendarUtil.createDate(2013, 5, 30, 14, 0, 0, 0),
+				CalendarUtil.createDate(2013, 5, 30, 15, 0, 0, 0), new Recurrence(Frequency.WEEKLY, 4, 3, null));
+		cancelled.addException(CalendarUtil.createDate(2013, 6, 27, 14, 0, 0, 0));
+		collection.add(review);
+		collection.add(conference);
+		collection.add(standup);
+		collection.add(outside);
+		collection.add(cancelled);
+
+		StringWriter out = new StringWriter();
+		ICalendarWriter writer = new ICalendarWriter(out);
+		Assert.assertEquals(3, writer.write(collection, CalendarUtil.createDate(2013, 6, 1, 0, 0, 0, 0),
+				CalendarUtil.createDate(2013, 7, 1, 0, 0, 0, 0)));
+		writer.close();
+
+		String text = out.toString();
+		Assert.assertTrue(text.startsWith("BEGIN:VCALENDAR\r\n"));
+		Assert.assertTrue(text.endsWith("END:VCALENDAR\r\n"));
+		for (String line : text.split("\r\n")) {
+			Assert.assertTrue(line, line.getBytes(StandardCharsets.UTF_8).length <= 75);
+		}
+
+		ICalendarReader reader = new ICalendarReader(new StringReader(text));
+		List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+		CalendarEvent event;
+		while ((event = reader.next()) != null) {
+			events.add(event);
+		}
+		reader.close();
+		Collections.sort(events);
+		Assert.assertEquals(3, events.size());
+
+		RecurringEvent readStandup = (RecurringEvent) events.get(0);
+		Assert.assertEquals(standup.getStart(), readStandup.getStart());
+		Assert.assertEquals(standup.getEnd(), readStandup.getEnd());
+		Assert.assertEquals(standup.getRecurrence(), readStandup.getRecurrence());
+		Assert.assertEquals(standup.getExceptions(), readStandup.getExceptions());
+
+		assertSameEvent(review, events.get(1));
+		Assert.assertEquals(work, events.get(1).getType());
+		assertSameEvent(conference, events.get(2));
+	}
+
+	/**
+	 * Test method for {@link de.costache.calendar.ical.ICalendarWriter#close()}
+	 * .
+	 */
+	@Test
+	public void testEmptyCalendar() throws IOException {
+		StringWriter out = new StringWriter();
+		new ICalendarWriter(out).close();
+		Assert.assertEquals(ICalendarReaderTest.lines("BEGIN:VCALENDAR", "VERSION:2.0",
+				"PRODID:-//Theodor Costache//JCalendar//EN", "CALSCALE:GREGORIAN", "END:VCALENDAR"), out.toString());
+		Assert.assertNull(new ICalendarReader(new StringReader(out.toString())).next());
+	}
+
+	private static void assertSameEvent(CalendarEvent expected, CalendarEvent actual) {
+		Assert.assertEquals(expected.getStart(), actual.getStart());
+		Assert.assertEquals(expected.getEnd(), actual.getEnd());
+		Assert.assertEquals(expected.getSummary(), actual.getSummary());
+		Assert.assertEquals(expected.getDescription(), actual.getDescription());
+		Assert.assertEquals(expected.getLocation(), actual.getLocation());
+		Assert.assertEquals(expected.getResource(), actual.getResource());
+		Assert.assertEquals(expected.getPriority(), actual.getPriority());
+		Assert.assertEquals(expected.isAllDay(), actual.isAllDay());
+		Assert.assertEquals(expected.getType().getName(), actual.getType().getName());
+	}
+}
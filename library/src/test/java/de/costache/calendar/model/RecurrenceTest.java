@@ -0,0 +1,234 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.costache.calendar.model.Recurrence.Frequency;
+import de.costache.calendar.util.CalendarUtil;
+
+/**
+ *
+ * @author theodorcostache
+ *
+ */
+public class RecurrenceTest {
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.model.Recurrence#getStarts(java.util.Date, long, long, java.util.Collection)}
+	 * .
+	 */
+	@Test
+	public void testCountIsCountedFromTheFirstOccurrence() {
+		Recurrence recurrence = new Recurrence(Frequency.DAILY, 1, 5, null);
+		Date first = CalendarUtil.createDate(2013, 3, 10, 9, 0, 0, 0);
+
+		Assert.assertEquals(dates(CalendarUtil.createDate(2013, 3, 12, 9, 0, 0, 0),
+				CalendarUtil.createDate(2013, 3, 13, 9, 0, 0, 0), CalendarUtil.createDate(2013, 3, 14, 9, 0, 0, 0)),
+				starts(recurrence, first, CalendarUtil.createDate(2013, 3, 12, 0, 0, 0, 0),
+						CalendarUtil.createDate(2013, 4, 1, 0, 0, 0, 0)));
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.model.Recurrence#getStarts(java.util.Date, long, long, java.util.Collection)}
+	 * .
+	 */
+	@Test
+	public void testWeeklyByDayEveryOtherWeek() {
+		Recurrence recurrence = new Recurrence(Frequency.WEEKLY, 2, 0, null, Calendar.FRIDAY, Calendar.MONDAY,
+				Calendar.WEDNESDAY);
+		Date first = CalendarUtil.createDate(2013, 3, 6, 10, 0, 0, 0);
+
+		Assert.assertEquals(dates(CalendarUtil.createDate(2013, 3, 6, 10, 0, 0, 0),
+				CalendarUtil.createDate(2013, 3, 8, 10, 0, 0, 0), CalendarUtil.createDate(2013, 3, 18, 10, 0, 0, 0),
+				CalendarUtil.createDate(2013, 3, 20, 10, 0, 0, 0), CalendarUtil.createDate(2013, 3, 22, 10, 0, 0, 0),
+				CalendarUtil.createDate(2013, 4, 1, 10, 0, 0, 0)),
+				starts(recurrence, first, CalendarUtil.createDate(2013, 3, 1, 0, 0, 0, 0),
+						CalendarUtil.createDate(2013, 4, 2, 0, 0, 0, 0)));
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.model.Recurrence#getStarts(java.util.Date, long, long, java.util.Collection)}
+	 * .
+	 */
+	@Test
+	public void testMonthlySkipsMonthsWithoutTheDay() {
+		Recurrence recurrence = new Recurrence(Frequency.MONTHLY, 1, 4, null);
+		Date first = CalendarUtil.createDate(2013, 1, 31, 8, 0, 0, 0);
+
+		Assert.assertEquals(dates(CalendarUtil.createDate(2013, 1, 31, 8, 0, 0, 0),
+				CalendarUtil.createDate(2013, 3, 31, 8, 0, 0, 0), CalendarUtil.createDate(2013, 5, 31, 8, 0, 0, 0),
+				CalendarUtil.createDate(2013, 7, 31, 8, 0, 0, 0)),
+				starts(recurrence, first, first, CalendarUtil.createDate(2014, 1, 1, 0, 0, 0, 0)));
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.model.Recurrence#getStarts(java.util.Date, long, long, java.util.Collection)}
+	 * .
+	 */
+	@Test
+	public void testUntilIsInclusiveAndLocalTimeIsKeptAcrossDst() {
+		TimeZone original = TimeZone.getDefault();
+		try {
+			TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+			CalendarUtil.resetTimeZone();
+			Recurrence recurrence = new Recurrence(Frequency.DAILY, 1, 0, CalendarUtil.createDate(2013, 4, 2, 9, 0, 0,
+					0));
+			Date first = CalendarUtil.createDate(2013, 3, 29, 9, 0, 0, 0);
+
+			List<Date> starts = starts(recurrence, first, first, CalendarUtil.createDate(2013, 5, 1, 0, 0, 0, 0));
+			Assert.assertEquals(5, starts.size());
+			for (Date start : starts) {
+				Assert.assertEquals(9 * 3600, CalendarUtil.getSecondOfDay(start.getTime()));
+			}
+		} finally {
+			TimeZone.setDefault(original);
+			CalendarUtil.resetTimeZone();
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.model.Recurrence#getStarts(java.util.Date, long, long, java.util.Collection)}
+	 * .
+	 */
+	@Test
+	public void testSkippedPeriodsMatchEnumeration() {
+		Random r = new Random(11);
+		Date first = CalendarUtil.createDate(2010, 1, 29, 18, 30, 0, 0);
+		Date end = CalendarUtil.createDate(2016, 1, 1, 0, 0, 0, 0);
+		for (int i = 0; i < 200; i++) {
+			Frequency frequency = Frequency.values()[r.nextInt(4)];
+			int[] byDay = frequency == Frequency.WEEKLY && r.nextBoolean() ? new int[] { 1 + r.nextInt(7),
+					1 + r.nextInt(7) } : new int[0];
+			Recurrence recurrence = new Recurrence(frequency, 1 + r.nextInt(3), 0, null, byDay);
+			List<Date> all = starts(recurrence, first, first, end);
+
+			Date from = CalendarUtil.createInDays(first, r.nextInt(2000));
+			Date to = CalendarUtil.createInDays(from, r.nextInt(400));
+			to = to.after(end) ? end : to;
+			List<Date> expected = new ArrayList<Date>();
+			for (Date start : all) {
+				if (!start.before(from) && start.before(to))
+					expected.add(start);
+			}
+			Assert.assertEquals(recurrence.toString(), expected, starts(recurrence, first, from, to));
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.model.RecurringEvent#getOccurrences(java.util.Date, java.util.Date)}
+	 * .
+	 */
+	@Test
+	public void testOccurrencesSkipExceptionsAndShareTheSeries() {
+		RecurringEvent standup = new RecurringEvent("Standup", CalendarUtil.createDate(2013, 3, 4, 9, 0, 0, 0),
+				CalendarUtil.createDate(2013, 3, 4, 9, 15, 0, 0), new Recurrence(Frequency.DAILY));
+		standup.addException(CalendarUtil.createDate(2013, 3, 6, 9, 0, 0, 0));
+
+		List<CalendarEvent> occurrences = standup.getOccurrences(CalendarUtil.createDate(2013, 3, 5, 9, 10, 0, 0),
+				CalendarUtil.createDate(2013, 3, 8, 0, 0, 0, 0));
+		Assert.assertEquals(2, occurrences.size());
+		Assert.assertEquals(CalendarUtil.createDate(2013, 3, 5, 9, 0, 0, 0), occurrences.get(0).getStart());
+		Assert.assertEquals(CalendarUtil.createDate(2013, 3, 7, 9, 15, 0, 0), occurrences.get(1).getEnd());
+
+		occurrences.get(0).setSummary("Retro");
+		Assert.assertEquals("Retro", standup.getSummary());
+		Assert.assertEquals("Retro", occurrences.get(1).getSummary());
+		Assert.assertEquals(occurrences.get(1), standup.getOccurrences(occurrences.get(1).getStart(),
+				occurrences.get(1).getEnd()).get(0));
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.model.Recurrence#getFirstStart(java.util.Date, long, long)}
+	 * .
+	 */
+	@Test
+	public void testFirstStartMatchesEnumeration() {
+		Random r = new Random(12);
+		Date first = CalendarUtil.createDate(2010, 1, 29, 18, 30, 0, 0);
+		for (int i = 0; i < 200; i++) {
+			Frequency frequency = Frequency.values()[r.nextInt(4)];
+			int[] byDay = frequency == Frequency.WEEKLY && r.nextBoolean() ? new int[] { 1 + r.nextInt(7),
+					1 + r.nextInt(7) } : new int[0];
+			Recurrence recurrence = new Recurrence(frequency, 1 + r.nextInt(3), r.nextBoolean() ? 0
+					: 1 + r.nextInt(50), null, byDay);
+			Date from = CalendarUtil.createInDays(first, r.nextInt(2000) - 10);
+			Date to = CalendarUtil.createInDays(from, r.nextInt(400));
+			List<Date> expected = starts(recurrence, first, from, to);
+			long start = recurrence.getFirstStart(first, from.getTime(), to.getTime());
+			if (expected.isEmpty())
+				Assert.assertEquals(recurrence.toString(), Recurrence.NO_START, start);
+			else
+				Assert.assertEquals(recurrence.toString(), expected.get(0).getTime(), start);
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.model.RecurringEvent#overlaps(java.util.Date, java.util.Date)}
+	 * .
+	 */
+	@Test
+	public void testOverlapsSkipsExceptions() {
+		RecurringEvent standup = new RecurringEvent("Standup", CalendarUtil.createDate(2013, 3, 4, 9, 0, 0, 0),
+				CalendarUtil.createDate(2013, 3, 4, 9, 15, 0, 0), new Recurrence(Frequency.DAILY, 1, 5, null));
+		standup.addException(CalendarUtil.createDate(2013, 3, 6, 9, 0, 0, 0));
+		standup.addException(CalendarUtil.createDate(2013, 3, 7, 9, 0, 0, 0));
+
+		Assert.assertTrue(standup.overlaps(CalendarUtil.createDate(2013, 3, 5, 9, 10, 0, 0),
+				CalendarUtil.createDate(2013, 3, 5, 9, 11, 0, 0)));
+		Assert.assertFalse(standup.overlaps(CalendarUtil.createDate(2013, 3, 5, 9, 20, 0, 0),
+				CalendarUtil.createDate(2013, 3, 8, 0, 0, 0, 0)));
+		Assert.assertTrue(standup.overlaps(CalendarUtil.createDate(2013, 3, 5, 9, 20, 0, 0),
+				CalendarUtil.createDate(2013, 3, 9, 0, 0, 0, 0)));
+		// the count ends the series on the 8th
+		Assert.assertFalse(standup.overlaps(CalendarUtil.createDate(2013, 3, 9, 0, 0, 0, 0),
+				CalendarUtil.createDate(2014, 1, 1, 0, 0, 0, 0)));
+		Assert.assertFalse(standup.overlaps(CalendarUtil.createDate(2013, 3, 1, 0, 0, 0, 0),
+				CalendarUtil.createDate(2013, 3, 4, 9, 0, 0, 0)));
+	}
+
+	private static List<Date> starts(Recurrence recurrence, Date first, Date from, Date to) {
+		List<Long> starts = new ArrayList<Long>();
+		recurrence.getStarts(first, from.getTime(), to.getTime(), starts);
+		List<Date> result = new ArrayList<Date>();
+		for (Long start : starts) {
+			result.add(new Date(start));
+		}
+		return result;
+	}
+
+	private static List<Date> dates(Date... dates) {
+		return Arrays.asList(dates);
+	}
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.EventType;
+import de.costache.calendar.model.Recurrence;
+import de.costache.calendar.model.Recurrence.Frequency;
+import de.costache.calendar.model.RecurringEvent;
+import de.costache.calendar.util.CalendarUtil;
+import de.costache.calendar.util.EventCollection;
+import de.costache.calendar.util.EventCollectionRepository;
+
+/**
+ *
+ * @author theodorcostache
+ *
+ */
+public class EventJournalTest {
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.store.EventJournal#EventJournal(java.io.File, de.costache.calendar.util.EventCollection)}
+	 * .
+	 */
+	@Test
+	public void testReplayRestoresEdits() throws IOException {
+		File directory = createDirectory();
+		EventCollection collection = newCollection();
+		CalendarEvent existing = meeting("Existing", 1);
+		collection.add(existing);
+
+		EventJournal journal = new EventJournal(directory, collection);
+		CalendarEvent moved = meeting("Moved", 2);
+		CalendarEvent removed = meeting("Removed", 3);
+		RecurringEvent standup = new RecurringEvent("Standup", CalendarUtil.createDate(2013, 3, 4, 9, 30, 0, 0),
+				CalendarUtil.createDate(2013, 3, 4, 9, 45, 0, 0), new Recurrence(Frequency.WEEKLY, 1, 0, null,
+						Calendar.MONDAY));
+		collection.add(moved);
+		collection.add(removed);
+		collection.add(standup);
+		collection.beginUpdate();
+		moved.setStart(CalendarUtil.createDate(2013, 3, 5, 14, 0, 0, 0));
+		moved.setEnd(CalendarUtil.createDate(2013, 3, 5, 15, 0, 0, 0));
+		moved.setLocation("Room \u00e4");
+		moved.setPriority(7);
+		EventType holiday = new EventType();
+		holiday.setName("Holiday");
+		existing.setType(holiday);
+		existing.setAllDay(true);
+		standup.addException(CalendarUtil.createDate(2013, 3, 11, 9, 30, 0, 0));
+		collection.endUpdate();
+		collection.remove(removed);
+		journal.commit();
+		journal.close();
+
+		EventCollection replayed = newCollection();
+		new EventJournal(directory, replayed).close();
+		assertSameEvents(collection, replayed);
+	}
+
+	/**
+	 * Test method for {@link de.costache.calendar.store.EventJournal#compact()}
+	 * .
+	 */
+	@Test
+	public void testCompactionKeepsEventIds() throws IOException {
+		File directory = createDirectory();
+		EventCollection collection = newCollection();
+		EventJournal journal = new EventJournal(directory, collection, 1, 4096);
+		List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+		for (int i = 0; i < 200; i++) {
+			CalendarEvent event = meeting("Meeting " + i, 1 + i % 28);
+			events.add(event);
+			collection.add(event);
+		}
+		journal.close();
+		int snapshots = 0;
+		for (File file : directory.listFiles()) {
+			if (file.getName().startsWith("snapshot."))
+				snapshots++;
+		}
+		Assert.assertEquals(1, snapshots);
+
+		EventCollection replayed = newCollection();
+		journal = new EventJournal(directory, replayed, 1, 4096);
+		assertSameEvents(collection, replayed);
+		List<CalendarEvent> all = new ArrayList<CalendarEvent>(replayed.getAllEvents());
+		Collections.sort(all);
+		replayed.beginUpdate();
+		all.get(0).setSummary("Renamed");
+		replayed.endUpdate();
+		replayed.remove(all.get(1));
+		journal.close();
+
+		EventCollection again = newCollection();
+		new EventJournal(directory, again).close();
+		assertSameEvents(replayed, again);
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.store.EventJournal#EventJournal(java.io.File, de.costache.calendar.util.EventCollection)}
+	 * .
+	 */
+	@Test
+	public void testTornRecordIsCutOff() throws IOException {
+		File directory = createDirectory();
+		EventCollection collection = newCollection();
+		EventJournal journal = new EventJournal(directory, collection);
+		CalendarEvent first = meeting("First", 1);
+		collection.add(first);
+		journal.commit();
+		File file = new File(directory, "journal.0");
+		long committed = file.length();
+		collection.add(meeting("Second", 2));
+		journal.close();
+
+		RandomAccessFile output = new RandomAccessFile(file, "rw");
+		output.setLength(output.length() - 3);
+		output.close();
+
+		EventCollection replayed = newCollection();
+		journal = new EventJournal(directory, replayed);
+		Assert.assertEquals(committed, file.length());
+		Assert.assertEquals(1, replayed.getAllEvents().size());
+		Assert.assertEquals("First", replayed.getAllEvents().iterator().next().getSummary());
+		replayed.add(meeting("Third", 3));
+		journal.close();
+
+		EventCollection again = newCollection();
+		new EventJournal(directory, again).close();
+		assertSameEvents(replayed, again);
+	}
+
+	private static File createDirectory() throws IOException {
+		File directory = File.createTempFile("events", ".journal");
+		directory.delete();
+		directory.mkdirs();
+		directory.deleteOnExit();
+		return directory;
+	}
+
+	private static EventCollection newCollection() {
+		return EventCollectionRepository.get(new JCalendar(EventCollection.Type.INDEXED));
+	}
+
+	private static CalendarEvent meeting(String summary, int day) {
+		return new CalendarEvent(summary, CalendarUtil.createDate(2013, 3, day, 10, 0, 0, 0),
+				CalendarUtil.createDate(2013, 3, day, 11, 0, 0, 0));
+	}
+
+	private static void assertSameEvents(EventCollection expected, EventCollection actual) {
+		List<CalendarEvent> expectedEvents = new ArrayList<CalendarEvent>(expected.getAllEvents());
+		List<CalendarEvent> actualEvents = new ArrayList<CalendarEvent>(actual.getAllEvents());
+		Collections.sort(expectedEvents);
+		Collections.sort(actualEvents);
+		Assert.assertEquals(expectedEvents.size(), actualEvents.size());
+		for (int i = 0; i < expectedEvents.size(); i++) {
+			CalendarEvent e = expectedEvents.get(i);
+			CalendarEvent a = actualEvents.get(i);
+			Assert.assertEquals(e.getSummary(), a.getSummary());
+			Assert.assertEquals(e.getStart(), a.getStart());
+			Assert.assertEquals(e.getEnd(), a.getEnd());
+			Assert.assertEquals(e.getLocation(), a.getLocation());
+			Assert.assertEquals(e.getPriority(), a.getPriority());
+			Assert.assertEquals(e.isAllDay(), a.isAllDay());
+			Assert.assertEquals(e.getType(), a.getType());
+			Assert.assertEquals(e instanceof RecurringEvent, a instanceof RecurringEvent);
+			if (e instanceof RecurringEvent) {
+				Assert.assertEquals(((RecurringEvent) e).getRecurrence(), ((RecurringEvent) a).getRecurrence());
+				Assert.assertEquals(((RecurringEvent) e).getExceptions(), ((RecurringEvent) a).getExceptions());
+			}
+		}
+	}
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.store;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.EventType;
+import de.costache.calendar.model.Recurrence;
+import de.costache.calendar.model.Recurrence.Frequency;
+import de.costache.calendar.model.RecurringEvent;
+import de.costache.calendar.util.CalendarUtil;
+import de.costache.calendar.util.EventCollection;
+import de.costache.calendar.util.EventCollectionRepository;
+
+/**
+ *
+ * @author theodorcostache
+ *
+ */
+public class EventSnapshotTest {
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.store.EventSnapshot#read(java.io.File)}
+	 * .
+	 */
+	@Test
+	public void testSnapshotIsReadBackUnchanged() throws IOException {
+		Random r = new Random(3);
+		EventType meeting = new EventType();
+		meeting.setName("Meeting");
+		meeting.setBackgroundColor(new Color(10, 20, 30, 200));
+		EventType holiday = new EventType();
+		holiday.setName("Holiday");
+		holiday.setForegroundColor(Color.red);
+
+		List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+		for (int i = 0; i < 300; i++) {
+			Date start = CalendarUtil.createDate(2013, 1 + r.nextInt(12), 1 + r.nextInt(28), r.nextInt(24),
+					r.nextInt(60), 0, 0);
+			CalendarEvent event = new CalendarEvent("Event " + i % 7, start, new Date(start.getTime()
+					+ r.nextInt(3 * 24 * 60) * 60000L), i % 3 == 0 ? holiday : meeting);
+			event.setDescription(i % 2 == 0 ? null : "Description \u00e4\u00f6\u00fc " + i);
+			event.setLocation(i % 5 == 0 ? "Room " + i % 4 : null);
+			event.setResource(i % 4 == 0 ? "Resource " + i % 3 : null);
+			event.setPriority(r.nextInt(10));
+			event.setAllDay(r.nextBoolean());
+			event.setHoliday(i % 3 == 0);
+			events.add(event);
+		}
+		RecurringEvent standup = new RecurringEvent("Standup", CalendarUtil.createDate(2013, 1, 2, 9, 30, 0, 0),
+				CalendarUtil.createDate(2013, 1, 2, 9, 45, 0, 0), new Recurrence(Frequency.WEEKLY, 1, 0,
+						CalendarUtil.createDate(2013, 12, 31, 0, 0, 0, 0), Calendar.MONDAY, Calendar.THURSDAY));
+		standup.addException(CalendarUtil.createDate(2013, 1, 3, 9, 30, 0, 0));
+		standup.setType(meeting);
+		events.add(standup);
+
+		File file = File.createTempFile("events", ".snapshot");
+		file.deleteOnExit();
+		EventSnapshot.write(events, file);
+		List<CalendarEvent> read = EventSnapshot.read(file);
+
+		Collections.sort(events);
+		Assert.assertEquals(events.size(), read.size());
+		for (int i = 0; i < events.size(); i++) {
+			CalendarEvent expected = events.get(i);
+			CalendarEvent actual = read.get(i);
+			Assert.assertEquals(expected.getStart(), actual.getStart());
+			Assert.assertEquals(expected.getEnd(), actual.getEnd());
+			Assert.assertEquals(expected.getSummary(), actual.getSummary());
+			Assert.assertEquals(expected.getDescription(), actual.getDescription());
+			Assert.assertEquals(expected.getLocation(), actual.getLocation());
+			Assert.assertEquals(expected.getResource(), actual.getResource());
+			Assert.assertEquals(expected.getPriority(), actual.getPriority());
+			Assert.assertEquals(expected.isAllDay(), actual.isAllDay());
+			Assert.assertEquals(expected.isHoliday(), actual.isHoliday());
+			Assert.assertEquals(expected.getType(), actual.getType());
+			Assert.assertEquals(expected.getType().getBackgroundColor(), actual.getType().getBackgroundColor());
+			Assert.assertEquals(expected.getType().getForegroundColor(), actual.getType().getForegroundColor());
+			if (expected instanceof RecurringEvent) {
+				RecurringEvent series = (RecurringEvent) actual;
+				Assert.assertEquals(standup.getRecurrence(), series.getRecurrence());
+				Assert.assertEquals(standup.getExceptions(), series.getExceptions());
+			} else {
+				Assert.assertFalse(actual instanceof RecurringEvent);
+			}
+		}
+		Set<EventType> types = Collections.newSetFromMap(new IdentityHashMap<EventType, Boolean>());
+		for (CalendarEvent event : read) {
+			types.add(event.getType());
+		}
+		Assert.assertEquals(2, types.size());
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.store.EventSnapshot#load(java.io.File, de.costache.calendar.util.EventCollection)}
+	 * .
+	 */
+	@Test
+	public void testLoadFillsCollection() throws IOException {
+		JCalendar source = new JCalendar(EventCollection.Type.INTERVAL_TREE);
+		for (int day = 1; day <= 20; day++) {
+			source.addCalendarEvent(new CalendarEvent("Meeting", CalendarUtil.createDate(2013, 3, day, 10, 0, 0, 0),
+					CalendarUtil.createDate(2013, 3, day, 11, 0, 0, 0)));
+		}
+		File file = File.createTempFile("events", ".snapshot");
+		file.deleteOnExit();
+		EventSnapshot.write(source, file);
+
+		for (EventCollection.Type type : EventCollection.Type.values()) {
+			EventCollection collection = EventCollectionRepository.get(new JCalendar(type));
+			Assert.assertEquals(20, EventSnapshot.load(file, collection));
+			int[] counts = collection.getEventCounts(CalendarUtil.createDate(2013, 3, 1, 0, 0, 0, 0),
+					CalendarUtil.createDate(2013, 3, 22, 0, 0, 0, 0));
+			for (int i = 0; i < counts.length; i++) {
+				Assert.assertEquals(i < 20 ? 1 : 0, counts[i]);
+			}
+			CalendarEvent first = collection.getEvents(CalendarUtil.createDate(2013, 3, 1, 0, 0, 0, 0)).iterator()
+					.next();
+			Assert.assertSame(first.getSummary(),
+					collection.getEvents(CalendarUtil.createDate(2013, 3, 2, 0, 0, 0, 0)).iterator().next()
+							.getSummary());
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.store.EventSnapshot#read(java.io.File)}
+	 * .
+	 */
+	@Test
+	public void testDamagedSnapshotIsRejected() throws IOException {
+		File file = File.createTempFile("events", ".snapshot");
+		file.deleteOnExit();
+		EventSnapshot.write(Collections.singletonList(new CalendarEvent("Meeting", CalendarUtil.createDate(2013, 3,
+				1, 10, 0, 0, 0), CalendarUtil.createDate(2013, 3, 1, 11, 0, 0, 0))), file);
+		RandomAccessFile output = new RandomAccessFile(file, "rw");
+		output.seek(output.length() - 1);
+		int last = output.read();
+		output.seek(output.length() - 1);
+		output.write(last ^ 1);
+		output.close();
+		try {
+			EventSnapshot.read(file);
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Corrupt snapshot"));
+		}
+
+		output = new RandomAccessFile(file, "rw");
+		output.seek(4);
+		output.write(EventSnapshot.VERSION + 1);
+		output.close();
+		try {
+			EventSnapshot.read(file);
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Unsupported snapshot version"));
+		}
+	}
+}
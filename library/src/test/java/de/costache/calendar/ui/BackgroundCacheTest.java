@@ -0,0 +1,153 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import javax.swing.JPanel;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.ui.strategy.Config;
+import de.costache.calendar.util.CalendarUtil;
+
+/**
+ * The day is 100 x 1440 pixels on a white opaque parent, with the hours
+ * outside the working hours shaded in opaque red.
+ *
+ * @author theodorcostache
+ *
+ */
+public class BackgroundCacheTest {
+
+	private JCalendar calendar;
+	private DayContentPanel panel;
+
+	@Before
+	public void setUp() {
+		calendar = new JCalendar();
+		calendar.getConfig().setOutsideWorkingHoursColor(Color.RED);
+		final DayPanel day = new DayPanel(calendar, CalendarUtil.createDate(2013, 5, 8, 0, 0, 0, 0));
+		panel = day.getContentPanel();
+		final JPanel parent = new JPanel(null);
+		parent.setOpaque(true);
+		parent.setBackground(Color.WHITE);
+		parent.add(panel);
+		panel.setBounds(0, 0, 100, 1440);
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.BackgroundCache#isValid(java.awt.Component, Graphics2D, int, int, Config, int)}
+	 * .
+	 */
+	@Test
+	public void testReusedWhenNothingChanged() {
+		final Config config = calendar.getConfig();
+		final BackgroundCache cache = new BackgroundCache();
+		final Graphics2D g = createImage(100, 1440).createGraphics();
+		Assert.assertFalse(cache.isValid(panel, g, 100, 1440, config, 0));
+
+		final Graphics2D graphics = cache.render(panel, g, 100, 1440, config, 0);
+		graphics.setColor(Color.BLUE);
+		graphics.fillRect(0, 0, 100, 1440);
+		graphics.dispose();
+
+		for (int i = 0; i < 2; i++) {
+			Assert.assertTrue(cache.isValid(panel, g, 100, 1440, config, 0));
+			final BufferedImage target = createImage(100, 1440);
+			final Graphics2D targetGraphics = target.createGraphics();
+			cache.draw(targetGraphics);
+			targetGraphics.dispose();
+			// the blit shows what was rendered once, not a fresh background
+			Assert.assertEquals(Color.BLUE.getRGB(), target.getRGB(50, 700));
+		}
+		Assert.assertFalse(cache.isValid(panel, g, 100, 1440, config, 1));
+		g.dispose();
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.BackgroundCache#isValid(java.awt.Component, Graphics2D, int, int, Config, int)}
+	 * .
+	 */
+	@Test
+	public void testRegeneratedAfterResize() {
+		final BackgroundCache cache = new BackgroundCache();
+		final Graphics2D g = createImage(150, 1440).createGraphics();
+		cache.render(panel, g, 100, 1440, calendar.getConfig(), 0).dispose();
+		Assert.assertFalse(cache.isValid(panel, g, 150, 1440, calendar.getConfig(), 0));
+		Assert.assertFalse(cache.isValid(panel, g, 100, 1500, calendar.getConfig(), 0));
+		g.dispose();
+
+		BufferedImage image = paint(150, 1440);
+		Assert.assertEquals(Color.RED.getRGB(), image.getRGB(90, 10));
+		Assert.assertEquals(Color.RED.getRGB(), image.getRGB(90, 1430));
+		Assert.assertEquals(Color.WHITE.getRGB(), image.getRGB(120, 10));
+
+		panel.setSize(150, 1440);
+		image = paint(150, 1440);
+		Assert.assertEquals(Color.RED.getRGB(), image.getRGB(120, 10));
+		Assert.assertEquals(Color.RED.getRGB(), image.getRGB(120, 1430));
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.BackgroundCache#isValid(java.awt.Component, Graphics2D, int, int, Config, int)}
+	 * .
+	 */
+	@Test
+	public void testRegeneratedAfterColourChange() {
+		final Config config = calendar.getConfig();
+		final BackgroundCache cache = new BackgroundCache();
+		final Graphics2D g = createImage(100, 1440).createGraphics();
+		cache.render(panel, g, 100, 1440, config, 0).dispose();
+		Assert.assertTrue(cache.isValid(panel, g, 100, 1440, config, 0));
+		config.setLineColor(Color.BLACK);
+		Assert.assertFalse(cache.isValid(panel, g, 100, 1440, config, 0));
+		g.dispose();
+
+		BufferedImage image = paint(100, 1440);
+		Assert.assertEquals(Color.RED.getRGB(), image.getRGB(50, 10));
+		Assert.assertEquals(Color.WHITE.getRGB(), image.getRGB(50, 700));
+
+		config.setOutsideWorkingHoursColor(Color.GREEN);
+		image = paint(100, 1440);
+		Assert.assertEquals(Color.GREEN.getRGB(), image.getRGB(50, 10));
+		Assert.assertEquals(Color.GREEN.getRGB(), image.getRGB(50, 1430));
+		Assert.assertEquals(Color.WHITE.getRGB(), image.getRGB(50, 700));
+	}
+
+	private BufferedImage paint(final int width, final int height) {
+		final BufferedImage image = createImage(width, height);
+		final Graphics2D g = image.createGraphics();
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, width, height);
+		panel.paint(g);
+		g.dispose();
+		return image;
+	}
+
+	private static BufferedImage createImage(final int width, final int height) {
+		return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+	}
+}
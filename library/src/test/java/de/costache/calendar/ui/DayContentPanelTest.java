@@ -0,0 +1,164 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.ui.strategy.DisplayStrategy;
+import de.costache.calendar.util.CalendarUtil;
+import de.costache.calendar.util.EventCollection;
+import de.costache.calendar.util.EventCollectionRepository;
+
+/**
+ * The calendar shows the week of 2013-05-08, whose day panel is 100 x 1440
+ * pixels, so that every minute is one pixel high.
+ *
+ * @author theodorcostache
+ *
+ */
+public class DayContentPanelTest {
+
+	private JCalendar calendar;
+	private DayContentPanel panel;
+	private CalendarEvent event;
+
+	@Before
+	public void setUp() {
+		calendar = new JCalendar();
+		calendar.setDisplayStrategy(DisplayStrategy.Type.WEEK, createDate(0, 0));
+		panel = findPanel(calendar, createDate(0, 0));
+		Assert.assertNotNull(panel);
+		panel.setSize(100, 1440);
+		event = new CalendarEvent("event", createDate(10, 0), createDate(11, 0));
+		calendar.addCalendarEvent(event);
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.DayContentPanel#getShapes()}.
+	 */
+	@Test
+	public void testShapesFollowStartAndEnd() {
+		EventShape[] shapes = panel.getShapes();
+		Assert.assertEquals(1, shapes.length);
+		Assert.assertEquals(600, shapes[0].y);
+		Assert.assertEquals(60, shapes[0].height);
+		Assert.assertEquals(1, getEventsAt(630).size());
+
+		final EventCollection collection = EventCollectionRepository.get(calendar);
+		collection.beginUpdate();
+		event.setEnd(createDate(15, 30));
+		event.setStart(createDate(14, 0));
+		collection.endUpdate();
+
+		shapes = panel.getShapes();
+		Assert.assertEquals(1, shapes.length);
+		Assert.assertSame(event, shapes[0].event);
+		Assert.assertEquals(840, shapes[0].y);
+		Assert.assertEquals(90, shapes[0].height);
+		Assert.assertTrue(getEventsAt(630).isEmpty());
+		Assert.assertEquals(event, getEventsAt(900).get(0));
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.DayContentPanel#getShapes()}.
+	 */
+	@Test
+	public void testShapesFollowEndAfterDeferredNotification() throws Exception {
+		Assert.assertTrue(getEventsAt(700).isEmpty());
+
+		// outside a batch the change is delivered later on the event thread
+		event.setEnd(createDate(12, 0));
+		flushEventQueue();
+
+		final EventShape[] shapes = panel.getShapes();
+		Assert.assertEquals(600, shapes[0].y);
+		Assert.assertEquals(120, shapes[0].height);
+		Assert.assertEquals(event, getEventsAt(700).get(0));
+		Assert.assertTrue(getEventsAt(730).isEmpty());
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.DayContentPanel#getShapes()}.
+	 */
+	@Test
+	public void testShapesFollowSummary() throws Exception {
+		Assert.assertFalse(getText(panel.getShapes()[0]).contains("renamed"));
+
+		event.setSummary("renamed");
+		flushEventQueue();
+
+		final EventShape[] shapes = panel.getShapes();
+		Assert.assertEquals(600, shapes[0].y);
+		Assert.assertTrue(getText(shapes[0]), getText(shapes[0]).contains("renamed"));
+	}
+
+	private List<CalendarEvent> getEventsAt(final int y) {
+		final List<CalendarEvent> result = new ArrayList<CalendarEvent>();
+		panel.getEvents(new Rectangle(10, y, 1, 1), result);
+		return result;
+	}
+
+	private static String getText(final EventShape shape) {
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < shape.text.size(); i++) {
+			text.append(shape.text.getFragment(i)).append(' ');
+		}
+		return text.toString();
+	}
+
+	private static void flushEventQueue() throws Exception {
+		SwingUtilities.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+			}
+		});
+	}
+
+	private static Date createDate(final int hour, final int minute) {
+		return CalendarUtil.createDate(2013, 5, 8, hour, minute, 0, 0);
+	}
+
+	private static DayContentPanel findPanel(final Container container, final Date date) {
+		for (final Component component : container.getComponents()) {
+			if (component instanceof DayContentPanel) {
+				if (((DayContentPanel) component).getOwner().getDate().equals(date))
+					return (DayContentPanel) component;
+			} else if (component instanceof Container) {
+				final DayContentPanel panel = findPanel((Container) component, date);
+				if (panel != null)
+					return panel;
+			}
+		}
+		return null;
+	}
+}
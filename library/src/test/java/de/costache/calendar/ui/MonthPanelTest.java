@@ -0,0 +1,161 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui;
+
+import java.text.MessageFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.ResourceBundle;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.util.CalendarUtil;
+
+/**
+ * The panel is 700 x 600 pixels showing 6 weeks, so every cell is 100 x 100
+ * pixels with a header of 18 and a content of 82 pixels, fitting 4 event
+ * lines.
+ *
+ * @author theodorcostache
+ *
+ */
+public class MonthPanelTest {
+
+	private static final Date FIRST_DAY = CalendarUtil.createDate(2013, 4, 29, 0, 0, 0, 0);
+
+	/**
+	 * Test method for {@link de.costache.calendar.ui.MonthPanel#getDayAt(int, int)}
+	 * .
+	 */
+	@Test
+	public void testGetDayAt() {
+		MonthPanel panel = createPanel(new JCalendar());
+		Assert.assertEquals(0, panel.getDayAt(0, 0));
+		Assert.assertEquals(0, panel.getDayAt(99, 99));
+		Assert.assertEquals(1, panel.getDayAt(100, 99));
+		Assert.assertEquals(7, panel.getDayAt(99, 100));
+		Assert.assertEquals(41, panel.getDayAt(699, 599));
+		Assert.assertEquals(-1, panel.getDayAt(-1, 50));
+		Assert.assertEquals(-1, panel.getDayAt(50, -1));
+		Assert.assertEquals(-1, panel.getDayAt(700, 50));
+		Assert.assertEquals(-1, panel.getDayAt(50, 600));
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.MonthPanel#getEventAt(int, int)}.
+	 */
+	@Test
+	public void testGetEventAtFirstAndLastCell() {
+		JCalendar calendar = new JCalendar();
+		CalendarEvent first = createEvent(0, 10);
+		CalendarEvent last = createEvent(41, 10);
+		calendar.addCalendarEvent(first);
+		calendar.addCalendarEvent(last);
+		MonthPanel panel = createPanel(calendar);
+
+		Assert.assertSame(first, panel.getEventAt(50, 25));
+		Assert.assertSame(last, panel.getEventAt(650, 525));
+		// header, spacing below the strip, margin and the cell beside
+		Assert.assertNull(panel.getEventAt(50, 10));
+		Assert.assertNull(panel.getEventAt(50, 37));
+		Assert.assertNull(panel.getEventAt(1, 25));
+		Assert.assertNull(panel.getEventAt(150, 25));
+		// outside the grid
+		Assert.assertNull(panel.getEventAt(-1, 25));
+		Assert.assertNull(panel.getEventAt(700, 525));
+		Assert.assertNull(panel.getEventAt(650, 600));
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.MonthPanel#isOnMore(int, int)}.
+	 */
+	@Test
+	public void testMoreBadge() {
+		JCalendar calendar = new JCalendar();
+		CalendarEvent[] events = new CalendarEvent[6];
+		for (int i = 0; i < events.length; i++) {
+			events[i] = createEvent(0, 8 + i);
+			calendar.addCalendarEvent(events[i]);
+		}
+		for (int i = 0; i < 4; i++) {
+			calendar.addCalendarEvent(createEvent(1, 8 + i));
+		}
+		MonthPanel panel = createPanel(calendar);
+
+		Assert.assertEquals(3, panel.getHiddenCount(0));
+		for (int i = 0; i < 3; i++) {
+			Assert.assertSame(events[i], panel.getEventAt(50, 25 + 17 * i));
+			Assert.assertFalse(panel.isOnMore(50, 25 + 17 * i));
+		}
+		Assert.assertTrue(panel.isOnMore(50, 76));
+		Assert.assertNull(panel.getEventAt(50, 76));
+		Assert.assertFalse(panel.isOnMore(50, 93));
+
+		// all events of the second day fit, the last line shows an event
+		Assert.assertEquals(0, panel.getHiddenCount(1));
+		Assert.assertFalse(panel.isOnMore(150, 76));
+		Assert.assertNotNull(panel.getEventAt(150, 76));
+
+		Assert.assertFalse(panel.isOnMore(-1, 76));
+		Assert.assertFalse(panel.isOnMore(50, 600));
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.MonthPanel#getMoreLabel(int)}.
+	 */
+	@Test
+	public void testMoreLabel() {
+		JCalendar calendar = new JCalendar();
+		for (int i = 0; i < 6; i++) {
+			calendar.addCalendarEvent(createEvent(0, 8 + i));
+		}
+		MonthPanel panel = createPanel(calendar);
+		String format = ResourceBundle.getBundle("calendar", panel.getLocale()).getString("more");
+
+		String label = panel.getMoreLabel(0);
+		Assert.assertEquals(MessageFormat.format(format, 3), label);
+		Assert.assertSame(label, panel.getMoreLabel(0));
+		Assert.assertNull(panel.getMoreLabel(1));
+
+		// a new event of the day lays it out again along with its label
+		calendar.addCalendarEvent(createEvent(0, 14));
+		panel.refresh();
+		Assert.assertEquals(MessageFormat.format(format, 4), panel.getMoreLabel(0));
+	}
+
+	private static MonthPanel createPanel(JCalendar calendar) {
+		MonthPanel panel = new MonthPanel(calendar);
+		panel.setSize(700, 600);
+		panel.setDays(FIRST_DAY, 6, CalendarUtil.getCalendar(CalendarUtil.createDate(2013, 5, 15, 0, 0, 0, 0), true));
+		panel.refresh();
+		return panel;
+	}
+
+	private static CalendarEvent createEvent(int day, int hour) {
+		Calendar c = CalendarUtil.getCalendar(FIRST_DAY, true);
+		c.add(Calendar.DATE, day);
+		c.set(Calendar.HOUR_OF_DAY, hour);
+		Date start = c.getTime();
+		return new CalendarEvent("Event", start, new Date(start.getTime() + 1800000L));
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.ui.strategy.Config;
+import de.costache.calendar.util.CalendarUtil;
+import de.costache.calendar.util.DayLayout;
+
+/**
+ *
+ * @author theodorcostache
+ *
+ */
+public class ShapeIndexTest {
+
+	private static final int WIDTH = 300;
+	private static final int HEIGHT = 1440;
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.ShapeIndex#getShapeAt(int, int)}
+	 * .
+	 */
+	@Test
+	public void testGetShapeAtMatchesLinearScan() {
+		EventShape[] shapes = layout(new Random(7), 400);
+		ShapeIndex index = new ShapeIndex(shapes);
+
+		for (int y = -5; y < HEIGHT + 5; y += 3) {
+			for (int x = -5; x < WIDTH + 5; x += 2) {
+				EventShape expected = null;
+				for (EventShape shape : shapes) {
+					if (shape.contains(x, y)) {
+						expected = shape;
+						break;
+					}
+				}
+				Assert.assertSame(expected, index.getShapeAt(x, y));
+			}
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.ShapeIndex#getShapeAt(int, int)}
+	 * .
+	 */
+	@Test
+	public void testGetShapeAtRows() {
+		Config config = new Config();
+		EventShape[] shapes = new EventShape[10];
+		for (int i = 0; i < shapes.length; i++) {
+			shapes[i] = new EventShape(new CalendarEvent(CalendarUtil.createDate(2013, 5, 1, 8, 0, 0, 0),
+					CalendarUtil.createDate(2013, 5, 1, 9, 0, 0, 0)), config, 2, 2 + 17 * i, 96, 15, null, null, 6, 0);
+		}
+		ShapeIndex index = new ShapeIndex(shapes);
+
+		Assert.assertSame(shapes[0], index.getShapeAt(2, 2));
+		Assert.assertSame(shapes[3], index.getShapeAt(50, 2 + 17 * 3 + 14));
+		Assert.assertNull(index.getShapeAt(50, 2 + 17 * 3 + 15));
+		Assert.assertNull(index.getShapeAt(98, 20));
+		Assert.assertNull(index.getShapeAt(50, 2 + 17 * 10));
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.ShapeIndex#getEvents(int, int, int, int, java.util.Collection)}
+	 * .
+	 */
+	@Test
+	public void testGetEventsMatchesLinearScan() {
+		Random r = new Random(11);
+		EventShape[] shapes = layout(r, 300);
+		ShapeIndex index = new ShapeIndex(shapes);
+
+		for (int i = 0; i < 500; i++) {
+			int x = r.nextInt(WIDTH);
+			int y = r.nextInt(HEIGHT);
+			int width = 1 + r.nextInt(WIDTH / 2);
+			int height = 1 + r.nextInt(HEIGHT / 4);
+
+			Set<CalendarEvent> expected = identitySet();
+			for (EventShape shape : shapes) {
+				if (shape.x < x + width && shape.x + shape.width > x && shape.y < y + height
+						&& shape.y + shape.height > y)
+					expected.add(shape.event);
+			}
+			List<CalendarEvent> actual = new ArrayList<CalendarEvent>();
+			index.getEvents(x, y, width, height, actual);
+
+			Assert.assertEquals(expected.size(), actual.size());
+			Set<CalendarEvent> actualSet = identitySet();
+			actualSet.addAll(actual);
+			Assert.assertEquals(expected, actualSet);
+		}
+	}
+
+	private static Set<CalendarEvent> identitySet() {
+		return Collections.newSetFromMap(new IdentityHashMap<CalendarEvent, Boolean>());
+	}
+
+	private static EventShape[] layout(Random r, int count) {
+		List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+		for (int i = 0; i < count; i++) {
+			int start = r.nextInt(24 * 60 - 15);
+			int end = Math.min(24 * 60 - 1, start + 15 + r.nextInt(90));
+			events.add(new CalendarEvent(CalendarUtil.createDate(2013, 5, 1, start / 60, start % 60, 0, 0),
+					CalendarUtil.createDate(2013, 5, 1, end / 60, end % 60, 0, 0)));
+		}
+
+		Config config = new Config();
+		DayLayout layout = DayLayout.compute(events);
+		EventShape[] shapes = new EventShape[layout.size()];
+		for (int i = 0; i < layout.size(); i++) {
+			CalendarEvent event = layout.getEvent(i);
+			int yStart = CalendarUtil.secondsToPixels(event.getStart(), HEIGHT);
+			int yEnd = CalendarUtil.secondsToPixels(event.getEnd(), HEIGHT);
+			int columnWidth = (WIDTH - 4) / layout.getColumnCount(i);
+			int x = layout.getColumn(i) * (WIDTH - 4) / layout.getColumnCount(i);
+			shapes[i] = new EventShape(event, config, x, yStart, columnWidth - 2, yEnd - yStart, null, null, x + 3,
+					yStart + 11);
+		}
+		return shapes;
+	}
+}
@@ -0,0 +1,271 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import javax.swing.JComponent;
+import javax.swing.RepaintManager;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.events.ModelChangedEvent;
+import de.costache.calendar.events.ModelChangedListener;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.util.CalendarUtil;
+import de.costache.calendar.util.EventCollection;
+import de.costache.calendar.util.EventCollectionRepository;
+
+/**
+ * The panel shows 2013-05-08 over 2400 pixels, so that every hour is 100
+ * pixels wide, and 10 lanes of 24 pixels for the resources r0 to r9. The
+ * model changes are passed to the panel as the timeline display strategy
+ * does.
+ *
+ * @author theodorcostache
+ *
+ */
+public class TimelinePanelTest {
+
+	private JCalendar calendar;
+	private TimelinePanel panel;
+	private RecordingRepaintManager repaintManager;
+
+	@Before
+	public void setUp() {
+		calendar = new JCalendar();
+		calendar.getConfig().setTimelineResources(
+				Arrays.asList("r0", "r1", "r2", "r3", "r4", "r5", "r6", "r7", "r8", "r9"));
+		panel = new TimelinePanel(calendar);
+		panel.setInterval(createDate(0, 0), createDate(24, 0));
+		panel.setSize(2400, 240);
+		panel.refresh();
+		EventCollectionRepository.get(calendar).addCollectionChangedListener(new ModelChangedListener() {
+
+			@Override
+			public void eventAdded(ModelChangedEvent event) {
+				panel.refresh(event);
+			}
+
+			@Override
+			public void eventRemoved(ModelChangedEvent event) {
+				panel.refresh(event);
+			}
+
+			@Override
+			public void eventChanged(ModelChangedEvent event) {
+				panel.refresh(event);
+			}
+		});
+		repaintManager = new RecordingRepaintManager(panel);
+		RepaintManager.setCurrentManager(repaintManager);
+	}
+
+	@After
+	public void tearDown() {
+		RepaintManager.setCurrentManager(null);
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.TimelinePanel#paint(java.awt.Graphics)}.
+	 */
+	@Test
+	public void testOnlyLanesInClipAreLoadedAndPainted() {
+		calendar.addCalendarEvent(createEvent("r1", 10, 12));
+		calendar.addCalendarEvent(createEvent("r6", 10, 12));
+
+		final BufferedImage image = paint(new Rectangle(0, 24, 2400, 48));
+
+		for (int lane = 0; lane < 10; lane++) {
+			Assert.assertEquals("lane " + lane, lane == 1 || lane == 2, panel.isLoaded(lane));
+		}
+		final int white = Color.WHITE.getRGB();
+		Assert.assertTrue(image.getRGB(1100, 36) != white);
+		Assert.assertTrue(image.getRGB(1100, 36) != image.getRGB(500, 36));
+		Assert.assertEquals(white, image.getRGB(1100, 156));
+		Assert.assertEquals(white, image.getRGB(1100, 12));
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.TimelinePanel#refresh(ModelChangedEvent)}
+	 * .
+	 */
+	@Test
+	public void testChangeDropsAndRepaintsOnlyItsLane() {
+		final CalendarEvent event = createEvent("r3", 10, 12);
+		paint(null);
+		repaintManager.clear();
+
+		calendar.addCalendarEvent(event);
+		assertOnlyLaneRefreshed(3);
+
+		paint(null);
+		repaintManager.clear();
+		final EventCollection collection = EventCollectionRepository.get(calendar);
+		collection.beginUpdate();
+		event.setStart(createDate(14, 0));
+		event.setEnd(createDate(15, 0));
+		collection.endUpdate();
+		assertOnlyLaneRefreshed(3);
+		Assert.assertSame(event, panel.getEventAt(1450, 84));
+
+		paint(null);
+		repaintManager.clear();
+		calendar.removeCalendarEvent(event);
+		assertOnlyLaneRefreshed(3);
+		Assert.assertNull(panel.getEventAt(1450, 84));
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.TimelinePanel#refresh(ModelChangedEvent)}
+	 * .
+	 */
+	@Test
+	public void testResourceChangeRefreshesAllLanes() {
+		final CalendarEvent event = createEvent("r3", 10, 12);
+		calendar.addCalendarEvent(event);
+		paint(null);
+		repaintManager.clear();
+
+		final EventCollection collection = EventCollectionRepository.get(calendar);
+		collection.beginUpdate();
+		event.setResource("r5");
+		collection.endUpdate();
+
+		for (int lane = 0; lane < 10; lane++) {
+			Assert.assertFalse(panel.isLoaded(lane));
+		}
+		Assert.assertEquals(Arrays.asList(new Rectangle(0, 0, 2400, 240)), repaintManager.dirty);
+		Assert.assertNull(panel.getEventAt(1100, 84));
+		Assert.assertSame(event, panel.getEventAt(1100, 132));
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.TimelinePanel#refresh(ModelChangedEvent)}
+	 * .
+	 */
+	@Test
+	public void testChangeOutsideIntervalIsIgnored() {
+		paint(null);
+		repaintManager.clear();
+
+		// ending before the shown day and starting at its exclusive end
+		calendar.addCalendarEvent(new CalendarEvent("before", CalendarUtil.createDate(2013, 5, 7, 10, 0, 0, 0),
+				CalendarUtil.createDate(2013, 5, 7, 23, 0, 0, 0)));
+		calendar.addCalendarEvent(new CalendarEvent("after", createDate(24, 0), createDate(25, 0)));
+
+		Assert.assertTrue(repaintManager.dirty.isEmpty());
+		for (int lane = 0; lane < 10; lane++) {
+			Assert.assertTrue(panel.isLoaded(lane));
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.TimelinePanel#getEventAt(int, int)}.
+	 */
+	@Test
+	public void testGetEventAtAcrossLanesAndRows() {
+		final CalendarEvent first = createEvent("r0", 10, 12);
+		final CalendarEvent second = createEvent("r0", 11, 13);
+		final CalendarEvent third = createEvent("r2", 10, 12);
+		calendar.addCalendarEvent(first);
+		calendar.addCalendarEvent(second);
+		calendar.addCalendarEvent(third);
+
+		// the overlapping events of r0 are spread over two rows of 10 pixels
+		Assert.assertSame(first, panel.getEventAt(1050, 5));
+		Assert.assertSame(first, panel.getEventAt(1150, 5));
+		Assert.assertSame(second, panel.getEventAt(1150, 15));
+		Assert.assertSame(second, panel.getEventAt(1250, 15));
+		Assert.assertNull(panel.getEventAt(1250, 5));
+		Assert.assertNull(panel.getEventAt(1050, 15));
+
+		// r1 is empty, the single event of r2 fills the lane
+		Assert.assertNull(panel.getEventAt(1050, 36));
+		Assert.assertSame(third, panel.getEventAt(1050, 51));
+		Assert.assertSame(third, panel.getEventAt(1050, 66));
+		Assert.assertNull(panel.getEventAt(950, 60));
+
+		Assert.assertNull(panel.getEventAt(1050, -1));
+		Assert.assertNull(panel.getEventAt(1050, 240));
+	}
+
+	private void assertOnlyLaneRefreshed(final int lane) {
+		for (int i = 0; i < 10; i++) {
+			Assert.assertEquals("lane " + i, i != lane, panel.isLoaded(i));
+		}
+		Assert.assertEquals(Arrays.asList(new Rectangle(0, lane * 24, 2400, 24)), repaintManager.dirty);
+	}
+
+	private BufferedImage paint(final Rectangle clip) {
+		final BufferedImage image = new BufferedImage(2400, 240, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = image.createGraphics();
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, 2400, 240);
+		if (clip != null)
+			g.setClip(clip);
+		panel.paint(g);
+		g.dispose();
+		return image;
+	}
+
+	private static Date createDate(final int hour, final int minute) {
+		return new Date(CalendarUtil.createDate(2013, 5, 8, 0, minute, 0, 0).getTime() + hour * 3600000L);
+	}
+
+	private static CalendarEvent createEvent(final String resource, final int startHour, final int endHour) {
+		final CalendarEvent event = new CalendarEvent("event", createDate(startHour, 0), createDate(endHour, 0));
+		event.setResource(resource);
+		return event;
+	}
+
+	private static class RecordingRepaintManager extends RepaintManager {
+
+		private final JComponent component;
+		private final List<Rectangle> dirty = new ArrayList<Rectangle>();
+
+		RecordingRepaintManager(final JComponent component) {
+			this.component = component;
+		}
+
+		@Override
+		public void addDirtyRegion(final JComponent c, final int x, final int y, final int w, final int h) {
+			if (c == component)
+				dirty.add(new Rectangle(x, y, w, h));
+		}
+
+		void clear() {
+			dirty.clear();
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui;
+
+import java.util.Calendar;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.util.CalendarUtil;
+
+/**
+ * The panel is 800 x 600 pixels showing the 12 months of 2013 in 4 columns
+ * and 3 rows, so that every month is 200 x 200 pixels with a title of 20
+ * and cells of 26 x 24 pixels.
+ *
+ * @author theodorcostache
+ *
+ */
+public class YearPanelTest {
+
+	/**
+	 * Test method for {@link de.costache.calendar.ui.YearPanel#getDayAt(int, int)}
+	 * .
+	 */
+	@Test
+	public void testGetDayAt() {
+		YearPanel panel = new YearPanel(new JCalendar());
+		panel.setSize(800, 600);
+		panel.setMonths(CalendarUtil.getCalendar(CalendarUtil.createDate(2013, 1, 1, 0, 0, 0, 0), true), 12);
+
+		Calendar c = CalendarUtil.getCalendar(CalendarUtil.createDate(2013, 1, 1, 0, 0, 0, 0), true);
+		for (int month = 0; month < 12; month++) {
+			int firstColumn = (c.get(Calendar.DAY_OF_WEEK) - c.getFirstDayOfWeek() + 7) % 7;
+			int length = c.getActualMaximum(Calendar.DAY_OF_MONTH);
+			for (int day = 0; day < length; day++) {
+				int cell = firstColumn + day;
+				int x = (month % 4) * 200 + 6 + (cell % 7) * 26 + 13;
+				int y = (month / 4) * 200 + 6 + 20 + 24 + (cell / 7) * 24 + 12;
+				int index = panel.getDayAt(x, y);
+				Assert.assertTrue(index >= 0);
+				Assert.assertEquals(c.getTime(), panel.getDate(index));
+				c.add(Calendar.DATE, 1);
+			}
+		}
+		Assert.assertEquals(365, panel.getDayCount());
+
+		// the title, the weekday row and outside the panel
+		Assert.assertEquals(-1, panel.getDayAt(100, 10));
+		Assert.assertEquals(-1, panel.getDayAt(100, 38));
+		Assert.assertEquals(-1, panel.getDayAt(-1, 100));
+		Assert.assertEquals(-1, panel.getDayAt(100, 600));
+	}
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.ui.strategy;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.swing.JComponent;
+import javax.swing.RepaintManager;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.Recurrence;
+import de.costache.calendar.model.RecurringEvent;
+import de.costache.calendar.ui.DayContentPanel;
+import de.costache.calendar.ui.DayPanel;
+import de.costache.calendar.util.CalendarUtil;
+import de.costache.calendar.util.EventCollection;
+import de.costache.calendar.util.EventCollectionRepository;
+
+/**
+ * Drives model changes through a calendar showing the week of 2013-05-08 and
+ * records the components marked dirty by
+ * {@link DayPanels#refresh(JCalendar, DayPanel[], Date, Date)}.
+ *
+ * @author theodorcostache
+ *
+ */
+public class DayPanelsTest {
+
+	private JCalendar calendar;
+	private DayPanel[] days;
+	private RecordingRepaintManager repaintManager;
+
+	@Before
+	public void setUp() {
+		calendar = new JCalendar();
+		calendar.setDisplayStrategy(DisplayStrategy.Type.WEEK, CalendarUtil.createDate(2013, 5, 8, 0, 0, 0, 0));
+		days = findDays(calendar);
+		Assert.assertEquals(7, days.length);
+		repaintManager = new RecordingRepaintManager();
+		RepaintManager.setCurrentManager(repaintManager);
+	}
+
+	@After
+	public void tearDown() {
+		RepaintManager.setCurrentManager(null);
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.strategy.DayPanels#refresh(JCalendar, DayPanel[], Date, Date)}
+	 * .
+	 */
+	@Test
+	public void testAddAndRemoveRepaintOnlyTheirDay() {
+		final CalendarEvent event = createEvent(2, 10, 2, 11);
+
+		calendar.addCalendarEvent(event);
+		assertRepainted(2);
+		Assert.assertEquals(1, days[2].getEvents().size());
+
+		repaintManager.clear();
+		calendar.removeCalendarEvent(event);
+		assertRepainted(2);
+		Assert.assertTrue(days[2].getEvents().isEmpty());
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.strategy.DayPanels#refresh(JCalendar, DayPanel[], Date, Date)}
+	 * .
+	 */
+	@Test
+	public void testMoveAcrossDaysRepaintsOldAndNewDay() {
+		final CalendarEvent event = createEvent(1, 10, 1, 11);
+		calendar.addCalendarEvent(event);
+		repaintManager.clear();
+
+		final EventCollection collection = EventCollectionRepository.get(calendar);
+		collection.beginUpdate();
+		event.setEnd(dayAt(3, 11));
+		event.setStart(dayAt(3, 10));
+		collection.endUpdate();
+
+		// the interval spans the old and the new position
+		assertRepainted(1, 2, 3);
+		Assert.assertTrue(days[1].getEvents().isEmpty());
+		Assert.assertEquals(1, days[3].getEvents().size());
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.strategy.DayPanels#refresh(JCalendar, DayPanel[], Date, Date)}
+	 * .
+	 */
+	@Test
+	public void testChangeOutsideWeekRepaintsNothing() {
+		calendar.addCalendarEvent(createEvent(-3, 10, -3, 11));
+		calendar.addCalendarEvent(createEvent(8, 10, 8, 11));
+		Assert.assertTrue(repaintManager.dirty.toString(), repaintManager.dirty.isEmpty());
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.strategy.DayPanels#refresh(JCalendar, DayPanel[], Date, Date)}
+	 * .
+	 */
+	@Test
+	public void testUnknownIntervalRepaintsAllDays() {
+		calendar.addCalendarEvent(new RecurringEvent("daily", dayAt(0, 10), dayAt(0, 11), new Recurrence(
+				Recurrence.Frequency.DAILY)));
+		assertRepainted(0, 1, 2, 3, 4, 5, 6);
+		for (final DayPanel day : days) {
+			Assert.assertEquals(1, day.getEvents().size());
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.ui.strategy.DayPanels#refresh(JCalendar, DayPanel[], Date, Date)}
+	 * .
+	 */
+	@Test
+	public void testIntervalIsClampedToShownDays() {
+		calendar.addCalendarEvent(createEvent(-2, 10, 1, 11));
+		assertRepainted(0, 1);
+
+		repaintManager.clear();
+		calendar.addCalendarEvent(createEvent(5, 10, 9, 11));
+		assertRepainted(5, 6);
+	}
+
+	private void assertRepainted(final int... indexes) {
+		final Set<JComponent> expected = new HashSet<JComponent>();
+		for (final int index : indexes) {
+			expected.add(days[index].getHeaderPanel());
+			expected.add(days[index].getContentPanel());
+			expected.add(days[index].getCompleteDayPanel());
+		}
+		Assert.assertEquals(expected, repaintManager.dirty);
+	}
+
+	private Date dayAt(final int day, final int hour) {
+		final Calendar c = CalendarUtil.getCalendar(days[0].getDate(), true);
+		c.add(Calendar.DATE, day);
+		c.set(Calendar.HOUR_OF_DAY, hour);
+		return c.getTime();
+	}
+
+	private CalendarEvent createEvent(final int startDay, final int startHour, final int endDay, final int endHour) {
+		return new CalendarEvent("event", dayAt(startDay, startHour), dayAt(endDay, endHour));
+	}
+
+	private static DayPanel[] findDays(final JCalendar calendar) {
+		final List<DayPanel> days = new ArrayList<DayPanel>();
+		collectDays(calendar, days);
+		Collections.sort(days, new Comparator<DayPanel>() {
+			@Override
+			public int compare(final DayPanel a, final DayPanel b) {
+				return a.getDate().compareTo(b.getDate());
+			}
+		});
+		return days.toArray(new DayPanel[days.size()]);
+	}
+
+	private static void collectDays(final Container container, final List<DayPanel> days) {
+		for (final Component component : container.getComponents()) {
+			if (component instanceof DayContentPanel)
+				days.add(((DayContentPanel) component).getOwner());
+			else if (component instanceof Container)
+				collectDays((Container) component, days);
+		}
+	}
+
+	private static class RecordingRepaintManager extends RepaintManager {
+
+		private final Set<JComponent> dirty = new HashSet<JComponent>();
+
+		@Override
+		public void addDirtyRegion(final JComponent c, final int x, final int y, final int w, final int h) {
+			dirty.add(c);
+		}
+
+		void clear() {
+			dirty.clear();
+		}
+	}
+}
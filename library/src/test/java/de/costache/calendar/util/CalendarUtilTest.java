@@ -17,6 +17,8 @@ package de.costache.calendar.util;
 
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
 
 import junit.framework.Assert;
 
@@ -101,4 +103,45 @@ public class CalendarUtilTest {
         Assert.assertEquals(dateActual,dateExpected);
     }
 
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.CalendarUtil#toEpochDay(long)}
+	 * .
+	 */
+	@Test
+	public void testEpochMillisMatchCalendar() {
+		TimeZone original = TimeZone.getDefault();
+		try {
+			for (String id : new String[] { "UTC", "Europe/Berlin", "America/New_York", "America/Sao_Paulo",
+					"Australia/Lord_Howe", "Asia/Kolkata" }) {
+				TimeZone.setDefault(TimeZone.getTimeZone(id));
+				CalendarUtil.resetTimeZone();
+
+				Random r = new Random(id.hashCode());
+				long from = CalendarUtil.createDate(1970, 1, 1, 0, 0, 0, 0).getTime();
+				long to = CalendarUtil.createDate(2040, 1, 1, 0, 0, 0, 0).getTime();
+				for (int i = 0; i < 20000; i++) {
+					long millis = from + (long) (r.nextDouble() * (to - from));
+					Calendar c = Calendar.getInstance();
+					c.setTimeInMillis(millis);
+					Assert.assertEquals(id, c.get(Calendar.HOUR_OF_DAY) * 3600 + c.get(Calendar.MINUTE) * 60
+							+ c.get(Calendar.SECOND), CalendarUtil.getSecondOfDay(millis));
+
+					c.set(Calendar.HOUR_OF_DAY, 0);
+					c.set(Calendar.MINUTE, 0);
+					c.set(Calendar.SECOND, 0);
+					c.set(Calendar.MILLISECOND, 0);
+					Assert.assertEquals(id, c.getTimeInMillis(), CalendarUtil.stripTime(millis));
+
+					c.add(Calendar.DATE, 1);
+					Assert.assertEquals(id, c.getTimeInMillis(), CalendarUtil.plusDays(CalendarUtil.stripTime(millis), 1));
+					Assert.assertEquals(id, CalendarUtil.toEpochDay(millis) + 1, CalendarUtil.toEpochDay(c.getTimeInMillis()));
+				}
+			}
+		} finally {
+			TimeZone.setDefault(original);
+			CalendarUtil.resetTimeZone();
+		}
+	}
+
 }
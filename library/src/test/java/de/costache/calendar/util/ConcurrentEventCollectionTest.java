@@ -0,0 +1,264 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.events.ModelChangedEvent;
+import de.costache.calendar.events.ModelChangedListener;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.Occurrence;
+import de.costache.calendar.model.Recurrence;
+import de.costache.calendar.model.Recurrence.Frequency;
+import de.costache.calendar.model.RecurringEvent;
+
+/**
+ *
+ * @author theodorcostache
+ *
+ */
+public class ConcurrentEventCollectionTest {
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.ConcurrentEventCollection#add(de.costache.calendar.model.CalendarEvent)}
+	 * .
+	 */
+	@Test
+	public void testSnapshotMatchesCollection() throws Exception {
+		for (EventCollection.Type type : EventCollection.Type.values()) {
+			final JCalendar calendar = new JCalendar(type);
+			final ConcurrentEventCollection collection = new ConcurrentEventCollection(calendar, 5);
+			List<Thread> producers = new ArrayList<Thread>();
+			for (int i = 0; i < 4; i++) {
+				final Random r = new Random(i);
+				producers.add(new Thread() {
+					@Override
+					public void run() {
+						List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+						for (int j = 0; j < 500; j++) {
+							final CalendarEvent event = createEvent(r, j);
+							events.add(event);
+							collection.add(event);
+							if (j % 5 == 0) {
+								collection.submit(new Runnable() {
+									@Override
+									public void run() {
+										event.setEnd(new Date(event.getEnd().getTime() + 40 * 24 * 3600000L));
+										event.setStart(new Date(event.getStart().getTime() + 40 * 24 * 3600000L));
+									}
+								});
+							}
+						}
+						collection.removeAll(events.subList(0, 100));
+					}
+				});
+			}
+			for (Thread producer : producers) {
+				producer.start();
+			}
+			RecurringEvent standup = new RecurringEvent("Standup", CalendarUtil.createDate(2013, 1, 7, 9, 30, 0, 0),
+					CalendarUtil.createDate(2013, 1, 7, 9, 45, 0, 0), new Recurrence(Frequency.WEEKLY, 1, 0, null,
+							Calendar.MONDAY));
+			standup.setResource("Room 1");
+			collection.add(standup);
+			for (Thread producer : producers) {
+				producer.join();
+			}
+			publish(collection);
+
+			final EventCollection target = EventCollectionRepository.get(calendar);
+			final Date from = CalendarUtil.createDate(2012, 12, 20, 0, 0, 0, 0);
+			final Date to = CalendarUtil.createDate(2013, 9, 1, 0, 0, 0, 0);
+			final List<Object> expected = new ArrayList<Object>();
+			SwingUtilities.invokeAndWait(new Runnable() {
+				@Override
+				public void run() {
+					expected.addAll(describe(target, from, to));
+				}
+			});
+			Assert.assertEquals(1601, target.getAllEvents().size());
+			Assert.assertEquals(expected, describe(collection, from, to));
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.ConcurrentEventCollection#endUpdate()}
+	 * .
+	 */
+	@Test
+	public void testBatchIsAppliedTogether() throws Exception {
+		JCalendar calendar = new JCalendar();
+		final ConcurrentEventCollection collection = new ConcurrentEventCollection(calendar, 5);
+		final List<Integer> batches = new ArrayList<Integer>();
+		collection.addCollectionChangedListener(new ModelChangedListener() {
+			@Override
+			public void eventAdded(ModelChangedEvent event) {
+				batches.add(event.getCalendarEvents().size());
+			}
+
+			@Override
+			public void eventRemoved(ModelChangedEvent event) {
+			}
+
+			@Override
+			public void eventChanged(ModelChangedEvent event) {
+			}
+		});
+		Random r = new Random(7);
+		collection.beginUpdate();
+		for (int i = 0; i < 100; i++) {
+			collection.add(createEvent(r, i));
+		}
+		publish(collection);
+		Assert.assertTrue(collection.getAllEvents().isEmpty());
+		collection.endUpdate();
+		publish(collection);
+		Assert.assertEquals(100, collection.getAllEvents().size());
+		Assert.assertEquals(1, batches.size());
+		Assert.assertEquals(100, batches.get(0).intValue());
+		try {
+			collection.endUpdate();
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.ConcurrentEventCollection#getAggregate(java.util.Date)}
+	 * .
+	 */
+	@Test
+	public void testSnapshotKeepsPublishedState() throws Exception {
+		final ConcurrentEventCollection collection = new ConcurrentEventCollection(new JCalendar(), 3600000);
+		final CalendarEvent meeting = new CalendarEvent("Meeting", CalendarUtil.createDate(2013, 3, 4, 10, 0, 0, 0),
+				CalendarUtil.createDate(2013, 3, 4, 11, 0, 0, 0));
+		meeting.setResource("Room 1");
+		final RecurringEvent standup = new RecurringEvent("Standup", CalendarUtil.createDate(2013, 3, 4, 9, 0, 0, 0),
+				CalendarUtil.createDate(2013, 3, 4, 9, 15, 0, 0), new Recurrence(Frequency.DAILY));
+		collection.add(meeting);
+		collection.add(standup);
+		publish(collection);
+
+		// changed on the event dispatch thread but not yet published
+		SwingUtilities.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+				meeting.setEnd(CalendarUtil.createDate(2013, 3, 5, 11, 0, 0, 0));
+				meeting.setStart(CalendarUtil.createDate(2013, 3, 5, 10, 0, 0, 0));
+				meeting.setHoliday(true);
+				meeting.setResource("Room 2");
+				standup.addException(CalendarUtil.createDate(2013, 3, 4, 9, 0, 0, 0));
+			}
+		});
+		Date day = CalendarUtil.createDate(2013, 3, 4, 0, 0, 0, 0);
+		Date nextDay = CalendarUtil.createDate(2013, 3, 5, 0, 0, 0, 0);
+		List<CalendarEvent> events = new ArrayList<CalendarEvent>(collection.getEvents(day));
+		Assert.assertEquals(2, events.size());
+		Assert.assertEquals(standup, ((Occurrence) events.get(0)).getSeries());
+		Assert.assertSame(meeting, events.get(1));
+		Assert.assertSame(meeting, collection.getEvents(day, nextDay).getEvents(0).get(1));
+		DayAggregate aggregate = collection.getAggregate(day);
+		Assert.assertEquals(2, aggregate.getEventCount());
+		Assert.assertEquals(75, aggregate.getBusyMinutes());
+		Assert.assertTrue(aggregate.getHolidays().isEmpty());
+		Assert.assertEquals(Arrays.asList("Room 1", null), collection.getResources());
+		events.clear();
+		collection.getEvents("Room 1", day, nextDay, events);
+		Assert.assertEquals(Arrays.asList(meeting), events);
+		Assert.assertEquals(1, collection.getEventCounts(nextDay, CalendarUtil.createDate(2013, 3, 6, 0, 0, 0, 0))[0]);
+
+		publish(collection);
+		Assert.assertTrue(collection.getEvents(day).isEmpty());
+		aggregate = collection.getAggregate(nextDay);
+		Assert.assertEquals(2, aggregate.getEventCount());
+		Assert.assertEquals(15, aggregate.getBusyMinutes());
+		Assert.assertEquals(Arrays.asList(meeting), aggregate.getHolidays());
+		Assert.assertEquals(Arrays.asList("Room 2", null), collection.getResources());
+		events.clear();
+		collection.getEvents("Room 2", day, CalendarUtil.createDate(2013, 3, 6, 0, 0, 0, 0), events);
+		Assert.assertEquals(Arrays.asList(meeting), events);
+	}
+
+	private static CalendarEvent createEvent(Random r, int i) {
+		Date start = CalendarUtil.createDate(2013, 1 + r.nextInt(6), 1 + r.nextInt(28), r.nextInt(24), r.nextInt(60),
+				0, 0);
+		CalendarEvent event = new CalendarEvent("Event " + i, start, new Date(start.getTime()
+				+ r.nextInt(3 * 24 * 60) * 60000L));
+		event.setResource(i % 3 == 0 ? null : "Room " + i % 3);
+		event.setHoliday(i % 11 == 0);
+		event.setAllDay(i % 7 == 0);
+		return event;
+	}
+
+	private static void publish(final ConcurrentEventCollection collection) throws InterruptedException,
+			InvocationTargetException {
+		SwingUtilities.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+				collection.publish();
+			}
+		});
+	}
+
+	/**
+	 * @return the results of the queries of the given collection for every day
+	 *         of the given interval
+	 */
+	private static List<Object> describe(EventCollection collection, Date from, Date to) {
+		List<Object> result = new ArrayList<Object>();
+		EventBuckets buckets = collection.getEvents(from, to);
+		int[] counts = collection.getEventCounts(from, to);
+		Assert.assertEquals(buckets.size(), counts.length);
+		for (int i = 0; i < buckets.size(); i++) {
+			Date day = buckets.getDay(i);
+			result.add(buckets.getEvents(i).toString());
+			result.add(collection.getEvents(day).toString());
+			result.add(counts[i]);
+			DayAggregate aggregate = collection.getAggregate(day);
+			result.add(aggregate.getDay());
+			result.add(aggregate.getEventCount());
+			result.add(aggregate.getAllDayCount());
+			result.add(aggregate.getBusyMinutes());
+			result.add(aggregate.getHolidays());
+		}
+		result.add(collection.getResources());
+		for (String resource : collection.getResources()) {
+			Collection<CalendarEvent> events = new ArrayList<CalendarEvent>();
+			collection.getEvents(resource, from, to, events);
+			result.add(events.toString());
+		}
+		result.add(collection.getAllEvents().size());
+		return result;
+	}
+}
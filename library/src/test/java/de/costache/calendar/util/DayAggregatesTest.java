@@ -0,0 +1,97 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import java.util.Date;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.costache.calendar.model.CalendarEvent;
+
+/**
+ *
+ * @author theodorcostache
+ *
+ */
+public class DayAggregatesTest {
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.DayAggregates#add(de.costache.calendar.model.CalendarEvent, int)}
+	 * .
+	 */
+	@Test
+	public void testOutliersAllocateOnlyTheirPages() {
+		DayAggregates aggregates = new DayAggregates();
+		CalendarEvent early = createEvent(CalendarUtil.createDate(1900, 1, 1, 10, 0, 0, 0), 60);
+		CalendarEvent usual = createEvent(CalendarUtil.createDate(2013, 5, 6, 10, 0, 0, 0), 90);
+		CalendarEvent late = createEvent(CalendarUtil.createDate(9999, 12, 31, 10, 0, 0, 0), 30);
+		aggregates.add(early, 1);
+		aggregates.add(usual, 1);
+		aggregates.add(late, 1);
+		Assert.assertEquals(3, aggregates.getPageCount());
+
+		int day = CalendarUtil.toEpochDay(usual.getStart().getTime());
+		Assert.assertEquals(1, aggregates.get(day).getEventCount());
+		Assert.assertEquals(90, aggregates.get(day).getBusyMinutes());
+		Assert.assertEquals(0, aggregates.get(day + 1).getEventCount());
+		Assert.assertEquals(1, aggregates.get(CalendarUtil.toEpochDay(early.getStart().getTime())).getEventCount());
+		Assert.assertEquals(1, aggregates.get(CalendarUtil.toEpochDay(late.getStart().getTime())).getEventCount());
+
+		aggregates.add(early, -1);
+		aggregates.add(late, -1);
+		Assert.assertEquals(1, aggregates.getPageCount());
+		Assert.assertEquals(0, aggregates.get(CalendarUtil.toEpochDay(late.getStart().getTime())).getEventCount());
+		aggregates.add(usual, -1);
+		Assert.assertEquals(0, aggregates.getPageCount());
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.DayAggregates#getCounts(int, int[])}.
+	 */
+	@Test
+	public void testCountsAcrossPages() {
+		DayAggregates aggregates = new DayAggregates();
+		Date start = CalendarUtil.createDate(2012, 12, 20, 10, 0, 0, 0);
+		int first = CalendarUtil.toEpochDay(start.getTime());
+		// spans 1000 days and therefore at least two page boundaries
+		CalendarEvent spanning = createEvent(start, 999 * 24 * 60);
+		aggregates.add(spanning, 1);
+		aggregates.add(createEvent(start, 30), 1);
+
+		int[] counts = new int[1200];
+		aggregates.getCounts(first - 100, counts);
+		for (int i = 0; i < counts.length; i++) {
+			int day = first - 100 + i;
+			int expected = day < first || day >= first + 1000 ? 0 : day == first ? 2 : 1;
+			Assert.assertEquals("day " + i, expected, counts[i]);
+		}
+
+		aggregates.add(spanning, -1);
+		aggregates.getCounts(first - 100, counts);
+		for (int i = 0; i < counts.length; i++) {
+			Assert.assertEquals("day " + i, i == 100 ? 1 : 0, counts[i]);
+		}
+		Assert.assertEquals(1, aggregates.getPageCount());
+	}
+
+	private static CalendarEvent createEvent(Date start, int minutes) {
+		return new CalendarEvent("Event", start, new Date(start.getTime() + minutes * 60000L));
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.costache.calendar.model.CalendarEvent;
+
+/**
+ *
+ * @author theodorcostache
+ *
+ */
+public class DayLayoutTest {
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.DayLayout#compute(java.util.Collection)}
+	 * .
+	 */
+	@Test
+	public void testColumns() {
+		CalendarEvent a = event(8, 0, 10, 0);
+		CalendarEvent b = event(9, 0, 11, 0);
+		CalendarEvent c = event(10, 0, 12, 0);
+		CalendarEvent d = event(12, 0, 13, 0);
+		CalendarEvent allDay = event(8, 0, 9, 0);
+		allDay.setAllDay(true);
+
+		DayLayout layout = DayLayout.compute(Arrays.asList(d, c, allDay, b, a));
+
+		Assert.assertEquals(4, layout.size());
+		Assert.assertEquals(-1, layout.indexOf(allDay));
+		Assert.assertEquals(2, layout.getClusterCount());
+
+		Assert.assertEquals(0, layout.getColumn(layout.indexOf(a)));
+		Assert.assertEquals(1, layout.getColumn(layout.indexOf(b)));
+		Assert.assertEquals(0, layout.getColumn(layout.indexOf(c)));
+		Assert.assertEquals(2, layout.getColumnCount(layout.indexOf(c)));
+
+		Assert.assertEquals(0, layout.getColumn(layout.indexOf(d)));
+		Assert.assertEquals(1, layout.getColumnCount(layout.indexOf(d)));
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.DayLayout#compute(java.util.Collection)}
+	 * .
+	 */
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testMatchesConflicting() {
+		Random r = new Random(7);
+		List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+		for (int i = 0; i < 150; i++) {
+			int hour = r.nextInt(22);
+			events.add(event(hour, r.nextInt(60), hour + 1 + r.nextInt(2), r.nextInt(60)));
+		}
+
+		DayLayout layout = DayLayout.compute(events);
+		Map<CalendarEvent, List<CalendarEvent>> conflicting = CalendarUtil.getConflicting(events);
+
+		for (int i = 0; i < layout.size(); i++) {
+			Set<CalendarEvent> cluster = new HashSet<CalendarEvent>();
+			for (int j = 0; j < layout.size(); j++) {
+				if (layout.getCluster(j) == layout.getCluster(i))
+					cluster.add(layout.getEvent(j));
+
+				if (i != j && layout.getColumn(i) == layout.getColumn(j) && overlap(layout.getEvent(i), layout.getEvent(j)))
+					Assert.fail("overlapping events share a column");
+			}
+			Assert.assertTrue(layout.getColumn(i) < layout.getColumnCount(i));
+			Assert.assertEquals(new HashSet<CalendarEvent>(conflicting.get(layout.getEvent(i))), cluster);
+		}
+	}
+
+	private static boolean overlap(CalendarEvent a, CalendarEvent b) {
+		return a.getStart().before(b.getEnd()) && a.getEnd().after(b.getStart());
+	}
+
+	private static CalendarEvent event(int startHour, int startMinute, int endHour, int endMinute) {
+		Date start = CalendarUtil.createDate(2013, 10, 10, startHour, startMinute, 0, 0);
+		Date end = CalendarUtil.createDate(2013, 10, 10, endHour, endMinute, 0, 0);
+		return new CalendarEvent(start, end);
+	}
+}
@@ -0,0 +1,335 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.events.LoadEvent;
+import de.costache.calendar.events.LoadListener;
+import de.costache.calendar.events.ModelChangedEvent;
+import de.costache.calendar.events.ModelChangedListener;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.Recurrence;
+import de.costache.calendar.model.Recurrence.Frequency;
+import de.costache.calendar.model.RecurringEvent;
+
+/**
+ *
+ * @author theodorcostache
+ *
+ */
+public class EventLoaderTest {
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.EventLoader#load(de.costache.calendar.util.EventSource, java.util.Date, java.util.Date, de.costache.calendar.events.LoadListener)}
+	 * .
+	 */
+	@Test
+	public void testLoadPublishesIntervalFirst() throws Exception {
+		final Date from = CalendarUtil.createDate(2013, 3, 1, 0, 0, 0, 0);
+		final Date to = CalendarUtil.createDate(2013, 4, 1, 0, 0, 0, 0);
+		for (EventCollection.Type type : EventCollection.Type.values()) {
+			JCalendar calendar = new JCalendar(type);
+			EventCollection collection = EventCollectionRepository.get(calendar);
+			List<CalendarEvent> existing = createEvents(new Random(1), 10);
+			collection.addAll(existing);
+			List<CalendarEvent> events = createEvents(new Random(2), 5000);
+			events.add(new RecurringEvent("Standup", CalendarUtil.createDate(2013, 1, 7, 9, 30, 0, 0), CalendarUtil
+					.createDate(2013, 1, 7, 9, 45, 0, 0), new Recurrence(Frequency.WEEKLY, 1, 0, null, Calendar.MONDAY)));
+			int inInterval = 1;
+			for (CalendarEvent event : events) {
+				if (!(event instanceof RecurringEvent) && event.getStart().before(to) && !event.getEnd().before(from))
+					inInterval++;
+			}
+
+			final List<Integer> batches = new ArrayList<Integer>();
+			collection.addCollectionChangedListener(new ModelChangedListener() {
+				@Override
+				public void eventAdded(ModelChangedEvent event) {
+					Assert.assertTrue(SwingUtilities.isEventDispatchThread());
+					batches.add(event.getCalendarEvents().size());
+				}
+
+				@Override
+				public void eventRemoved(ModelChangedEvent event) {
+				}
+
+				@Override
+				public void eventChanged(ModelChangedEvent event) {
+				}
+			});
+			RecordingListener listener = new RecordingListener();
+			ExecutorService executor = Executors.newSingleThreadExecutor();
+			Assert.assertEquals(5001, new EventLoader(calendar, executor).load(source(events), from, to, listener)
+					.get().intValue());
+			executor.shutdown();
+			Assert.assertTrue(listener.finished.await(10, TimeUnit.SECONDS));
+			Assert.assertNull(listener.event.getError());
+			Assert.assertEquals(5001, listener.event.getPublished());
+
+			Assert.assertEquals(2, batches.size());
+			Assert.assertEquals(inInterval, batches.get(0).intValue());
+			Assert.assertEquals(5001 - inInterval, batches.get(1).intValue());
+			Assert.assertEquals(5011, collection.getAllEvents().size());
+
+			List<CalendarEvent> all = new ArrayList<CalendarEvent>(existing);
+			all.addAll(events);
+			assertCounts(all, collection);
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.EventLoader#load(de.costache.calendar.util.EventSource, java.util.Date, java.util.Date, de.costache.calendar.events.LoadListener)}
+	 * .
+	 */
+	@Test
+	public void testLoadPublishesIntervalEarlyAndStreamsChunks() throws Exception {
+		final Date from = CalendarUtil.createDate(2013, 2, 1, 0, 0, 0, 0);
+		final Date to = CalendarUtil.createDate(2013, 2, 15, 0, 0, 0, 0);
+		for (boolean sorted : new boolean[] { true, false }) {
+			List<CalendarEvent> events = createEvents(new Random(6), 5000);
+			if (sorted)
+				Collections.sort(events);
+			int inInterval = 0;
+			int beforeEnd = 0;
+			for (CalendarEvent event : events) {
+				if (event.getStart().before(to) && !event.getEnd().before(from))
+					inInterval++;
+				if (event.getStart().before(to))
+					beforeEnd++;
+			}
+
+			JCalendar calendar = new JCalendar();
+			final Iterator<CalendarEvent> iterator = events.iterator();
+			final AtomicInteger read = new AtomicInteger();
+			final EventSource counting = new EventSource() {
+				@Override
+				public CalendarEvent next() {
+					if (!iterator.hasNext())
+						return null;
+					read.incrementAndGet();
+					return iterator.next();
+				}
+			};
+			EventSource source = counting;
+			if (sorted) {
+				source = new OrderedEventSource() {
+					@Override
+					public CalendarEvent next() throws IOException {
+						return counting.next();
+					}
+				};
+			}
+			final List<Integer> batches = new ArrayList<Integer>();
+			final List<Integer> readAtBatch = new ArrayList<Integer>();
+			EventCollectionRepository.get(calendar).addCollectionChangedListener(new ModelChangedListener() {
+				@Override
+				public void eventAdded(ModelChangedEvent event) {
+					batches.add(event.getCalendarEvents().size());
+					readAtBatch.add(read.get());
+				}
+
+				@Override
+				public void eventRemoved(ModelChangedEvent event) {
+				}
+
+				@Override
+				public void eventChanged(ModelChangedEvent event) {
+				}
+			});
+			ExecutorService executor = Executors.newSingleThreadExecutor();
+			Assert.assertEquals(5000, new EventLoader(calendar, executor, 2000).load(source, from, to, null).get()
+					.intValue());
+			executor.shutdown();
+
+			if (sorted) {
+				// published as soon as the first event after the interval is read
+				Assert.assertEquals(inInterval, batches.get(0).intValue());
+				Assert.assertEquals(beforeEnd + 1, readAtBatch.get(0).intValue());
+			} else {
+				Assert.assertEquals(2001, readAtBatch.get(0).intValue());
+			}
+			int total = 0;
+			for (int i = 0; i < batches.size(); i++) {
+				if (i > 0 && i < batches.size() - 1)
+					Assert.assertEquals(2000, batches.get(i).intValue());
+				total += batches.get(i);
+			}
+			Assert.assertEquals(5000, total);
+			Assert.assertEquals(5000, calendar.getCalendarEvents().size());
+			assertCounts(events, EventCollectionRepository.get(calendar));
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.AbstractEventCollection#publish(de.costache.calendar.util.EventShard)}
+	 * .
+	 */
+	@Test
+	public void testPublishedEventsAreObserved() throws Exception {
+		for (EventCollection.Type type : EventCollection.Type.values()) {
+			for (int existingCount : new int[] { 5, 500 }) {
+				AbstractEventCollection collection = (AbstractEventCollection) EventCollectionRepository
+						.get(new JCalendar(type));
+				List<CalendarEvent> existing = createEvents(new Random(3), existingCount);
+				collection.addAll(existing);
+				List<CalendarEvent> events = createEvents(new Random(4), 50);
+				events.add(existing.get(0));
+				EventShard shard = collection.newShard();
+				shard.addAll(events);
+				collection.publish(shard);
+				Assert.assertEquals(existingCount + 50, collection.getAllEvents().size());
+
+				Date day = CalendarUtil.createDate(2014, 1, 15, 0, 0, 0, 0);
+				collection.beginUpdate();
+				events.get(0).setStart(CalendarUtil.createDate(2014, 1, 15, 10, 0, 0, 0));
+				events.get(0).setEnd(CalendarUtil.createDate(2014, 1, 15, 11, 0, 0, 0));
+				existing.get(1).setStart(CalendarUtil.createDate(2014, 1, 15, 12, 0, 0, 0));
+				existing.get(1).setEnd(CalendarUtil.createDate(2014, 1, 15, 13, 0, 0, 0));
+				collection.endUpdate();
+				Collection<CalendarEvent> moved = collection.getEvents(day);
+				Assert.assertEquals(2, moved.size());
+				Assert.assertTrue(moved.contains(events.get(0)));
+				Assert.assertTrue(moved.contains(existing.get(1)));
+
+				List<CalendarEvent> all = new ArrayList<CalendarEvent>(existing);
+				all.addAll(events.subList(0, 50));
+				assertCounts(all, collection);
+			}
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.EventLoader#load(de.costache.calendar.util.EventSource, de.costache.calendar.events.LoadListener)}
+	 * .
+	 */
+	@Test
+	public void testCancelledLoadPublishesNothing() throws Exception {
+		JCalendar calendar = new JCalendar();
+		final Iterator<CalendarEvent> events = createEvents(new Random(5), 10000).iterator();
+		EventSource source = new EventSource() {
+			int read;
+
+			@Override
+			public CalendarEvent next() {
+				if (++read == 4000)
+					Thread.currentThread().interrupt();
+				return events.hasNext() ? events.next() : null;
+			}
+		};
+		RecordingListener listener = new RecordingListener();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			new EventLoader(calendar, executor).load(source, listener).get();
+			Assert.fail();
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof CancellationException);
+		}
+		executor.shutdown();
+		Assert.assertTrue(listener.finished.await(10, TimeUnit.SECONDS));
+		Assert.assertTrue(listener.event.getError() instanceof CancellationException);
+		Assert.assertEquals(0, listener.event.getPublished());
+		Assert.assertEquals(0, calendar.getCalendarEvents().size());
+	}
+
+	private static List<CalendarEvent> createEvents(Random r, int count) {
+		List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+		for (int i = 0; i < count; i++) {
+			Date start = CalendarUtil.createDate(2013, 1 + r.nextInt(6), 1 + r.nextInt(28), r.nextInt(24),
+					r.nextInt(60), 0, 0);
+			events.add(new CalendarEvent("Event " + i, start, new Date(start.getTime() + r.nextInt(2 * 24 * 60)
+					* 60000L)));
+		}
+		return events;
+	}
+
+	private static EventSource source(final List<CalendarEvent> events) {
+		final Iterator<CalendarEvent> iterator = events.iterator();
+		return new EventSource() {
+			@Override
+			public CalendarEvent next() {
+				return iterator.hasNext() ? iterator.next() : null;
+			}
+		};
+	}
+
+	private static void assertCounts(List<CalendarEvent> events, EventCollection collection) {
+		Date from = CalendarUtil.createDate(2012, 12, 1, 0, 0, 0, 0);
+		int[] counts = collection.getEventCounts(from, CalendarUtil.createDate(2014, 2, 1, 0, 0, 0, 0));
+		int[] expected = new int[counts.length];
+		int first = CalendarUtil.toEpochDay(from.getTime());
+		for (CalendarEvent event : events) {
+			int start = CalendarUtil.toEpochDay(event.getStart().getTime());
+			if (event instanceof RecurringEvent) {
+				// the only series used here repeats weekly without end
+				for (int day = start; day < first + expected.length; day += 7) {
+					expected[day - first]++;
+				}
+				continue;
+			}
+			for (int day = start; day <= CalendarUtil.toEpochDay(event.getEnd().getTime()); day++) {
+				expected[day - first]++;
+			}
+		}
+		for (int i = 0; i < counts.length; i++) {
+			Assert.assertEquals("day " + i, expected[i], counts[i]);
+		}
+	}
+
+	private static final class RecordingListener implements LoadListener {
+
+		final CountDownLatch finished = new CountDownLatch(1);
+		volatile LoadEvent event;
+
+		@Override
+		public void loadProgress(LoadEvent event) {
+			Assert.assertTrue(SwingUtilities.isEventDispatchThread());
+		}
+
+		@Override
+		public void loadFinished(LoadEvent event) {
+			Assert.assertTrue(SwingUtilities.isEventDispatchThread());
+			this.event = event;
+			finished.countDown();
+		}
+	}
+}
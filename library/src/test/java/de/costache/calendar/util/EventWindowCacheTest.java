@@ -0,0 +1,219 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.Assert;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.events.LoadEvent;
+import de.costache.calendar.events.LoadListener;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.ui.strategy.DisplayStrategy;
+
+/**
+ *
+ * @author theodorcostache
+ *
+ */
+public class EventWindowCacheTest {
+
+	private static final long DAY = 24 * 3600000L;
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.EventWindowCache#EventWindowCache(de.costache.calendar.JCalendar, de.costache.calendar.util.EventProvider, java.util.concurrent.ExecutorService, de.costache.calendar.events.LoadListener, int, int)}
+	 * .
+	 */
+	@Test
+	public void testWindowsFollowInterval() throws Exception {
+		final Date march = CalendarUtil.createDate(2013, 3, 13, 0, 0, 0, 0);
+		final Date june = CalendarUtil.createDate(2015, 6, 10, 0, 0, 0, 0);
+		final JCalendar calendar = createCalendar(march);
+		final DailyProvider provider = new DailyProvider(0);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		final EventWindowCache cache = createCache(calendar, provider, executor, null);
+		awaitIdle(cache);
+		assertLoaded(calendar, march, provider.requests.size());
+
+		setSelectedDay(calendar, june);
+		awaitIdle(cache);
+		int requests = provider.requests.size();
+		assertLoaded(calendar, june, 4);
+		for (CalendarEvent event : EventCollectionRepository.get(calendar).getAllEvents()) {
+			Assert.assertTrue(Math.abs(event.getStart().getTime() - june.getTime()) < 40 * DAY);
+		}
+
+		setSelectedDay(calendar, march);
+		awaitIdle(cache);
+		Assert.assertTrue(provider.requests.size() > requests);
+		assertLoaded(calendar, march, 4);
+
+		SwingUtilities.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+				cache.close();
+			}
+		});
+		requests = provider.requests.size();
+		setSelectedDay(calendar, june);
+		awaitIdle(cache);
+		Assert.assertEquals(requests, provider.requests.size());
+		executor.shutdown();
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.EventWindowCache#EventWindowCache(de.costache.calendar.JCalendar, de.costache.calendar.util.EventProvider, java.util.concurrent.ExecutorService, de.costache.calendar.events.LoadListener)}
+	 * .
+	 */
+	@Test
+	public void testFailedWindowIsRetried() throws Exception {
+		final Date march = CalendarUtil.createDate(2013, 3, 13, 0, 0, 0, 0);
+		final JCalendar calendar = createCalendar(march);
+		final List<LoadEvent> events = new ArrayList<LoadEvent>();
+		LoadListener listener = new LoadListener() {
+			@Override
+			public void loadProgress(LoadEvent event) {
+			}
+
+			@Override
+			public void loadFinished(LoadEvent event) {
+				Assert.assertTrue(SwingUtilities.isEventDispatchThread());
+				events.add(event);
+			}
+		};
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		final EventWindowCache cache = createCache(calendar, new DailyProvider(1), executor, listener);
+		awaitIdle(cache);
+		Assert.assertTrue(events.get(0).getError() instanceof IOException);
+		Assert.assertEquals(0, events.get(0).getPublished());
+		Assert.assertNull(events.get(1).getError());
+		Assert.assertEquals(7, events.get(1).getPublished());
+
+		setSelectedDay(calendar, march);
+		awaitIdle(cache);
+		Assert.assertNull(events.get(events.size() - 1).getError());
+		assertLoaded(calendar, march, 4);
+		executor.shutdown();
+	}
+
+	private static JCalendar createCalendar(final Date date) throws InterruptedException, InvocationTargetException {
+		final JCalendar[] calendar = new JCalendar[1];
+		SwingUtilities.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+				calendar[0] = new JCalendar();
+				calendar[0].setDisplayStrategy(DisplayStrategy.Type.WEEK, date);
+			}
+		});
+		return calendar[0];
+	}
+
+	private static EventWindowCache createCache(final JCalendar calendar, final EventProvider provider,
+			final ExecutorService executor, final LoadListener listener) throws InterruptedException,
+			InvocationTargetException {
+		final EventWindowCache[] cache = new EventWindowCache[1];
+		SwingUtilities.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+				cache[0] = new EventWindowCache(calendar, provider, executor, listener, 7, 2);
+			}
+		});
+		return cache[0];
+	}
+
+	private static void setSelectedDay(final JCalendar calendar, final Date date) throws InterruptedException,
+			InvocationTargetException {
+		SwingUtilities.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+				calendar.setSelectedDay(date);
+			}
+		});
+	}
+
+	private static void awaitIdle(final EventWindowCache cache) throws Exception {
+		final boolean[] idle = new boolean[1];
+		for (int i = 0; i < 500 && !idle[0]; i++) {
+			Thread.sleep(10);
+			SwingUtilities.invokeAndWait(new Runnable() {
+				@Override
+				public void run() {
+					idle[0] = cache.isIdle();
+				}
+			});
+		}
+		Assert.assertTrue(idle[0]);
+	}
+
+	/**
+	 * Asserts that every day of the week of the given date has its event, and
+	 * that the collection holds the events of the given number of windows
+	 */
+	private static void assertLoaded(final JCalendar calendar, final Date date, final int windows) throws Exception {
+		final EventCollection collection = EventCollectionRepository.get(calendar);
+		SwingUtilities.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = -3; i <= 3; i++) {
+					Assert.assertEquals(1, collection.getEvents(new Date(date.getTime() + i * DAY)).size());
+				}
+				Assert.assertEquals(windows * 7, collection.getAllEvents().size());
+			}
+		});
+	}
+
+	/**
+	 * Provides one event a day, failing the given number of times first
+	 */
+	private static final class DailyProvider implements EventProvider {
+
+		final List<Date> requests = Collections.synchronizedList(new ArrayList<Date>());
+		int failures;
+
+		DailyProvider(int failures) {
+			this.failures = failures;
+		}
+
+		@Override
+		public List<CalendarEvent> getEvents(Date from, Date to) throws IOException {
+			requests.add(from);
+			if (failures > 0) {
+				failures--;
+				throw new IOException("Not available");
+			}
+			List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+			for (int day = CalendarUtil.toEpochDay(from.getTime()); day < CalendarUtil.toEpochDay(to.getTime()); day++) {
+				long start = CalendarUtil.startOfEpochDay(day) + 10 * 3600000L;
+				events.add(new CalendarEvent("Event", new Date(start), new Date(start + 3600000L)));
+			}
+			return events;
+		}
+	}
+}
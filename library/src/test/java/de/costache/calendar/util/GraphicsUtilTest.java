@@ -0,0 +1,101 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author theodorcostache
+ *
+ */
+public class GraphicsUtilTest {
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.GraphicsUtil#layoutTrimmedString(java.awt.FontMetrics, String, int)}
+	 * .
+	 */
+	@Test
+	public void testTrimMatchesLinearSearch() {
+		FontMetrics fm = metrics();
+		Random r = new Random(3);
+		for (int i = 0; i < 500; i++) {
+			String s = randomText(r);
+			int width = 5 + r.nextInt(200);
+			WrappedText text = GraphicsUtil.layoutTrimmedString(fm, s, width);
+			Assert.assertEquals(1, text.size());
+			Assert.assertEquals(trimLinear(fm, s, width), text.getFragment(0));
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.GraphicsUtil#layoutString(java.awt.FontMetrics, String, int, int)}
+	 * .
+	 */
+	@Test
+	public void testLayoutIsCached() {
+		FontMetrics fm = metrics();
+		WrappedText text = GraphicsUtil.layoutString(fm, "10:00 11:00 Weekly planning meeting", 60, 100);
+		Assert.assertSame(text, GraphicsUtil.layoutString(fm, "10:00 11:00 Weekly planning meeting", 60, 100));
+		Assert.assertNotSame(text, GraphicsUtil.layoutString(fm, "10:00 11:00 Weekly planning meeting", 61, 100));
+		Assert.assertTrue(text.size() > 1);
+	}
+
+	private static FontMetrics metrics() {
+		Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+		try {
+			return g.getFontMetrics(new Font("Verdana", Font.BOLD, 9));
+		} finally {
+			g.dispose();
+		}
+	}
+
+	private static String randomText(Random r) {
+		StringBuilder sb = new StringBuilder();
+		int length = r.nextInt(60);
+		for (int i = 0; i < length; i++) {
+			sb.append((char) ('a' + r.nextInt(26)));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * The trimming as done before the binary search, one character at a
+	 * time
+	 */
+	private static String trimLinear(FontMetrics fm, String s, int width) {
+		int wordWidth = fm.stringWidth(s + " ");
+		int charIdx = s.length();
+		boolean textTrimmed = false;
+		while (charIdx > 0 && wordWidth >= width) {
+			charIdx -= 1;
+			s = s.substring(0, charIdx);
+			wordWidth = fm.stringWidth(s + " ");
+			textTrimmed = true;
+		}
+		return s.length() > 3 && textTrimmed ? s.substring(0, s.length() - 3) + "..." : s.length() > 2 ? s : "";
+	}
+}
@@ -0,0 +1,319 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.events.ModelChangedEvent;
+import de.costache.calendar.events.ModelChangedListener;
+import de.costache.calendar.model.CalendarEvent;
+import de.costache.calendar.model.CalendarEvent.Property;
+import de.costache.calendar.model.Occurrence;
+import de.costache.calendar.model.Recurrence;
+import de.costache.calendar.model.Recurrence.Frequency;
+import de.costache.calendar.model.RecurringEvent;
+
+/**
+ *
+ * @author theodorcostache
+ *
+ */
+public class IndexedEventCollectionTest {
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.IndexedEventCollection#getEvents(java.util.Date)}
+	 * .
+	 */
+	@Test
+	public void testGetEventsMatchesLinearScan() {
+		Random r = new Random(17);
+		IndexedEventCollection collection = new IndexedEventCollection(null);
+		List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+		for (int i = 0; i < 3000; i++) {
+			Date start = CalendarUtil.createDate(2013, 1 + r.nextInt(2), 1 + r.nextInt(28), r.nextInt(24),
+					r.nextInt(60), 0, 0);
+			Date end = new Date(start.getTime() + r.nextInt(3 * 24 * 60) * 60000L);
+			events.add(new CalendarEvent(start, end));
+		}
+		collection.addAll(events.subList(0, 1000));
+		for (CalendarEvent event : events.subList(1000, 3000)) {
+			collection.add(event);
+		}
+		for (int i = 0; i < events.size(); i += 3) {
+			collection.remove(events.get(i));
+		}
+		Assert.assertEquals(2000, collection.size());
+
+		EventBuckets buckets = collection.getEvents(CalendarUtil.createDate(2013, 2, 1, 0, 0, 0, 0),
+				CalendarUtil.createDate(2013, 3, 1, 0, 0, 0, 0));
+		for (int day = 1; day <= 28; day++) {
+			Date date = CalendarUtil.createDate(2013, 2, day, 0, 0, 0, 0);
+			List<CalendarEvent> expected = new ArrayList<CalendarEvent>();
+			for (int i = 0; i < events.size(); i++) {
+				CalendarEvent event = events.get(i);
+				if (i % 3 != 0 && CalendarUtil.getDates(event.getStart(), event.getEnd()).contains(date))
+					expected.add(event);
+			}
+			Collections.sort(expected);
+			Collection<CalendarEvent> actual = collection.getEvents(date);
+			Assert.assertEquals(expected, new ArrayList<CalendarEvent>(actual));
+			Assert.assertEquals(expected, buckets.getEvents(day - 1));
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.IndexedEventCollection#propertyChanged(CalendarEvent, de.costache.calendar.model.CalendarEvent.Property, Object)}
+	 * .
+	 */
+	@Test
+	public void testEndChangeMovesEvent() {
+		JCalendar calendar = new JCalendar();
+		EventCollection collection = EventCollectionRepository.get(calendar);
+		CalendarEvent event = new CalendarEvent("Trip", CalendarUtil.createDate(2013, 10, 10, 10, 0, 0, 0),
+				CalendarUtil.createDate(2013, 10, 12, 11, 0, 0, 0));
+		collection.add(event);
+		Assert.assertTrue(collection.getEvents(CalendarUtil.createDate(2013, 10, 12, 0, 0, 0, 0)).contains(event));
+
+		event.setEnd(CalendarUtil.createDate(2013, 10, 10, 18, 0, 0, 0));
+
+		Assert.assertTrue(collection.getEvents(CalendarUtil.createDate(2013, 10, 10, 0, 0, 0, 0)).contains(event));
+		Assert.assertTrue(collection.getEvents(CalendarUtil.createDate(2013, 10, 11, 0, 0, 0, 0)).isEmpty());
+		Assert.assertTrue(collection.getEvents(CalendarUtil.createDate(2013, 10, 12, 0, 0, 0, 0)).isEmpty());
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.AbstractEventCollection#getAggregate(java.util.Date)}
+	 * .
+	 */
+	@Test
+	public void testAggregatesFollowChanges() {
+		Random r = new Random(11);
+		JCalendar calendar = new JCalendar(EventCollection.Type.INDEXED);
+		EventCollection collection = EventCollectionRepository.get(calendar);
+		List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+		for (int i = 0; i < 300; i++) {
+			Date start = CalendarUtil.createDate(2013, 3, 1 + r.nextInt(28), r.nextInt(24), r.nextInt(60), 0, 0);
+			CalendarEvent event = new CalendarEvent("Event " + i, start, new Date(start.getTime()
+					+ r.nextInt(3 * 24 * 60) * 60000L));
+			event.setAllDay(r.nextInt(5) == 0);
+			event.setHoliday(r.nextInt(10) == 0);
+			events.add(event);
+		}
+		collection.addAll(events);
+		for (int i = 0; i < events.size(); i += 7) {
+			collection.remove(events.get(i));
+		}
+		for (int i = 1; i < events.size(); i += 3) {
+			CalendarEvent event = events.get(i);
+			event.setStart(new Date(event.getStart().getTime() - r.nextInt(24 * 60) * 60000L));
+			event.setEnd(new Date(event.getEnd().getTime() + r.nextInt(24 * 60) * 60000L));
+			event.setAllDay(!event.isAllDay());
+			event.setHoliday(r.nextBoolean());
+		}
+
+		for (int day = 0; day < 40; day++) {
+			Date date = CalendarUtil.createDate(2013, 2, 25 + day, 0, 0, 0, 0);
+			long dayStart = date.getTime();
+			long dayEnd = CalendarUtil.createInDays(date, 1).getTime();
+			int allDay = 0;
+			int busyMinutes = 0;
+			List<CalendarEvent> holidays = new ArrayList<CalendarEvent>();
+			Collection<CalendarEvent> dayEvents = collection.getEvents(date);
+			for (CalendarEvent event : dayEvents) {
+				if (event.isAllDay())
+					allDay++;
+				if (event.isHoliday())
+					holidays.add(event);
+				if (!event.isAllDay() && !event.isHoliday())
+					busyMinutes += (Math.min(event.getEnd().getTime(), dayEnd) - Math.max(event.getStart().getTime(),
+							dayStart)) / 60000L;
+			}
+			DayAggregate aggregate = collection.getAggregate(date);
+			Assert.assertEquals(dayEvents.size(), aggregate.getEventCount());
+			Assert.assertEquals(allDay, aggregate.getAllDayCount());
+			Assert.assertEquals(busyMinutes, aggregate.getBusyMinutes());
+			Assert.assertEquals(holidays, aggregate.getHolidays());
+			Assert.assertEquals(holidays, collection.getHolidayEvents(date));
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.IndexedEventCollection#propertyChanged(CalendarEvent, de.costache.calendar.model.CalendarEvent.Property, Object)}
+	 * .
+	 */
+	@Test
+	public void testChangesInBatchAreCoalesced() {
+		IndexedEventCollection collection = new IndexedEventCollection(null);
+		List<ModelChangedEvent> notifications = listenForChanges(collection);
+		List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+		for (int day = 10; day < 15; day++) {
+			events.add(new CalendarEvent(CalendarUtil.createDate(2013, 10, day, 10, 0, 0, 0),
+					CalendarUtil.createDate(2013, 10, day, 11, 0, 0, 0)));
+		}
+		collection.addAll(events);
+
+		collection.beginUpdate();
+		for (CalendarEvent event : events.subList(0, 3)) {
+			event.setStart(new Date(event.getStart().getTime() + 3600000L));
+			event.setEnd(new Date(event.getEnd().getTime() + 3600000L));
+			event.setSummary("moved");
+		}
+		events.get(0).setStart(CalendarUtil.createDate(2013, 10, 20, 10, 0, 0, 0));
+		events.get(0).setEnd(CalendarUtil.createDate(2013, 10, 20, 11, 0, 0, 0));
+		Assert.assertTrue(collection.getEvents(CalendarUtil.createDate(2013, 10, 20, 0, 0, 0, 0)).contains(
+				events.get(0)));
+		Assert.assertTrue(notifications.isEmpty());
+		collection.endUpdate();
+
+		Assert.assertEquals(1, notifications.size());
+		ModelChangedEvent event = notifications.get(0);
+		Assert.assertEquals(3, event.getChanges().size());
+		Assert.assertEquals(CalendarUtil.createDate(2013, 10, 10, 10, 0, 0, 0), event.getIntervalStart());
+		Assert.assertEquals(CalendarUtil.createDate(2013, 10, 20, 11, 0, 0, 0), event.getIntervalEnd());
+		ModelChangedEvent first = event.getChanges().get(0);
+		Assert.assertSame(events.get(0), first.getCalendarEvent());
+		Assert.assertEquals(EnumSet.of(Property.START, Property.END, Property.SUMMARY), first.getProperties());
+		Assert.assertEquals(CalendarUtil.createDate(2013, 10, 10, 10, 0, 0, 0), first.getIntervalStart());
+		Assert.assertEquals(CalendarUtil.createDate(2013, 10, 20, 11, 0, 0, 0), first.getIntervalEnd());
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.IndexedEventCollection#propertyChanged(CalendarEvent, de.costache.calendar.model.CalendarEvent.Property, Object)}
+	 * .
+	 */
+	@Test
+	public void testChangesAreDeliveredOnEventDispatchThread() throws Exception {
+		final CalendarEvent changed = new CalendarEvent(CalendarUtil.createDate(2013, 10, 10, 10, 0, 0, 0),
+				CalendarUtil.createDate(2013, 10, 10, 11, 0, 0, 0));
+		final CalendarEvent removed = new CalendarEvent(CalendarUtil.createDate(2013, 10, 11, 10, 0, 0, 0),
+				CalendarUtil.createDate(2013, 10, 11, 11, 0, 0, 0));
+		final IndexedEventCollection collection = new IndexedEventCollection(null);
+		final List<ModelChangedEvent> notifications = listenForChanges(collection);
+		collection.add(changed);
+		collection.add(removed);
+
+		SwingUtilities.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 100; i++) {
+					changed.setPriority(i);
+					removed.setPriority(i);
+				}
+				collection.remove(removed);
+				Assert.assertTrue(notifications.isEmpty());
+			}
+		});
+		SwingUtilities.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+			}
+		});
+		Assert.assertEquals(1, collection.size());
+		Assert.assertEquals(1, notifications.size());
+		Assert.assertSame(changed, notifications.get(0).getCalendarEvent());
+		Assert.assertEquals(1, notifications.get(0).getChanges().size());
+		Assert.assertEquals(EnumSet.of(Property.PRIORITY), notifications.get(0).getProperties());
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.AbstractEventCollection#addSeries(CalendarEvent)}
+	 * .
+	 */
+	@Test
+	public void testRecurringEventsAreExpandedOnQuery() {
+		for (EventCollection.Type type : EventCollection.Type.values()) {
+			JCalendar calendar = new JCalendar(type);
+			EventCollection collection = EventCollectionRepository.get(calendar);
+			CalendarEvent review = new CalendarEvent("Review", CalendarUtil.createDate(2013, 3, 6, 8, 0, 0, 0),
+					CalendarUtil.createDate(2013, 3, 6, 10, 0, 0, 0));
+			RecurringEvent standup = new RecurringEvent("Standup", CalendarUtil.createDate(2013, 3, 4, 9, 0, 0, 0),
+					CalendarUtil.createDate(2013, 3, 4, 9, 15, 0, 0), new Recurrence(Frequency.DAILY));
+			standup.addException(CalendarUtil.createDate(2013, 3, 7, 9, 0, 0, 0));
+			collection.addAll(Arrays.asList(review, standup));
+			Assert.assertEquals(2, collection.getAllEvents().size());
+
+			List<CalendarEvent> day = new ArrayList<CalendarEvent>(collection.getEvents(CalendarUtil.createDate(2013,
+					3, 6, 0, 0, 0, 0)));
+			Assert.assertEquals(2, day.size());
+			Assert.assertSame(review, day.get(0));
+			Assert.assertSame(standup, ((Occurrence) day.get(1)).getSeries());
+			List<CalendarEvent> again = new ArrayList<CalendarEvent>(collection.getEvents(CalendarUtil.createDate(2013,
+					3, 6, 12, 0, 0, 0)));
+			Assert.assertSame(day.get(1), again.get(1));
+
+			Date from = CalendarUtil.createDate(2013, 3, 1, 0, 0, 0, 0);
+			EventBuckets buckets = collection.getEvents(from, CalendarUtil.createDate(2013, 4, 1, 0, 0, 0, 0));
+			int[] counts = collection.getEventCounts(from, CalendarUtil.createDate(2013, 4, 1, 0, 0, 0, 0));
+			for (int i = 0; i < buckets.size(); i++) {
+				int expected = i < 3 || i == 6 ? 0 : 1;
+				expected += i == 5 ? 1 : 0;
+				Assert.assertEquals(type + " " + buckets.getDay(i), expected, buckets.getEvents(i).size());
+				Assert.assertEquals(expected, counts[i]);
+			}
+			Assert.assertEquals(135, collection.getAggregate(CalendarUtil.createDate(2013, 3, 6, 0, 0, 0, 0))
+					.getBusyMinutes());
+
+			standup.setStart(CalendarUtil.createDate(2013, 3, 10, 9, 0, 0, 0));
+			standup.setEnd(CalendarUtil.createDate(2013, 3, 10, 9, 15, 0, 0));
+			Assert.assertEquals(1, collection.getEvents(CalendarUtil.createDate(2013, 3, 6, 0, 0, 0, 0)).size());
+			Assert.assertEquals(1, collection.getEvents(CalendarUtil.createDate(2013, 3, 12, 0, 0, 0, 0)).size());
+
+			collection.remove(standup);
+			Assert.assertEquals(1, collection.getAllEvents().size());
+			Assert.assertTrue(collection.getEvents(CalendarUtil.createDate(2013, 3, 12, 0, 0, 0, 0)).isEmpty());
+		}
+	}
+
+	private static List<ModelChangedEvent> listenForChanges(EventCollection collection) {
+		final List<ModelChangedEvent> notifications = Collections.synchronizedList(new ArrayList<ModelChangedEvent>());
+		collection.addCollectionChangedListener(new ModelChangedListener() {
+
+			@Override
+			public void eventAdded(ModelChangedEvent event) {
+			}
+
+			@Override
+			public void eventRemoved(ModelChangedEvent event) {
+			}
+
+			@Override
+			public void eventChanged(ModelChangedEvent event) {
+				notifications.add(event);
+			}
+		});
+		return notifications;
+	}
+}
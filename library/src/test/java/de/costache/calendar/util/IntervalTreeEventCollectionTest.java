@@ -0,0 +1,254 @@
+/**
+ * Copyright 2013 Theodor Costache
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License. 
+ */
+package de.costache.calendar.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.costache.calendar.JCalendar;
+import de.costache.calendar.events.ModelChangedEvent;
+import de.costache.calendar.events.ModelChangedListener;
+import de.costache.calendar.model.CalendarEvent;
+
+/**
+ *
+ * @author theodorcostache
+ *
+ */
+public class IntervalTreeEventCollectionTest {
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.IntervalTreeEventCollection#getEvents(java.util.Date)}
+	 * .
+	 */
+	@Test
+	public void testGetEventsSpanningSeveralDays() {
+		IntervalTreeEventCollection collection = new IntervalTreeEventCollection(null);
+		CalendarEvent event = new CalendarEvent("Trip", CalendarUtil.createDate(2013, 10, 10, 20, 0, 0, 0),
+				CalendarUtil.createDate(2013, 10, 13, 8, 0, 0, 0));
+		collection.add(event);
+
+		Assert.assertTrue(collection.getEvents(CalendarUtil.createDate(2013, 10, 9, 12, 0, 0, 0)).isEmpty());
+		Assert.assertTrue(collection.getEvents(CalendarUtil.createDate(2013, 10, 10, 12, 0, 0, 0)).contains(event));
+		Assert.assertTrue(collection.getEvents(CalendarUtil.createDate(2013, 10, 11, 12, 0, 0, 0)).contains(event));
+		Assert.assertTrue(collection.getEvents(CalendarUtil.createDate(2013, 10, 13, 12, 0, 0, 0)).contains(event));
+		Assert.assertTrue(collection.getEvents(CalendarUtil.createDate(2013, 10, 14, 12, 0, 0, 0)).isEmpty());
+
+		collection.remove(event);
+		Assert.assertTrue(collection.getEvents(CalendarUtil.createDate(2013, 10, 11, 12, 0, 0, 0)).isEmpty());
+		Assert.assertEquals(0, collection.size());
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.IntervalTreeEventCollection#getEvents(java.util.Date)}
+	 * .
+	 */
+	@Test
+	public void testGetEventsMatchesLinearScan() {
+		Random r = new Random(42);
+		IntervalTreeEventCollection collection = new IntervalTreeEventCollection(null);
+		List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+		for (int i = 0; i < 2000; i++) {
+			Date start = CalendarUtil.createDate(2013, 1 + r.nextInt(2), 1 + r.nextInt(28), r.nextInt(24),
+					r.nextInt(60), 0, 0);
+			Date end = new Date(start.getTime() + r.nextInt(4 * 24 * 60) * 60000L);
+			CalendarEvent event = new CalendarEvent(start, end);
+			events.add(event);
+			collection.add(event);
+		}
+		for (int i = 0; i < events.size(); i += 3) {
+			collection.remove(events.get(i));
+		}
+
+		for (int day = 1; day <= 28; day++) {
+			Date date = CalendarUtil.createDate(2013, 2, day, 0, 0, 0, 0);
+			List<CalendarEvent> expected = new ArrayList<CalendarEvent>();
+			for (int i = 0; i < events.size(); i++) {
+				CalendarEvent event = events.get(i);
+				if (i % 3 != 0 && CalendarUtil.getDates(event.getStart(), event.getEnd()).contains(date))
+					expected.add(event);
+			}
+			Collections.sort(expected);
+			Collection<CalendarEvent> actual = collection.getEvents(date);
+			Assert.assertEquals(expected, new ArrayList<CalendarEvent>(actual));
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.IntervalTreeEventCollection#propertyChanged(CalendarEvent, de.costache.calendar.model.CalendarEvent.Property, Object)}
+	 * .
+	 */
+	@Test
+	public void testStartChangeMovesEvent() {
+		JCalendar calendar = new JCalendar(EventCollection.Type.INTERVAL_TREE);
+		EventCollection collection = EventCollectionRepository.get(calendar);
+		CalendarEvent event = new CalendarEvent("Meeting", CalendarUtil.createDate(2013, 10, 10, 10, 0, 0, 0),
+				CalendarUtil.createDate(2013, 10, 10, 11, 0, 0, 0));
+		collection.add(event);
+
+		event.setStart(CalendarUtil.createDate(2013, 10, 9, 10, 0, 0, 0));
+
+		Assert.assertTrue(collection.getEvents(CalendarUtil.createDate(2013, 10, 9, 0, 0, 0, 0)).contains(event));
+		Assert.assertTrue(collection.getEvents(CalendarUtil.createDate(2013, 10, 10, 0, 0, 0, 0)).contains(event));
+
+		event.setEnd(CalendarUtil.createDate(2013, 10, 9, 11, 0, 0, 0));
+
+		Assert.assertTrue(collection.getEvents(CalendarUtil.createDate(2013, 10, 9, 0, 0, 0, 0)).contains(event));
+		Assert.assertTrue(collection.getEvents(CalendarUtil.createDate(2013, 10, 10, 0, 0, 0, 0)).isEmpty());
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.IntervalTreeEventCollection#addAll(java.util.Collection)}
+	 * .
+	 */
+	@Test
+	public void testAddAllNotifiesOnce() {
+		final List<ModelChangedEvent> notifications = new ArrayList<ModelChangedEvent>();
+		IntervalTreeEventCollection collection = new IntervalTreeEventCollection(null);
+		collection.addCollectionChangedListener(new ModelChangedListener() {
+
+			@Override
+			public void eventAdded(ModelChangedEvent event) {
+				notifications.add(event);
+			}
+
+			@Override
+			public void eventRemoved(ModelChangedEvent event) {
+				notifications.add(event);
+			}
+
+			@Override
+			public void eventChanged(ModelChangedEvent event) {
+				notifications.add(event);
+			}
+		});
+
+		List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+		for (int day = 1; day <= 20; day++) {
+			events.add(new CalendarEvent(CalendarUtil.createDate(2013, 3, day, 10, 0, 0, 0),
+					CalendarUtil.createDate(2013, 3, day, 12, 0, 0, 0)));
+		}
+		collection.addAll(events.subList(0, 10));
+		collection.addAll(events.subList(5, 20));
+
+		Assert.assertEquals(2, notifications.size());
+		Assert.assertEquals(10, notifications.get(1).getCalendarEvents().size());
+		Assert.assertEquals(CalendarUtil.createDate(2013, 3, 11, 10, 0, 0, 0), notifications.get(1).getIntervalStart());
+		Assert.assertEquals(CalendarUtil.createDate(2013, 3, 20, 12, 0, 0, 0), notifications.get(1).getIntervalEnd());
+		Assert.assertEquals(20, collection.size());
+
+		EventBuckets buckets = collection.getEvents(CalendarUtil.createDate(2013, 3, 1, 0, 0, 0, 0),
+				CalendarUtil.createDate(2013, 3, 21, 0, 0, 0, 0));
+		Assert.assertEquals(20, buckets.size());
+		for (int i = 0; i < 20; i++) {
+			Assert.assertEquals(Collections.singletonList(events.get(i)), buckets.getEvents(i));
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.AbstractEventCollection#getEventCounts(java.util.Date, java.util.Date)}
+	 * .
+	 */
+	@Test
+	public void testEventCountsFollowChanges() {
+		Random r = new Random(7);
+		JCalendar calendar = new JCalendar(EventCollection.Type.INTERVAL_TREE);
+		EventCollection collection = EventCollectionRepository.get(calendar);
+		List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+		for (int i = 0; i < 500; i++) {
+			Date start = CalendarUtil.createDate(2013, 1 + r.nextInt(3), 1 + r.nextInt(28), r.nextInt(24),
+					r.nextInt(60), 0, 0);
+			CalendarEvent event = new CalendarEvent(start, new Date(start.getTime() + r.nextInt(3 * 24 * 60) * 60000L));
+			events.add(event);
+		}
+		collection.addAll(events);
+		collection.add(events.get(0));
+		for (int i = 0; i < events.size(); i += 5) {
+			collection.remove(events.get(i));
+		}
+		collection.remove(events.get(0));
+		for (int i = 1; i < events.size(); i += 5) {
+			CalendarEvent event = events.get(i);
+			event.setStart(new Date(event.getStart().getTime() - r.nextInt(2 * 24 * 60) * 60000L));
+			event.setEnd(new Date(event.getEnd().getTime() + r.nextInt(2 * 24 * 60) * 60000L));
+		}
+
+		Date from = CalendarUtil.createDate(2012, 12, 25, 0, 0, 0, 0);
+		int[] counts = collection.getEventCounts(from, CalendarUtil.createDate(2013, 4, 10, 0, 0, 0, 0));
+		for (int i = 0; i < counts.length; i++) {
+			Assert.assertEquals(collection.getEvents(CalendarUtil.createInDays(from, i)).size(), counts[i]);
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link de.costache.calendar.util.AbstractEventCollection#getEvents(String, java.util.Date, java.util.Date, java.util.Collection)}
+	 * .
+	 */
+	@Test
+	public void testEventsArePartitionedByResource() {
+		JCalendar calendar = new JCalendar(EventCollection.Type.INTERVAL_TREE);
+		EventCollection collection = EventCollectionRepository.get(calendar);
+		CalendarEvent unassigned = new CalendarEvent("Lunch", CalendarUtil.createDate(2013, 5, 6, 12, 0, 0, 0),
+				CalendarUtil.createDate(2013, 5, 6, 13, 0, 0, 0));
+		collection.add(unassigned);
+		Assert.assertEquals(Collections.singletonList((String) null), collection.getResources());
+
+		CalendarEvent meeting = new CalendarEvent("Meeting", CalendarUtil.createDate(2013, 5, 6, 10, 0, 0, 0),
+				CalendarUtil.createDate(2013, 5, 6, 11, 0, 0, 0));
+		meeting.setResource("Room B");
+		CalendarEvent review = new CalendarEvent("Review", CalendarUtil.createDate(2013, 5, 7, 10, 0, 0, 0),
+				CalendarUtil.createDate(2013, 5, 7, 11, 0, 0, 0));
+		review.setResource("Room A");
+		collection.add(meeting);
+		collection.add(review);
+		Assert.assertEquals(Arrays.asList("Room A", "Room B", null), collection.getResources());
+
+		Date from = CalendarUtil.createDate(2013, 5, 6, 0, 0, 0, 0);
+		Date to = CalendarUtil.createDate(2013, 5, 8, 0, 0, 0, 0);
+		List<CalendarEvent> result = new ArrayList<CalendarEvent>();
+		collection.getEvents("Room B", from, to, result);
+		Assert.assertEquals(Collections.singletonList(meeting), result);
+
+		meeting.setResource("Room A");
+		meeting.setStart(CalendarUtil.createDate(2013, 5, 7, 8, 0, 0, 0));
+		meeting.setEnd(CalendarUtil.createDate(2013, 5, 7, 9, 0, 0, 0));
+		Assert.assertEquals(Arrays.asList("Room A", null), collection.getResources());
+		result.clear();
+		collection.getEvents("Room A", from, CalendarUtil.createDate(2013, 5, 7, 12, 0, 0, 0), result);
+		Assert.assertEquals(Arrays.asList(meeting, review), result);
+
+		result.clear();
+		collection.remove(unassigned);
+		collection.getEvents(null, from, to, result);
+		Assert.assertTrue(result.isEmpty());
+		Assert.assertEquals(Collections.singletonList("Room A"), collection.getResources());
+	}
+}